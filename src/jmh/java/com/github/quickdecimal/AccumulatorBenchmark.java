@@ -0,0 +1,77 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Summation of 1M prices (scale 8, up to 2^40, so the sums stay in long): repeated {@link AbstractDecimal#add}
+ * against {@link DecimalAccumulator} value by value and in bulk. The time is per value.
+ */
+@State(Scope.Thread)
+@OperationsPerInvocation(AccumulatorBenchmark.SIZE)
+public class AccumulatorBenchmark {
+    static final int SIZE = 1 << 20;
+
+    private final long[] raws = new long[SIZE];
+    private final Money value = new Money();
+    private final Money sum = new Money();
+    private final DecimalAccumulator accumulator = DecimalAccumulator.of(8);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            raws[i] = seed >> 24;
+        }
+    }
+
+    @Benchmark
+    public Money addDecimal() {
+        sum.setRaw(0);
+        for (long raw : raws) {
+            sum.add(value.setRaw(raw));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Money addRaw() {
+        accumulator.reset();
+        for (long raw : raws) {
+            accumulator.addRaw(raw);
+        }
+        return accumulator.roundTo(sum, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public Money addAll() {
+        return accumulator.reset().addAll(raws).roundTo(sum, RoundingMode.HALF_EVEN);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Aggregations of 64K prices (scale 8, up to 2^40): loops over decimals against the {@link DecimalMath} kernels
+ * over the raws into an {@link Aggregate}. The time is per value.
+ */
+@State(Scope.Thread)
+@OperationsPerInvocation(AggregateBenchmark.SIZE)
+public class AggregateBenchmark {
+    static final int SIZE = 1 << 16;
+
+    private final long[] raws = new long[SIZE];
+    private final long[] prefixSums = new long[SIZE];
+    private final Money[] values = new Money[SIZE];
+    private final Money[] prefixValues = new Money[SIZE];
+    private final Money sum = new Money();
+    private final Money count = new Money();
+    private final Money mean = new Money();
+    private final Aggregate result = new Aggregate();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            raws[i] = seed >> 24;
+            values[i] = new Money().setRaw(raws[i]);
+            prefixValues[i] = new Money();
+        }
+    }
+
+    @Benchmark
+    public Money sumDecimals() {
+        sum.setRaw(0);
+        for (Money value : values) {
+            sum.add(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Aggregate sumRaws() {
+        return DecimalMath.sum(raws, 0, SIZE, result);
+    }
+
+    @Benchmark
+    public int minDecimals() {
+        int index = 0;
+        for (int i = 1; i < SIZE; i++) {
+            if (values[i].compareTo(values[index]) < 0) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    @Benchmark
+    public Aggregate minRaws() {
+        return DecimalMath.min(raws, 0, SIZE, result);
+    }
+
+    @Benchmark
+    public int maxDecimals() {
+        int index = 0;
+        for (int i = 1; i < SIZE; i++) {
+            if (values[i].compareTo(values[index]) > 0) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    @Benchmark
+    public Aggregate maxRaws() {
+        return DecimalMath.max(raws, 0, SIZE, result);
+    }
+
+    @Benchmark
+    public Money meanDecimals() {
+        return mean.quotient(sumDecimals(), count.set(SIZE), RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public Aggregate meanRaws() {
+        return DecimalMath.mean(raws, 0, SIZE, 0, RoundingMode.HALF_EVEN, result);
+    }
+
+    @Benchmark
+    public Money[] prefixSumDecimals() {
+        sum.setRaw(0);
+        for (int i = 0; i < SIZE; i++) {
+            prefixValues[i].set(sum.add(values[i]));
+        }
+        return prefixValues;
+    }
+
+    @Benchmark
+    public Aggregate prefixSumRaws() {
+        System.arraycopy(raws, 0, prefixSums, 0, SIZE);
+        return DecimalMath.prefixSum(prefixSums, 0, SIZE, result);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Bulk kernels on raw arrays of 1K (in L1), 1M (in L2/L3) and 100M (memory, needs -Xmx4g) elements: the scalar
+ * {@link ArrayKernels} against {@link ArrayKernels#INSTANCE}, which is the SIMD one on Java 21 with
+ * "--add-modules jdk.incubator.vector" (e.g. -PjmhJvm=$JAVA21_HOME/bin/java -PjmhVector) and the same scalar one
+ * otherwise.
+ * The time is per call (of size elements).
+ */
+@State(Scope.Thread)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class ArrayKernelsBenchmark {
+    @Param({"1000", "1000000", "100000000"})
+    private int size;
+
+    @Param({"scalar", "default"})
+    private String kernels;
+
+    private ArrayKernels impl;
+    private long[] a;
+    private long[] b;
+    private long[] result;
+    private int[] comparison;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        impl = "scalar".equals(kernels) ? new ArrayKernels() : ArrayKernels.INSTANCE;
+        a = new long[size];
+        b = new long[size];
+        result = new long[size];
+        comparison = new int[size];
+        // Fast linear congruential generator with parameters from Wiki, values up to 2^40 with some NaNs
+        long seed = 42;
+        for (int i = 0; i < size; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            a[i] = (seed & 0x3ff) == 0 ? AbstractDecimal.NaN : seed >> 24;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            b[i] = seed >> 24;
+        }
+    }
+
+    @Benchmark
+    public long[] add() {
+        impl.add(a, b, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public long[] subtract() {
+        impl.subtract(a, b, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public long[] negate() {
+        impl.negate(a, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public long[] max() {
+        impl.max(a, b, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public int[] compare() {
+        impl.compare(a, b, comparison, 0, size);
+        return comparison;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import com.github.quickdecimal.sample.Quantity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Position values (quantity * price) of a whole book: {@link DecimalColumn} kernels against the same arithmetic on
+ * arrays of decimal objects, per element. The columns take 8 bytes per value and are read sequentially.
+ */
+@State(Scope.Thread)
+@OperationsPerInvocation(ColumnBenchmark.SIZE)
+public class ColumnBenchmark {
+    static final int SIZE = 1 << 20;
+
+    private final DecimalColumn quantities = DecimalColumn.of(SIZE, 2);
+    private final DecimalColumn prices = DecimalColumn.of(SIZE, 8);
+    private final DecimalColumn values = DecimalColumn.of(SIZE, 8);
+    private final Quantity[] quantityObjects = new Quantity[SIZE];
+    private final Money[] priceObjects = new Money[SIZE];
+    private final Money[] valueObjects = new Money[SIZE];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki, quantities and prices up to 2^30
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            quantities.setRaw(i, seed >> 34);
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            prices.setRaw(i, (seed >>> 34) | 1);
+            quantityObjects[i] = new Quantity().setRaw(quantities.getRaw(i));
+            priceObjects[i] = new Money().setRaw(prices.getRaw(i));
+            valueObjects[i] = new Money();
+        }
+    }
+
+    @Benchmark
+    public DecimalColumn mulColumn() {
+        return quantities.mul(prices, values, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public Money[] mulObjects() {
+        for (int i = 0; i < SIZE; i++) {
+            valueObjects[i].set(priceObjects[i]).mul(quantityObjects[i], RoundingMode.HALF_EVEN);
+        }
+        return valueObjects;
+    }
+
+    @Benchmark
+    public DecimalColumn addColumn() {
+        return prices.add(values, values);
+    }
+
+    @Benchmark
+    public Money[] addObjects() {
+        for (int i = 0; i < SIZE; i++) {
+            valueObjects[i].add(priceObjects[i]);
+        }
+        return valueObjects;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * 128-bit decimals (18 dp) against BigDecimal of the same values
+ */
+@State(Scope.Thread)
+public class Decimal128Benchmark {
+    private long seed = System.nanoTime();
+    private final Decimal128 value1 = Decimal128.of(0);
+    private final Decimal128 value2 = Decimal128.of(0);
+    private final Decimal128 result = Decimal128.of(0);
+    private BigDecimal bigDecimal1;
+    private BigDecimal bigDecimal2;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki, ~92 bits (~5 * 10^9 at 18 dp) per value,
+        // so the product still fits
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        long high1 = seed >> 36;
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        value1.setRaw(high1, seed);
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        long high2 = seed >> 36;
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        value2.setRaw(high2, seed);
+
+        bigDecimal1 = bigDecimal(value1);
+        bigDecimal2 = bigDecimal(value2);
+    }
+
+    @Benchmark
+    public long plusDecimal128() {
+        return result.plus(value1, value2).getLow();
+    }
+
+    @Benchmark
+    public int plusBigDecimal() {
+        return bigDecimal1.add(bigDecimal2).signum();
+    }
+
+    @Benchmark
+    public long productDecimal128() {
+        return result.productRD(value1, value2).getLow();
+    }
+
+    @Benchmark
+    public int productBigDecimal() {
+        return bigDecimal1.multiply(bigDecimal2).setScale(18, RoundingMode.DOWN).signum();
+    }
+
+    @Benchmark
+    public long quotientDecimal128() {
+        return result.quotientRD(value1, value2).getLow();
+    }
+
+    @Benchmark
+    public int quotientBigDecimal() {
+        return bigDecimal1.divide(bigDecimal2, 18, RoundingMode.DOWN).signum();
+    }
+
+    @Benchmark
+    public int toStringDecimal128() {
+        return value1.toStringBuilder(new StringBuilder(42)).length();
+    }
+
+    @Benchmark
+    public int toStringBigDecimal() {
+        return bigDecimal1.toPlainString().length();
+    }
+
+    private static BigDecimal bigDecimal(Decimal128 value) {
+        BigInteger raw = BigInteger.valueOf(value.getHigh()).shiftLeft(64)
+                .add(new BigInteger(Long.toUnsignedString(value.getLow())));
+        return new BigDecimal(raw, 18);
+    }
+}
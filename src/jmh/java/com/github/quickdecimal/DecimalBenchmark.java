@@ -36,6 +36,7 @@ public class DecimalBenchmark {
     private long seed = System.nanoTime();
     private long value1;
     private long value2;
+    private Divisor divisor;
 
     @Setup(Level.Iteration)
     public void setup() {
@@ -44,6 +45,7 @@ public class DecimalBenchmark {
         value1 = seed;
         seed = seed * 6364136223846793005L + 1442695040888963407L;
         value2 = seed;
+        divisor = Divisor.of(new Quantity().setRaw(value2));
     }
 
     @Benchmark
@@ -71,6 +73,53 @@ public class DecimalBenchmark {
         return new Money().quotientRD(new Quantity().setRaw(value1), new Quantity().setRaw(value2)).getRaw();
     }
 
+    @Benchmark
+    public long quotientDivisor() {
+        return new Money().quotientRD(new Quantity().setRaw(value1), divisor).getRaw();
+    }
+
+    @Benchmark
+    public long mulAddDecimal() {
+        // realistic magnitudes: quantity up to 2^29, price up to 2^33
+        return new Quantity().setRaw(value2 >> 30).mulAddRD(new Quantity().setRaw(value1 >> 34), new Money().setRaw(value2 >> 30)).getRaw();
+    }
+
+    @Benchmark
+    public long mulThenAddDecimal() {
+        return new Quantity().setRaw(value2 >> 30).add(new Quantity().setRaw(value1 >> 34).mulRD(new Money().setRaw(value2 >> 30))).getRaw();
+    }
+
+    @Benchmark
+    public long mulDivDecimal() {
+        return new Money().mulDivRD(new Quantity().setRaw(value1 >> 34), new Quantity().setRaw(value2 >> 30), new Quantity().setRaw(value2)).getRaw();
+    }
+
+    @Benchmark
+    public long mulThenQuotientDecimal() {
+        return new Money().quotientRD(new Quantity().setRaw(value1 >> 34).mulRD(new Quantity().setRaw(value2 >> 30)), new Quantity().setRaw(value2)).getRaw();
+    }
+
+    @Benchmark
+    public long multiplySmallDecimal() {
+        // realistic magnitudes: quantity up to 2^29, price up to 2^33
+        return new Quantity().setRaw(value1 >> 34).mulRD(new Money().setRaw(value2 >> 30)).getRaw();
+    }
+
+    @Benchmark
+    public long multiplySmallUncheckedDecimal() {
+        return new Quantity().setRaw(value1 >> 34).mulUncheckedRD(new Money().setRaw(value2 >> 30)).getRaw();
+    }
+
+    @Benchmark
+    public long quotientSmallDecimal() {
+        return new Money().quotientRD(new Quantity().setRaw(value1 >> 34), new Quantity().setRaw((value2 >> 30) | 1)).getRaw();
+    }
+
+    @Benchmark
+    public long quotientSmallUncheckedDecimal() {
+        return new Money().quotientUncheckedRD(new Quantity().setRaw(value1 >> 34), new Quantity().setRaw((value2 >> 30) | 1)).getRaw();
+    }
+
     @Benchmark
     public long multiplyBigDecimal() {
         return new BigDecimal(value1).scaleByPowerOfTen(-2).multiply(new BigDecimal(value2).scaleByPowerOfTen(-8)).signum();
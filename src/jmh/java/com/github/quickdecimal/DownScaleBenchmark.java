@@ -0,0 +1,101 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares reciprocal-multiplication downscaling in {@link BaseDecimal#downScale_63_31} with the previous
+ * "switch + division by constant" implementation (kept here as a reference).
+ */
+@State(Scope.Thread)
+public class DownScaleBenchmark {
+    @Param({"2", "5", "8", "9"})
+    private int scale;
+
+    private final BaseDecimal decimal = new Money();
+    private long seed = System.nanoTime();
+    private long value;
+    private long remainder;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        value = seed;
+    }
+
+    @Benchmark
+    public long reciprocal() {
+        return decimal.downScale_63_31(value, scale) + decimal.a;
+    }
+
+    @Benchmark
+    public long reciprocalUnsigned() {
+        return decimal.unsignedDownScale_64_31(value, scale) + decimal.a;
+    }
+
+    @Benchmark
+    public long switchDivision() {
+        return switchDownScale(value, scale) + remainder;
+    }
+
+    private long switchDownScale(long v_63, int scale) {
+        switch (scale) {
+            case 0:
+                remainder = 0;
+                return v_63;
+            case 1:
+                remainder = v_63 % 10;
+                return v_63 / 10;
+            case 2:
+                remainder = v_63 % 100;
+                return v_63 / 100;
+            case 3:
+                remainder = v_63 % 1000;
+                return v_63 / 1000;
+            case 4:
+                remainder = v_63 % 10000;
+                return v_63 / 10000;
+            case 5:
+                remainder = v_63 % 100000;
+                return v_63 / 100000;
+            case 6:
+                remainder = v_63 % 1000000;
+                return v_63 / 1000000;
+            case 7:
+                remainder = v_63 % 10000000;
+                return v_63 / 10000000;
+            case 8:
+                remainder = v_63 % 100000000;
+                return v_63 / 100000000;
+            case 9:
+                remainder = v_63 % 1000000000;
+                return v_63 / 1000000000;
+            default:
+                throw new IllegalArgumentException("Incorrect scale: " + scale);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Functions (sqrt, pow, exp, ln) on prices (scale 8, from 0.5 to 200) compared to double and BigDecimal
+ * (where it has the function) with the same number of significant digits.
+ * The decimal ones do not allocate, see "-prof gc".
+ */
+@State(Scope.Thread)
+public class FunctionBenchmark {
+    private static final int SIZE = 1024; // power of 2
+    private static final MathContext MATH_CONTEXT = new MathContext(18, RoundingMode.HALF_EVEN);
+
+    private final long[] prices = new long[SIZE];
+    private final long[] exponents = new long[SIZE]; // -5..5
+    private final double[] doublePrices = new double[SIZE];
+    private final double[] doubleExponents = new double[SIZE];
+    private final BigDecimal[] bigDecimalPrices = new BigDecimal[SIZE];
+    private final Money money = new Money();
+    private final Money exponent = new Money();
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            prices[i] = 50_000_000 + ((seed >>> 1) % 19_950_000_000L);
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            exponents[i] = (seed >>> 1) % 1_000_000_000L - 500_000_000;
+            doublePrices[i] = prices[i] / 1e8;
+            doubleExponents[i] = exponents[i] / 1e8;
+            bigDecimalPrices[i] = BigDecimal.valueOf(prices[i], 8);
+        }
+    }
+
+    @Benchmark
+    public long sqrtDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.setRaw(prices[i]).sqrt(RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public double sqrtDouble() {
+        int i = index++ & (SIZE - 1);
+        return Math.sqrt(doublePrices[i]);
+    }
+
+    @Benchmark
+    public BigDecimal sqrtBigDecimal() {
+        int i = index++ & (SIZE - 1);
+        return bigDecimalPrices[i].sqrt(MATH_CONTEXT);
+    }
+
+    @Benchmark
+    public long powDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.setRaw(prices[i]).pow(12, RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public double powDouble() {
+        int i = index++ & (SIZE - 1);
+        return Math.pow(doublePrices[i], 12);
+    }
+
+    @Benchmark
+    public BigDecimal powBigDecimal() {
+        int i = index++ & (SIZE - 1);
+        return bigDecimalPrices[i].pow(12, MATH_CONTEXT);
+    }
+
+    @Benchmark
+    public long powFractionalDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.setRaw(prices[i]).pow(exponent.setRaw(exponents[i]), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public double powFractionalDouble() {
+        int i = index++ & (SIZE - 1);
+        return Math.pow(doublePrices[i], doubleExponents[i]);
+    }
+
+    @Benchmark
+    public long expDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.setRaw(exponents[i]).exp(RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public double expDouble() {
+        int i = index++ & (SIZE - 1);
+        return Math.exp(doubleExponents[i]);
+    }
+
+    @Benchmark
+    public long lnDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.setRaw(prices[i]).ln(RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public double lnDouble() {
+        int i = index++ & (SIZE - 1);
+        return Math.log(doublePrices[i]);
+    }
+}
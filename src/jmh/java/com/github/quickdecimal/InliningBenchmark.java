@@ -0,0 +1,100 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import com.github.quickdecimal.sample.Quantity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic called from realistic loops (average price with a margin as in {@link com.github.quickdecimal.sample.Sample},
+ * notionals, price ratios) with quantities fitting int and prices which don't, so the general kernels
+ * ({@link BaseDecimal#mulscale_63_31}, {@link BaseDecimal#scalediv_63_63}) are used and must be inlined into the loop.
+ * The "inliningLog" benchmark is the average price run in a fork printing C2 inlining decisions: the kernels should be
+ * reported as "inline (hot)" rather than "hot method too big" or "already compiled into a big method".
+ */
+@State(Scope.Thread)
+public class InliningBenchmark {
+    private static final int SIZE = 1024;
+
+    private final Quantity[] quantities = new Quantity[SIZE];
+    private final Money[] prices = new Money[SIZE];
+    private final Decimal margin = Decimal.of(5).divRD(10000L).add(1); // 5 bp
+    private final Quantity cumQuantity = new Quantity();
+    private final Quantity cumContraQuantity = new Quantity();
+    private final Money priceWithMargin = new Money();
+    private final Money money = new Money();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            quantities[i] = new Quantity().setRaw((seed >>> 40) + 1); // up to 167772.16
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            prices[i] = new Money().setRaw((seed >>> 21) + 1); // up to 87960.93022208
+        }
+    }
+
+    @Benchmark
+    public long avgPrice() {
+        cumQuantity.set(0);
+        cumContraQuantity.set(0);
+
+        for (int i = 0; i < SIZE; i++) {
+            cumQuantity.add(quantities[i]);
+            priceWithMargin.set(prices[i]).mulRD(margin);
+            cumContraQuantity.mulAddRD(quantities[i], priceWithMargin);
+        }
+
+        return money.quotientRD(cumContraQuantity, cumQuantity).getRaw();
+    }
+
+    @Benchmark
+    public long notionals() {
+        long sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += money.set(prices[i]).mul(quantities[i], RoundingMode.HALF_EVEN).getRaw();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long priceRatios() {
+        long sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += money.quotient(prices[i], prices[(i + 1) & (SIZE - 1)], RoundingMode.HALF_EVEN).getRaw();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-XX:+UnlockDiagnosticVMOptions", "-XX:+PrintInlining"})
+    public long inliningLog() {
+        return avgPrice();
+    }
+}
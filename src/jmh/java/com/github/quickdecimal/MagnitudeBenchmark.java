@@ -0,0 +1,153 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import com.github.quickdecimal.sample.Quantity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Multiplication and division for different operand magnitudes, to see the gain of the fast paths for small operands
+ * (the product or the scaled numerator fits long) and the cost of the check for big ones:
+ * <ul>
+ *     <li>small - quantities and prices fitting 31 bits</li>
+ *     <li>mixed - log-uniform magnitudes (random shift), so the branch is unpredictable</li>
+ *     <li>nearOverflow - ~40 bits each, the result still fits but the intermediates do not</li>
+ * </ul>
+ * The "kernel" benchmarks call the general routines directly as a baseline, the "abs" ones compare signed and
+ * {@link AbstractUnsignedDecimal} types on the same non-negative values.
+ */
+@State(Scope.Thread)
+public class MagnitudeBenchmark {
+    private static final int SIZE = 1024; // power of 2
+
+    @Param({"small", "mixed", "nearOverflow"})
+    public String distribution;
+
+    private final long[] values1 = new long[SIZE];
+    private final long[] values2 = new long[SIZE];
+    private final Quantity quantity1 = new Quantity();
+    private final Quantity quantity2 = new Quantity();
+    private final Money money = new Money();
+    private final BaseDecimal kernel = new Money();
+    private final UnsignedQuantity unsignedQuantity1 = new UnsignedQuantity();
+    private final UnsignedQuantity unsignedQuantity2 = new UnsignedQuantity();
+    private final UnsignedMoney unsignedMoney = new UnsignedMoney();
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            long value1 = seed;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            long value2 = seed;
+            switch (distribution) {
+                case "small":
+                    values1[i] = value1 >> 33;
+                    values2[i] = value2 >> 33;
+                    break;
+                case "mixed":
+                    values1[i] = value1 >> (value2 & 63);
+                    values2[i] = value2 >> (value1 & 63);
+                    break;
+                case "nearOverflow":
+                    values1[i] = value1 >> 24;
+                    values2[i] = value2 >> 24;
+                    break;
+                default:
+                    throw new IllegalArgumentException(distribution);
+            }
+            if (values2[i] == 0) {
+                values2[i] = 1;
+            }
+        }
+    }
+
+    @Benchmark
+    public long multiplyDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long multiplyKernel() {
+        int i = index++ & (SIZE - 1);
+        return kernel.mulscale_63_31(Math.abs(values1[i]), Math.abs(values2[i]), 0);
+    }
+
+    @Benchmark
+    public long quotientDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long quotientKernel() {
+        int i = index++ & (SIZE - 1);
+        return kernel.scalediv_63_63(Math.abs(values1[i]), 8, Math.abs(values2[i]));
+    }
+
+    @Benchmark
+    public long multiplyAbsDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(Math.abs(values1[i])), quantity2.setRaw(Math.abs(values2[i])), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long multiplyAbsUnsignedDecimal() {
+        int i = index++ & (SIZE - 1);
+        return unsignedMoney.product(unsignedQuantity1.setRaw(Math.abs(values1[i])), unsignedQuantity2.setRaw(Math.abs(values2[i])), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long quotientAbsDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(Math.abs(values1[i])), quantity2.setRaw(Math.abs(values2[i])), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long quotientAbsUnsignedDecimal() {
+        int i = index++ & (SIZE - 1);
+        return unsignedMoney.quotient(unsignedQuantity1.setRaw(Math.abs(values1[i])), unsignedQuantity2.setRaw(Math.abs(values2[i])), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    public static class UnsignedQuantity extends AbstractUnsignedDecimal<UnsignedQuantity> {
+        @Override
+        protected int getScale() {
+            return 2;
+        }
+    }
+
+    public static class UnsignedMoney extends AbstractUnsignedDecimal<UnsignedMoney> {
+        @Override
+        protected int getScale() {
+            return 8;
+        }
+    }
+}
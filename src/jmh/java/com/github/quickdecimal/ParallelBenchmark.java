@@ -0,0 +1,112 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scaling of the fork-join reductions over 32M raw values (256 MB per array, needs -Xmx4g) with the number of
+ * threads of the pool, against the sequential loops ("sequential*", which do not depend on the threads).
+ * The time is per call.
+ */
+@State(Scope.Benchmark)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class ParallelBenchmark {
+    private static final int SIZE = 1 << 25;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int threads;
+
+    private ForkJoinPool pool;
+    private long[] quantities;
+    private long[] prices;
+    private final long[] minMax = new long[2];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        quantities = new long[SIZE];
+        prices = new long[SIZE];
+        // Fast linear congruential generator with parameters from Wiki, quantities up to 2^24 and prices up to 2^32,
+        // so the sum fits long
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            quantities[i] = seed >> 40;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            prices[i] = (seed >>> 32) + 1;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long sequentialSum() {
+        long sum = 0;
+        for (long price : prices) {
+            sum = DecimalMath.add(sum, price);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parallelSum() {
+        return DecimalMath.parallelSum(pool, prices, 0, SIZE);
+    }
+
+    @Benchmark
+    public long sequentialDot() {
+        return DecimalMath.dot(quantities, prices, 0, SIZE, 10, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public long parallelDot() {
+        return DecimalMath.parallelDot(pool, quantities, prices, 0, SIZE, 10, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public long[] sequentialMinMax() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long price : prices) {
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        minMax[0] = min;
+        minMax[1] = max;
+        return minMax;
+    }
+
+    @Benchmark
+    public long[] parallelMinMax() {
+        DecimalMath.parallelMinMax(pool, prices, 0, SIZE, minMax);
+        return minMax;
+    }
+}
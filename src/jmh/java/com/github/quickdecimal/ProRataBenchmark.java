@@ -0,0 +1,88 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Pro-rata split of fills (scale 8, up to 10^6) between accounts by their quantities (scale 2, up to 10^5):
+ * {@link DecimalMath#proRata} (exact, largest remainder) against rounded quotients with the residual added to the
+ * first part afterwards. Neither allocates.
+ */
+@State(Scope.Thread)
+public class ProRataBenchmark {
+    private static final int SIZE = 1024; // power of 2
+
+    @Param({"3", "16"})
+    private int accounts;
+
+    private final long[] fills = new long[SIZE];
+    private long[] quantities;
+    private long[] parts;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            fills[i] = (seed >>> 1) % 100_000_000_000_000L;
+        }
+        quantities = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            quantities[i] = 1 + (seed >>> 1) % 10_000_000L;
+        }
+        parts = new long[accounts];
+    }
+
+    @Benchmark
+    public long[] proRata() {
+        int i = index++ & (SIZE - 1);
+        DecimalMath.proRata(fills[i], quantities, 0, accounts, parts);
+        return parts;
+    }
+
+    @Benchmark
+    public long[] quotientsAndResidual() {
+        int i = index++ & (SIZE - 1);
+        long fill = fills[i];
+        long sum = 0;
+        for (long quantity : quantities) {
+            sum += quantity;
+        }
+        long residual = fill;
+        for (int j = 0; j < accounts; j++) {
+            // fill * quantity / sum
+            parts[j] = DecimalMath.div(DecimalMath.mul(fill, quantities[j], 2, RoundingMode.DOWN), sum, 2,
+                    RoundingMode.HALF_EVEN);
+            residual -= parts[j];
+        }
+        parts[0] += residual;
+        return parts;
+    }
+}
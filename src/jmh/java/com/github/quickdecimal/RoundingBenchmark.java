@@ -0,0 +1,179 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import com.github.quickdecimal.sample.Quantity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Rounding with a constant {@link RoundingMode} (switch in {@link BaseDecimal#round}) against a constant
+ * {@link Rounder} (a final branch-free implementation) per rounding mode, for products and quotients.
+ * The "increment" ones round prices to a tick size (0.05): by a decimal, by a precomputed {@link Increment}
+ * and in bulk (the whole array per invocation).
+ */
+@State(Scope.Thread)
+public class RoundingBenchmark {
+    private static final int SIZE = 1024; // power of 2
+
+    private final long[] values1 = new long[SIZE];
+    private final long[] values2 = new long[SIZE];
+    private final Quantity quantity1 = new Quantity();
+    private final Quantity quantity2 = new Quantity();
+    private final Money money = new Money();
+    private final Money tick = new Money().setRaw(5_000_000);
+    private final Increment tickIncrement = Increment.of(tick);
+    private final long[] prices = new long[SIZE];
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki, quantities and prices up to 2^30
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            values1[i] = seed >> 34;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            values2[i] = (seed >> 34) | 1;
+        }
+    }
+
+    @Benchmark
+    public long productHalfEvenMode() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long productHalfEvenRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long quotientHalfEvenMode() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long quotientHalfEvenRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.HALF_EVEN).getRaw();
+    }
+
+    @Benchmark
+    public long productHalfUpMode() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.HALF_UP).getRaw();
+    }
+
+    @Benchmark
+    public long productHalfUpRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.HALF_UP).getRaw();
+    }
+
+    @Benchmark
+    public long quotientHalfUpMode() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.HALF_UP).getRaw();
+    }
+
+    @Benchmark
+    public long quotientHalfUpRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.HALF_UP).getRaw();
+    }
+
+    @Benchmark
+    public long productFloorMode() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.FLOOR).getRaw();
+    }
+
+    @Benchmark
+    public long productFloorRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.FLOOR).getRaw();
+    }
+
+    @Benchmark
+    public long quotientFloorMode() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.FLOOR).getRaw();
+    }
+
+    @Benchmark
+    public long quotientFloorRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.FLOOR).getRaw();
+    }
+
+    @Benchmark
+    public long productDownMode() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.DOWN).getRaw();
+    }
+
+    @Benchmark
+    public long productDownRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.product(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.DOWN).getRaw();
+    }
+
+    @Benchmark
+    public long quotientDownMode() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), RoundingMode.DOWN).getRaw();
+    }
+
+    @Benchmark
+    public long quotientDownRounder() {
+        int i = index++ & (SIZE - 1);
+        return money.quotient(quantity1.setRaw(values1[i]), quantity2.setRaw(values2[i]), Rounder.DOWN).getRaw();
+    }
+
+    @Benchmark
+    public long roundToIncrementDecimal() {
+        int i = index++ & (SIZE - 1);
+        return money.setRaw(values1[i]).roundToIncrement(tick, RoundingMode.HALF_UP).getRaw();
+    }
+
+    @Benchmark
+    public long roundToIncrementPrecomputed() {
+        int i = index++ & (SIZE - 1);
+        return money.setRaw(values1[i]).roundToIncrement(tickIncrement, RoundingMode.HALF_UP).getRaw();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public long[] roundToIncrementBulk() {
+        System.arraycopy(values1, 0, prices, 0, SIZE);
+        DecimalMath.roundToIncrement(prices, 0, SIZE, tickIncrement, RoundingMode.HALF_UP);
+        return prices;
+    }
+}
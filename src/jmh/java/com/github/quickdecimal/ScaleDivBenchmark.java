@@ -0,0 +1,151 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * Compares {@link BaseDecimal#scalediv_63_63} with the previous implementation based on 32-bit quotient estimation
+ * (kept here as a reference).
+ */
+@State(Scope.Thread)
+public class ScaleDivBenchmark {
+    @Param({"2", "8"})
+    private int scale;
+
+    private final BaseDecimal decimal = new Money();
+    private final Legacy legacy = new Legacy();
+    private long seed = System.nanoTime();
+    private long value1;
+    private long value2;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        value1 = seed >>> 1;
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        value2 = seed >>> 1;
+    }
+
+    @Benchmark
+    public long scaleDiv() {
+        return decimal.scalediv_63_63(value1, scale, value2) + decimal.a;
+    }
+
+    @Benchmark
+    public long scaleDivLegacy() {
+        return legacy.scalediv_63_63(value1, scale, value2) + legacy.a;
+    }
+
+    @Benchmark
+    public long scaleDivSmallDivisor() {
+        return decimal.scalediv_63_63(value1, scale, value2 >>> 33) + decimal.a;
+    }
+
+    @Benchmark
+    public long scaleDivSmallDivisorLegacy() {
+        return legacy.scalediv_63_63(value1, scale, value2 >>> 33) + legacy.a;
+    }
+
+    @Benchmark
+    public long quotientDecimal() {
+        return decimal.scaleDivRound(value1, scale, value2, RoundingMode.DOWN);
+    }
+
+    private static class Legacy {
+        private long a;
+
+        long scalediv_63_63(long v_63, int scale, long d_63) {
+            long offset_63 = 0;
+            if (v_63 >= d_63) {
+                offset_63 = v_63 / d_63;
+                v_63 = v_63 % d_63;
+
+                if (offset_63 > BaseDecimal.SCALE_OVERFLOW_LIMITS[scale]) {
+                    return AbstractDecimal.NaN; // overflow
+                }
+                offset_63 *= BaseDecimal.POW10[scale];
+            }
+
+            long p_63 = mulhi_63_32(v_63, BaseDecimal.POW10[scale]);
+            long p_32 = a;
+
+            if (d_63 <= Integer.MAX_VALUE) {
+                v_63 *= BaseDecimal.POW10[scale];
+
+                offset_63 += v_63 / d_63;
+                if (offset_63 < 0) {
+                    return AbstractDecimal.NaN; // overflow
+                }
+                a = v_63 % d_63;
+                return offset_63;
+            }
+
+            int shift = Long.numberOfLeadingZeros(d_63) - 1;
+            d_63 <<= shift;
+            p_63 <<= shift;
+            p_32 <<= shift;
+            p_63 |= p_32 >>> 32;
+            p_32 = p_32 & 0xffffffffL;
+
+            long d_31 = d_63 >>> 32;
+            long d_32 = d_63 & 0xffffffffL;
+            long qhat_32 = p_63 / d_31;
+            qhat_32 = qhat_32 & 0xffffffffL;
+
+            long phat_63 = mulhi_63_32(d_63, qhat_32);
+            long phat_32 = a;
+
+            if (phat_63 > p_63 || phat_63 == p_63 && phat_32 > p_32) {
+                --qhat_32;
+
+                phat_63 -= d_31;
+                phat_32 -= d_32;
+                if (phat_32 < 0) {
+                    --phat_63;
+                    phat_32 += 1L << 32;
+                }
+            }
+
+            long remainder = ((p_63 - phat_63) << 32) + p_32 - phat_32;
+
+            a = remainder >> shift;
+            offset_63 += qhat_32;
+
+            return offset_63;
+        }
+
+        long mulhi_63_32(long a_63, long b_32) {
+            long rLo_64 = (a_63 & 0xffffffffL) * b_32;
+            long rHi_63 = (a_63 >>> 32) * b_32 + (rLo_64 >>> 32);
+
+            a = rLo_64 & 0xffffffffL;
+            return rHi_63;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import com.github.quickdecimal.sample.Quantity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+
+/**
+ * VWAP of 1024 trades (quantities of scale 2 and prices of scale 8): the loop of the sample
+ * (the notional of each trade is rounded to the quantity scale before it is added) against
+ * {@link DecimalMath#vwap}, which sums the exact products and rounds once. The time is per trade.
+ */
+@State(Scope.Thread)
+@OperationsPerInvocation(VwapBenchmark.SIZE)
+public class VwapBenchmark {
+    static final int SIZE = 1024;
+
+    private final long[] quantityRaws = new long[SIZE];
+    private final long[] priceRaws = new long[SIZE];
+    private final Quantity[] quantities = new Quantity[SIZE];
+    private final Money[] prices = new Money[SIZE];
+    private final Quantity cumQuantity = new Quantity();
+    private final Quantity cumContraQuantity = new Quantity();
+    private final Money avgPrice = new Money();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Fast linear congruential generator with parameters from Wiki, quantities up to 2^24 and prices up to 2^40
+        long seed = 42;
+        for (int i = 0; i < SIZE; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            quantityRaws[i] = (seed >>> 40) + 1;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            priceRaws[i] = (seed >>> 24) + 1;
+            quantities[i] = new Quantity().setRaw(quantityRaws[i]);
+            prices[i] = new Money().setRaw(priceRaws[i]);
+        }
+    }
+
+    @Benchmark
+    public Money decimals() {
+        cumQuantity.setRaw(0);
+        cumContraQuantity.setRaw(0);
+        for (int i = 0; i < SIZE; i++) {
+            cumQuantity.add(quantities[i]);
+            cumContraQuantity.mulAddRD(quantities[i], prices[i]);
+        }
+        return avgPrice.quotientRD(cumContraQuantity, cumQuantity);
+    }
+
+    @Benchmark
+    public Money vwap() {
+        return avgPrice.setRaw(DecimalMath.vwap(quantityRaws, priceRaws, 0, SIZE, 0, RoundingMode.DOWN));
+    }
+}
@@ -27,7 +27,7 @@ import java.math.RoundingMode;
 import java.text.ParseException;
 
 /**
- * Fixed point com.github.decimal, represented as a long mantissa and integer implied com.github.decimal points (dp) from 0 to 9, which is constant
+ * Fixed point com.github.decimal, represented as a long mantissa and integer implied com.github.decimal points (dp) from 0 to 18, which is constant
  * for a concrete class (instance of same class must always have the same scale). Multiple subclases with different dps
  * can be created, e.g. Quantity with 2 dp and Price with 8 dp.
  * Supports basic arithmetic operations with full control of overflow and rounding.
@@ -55,7 +55,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
     public static final long NaN = Long.MIN_VALUE;
 
     /**
-     * Implied com.github.decimal points, must be constant for the class, must be between 0 and 9.
+     * Implied com.github.decimal points, must be constant for the class, must be between 0 and 18.
      */
     protected abstract int getScale();
 
@@ -126,7 +126,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         } else if (scale < 0 && !a.isNaN()) {
             long result = downScale_63_31(a.getRaw(), -scale);
             long remainder = getRaw();
-            return setRaw(round(result, remainder, POW10[-scale], roundingMode));
+            return setRaw(round(result, remainder, LONG_POW10[-scale], roundingMode));
         } else {
             return setRaw(scaleWithOverflow(a.getRaw(), scale));
         }
@@ -207,7 +207,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
             a = downScale_63_31(a + b, -scale);
             b = getRaw();
         }
-        return setRaw(round(a, b, POW10[-scale], roundingMode));
+        return setRaw(round(a, b, LONG_POW10[-scale], roundingMode));
     }
 
     /**
@@ -253,22 +253,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
             long other = downScale_63_31(a, -scale);
             long remainder = getRaw();
 
-            // have to inline plusWithOverflow here to avoid extra "if NaN then return immediately"
-            long result = self + other;
-            if (self == NaN || other == NaN || (result < 0) != (self < 0) && (result < 0) != (other < 0)) {
-                return setRaw(NaN);
-            }
-
-            int denominator = POW10[-scale];
-            if (result < 0 && remainder > 0) {
-                remainder -= denominator;
-                ++result;
-            } else if (result > 0 && remainder < 0) {
-                remainder += denominator;
-                --result;
-            }
-
-            return setRaw(round(result, remainder, denominator, roundingMode));
+            return setRaw(plusRound(other, remainder, LONG_POW10[-scale], self, roundingMode));
         }
 
         return setRaw(scaleAndPlus(a, scale, getRaw()));
@@ -374,6 +359,46 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         }
     }
 
+    /**
+     * Same as {@link #product(AbstractDecimal, AbstractDecimal, RoundingMode)}, rounding with the rounder
+     */
+    public <V extends AbstractDecimal> T product(V a, V b, Rounder rounder) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        int scale = a.getScale() + b.getScale() - getScale();
+        if (scale >= 0) {
+            return setRaw(mulScaleRound(a.getRaw(), b.getRaw(), scale, rounder));
+        } else {
+            return setRaw(scaleWithOverflow(mulWithOverflow(a.getRaw(), b.getRaw()), -scale));
+        }
+    }
+
+    /**
+     * Multiply 2 numbers of the same scale, add a number of the scale same to this and put the result to this, i.e.
+     * this = a * b + c
+     * Round DOWN if the arguments scale combined is greater than this scale.
+     */
+    public <V extends AbstractDecimal> T productPlusRD(V a, V b, T c) {
+        return productPlus(a, b, c, RoundingMode.DOWN);
+    }
+
+    /**
+     * Multiply 2 numbers of the same scale, add a number of the scale same to this and put the result to this, i.e.
+     * this = a * b + c
+     * The product is added with full precision, so the result is rounded only once.
+     * Rounding is required if the arguments scale combined is greater than this scale.
+     */
+    public <V extends AbstractDecimal> T productPlus(V a, V b, T c, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale() || getScale() != c.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        int scale = a.getScale() + b.getScale() - getScale();
+        return setRaw(mulPlusRound(a.getRaw(), b.getRaw(), scale, c.getRaw(), roundingMode));
+    }
+
     /**
      * Multiply 2 longs put the result to this.
      * Rounding is not required.
@@ -398,6 +423,13 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         return setRaw(mulScaleRound(getRaw(), a.getRaw(), a.getScale(), roundingMode));
     }
 
+    /**
+     * Same as {@link #mul(AbstractDecimal, RoundingMode)}, rounding with the rounder
+     */
+    public <V extends AbstractDecimal> T mul(V a, Rounder rounder) {
+        return setRaw(mulScaleRound(getRaw(), a.getRaw(), a.getScale(), rounder));
+    }
+
     /**
      * Multiply this by the argument.
      * Rounding is not required.
@@ -406,6 +438,84 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         return setRaw(mulWithOverflow(getRaw(), a));
     }
 
+    /**
+     * Multiply the first argument (of the scale same to this) by the second one and add the product to this, i.e.
+     * this += a * b
+     * Round DOWN if the second argument scale is not zero.
+     */
+    public <V extends AbstractDecimal> T mulAddRD(T a, V b) {
+        return mulAdd(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Multiply the first argument (of the scale same to this) by the second one and add the product to this, i.e.
+     * this += a * b
+     * Same as "tmp.set(a).mul(b, roundingMode); add(tmp)", but the product is added with full precision,
+     * so the result is rounded only once.
+     * Rounding is required if the second argument scale is not zero.
+     */
+    public <V extends AbstractDecimal> T mulAdd(T a, V b, RoundingMode roundingMode) {
+        if (getScale() != a.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        return setRaw(mulPlusRound(a.getRaw(), b.getRaw(), b.getScale(), getRaw(), roundingMode));
+    }
+
+    /**
+     * Multiply first 2 arguments and divide the product by the third one, all of the same scale, and put the result
+     * to this, i.e. this = a * b / c
+     * Round DOWN.
+     * Return {@link #NaN} if c is zero.
+     */
+    public <V extends AbstractDecimal> T mulDivRD(V a, V b, V c) {
+        return mulDiv(a, b, c, RoundingMode.DOWN);
+    }
+
+    /**
+     * Multiply first 2 arguments and divide the product by the third one, all of the same scale, and put the result
+     * to this, i.e. this = a * b / c
+     * The product is kept with 128-bit precision, so the result is rounded only once and overflows only if it
+     * does not fit this.
+     * Rounding is always required.
+     * Return {@link #NaN} if c is zero.
+     */
+    public <V extends AbstractDecimal> T mulDiv(V a, V b, V c, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale() || a.getScale() != c.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setRaw(mulDivRound(a.getRaw(), b.getRaw(), getScale() - a.getScale(), c.getRaw(), roundingMode));
+    }
+
+    /**
+     * Same as {@link #mulDiv(AbstractDecimal, AbstractDecimal, AbstractDecimal, RoundingMode)}, rounding with the rounder
+     */
+    public <V extends AbstractDecimal> T mulDiv(V a, V b, V c, Rounder rounder) {
+        if (a.getScale() != b.getScale() || a.getScale() != c.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setRaw(mulDivRound(a.getRaw(), b.getRaw(), getScale() - a.getScale(), c.getRaw(), rounder));
+    }
+
+    /**
+     * Multiply first 2 longs and divide the product by the third one and put the result to this, i.e. this = a * b / c
+     * Round DOWN.
+     * Return {@link #NaN} if c is zero.
+     */
+    public T mulDivRD(long a, long b, long c) {
+        return mulDiv(a, b, c, RoundingMode.DOWN);
+    }
+
+    /**
+     * Multiply first 2 longs and divide the product by the third one and put the result to this, i.e. this = a * b / c
+     * The product is kept with 128-bit precision, so the result is rounded only once.
+     * Rounding is always required.
+     * Return {@link #NaN} if c is zero.
+     */
+    public T mulDiv(long a, long b, long c, RoundingMode roundingMode) {
+        return setRaw(mulDivRound(a, b, getScale(), c, roundingMode));
+    }
+
     /**
      * Divide first argument bye second and the result to this.
      * Round DOWN.
@@ -427,6 +537,47 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         return quotient(a.getRaw(), b.getRaw(), roundingMode);
     }
 
+    /**
+     * Same as {@link #quotient(AbstractDecimal, AbstractDecimal, RoundingMode)}, rounding with the rounder
+     */
+    public <V extends AbstractDecimal> T quotient(V a, V b, Rounder rounder) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return quotient(a.getRaw(), b.getRaw(), rounder);
+    }
+
+    /**
+     * Divide first argument by precomputed divisor of the same scale and put the result to this.
+     * Round DOWN.
+     * Return {@link #NaN} if b is zero or NaN.
+     */
+    public <V extends AbstractDecimal> T quotientRD(V a, Divisor b) {
+        return quotient(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Divide first argument by precomputed divisor of the same scale and put the result to this.
+     * Rounding is always required.
+     * Return {@link #NaN} if b is zero or NaN.
+     */
+    public <V extends AbstractDecimal> T quotient(V a, Divisor b, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setRaw(scaleDivRound(a.getRaw(), getScale(), b, roundingMode));
+    }
+
+    /**
+     * Same as {@link #quotient(AbstractDecimal, Divisor, RoundingMode)}, rounding with the rounder
+     */
+    public <V extends AbstractDecimal> T quotient(V a, Divisor b, Rounder rounder) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setRaw(scaleDivRound(a.getRaw(), getScale(), b, rounder));
+    }
+
     /**
      * Divide first argument bye second and the result to this.
      * Round DOWN.
@@ -445,6 +596,13 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         return setRaw(scaleDivRound(a, getScale(), b, roundingMode));
     }
 
+    /**
+     * Same as {@link #quotient(long, long, RoundingMode)}, rounding with the rounder
+     */
+    public T quotient(long a, long b, Rounder rounder) {
+        return setRaw(scaleDivRound(a, getScale(), b, rounder));
+    }
+
     /**
      * Divide this by the argument and put result into this.
      * Round DOWN.
@@ -463,6 +621,38 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         return setRaw(scaleDivRound(getRaw(), a.getScale(), a.getRaw(), roundingMode));
     }
 
+    /**
+     * Same as {@link #div(AbstractDecimal, RoundingMode)}, rounding with the rounder
+     */
+    public <V extends AbstractDecimal> T div(V a, Rounder rounder) {
+        return setRaw(scaleDivRound(getRaw(), a.getScale(), a.getRaw(), rounder));
+    }
+
+    /**
+     * Divide this by precomputed divisor and put result into this.
+     * Round DOWN.
+     * Return {@link #NaN} if a is zero or NaN.
+     */
+    public T divRD(Divisor a) {
+        return div(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Divide this by precomputed divisor and put result into this.
+     * Rounding is always required.
+     * Return {@link #NaN} if a is zero or NaN.
+     */
+    public T div(Divisor a, RoundingMode roundingMode) {
+        return setRaw(scaleDivRound(getRaw(), a.getScale(), a, roundingMode));
+    }
+
+    /**
+     * Same as {@link #div(Divisor, RoundingMode)}, rounding with the rounder
+     */
+    public T div(Divisor a, Rounder rounder) {
+        return setRaw(scaleDivRound(getRaw(), a.getScale(), a, rounder));
+    }
+
     /**
      * Divide this by the argument and put result into this.
      * Round DOWN.
@@ -490,6 +680,332 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         return setRaw(round(raw / a, raw % a, a, roundingMode));
     }
 
+    /**
+     * Round this to a multiple of the increment (e.g. tick or lot size), put result into this.
+     * Round DOWN.
+     * Return {@link #NaN} if the increment is not positive or does not fit the scale of this.
+     */
+    public <V extends AbstractDecimal> T roundToIncrementRD(V increment) {
+        return roundToIncrement(increment, RoundingMode.DOWN);
+    }
+
+    /**
+     * Round this to a multiple of the increment (e.g. tick or lot size), put result into this.
+     * Return {@link #NaN} if the increment is not positive or does not fit the scale of this.
+     */
+    public <V extends AbstractDecimal> T roundToIncrement(V increment, RoundingMode roundingMode) {
+        long raw = DecimalMath.rescale(increment.getRaw(), increment.getScale(), getScale(), RoundingMode.UNNECESSARY);
+        return setRaw(roundToIncrement(getRaw(), raw, roundingMode));
+    }
+
+    /**
+     * Round this to a multiple of the precomputed increment of the same scale, put result into this.
+     * Round DOWN.
+     * Return {@link #NaN} if the increment is not positive.
+     */
+    public T roundToIncrementRD(Increment increment) {
+        return roundToIncrement(increment, RoundingMode.DOWN);
+    }
+
+    /**
+     * Round this to a multiple of the precomputed increment of the same scale, put result into this.
+     * Return {@link #NaN} if the increment is not positive.
+     */
+    public T roundToIncrement(Increment increment, RoundingMode roundingMode) {
+        if (getScale() != increment.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setRaw(roundToIncrement(getRaw(), increment, roundingMode));
+    }
+
+    /**
+     * Split this into parts (raws of the scale of this) proportional to the weights of the same scale, so the parts
+     * sum up to this exactly: the largest remainders get the residual units of the last digit, the earlier parts win
+     * the ties. Parts must be at least as long as the weights.
+     * Return false (parts filled with {@link #NaN}) if this is NaN, a weight is negative or NaN, or the sum of
+     * the weights is zero or overflows.
+     *
+     * @see DecimalMath#proRata(long, long[], int, int, long[])
+     */
+    public <V extends AbstractDecimal> boolean proRata(V[] weights, long[] parts) {
+        for (V weight : weights) {
+            if (weight.getScale() != weights[0].getScale()) {
+                throw new IllegalArgumentException("Scales must be the same");
+            }
+        }
+        return proRata(getRaw(), null, weights, 0, weights.length, parts);
+    }
+
+    /*
+     * Functions: the results are calculated with 128-bit integer arithmetic without allocation, see the kernels in
+     * BaseDecimal for the error bounds. Supported for scales 0..18 of this (and of the exponent of pow).
+     */
+
+    /**
+     * Square root of this, put result into this.
+     * Round DOWN.
+     * Return {@link #NaN} if this is negative.
+     */
+    public T sqrtRD() {
+        return sqrt(RoundingMode.DOWN);
+    }
+
+    /**
+     * Square root of this, put result into this.
+     * The result is exact before rounding (UNNECESSARY succeeds for exact roots only).
+     * Return {@link #NaN} if this is negative.
+     */
+    public T sqrt(RoundingMode roundingMode) {
+        int scale = getScale();
+        long raw = getRaw();
+        if (raw <= 0) { // and NaN
+            return raw == 0 ? self() : setRaw(NaN);
+        }
+
+        // sqrt(raw / 10^scale) * 10^scale = sqrt(raw * 10^scale), the remainder is less than "2 * root + 1"
+        long hi = Math.multiplyHigh(raw, LONG_POW10[scale]);
+        long lo = raw * LONG_POW10[scale];
+        long root = isqrt_128(hi, lo);
+        return setRaw(round(root, lo - root * root, 2 * root + 1, roundingMode));
+    }
+
+    /**
+     * Raise this to the integer power, put result into this (x^0 = 1).
+     * Round DOWN.
+     * Return {@link #NaN} if the result does not fit or this is zero and n is negative.
+     */
+    public T powRD(long n) {
+        return pow(n, RoundingMode.DOWN);
+    }
+
+    /**
+     * Raise this to the integer power, put result into this (x^0 = 1).
+     * The result is exact before rounding if the power of the raw value without trailing zeros fits 127 bits
+     * (63 bits for negative n), unless n is positive and the result is below 17 units of the last digit,
+     * otherwise the relative error is below |n| * 10^-18.
+     * Return {@link #NaN} if the result does not fit or this is zero and n is negative.
+     */
+    public T pow(long n, RoundingMode roundingMode) {
+        int scale = getScale();
+        long raw = getRaw();
+        if (raw == NaN || n == 1) {
+            return self();
+        } else if (n == 0) {
+            return setRaw(LONG_POW10[scale]);
+        } else if (raw == 0) {
+            return setRaw(n > 0 ? 0 : NaN);
+        }
+        return setRaw(powRound(raw, scale, n, roundingMode));
+    }
+
+    /**
+     * Raise this to the power, put result into this.
+     * Round DOWN.
+     * Return {@link #NaN} if the result does not fit or is not real.
+     */
+    public <V extends AbstractDecimal> T powRD(V a) {
+        return pow(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Raise this to the power, put result into this. Integer powers are the same as {@link #pow(long, RoundingMode)},
+     * so are rational results: with a = p / q, this^a = (this^(1/q))^p if the root is exact (e.g. 2.25^1.5 = 1.5^3).
+     * Otherwise it's e^(a * ln(this)) with the relative error about |a| * 2 * 10^-18.
+     * Return {@link #NaN} if the result does not fit or is not real.
+     */
+    public <V extends AbstractDecimal> T pow(V a, RoundingMode roundingMode) {
+        int scale = getScale();
+        int aScale = a.getScale();
+        long raw = getRaw();
+        long y = a.getRaw();
+        if (raw == NaN || y == NaN) {
+            return setRaw(NaN);
+        } else if (y % LONG_POW10[aScale] == 0) {
+            return pow(y / LONG_POW10[aScale], roundingMode);
+        } else if (raw <= 0) {
+            return setRaw(raw == 0 && y > 0 ? 0 : NaN);
+        }
+
+        // a = p / q, the power is rational only if the root is
+        long gcd = gcd(Math.abs(y), LONG_POW10[aScale]);
+        long root = rationalRoot_63(raw, scale, LONG_POW10[aScale] / gcd);
+        if (root != 0) {
+            return setRaw(powRound(root, scale, y / gcd, roundingMode));
+        }
+
+        long whole = pow_63(raw, scale, y, aScale, scale);
+        return setRaw(whole != NaN ? round(whole, getRaw(), 4, roundingMode) : NaN);
+    }
+
+    /**
+     * e^this, put result into this.
+     * Round DOWN.
+     * Return {@link #NaN} if the result does not fit.
+     */
+    public T expRD() {
+        return exp(RoundingMode.DOWN);
+    }
+
+    /**
+     * e^this, put result into this.
+     * The relative error is below 3 * 10^-18, so the result is correctly rounded unless it's that close to the half.
+     * Return {@link #NaN} if the result does not fit.
+     */
+    public T exp(RoundingMode roundingMode) {
+        int scale = getScale();
+        long raw = getRaw();
+        if (raw == NaN) {
+            return self();
+        }
+
+        long d = LONG_POW10[scale];
+        long f = Math.floorMod(raw, d);
+        long whole = exp_63(Math.floorDiv(raw, d), udiv_128_64(f >>> 1, f << 63, d), scale);
+        return setRaw(whole == NaN ? NaN : round(whole, getRaw(), 4, roundingMode));
+    }
+
+    /**
+     * Natural logarithm of this, put result into this.
+     * Round DOWN.
+     * Return {@link #NaN} if this is not positive.
+     */
+    public T lnRD() {
+        return ln(RoundingMode.DOWN);
+    }
+
+    /**
+     * Natural logarithm of this, put result into this.
+     * The absolute error is below 10^-18, so the result is correctly rounded unless it's that close to the half
+     * (i.e. at scale 18 it may be off by one).
+     * Return {@link #NaN} if this is not positive.
+     */
+    public T ln(RoundingMode roundingMode) {
+        int scale = getScale();
+        long raw = getRaw();
+        if (raw <= 0) {
+            return setRaw(NaN);
+        }
+
+        long hi = ln_127(raw, scale);
+        long lo = getRaw();
+        long sign = hi >> 63;
+        long whole = scaleShift_127(negIfHi(hi, lo, sign), negIf(lo, sign), scale, 63);
+        return setRaw(whole == NaN ? NaN : round(negIf(whole, sign), negIf(getRaw(), sign), 4, roundingMode));
+    }
+
+    /*
+     * "Unchecked" methods for the trusted range: operands are not NaN and every intermediate value (the sum, the
+     * product of raw values, the dividend scaled by 10^s) fits long. No NaN or overflow checks are done, so the result
+     * is undefined if the assumptions are broken. With assertions enabled (-ea, e.g. in tests) the assumptions are
+     * verified. Rounding semantics are the same as of the checked counterparts.
+     */
+
+    /**
+     * Same as {@link #plus(AbstractDecimal, AbstractDecimal)} for the trusted range (see above)
+     */
+    public T plusUnchecked(T a, T b) {
+        if (getScale() != a.getScale() || getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        assert plusWithOverflow(a.getRaw(), b.getRaw()) != NaN : "sum must fit long";
+        return setRaw(a.getRaw() + b.getRaw());
+    }
+
+    /**
+     * Same as {@link #add(AbstractDecimal)} for the trusted range (see above)
+     */
+    @SuppressWarnings("unchecked")
+    public T addUnchecked(T a) {
+        return plusUnchecked((T) this, a);
+    }
+
+    /**
+     * Same as {@link #minus(AbstractDecimal, AbstractDecimal)} for the trusted range (see above)
+     */
+    public T minusUnchecked(T a, T b) {
+        if (getScale() != a.getScale() || getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        assert b.getRaw() != NaN && plusWithOverflow(a.getRaw(), -b.getRaw()) != NaN : "difference must fit long";
+        return setRaw(a.getRaw() - b.getRaw());
+    }
+
+    /**
+     * Same as {@link #subtract(AbstractDecimal)} for the trusted range (see above)
+     */
+    @SuppressWarnings("unchecked")
+    public T subtractUnchecked(T a) {
+        return minusUnchecked((T) this, a);
+    }
+
+    /**
+     * Same as {@link #productRD(AbstractDecimal, AbstractDecimal)} for the trusted range (see above)
+     */
+    public <V extends AbstractDecimal> T productUncheckedRD(V a, V b) {
+        return productUnchecked(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Same as {@link #product(AbstractDecimal, AbstractDecimal, RoundingMode)} for the trusted range (see above)
+     */
+    public <V extends AbstractDecimal> T productUnchecked(V a, V b, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        int scale = a.getScale() + b.getScale() - getScale();
+        return setRaw(mulScaleRoundUnchecked(a.getRaw(), b.getRaw(), scale, roundingMode));
+    }
+
+    /**
+     * Same as {@link #mulRD(AbstractDecimal)} for the trusted range (see above)
+     */
+    public <V extends AbstractDecimal> T mulUncheckedRD(V a) {
+        return mulUnchecked(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Same as {@link #mul(AbstractDecimal, RoundingMode)} for the trusted range (see above)
+     */
+    public <V extends AbstractDecimal> T mulUnchecked(V a, RoundingMode roundingMode) {
+        return setRaw(mulScaleRoundUnchecked(getRaw(), a.getRaw(), a.getScale(), roundingMode));
+    }
+
+    /**
+     * Same as {@link #quotientRD(AbstractDecimal, AbstractDecimal)} for the trusted range (see above),
+     * b must not be zero.
+     */
+    public <V extends AbstractDecimal> T quotientUncheckedRD(V a, V b) {
+        return quotientUnchecked(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Same as {@link #quotient(AbstractDecimal, AbstractDecimal, RoundingMode)} for the trusted range (see above),
+     * b must not be zero.
+     */
+    public <V extends AbstractDecimal> T quotientUnchecked(V a, V b, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setRaw(scaleDivRoundUnchecked(a.getRaw(), getScale(), b.getRaw(), roundingMode));
+    }
+
+    /**
+     * Same as {@link #divRD(AbstractDecimal)} for the trusted range (see above), a must not be zero.
+     */
+    public <V extends AbstractDecimal> T divUncheckedRD(V a) {
+        return divUnchecked(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Same as {@link #div(AbstractDecimal, RoundingMode)} for the trusted range (see above), a must not be zero.
+     */
+    public <V extends AbstractDecimal> T divUnchecked(V a, RoundingMode roundingMode) {
+        return setRaw(scaleDivRoundUnchecked(getRaw(), a.getScale(), a.getRaw(), roundingMode));
+    }
+
     /**
      * Created a copy of the class with the same raw number.
      */
@@ -599,7 +1115,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         long raw = getRaw(); // will be overridden by remainder
 
         int scale = getScale();
-        long result = round(downScale_63_31(raw, scale), getRaw(), POW10[scale], roundingMode);
+        long result = round(downScale_63_31(raw, scale), getRaw(), LONG_POW10[scale], roundingMode);
 
         setRaw(raw);
 
@@ -627,31 +1143,22 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         if (scale < -18) {
             return setRaw(value == 0 ? 0 : NaN);
         }
-        if (getScale() - scale < -18) {
+        if (getScale() - scale < -19) {
             // rounded zero
             return setRaw(round(0, Long.signum(value), Long.MAX_VALUE, roundingMode));
         }
+        if (getScale() - scale == -19) {
+            return setRaw(roundScaled_19(value, roundingMode));
+        }
 
         scale = getScale() - scale; // no overflow guaranteed
         if (scale >= 0) {
-            return setRaw(scale > 18 ? NaN : scaleWithOverflow(value, scale));
+            return setRaw(scale > 18 ? (value == 0 ? 0 : NaN) : scaleWithOverflow(value, scale));
         } else {
             scale = -scale;
             assert scale <= 18;
-            long remainder = 0;
-            long divisor = LONG_POW10[scale];
-            if (scale > 9) {
-                // double division by constant
-                // the formula for final remainder derived from:
-                // v / d1 / d2 = (q1 + r1 / d1) / d2 = q1 / d2 + r1 / d1d2 = q2 + r2 / d2 + r1 / d1d2 = q2 + (r2d1 + r1) / d1d2
-                value = downScale_63_31(value, 9);
-                remainder = a * 1000000000;
-                scale -= 9;
-            }
             value = downScale_63_31(value, scale);
-            remainder += a;
-
-            return setRaw(round(value, remainder, divisor, roundingMode));
+            return setRaw(round(value, getRaw(), LONG_POW10[scale], roundingMode));
         }
     }
 
@@ -663,7 +1170,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
      * Converts Decimal to floating-point number, returns {@link Double#NaN} if {@link #NaN}
      */
     public double toDouble() {
-        return !isNaN() ? (double) getRaw() / POW10[getScale()] : Double.NaN;
+        return !isNaN() ? (double) getRaw() / LONG_POW10[getScale()] : Double.NaN;
     }
 
     /**
@@ -682,7 +1189,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
      * </ul>
      */
     public T fromDouble(double value, RoundingMode roundingMode) {
-        value *= POW10[getScale()];
+        value *= LONG_POW10[getScale()];
         switch (roundingMode) {
             case DOWN:
                 return setIntDouble(value);
@@ -807,24 +1314,17 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
             }
         }
 
-        result = scaleWithOverflow(result, getScale() - (length - fractionalStart));
+        int scale = getScale() - (length - fractionalStart);
+        if (scale < 0) {
+            throw new ParseException("Too many fractional digits", fractionalStart + getScale());
+        }
+        result = scaleWithOverflow(result, scale);
         if (result == NaN) {
             throw new ParseException("Overflow while scaling up", 0);
         }
         return setRaw(negative ? -result : result);
     }
 
-    private static final int MAX_LONG_SIZE = Long.toString(Long.MAX_VALUE).length();
-    private static int stringSize(long value) {
-        long product = 10;
-        for (int size = 1; size < MAX_LONG_SIZE; size++) {
-            if (value < product)
-                return size;
-            product *= 10;
-        }
-        return 19;
-    }
-
     /**
      * Adds 2 longs and multiply the result by non-negative power of 10
      */
@@ -846,7 +1346,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
                 // another bigger limit for unsigned multiplication (if we are out of this as well - give up)
                 long unsignedLimit = SCALE_OVERFLOW_LIMITS[nonNegScale] * 2;
                 if (b < 0 && a > 0 && a <= unsignedLimit) {
-                    a = a * POW10[nonNegScale];
+                    a = a * LONG_POW10[nonNegScale];
                     assert a < 0 : "Overflow to sign expected";
                     a += b; // subtracting abs(raw)
                     if (a >= 0) {
@@ -854,7 +1354,7 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
                         return a;
                     }
                 } else if (b > 0 && a >= -unsignedLimit && a < 0) {
-                    a = -a * POW10[nonNegScale]; // negate a before multiplying
+                    a = -a * LONG_POW10[nonNegScale]; // negate a before multiplying
                     assert a < 0 : "Overflow to sign expected";
                     a -= b; // adding raw (in negated terms)
                     if (a >= 0) {
@@ -869,6 +1369,71 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
         return plusWithOverflow(b, a);
     }
 
+    /**
+     * Calculates "a * b / 10^scale + c", rounding only once (the scale can be negative).
+     * NaN only if the result does not fit: if the product alone does not fit long, c is added to the 128-bit product
+     * (multiplied by 10^scale) before the scaling.
+     */
+    private long mulPlusRound(long a, long b, int scale, long c, RoundingMode roundingMode) {
+        if (a == NaN || b == NaN || c == NaN) {
+            return NaN;
+        }
+        if (scale < 0) {
+            long product = mulWithOverflow(a, b);
+            long result = plusWithOverflow(scaleWithOverflow(product, -scale), c);
+            // if the product does not fit long, then |a * b * 10^-scale| >= 10 * 2^63 and c can't bring it back
+            return result != NaN || product == NaN ? result :
+                    plus_128(Math.multiplyHigh(product, LONG_POW10[-scale]), product * LONG_POW10[-scale], c);
+        }
+
+        long product = mulScale(a, b, scale);
+        if (product != NaN || scale > 18) {
+            // if scale > 18, the product always fits: |a * b| / 10^19 < 2^126 / 10^19 < 2^63
+            return plusRound(product, getRaw(), mulScaleDenominator(scale), c, roundingMode);
+        }
+
+        // a * b + c * 10^scale, less than 2^126 + 2^123 by magnitude
+        long m = LONG_POW10[scale];
+        long lo = a * b;
+        long cLo = c * m;
+        long sum = lo + cLo;
+        long hi = Math.multiplyHigh(a, b) + Math.multiplyHigh(c, m) + (Long.compareUnsigned(sum, lo) < 0 ? 1 : 0);
+        long sign = hi >> 63;
+        return scaleDivRound_127_63(negIfHi(hi, sum, sign), negIf(sum, sign), 0, m, sign, roundingMode);
+    }
+
+    /**
+     * 128-bit [hi][lo] + c, NaN if it does not fit long
+     */
+    private static long plus_128(long hi, long lo, long c) {
+        long sum = lo + c;
+        hi += (c >> 63) + (Long.compareUnsigned(sum, lo) < 0 ? 1 : 0);
+        return hi == sum >> 63 && sum != NaN ? sum : NaN;
+    }
+
+    /**
+     * Adds a long to the mixed fraction "whole + numerator / denominator" and rounds the result
+     * (see {@link #round} for the arguments contract)
+     */
+    private static long plusRound(long whole, long numerator, long denominator, long b, RoundingMode roundingMode) {
+        // have to inline plusWithOverflow here to avoid extra "if NaN then return immediately"
+        long result = whole + b;
+        if (whole == NaN || b == NaN || (result < 0) != (whole < 0) && (result < 0) != (b < 0) || result == NaN) {
+            return NaN;
+        }
+
+        // numerator must have the sign of the result
+        if (result < 0 && numerator > 0) {
+            numerator -= denominator;
+            ++result;
+        } else if (result > 0 && numerator < 0) {
+            numerator += denominator;
+            --result;
+        }
+
+        return round(result, numerator, denominator, roundingMode);
+    }
+
     private static long plusWithOverflow(long a, long b) {
         long result = a + b;
         return a == NaN || b == NaN || (result < 0) != (a < 0) && (result < 0) != (b < 0) ? NaN : result;
@@ -888,4 +1453,41 @@ public abstract class AbstractDecimal<T extends AbstractDecimal> extends BaseDec
             return mulScaleRound(a, b, 0, RoundingMode.DOWN);
         }
     }
+
+    /**
+     * Unchecked "a * b / 10^scale" (the scale can be negative), the product must fit long
+     */
+    private long mulScaleRoundUnchecked(long a, long b, int scale, RoundingMode roundingMode) {
+        assert a != NaN && b != NaN && Math.multiplyHigh(a, b) == (a * b) >> 63 && a * b != NaN : "product must fit long";
+        long product = a * b;
+        if (scale <= 0) {
+            return scaleUnchecked(product, -scale);
+        }
+        if (scale > 18) { // the denominator doesn't fit long, rare
+            return mulScaleRound(a, b, scale, roundingMode);
+        }
+
+        long result = downScale_63_31(product, scale);
+        return round(result, getRaw(), LONG_POW10[scale], roundingMode);
+    }
+
+    /**
+     * Unchecked "v * 10^s / d", the divisor must not be zero, v * 10^s must fit long
+     */
+    private static long scaleDivRoundUnchecked(long v, int s, long d, RoundingMode roundingMode) {
+        assert v != NaN && d != NaN && d != 0 : "operands must not be NaN, the divisor must not be zero";
+        long p = scaleUnchecked(v, s);
+
+        // if d is negative - negate both numerator and denominator (to comply with "round" contract)
+        long sign = d >> 63;
+        d = negIf(d, sign);
+        p = negIf(p, sign);
+
+        return round(p / d, p % d, d, roundingMode);
+    }
+
+    private static long scaleUnchecked(long value, int scale) {
+        assert scaleWithOverflow(value, scale) != NaN : "scaled value must fit long";
+        return value * LONG_POW10[scale];
+    }
 }
@@ -0,0 +1,950 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+import java.text.ParseException;
+
+/**
+ * Fixed point decimal, represented as a signed 128-bit mantissa (2 longs) and integer implied decimal
+ * points (dp) from 0 to 18, which is constant for a concrete class.
+ * 128-bit counterpart of {@link AbstractDecimal} for the values not fitting long, e.g. aggregated notionals or 18 dp
+ * balances: the range is about +-1.7 * 10^20 at 18 dp (+-1.7 * 10^29 at 9 dp).
+ * Same conventions: mutable, non-allocating (unless explicitly specified), rounding must be explicitly provided
+ * if required with the exception of "RD" methods that round DOWN.
+ * <p>
+ * Special value NaN is used to represent an invalid operation (overflow, unexpected rounding, division by zero),
+ * it is the smallest 128-bit number: high word {@link #NaN_HIGH} and low word 0.
+ * So the mantissa can be from -(2^127 - 1) to 2^127 - 1.
+ * <p>
+ * Note: this class has a natural ordering that is inconsistent with equals, see {@link #compareTo}
+ *
+ * @param <T>
+ */
+public abstract class AbstractDecimal128<T extends AbstractDecimal128> extends BaseDecimal implements Comparable<T>, Cloneable {
+    public static final long NaN_HIGH = Long.MIN_VALUE;
+
+    private static final Divisor[] POW10_DIVISORS = new Divisor[LONG_POW10.length];
+
+    static {
+        for (int i = 0; i < POW10_DIVISORS.length; i++) {
+            POW10_DIVISORS[i] = Divisor.of(LONG_POW10[i], 0);
+        }
+    }
+
+    private long high;
+    private long low;
+
+    /**
+     * Implied decimal points, must be constant for the class, must be between 0 and 18.
+     */
+    protected abstract int getScale();
+
+    /**
+     * @return type-casted this object
+     */
+    @SuppressWarnings("unchecked")
+    public T self() {
+        return (T) this;
+    }
+
+    /**
+     * High (signed) word of the raw 128-bit value without decimal points
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Low (unsigned) word of the raw 128-bit value without decimal points
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Raw 128-bit value without decimal points
+     */
+    public T setRaw(long high, long low) {
+        this.high = high;
+        this.low = low;
+        return self();
+    }
+
+    /**
+     * Raw long value without decimal points, {@link AbstractDecimal#NaN} becomes NaN
+     */
+    public T setRaw(long raw) {
+        return raw != AbstractDecimal.NaN ? setRaw(raw >> 63, raw) : setNaN();
+    }
+
+    public T setNaN() {
+        return setRaw(NaN_HIGH, 0);
+    }
+
+    /**
+     * true if the value is NaN.
+     * All arithmetic operations with NaN returns NaN.
+     */
+    public boolean isNaN() {
+        return isNaN(high, low);
+    }
+
+    /**
+     * Throws an exception (allocating) if the value is NaN
+     */
+    public T checkNotNaN() {
+        if (isNaN()) {
+            throw new ArithmeticException("Last operation was invalid (overflow or division by zero)");
+        }
+        return self();
+    }
+
+    /**
+     * Change the sign of the number.
+     */
+    public T negate() {
+        return setRaw(negIfHi(high, low, -1), -low); // NaN stays NaN
+    }
+
+    /**
+     * Copy the value from another decimal, rounding down if necessary
+     */
+    public T setRD(AbstractDecimal128<?> a) {
+        return set(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Copy the value from another decimal
+     * Rounding is required if the argument scale is greater than this scale.
+     */
+    public T set(AbstractDecimal128<?> a, RoundingMode roundingMode) {
+        if (a.isNaN()) {
+            return setNaN();
+        }
+        long sign = a.getHigh() >> 63;
+        return setScaled(sign, negIfHi(a.getHigh(), a.getLow(), sign), negIf(a.getLow(), sign),
+                getScale() - a.getScale(), roundingMode);
+    }
+
+    /**
+     * Copy the value from a 64-bit decimal, rounding down if necessary
+     */
+    public T setRD(AbstractDecimal<?> a) {
+        return set(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Copy the value from a 64-bit decimal
+     * Rounding is required if the argument scale is greater than this scale.
+     */
+    public T set(AbstractDecimal<?> a, RoundingMode roundingMode) {
+        if (a.isNaN()) {
+            return setNaN();
+        }
+        long sign = a.getRaw() >> 63;
+        return setScaled(sign, 0, negIf(a.getRaw(), sign), getScale() - a.getScale(), roundingMode);
+    }
+
+    /**
+     * Copy the value from another decimal with the same scale.
+     */
+    public T set(T a) {
+        return setRaw(a.getHigh(), a.getLow());
+    }
+
+    /**
+     * Converts long to decimal value. Can result in NaN (if overflow)
+     */
+    public T fromLong(long value) {
+        if (value == AbstractDecimal.NaN) {
+            return setNaN();
+        }
+        long sign = value >> 63;
+        return setScaled(sign, 0, negIf(value, sign), getScale(), RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Add 2 numbers of the same scale and puts result to this
+     * Round DOWN if the arguments' scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T plusRD(V a, V b) {
+        return plus(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Add 2 numbers of the same scale and puts result to this
+     * Rounding is required if the arguments' scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T plus(V a, V b, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setSum(a.getHigh(), a.getLow(), b.getHigh(), b.getLow(), getScale() - a.getScale(), roundingMode);
+    }
+
+    /**
+     * Add 2 numbers of the scale same to this
+     */
+    public T plus(T a, T b) {
+        if (getScale() != a.getScale() || getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setSum(a.getHigh(), a.getLow(), b.getHigh(), b.getLow(), 0, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Subtract 2 numbers of the same scale and puts result to this
+     * Round DOWN if the arguments' scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T minusRD(V a, V b) {
+        return minus(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Subtract 2 numbers of the same scale and puts result to this
+     * Rounding is required if the arguments' scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T minus(V a, V b, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setSum(a.getHigh(), a.getLow(), negIfHi(b.getHigh(), b.getLow(), -1), -b.getLow(),
+                getScale() - a.getScale(), roundingMode);
+    }
+
+    /**
+     * Subtract 2 numbers of the scale same to this
+     */
+    public T minus(T a, T b) {
+        if (getScale() != a.getScale() || getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setSum(a.getHigh(), a.getLow(), negIfHi(b.getHigh(), b.getLow(), -1), -b.getLow(),
+                0, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Add a number to this.
+     * Round DOWN if the argument scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T addRD(V a) {
+        return add(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Add a number to this.
+     * Rounding is required if the argument scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T add(V a, RoundingMode roundingMode) {
+        return addScaled(a.getHigh(), a.getLow(), a.getScale(), roundingMode);
+    }
+
+    /**
+     * Add a number of the same scale to this.
+     */
+    public T add(T a) {
+        return plus(self(), a);
+    }
+
+    /**
+     * Subtract a number from this.
+     * Round DOWN if the argument scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T subtractRD(V a) {
+        return subtract(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Subtract a number from this.
+     * Rounding is required if the argument scale is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T subtract(V a, RoundingMode roundingMode) {
+        return addScaled(negIfHi(a.getHigh(), a.getLow(), -1), -a.getLow(), a.getScale(), roundingMode);
+    }
+
+    /**
+     * Subtract a number of the same scale from this.
+     */
+    public T subtract(T a) {
+        return minus(self(), a);
+    }
+
+    /**
+     * Multiply 2 numbers of the same scale and put the result to this.
+     * Round DOWN if the arguments scale combined is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T productRD(V a, V b) {
+        return product(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Multiply 2 numbers of the same scale and put the result to this.
+     * The product is calculated with 256-bit precision, so it is rounded only once.
+     * Rounding is required if the arguments scale combined is greater than this scale.
+     */
+    public <V extends AbstractDecimal128> T product(V a, V b, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setProduct(a.getHigh(), a.getLow(), b.getHigh(), b.getLow(), a.getScale() + b.getScale() - getScale(),
+                roundingMode);
+    }
+
+    /**
+     * Multiply this by the argument.
+     * Round DOWN if argument scale is not zero.
+     */
+    public <V extends AbstractDecimal128> T mulRD(V a) {
+        return mul(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Multiply this by the argument.
+     * Rounding is required if argument scale is not zero.
+     */
+    public <V extends AbstractDecimal128> T mul(V a, RoundingMode roundingMode) {
+        return setProduct(high, low, a.getHigh(), a.getLow(), a.getScale(), roundingMode);
+    }
+
+    /**
+     * Divide first argument by second and the result to this.
+     * Round DOWN.
+     * Returns NaN if b is zero.
+     */
+    public <V extends AbstractDecimal128> T quotientRD(V a, V b) {
+        return quotient(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * Divide first argument by second and the result to this.
+     * Rounding is always required.
+     * Returns NaN if b is zero.
+     */
+    public <V extends AbstractDecimal128> T quotient(V a, V b, RoundingMode roundingMode) {
+        if (a.getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return setQuotient(a.getHigh(), a.getLow(), getScale(), b.getHigh(), b.getLow(), roundingMode);
+    }
+
+    /**
+     * Divide this by the argument.
+     * Round DOWN.
+     * Returns NaN if a is zero.
+     */
+    public <V extends AbstractDecimal128> T divRD(V a) {
+        return div(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * Divide this by the argument.
+     * Rounding is always required.
+     * Returns NaN if a is zero.
+     */
+    public <V extends AbstractDecimal128> T div(V a, RoundingMode roundingMode) {
+        return setQuotient(high, low, a.getScale(), a.getHigh(), a.getLow(), roundingMode);
+    }
+
+    /**
+     * Created a copy of the class with the same raw number.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T clone() {
+        try {
+            return (T) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException("Unexpected", e);
+        }
+    }
+
+    /**
+     * Compares 2 values considering the scale ("0.123" < "12.0" although its not true for raw values)
+     * NaN is smaller than any other number irrespective of scale. Two NaNs are equal to each other.
+     *
+     * Comparison can work across different concrete classes, and therefore can be inconsistent with {@link #equals},
+     * which always returns "false" for different classes.
+     */
+    @Override
+    public int compareTo(AbstractDecimal128 o) {
+        if (isNaN()) {
+            return o.isNaN() ? 0 : -1;
+        } else if (o.isNaN()) {
+            return 1;
+        }
+
+        long sign = high >> 63;
+        if (sign != o.getHigh() >> 63) {
+            return sign != 0 ? -1 : 1;
+        }
+
+        // the same sign: compare magnitudes, scaling up the one with the smaller scale (3 words, no overflow)
+        int scale = getScale() - o.getScale();
+        long x1 = negIfHi(scale >= 0 ? o.getHigh() : high, scale >= 0 ? o.getLow() : low, sign);
+        long x0 = negIf(scale >= 0 ? o.getLow() : low, sign);
+        long y1 = negIfHi(scale >= 0 ? high : o.getHigh(), scale >= 0 ? low : o.getLow(), sign);
+        long y0 = negIf(scale >= 0 ? low : o.getLow(), sign);
+
+        long m = LONG_POW10[Math.abs(scale)];
+        long n0 = x0 * m;
+        long n1 = unsignedMulHi(x0, m);
+        long t = x1 * m;
+        n1 += t;
+        long n2 = Math.multiplyHigh(x1, m) + (Long.compareUnsigned(n1, t) < 0 ? 1 : 0);
+
+        int result = n2 != 0 ? 1 : compareUnsigned_128(n1, n0, y1, y0); // scaled one compared to the other one
+        if (scale >= 0) {
+            result = -result;
+        }
+        return sign == 0 ? result : -result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        AbstractDecimal128<?> that = (AbstractDecimal128<?>) o;
+
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = high * 31 + low;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte byteValue() {
+        return (byte) toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short shortValue() {
+        return (short) toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int intValue() {
+        return (int) toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long longValue() {
+        return toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float floatValue() {
+        return (float) toDouble();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double doubleValue() {
+        return toDouble();
+    }
+
+    /**
+     * Returns the whole part of the value rounding DOWN, throws exception if NaN
+     */
+    public long toLongRD() {
+        return toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * Returns the whole part of the value, throws exception if NaN.
+     * Returns {@link AbstractDecimal#NaN} if the whole part doesn't fit long (or failed UNNECESSARY rounding).
+     */
+    public long toLong(RoundingMode roundingMode) {
+        if (isNaN()) {
+            throw new ArithmeticException("NaN");
+        }
+
+        long hi = high;
+        long lo = low; // will be overridden by the whole part
+
+        long sign = hi >> 63;
+        setScaled(sign, negIfHi(hi, lo, sign), negIf(lo, sign), -getScale(), roundingMode);
+        long whole = low;
+        boolean fits = !isNaN() && high == whole >> 63;
+
+        setRaw(hi, lo);
+
+        return fits ? whole : AbstractDecimal.NaN;
+    }
+
+    /**
+     * Converts decimal to floating-point number (approximately), returns {@link Double#NaN} if NaN
+     */
+    public double toDouble() {
+        if (isNaN()) {
+            return Double.NaN;
+        }
+        long sign = high >> 63;
+        double value = negIfHi(high, low, sign) * 0x1.0p64 + unsignedToDouble(negIf(low, sign));
+        return (sign != 0 ? -value : value) / LONG_POW10[getScale()];
+    }
+
+    /**
+     * Converts to ASCII string. Allocating.
+     * @see #toStringBuilder
+     */
+    public String toString() {
+        return toStringBuilder(new StringBuilder(42)).toString();
+    }
+
+    /**
+     * Converts to ASCII string. Shows number of dps as well, e.g. "1.00"
+     * NaN values are displayed as "NaN"
+     */
+    public StringBuilder toStringBuilder(StringBuilder sb) {
+        if (isNaN()) {
+            sb.append("NaN");
+            return sb;
+        }
+
+        long sign = high >> 63;
+        long hi = negIfHi(high, low, sign);
+        long lo = negIf(low, sign);
+        if (sign != 0) {
+            sb.append('-');
+        }
+
+        // 3 chunks of 18 digits: [top][middle][bottom]
+        Divisor d = POW10_DIVISORS[18];
+        long q1 = udiv_128_64(0, hi, d);
+        long q0 = udiv_128_64(hi - q1 * d.magnitude, lo, d);
+        long bottom = lo - q0 * d.magnitude;
+        long top = udiv_128_64(q1, q0, d); // < 2^127 / 10^36 < 171
+        long middle = q0 - top * d.magnitude;
+
+        int length = top != 0 ? stringSize(top) + 36 : middle != 0 ? stringSize(middle) + 18 : stringSize(bottom);
+        int scale = getScale();
+        if (scale >= length) {
+            sb.append(ZEROES[scale - length + 1]);
+        }
+        if (top != 0) {
+            sb.append(top);
+            appendChunk(sb, middle);
+            appendChunk(sb, bottom);
+        } else if (middle != 0) {
+            sb.append(middle);
+            appendChunk(sb, bottom);
+        } else {
+            sb.append(bottom);
+        }
+
+        if (scale > 0) {
+            sb.insert(sb.length() - scale, '.');
+        }
+
+        return sb;
+    }
+
+    /**
+     * Parse a string (including NaN) and creates a value from it.
+     * Unlike other methods, does NOT use NaN to indicate an error, uses ParseException instead.
+     */
+    public T parse(CharSequence charSequence) throws ParseException {
+        return parse(charSequence, 0, charSequence.length());
+    }
+
+    public T parse(CharSequence charSequence, int offset, int length) throws ParseException {
+        if (length == 0) {
+            throw new ParseException("Empty string", 0);
+        }
+
+        int end = offset + length;
+        boolean negative = false;
+        char ch = charSequence.charAt(offset);
+        switch (ch) {
+            case '-':
+                if (length == 1) {
+                    throw new ParseException("Single '-' is not expected", 0);
+                }
+                negative = true;
+                offset++;
+                break;
+            case 'N':
+            case 'n':
+                if (length != 3 ||
+                        charSequence.charAt(offset + 1) != 'a' && charSequence.charAt(offset + 1) != 'A' ||
+                        charSequence.charAt(offset + 2) != 'n' && charSequence.charAt(offset + 2) != 'N') {
+                    throw new ParseException("Unexpected alphanumeric value", 0);
+                }
+                return setNaN();
+            default:
+                // go on
+        }
+
+        long hi = 0;
+        long lo = 0;
+        int fractionalStart = end;
+        while (offset < end) {
+            ch = charSequence.charAt(offset++);
+            if (ch == '.') {
+                if (fractionalStart != end) {
+                    throw new ParseException("Double '.' found", offset);
+                }
+                if (offset == end) {
+                    throw new ParseException("Last '.' found", offset);
+                }
+                fractionalStart = offset; // dot position incremented
+                while (end > fractionalStart && charSequence.charAt(end - 1) == '0') {
+                    end--;
+                }
+            } else if (ch >= '0' && ch <= '9') {
+                // [hi][lo] = [hi][lo] * 10 + digit
+                if (hi > Long.MAX_VALUE / 10) {
+                    throw new ParseException("Overflow", 0);
+                }
+                hi = hi * 10 + unsignedMulHi(lo, 10);
+                long t = lo * 10;
+                lo = t + (ch - '0');
+                if (Long.compareUnsigned(lo, t) < 0) {
+                    ++hi; // carry
+                }
+                if (hi < 0) {
+                    throw new ParseException("Overflow", 0);
+                }
+            } else {
+                throw new ParseException("Unexpected " + ch, offset - 1);
+            }
+        }
+
+        int scale = getScale() - (end - fractionalStart);
+        if (scale < 0) {
+            throw new ParseException("Too many fractional digits", fractionalStart + getScale());
+        }
+        if (setScaled(negative ? -1 : 0, hi, lo, scale, RoundingMode.UNNECESSARY).isNaN()) {
+            throw new ParseException("Overflow while scaling up", 0);
+        }
+        return self();
+    }
+
+    private static void appendChunk(StringBuilder sb, long chunk) {
+        sb.append(ZEROES[18 - stringSize(chunk)]).append(chunk);
+    }
+
+    private static double unsignedToDouble(long v) {
+        return v >= 0 ? v : ((v >>> 1) | (v & 1)) * 2.0;
+    }
+
+    private static boolean isNaN(long hi, long lo) {
+        return hi == NaN_HIGH && lo == 0;
+    }
+
+    /**
+     * this = (-1)^sign * [hi][lo] * 10^scale for unsigned magnitude [hi][lo] and -18 <= scale <= 18
+     */
+    private T setScaled(long sign, long hi, long lo, int scale, RoundingMode roundingMode) {
+        if (scale >= 0) {
+            long m = LONG_POW10[scale];
+            long t = unsignedMulHi(lo, m);
+            if (unsignedMulHi(hi, m) != 0) {
+                return setNaN(); // overflow
+            }
+            hi = hi * m + t;
+            if (Long.compareUnsigned(hi, t) < 0) {
+                return setNaN(); // overflow
+            }
+            return setRound(sign, hi, lo * m, 0, 1, roundingMode);
+        }
+
+        Divisor d = POW10_DIVISORS[-scale];
+        long qh = udiv_128_64(0, hi, d);
+        long ql = udiv_128_64(hi - qh * d.magnitude, lo, d);
+        return setRound(sign, qh, ql, lo - ql * d.magnitude, d.magnitude, roundingMode);
+    }
+
+    /**
+     * this = (-1)^sign * ([hi][lo] + numerator / denominator) for unsigned magnitude [hi][lo], rounded,
+     * NaN if the result doesn't fit 127 bits (see {@link #round} for the arguments contract)
+     */
+    private T setRound(long sign, long hi, long lo, long numerator, long denominator, RoundingMode roundingMode) {
+        // only the parity of the whole part and the sign matter for rounding
+        long parity = negIf(lo & 1, sign);
+        long rounded = round(parity, negIf(numerator, sign), denominator, roundingMode);
+        if (rounded == AbstractDecimal.NaN) {
+            return setNaN(); // failed UNNECESSARY
+        }
+        if (rounded != parity && ++lo == 0) {
+            ++hi;
+        }
+        if (hi < 0) {
+            return setNaN(); // overflow: magnitude >= 2^127
+        }
+        return setRaw(negIfHi(hi, lo, sign), negIf(lo, sign));
+    }
+
+    /**
+     * this = a + b scaled by 10^scale (-18 <= scale <= 18), the sum itself can't overflow
+     */
+    private T setSum(long aHi, long aLo, long bHi, long bLo, int scale, RoundingMode roundingMode) {
+        if (isNaN(aHi, aLo) || isNaN(bHi, bLo)) {
+            return setNaN();
+        }
+
+        long lo = aLo + bLo;
+        long hi = aHi + bHi + (Long.compareUnsigned(lo, aLo) < 0 ? 1 : 0);
+        // on overflow the sum is the 129-bit number of the arguments sign, and [hi][lo] is its unsigned magnitude
+        // (for negative - after negation)
+        long sign = ((aHi ^ hi) & (bHi ^ hi)) < 0 ? aHi >> 63 : hi >> 63;
+        return setScaled(sign, negIfHi(hi, lo, sign), negIf(lo, sign), scale, roundingMode);
+    }
+
+    /**
+     * this += a * 10^(scale - aScale), rounding only once (see {@link AbstractDecimal#add})
+     */
+    private T addScaled(long aHi, long aLo, int aScale, RoundingMode roundingMode) {
+        long hi = high;
+        long lo = low;
+        if (isNaN(hi, lo) || isNaN(aHi, aLo)) {
+            return setNaN();
+        }
+
+        int scale = getScale() - aScale;
+        long sign = aHi >> 63;
+        if (scale >= 0) {
+            // a * 10^scale may not fit 128 bits while the sum does, so adding 3-word magnitudes
+            long x1 = negIfHi(aHi, aLo, sign);
+            long x0 = negIf(aLo, sign);
+            long m = LONG_POW10[scale];
+            long n0 = x0 * m;
+            long n1 = unsignedMulHi(x0, m);
+            long t = x1 * m;
+            n1 += t;
+            long n2 = Math.multiplyHigh(x1, m) + (Long.compareUnsigned(n1, t) < 0 ? 1 : 0);
+
+            long signThis = hi >> 63;
+            long y1 = negIfHi(hi, lo, signThis);
+            long y0 = negIf(lo, signThis);
+            if (sign == signThis) {
+                n0 += y0;
+                t = y1 + (Long.compareUnsigned(n0, y0) < 0 ? 1 : 0); // no overflow: y1 is 63-bit
+                n1 += t;
+                n2 += Long.compareUnsigned(n1, t) < 0 ? 1 : 0;
+            } else if (n2 != 0 || compareUnsigned_128(n1, n0, y1, y0) >= 0) {
+                t = y1 + (Long.compareUnsigned(n0, y0) < 0 ? 1 : 0);
+                n0 -= y0;
+                n2 -= Long.compareUnsigned(n1, t) < 0 ? 1 : 0;
+                n1 -= t;
+            } else {
+                // |this| is bigger, n1 <= y1 is 63-bit
+                t = n1 + (Long.compareUnsigned(y0, n0) < 0 ? 1 : 0);
+                n0 = y0 - n0;
+                n1 = y1 - t;
+                sign = signThis;
+            }
+            return n2 == 0 ? setRound(sign, n1, n0, 0, 1, RoundingMode.UNNECESSARY) : setNaN();
+        }
+
+        setScaled(sign, negIfHi(aHi, aLo, sign), negIf(aLo, sign), scale, RoundingMode.DOWN); // whole part of a
+        long d = LONG_POW10[-scale];
+        long remainder = aLo - low * d; // with the sign of a
+
+        long sumLo = lo + low;
+        long sumHi = hi + high + (Long.compareUnsigned(sumLo, lo) < 0 ? 1 : 0);
+        if (((hi ^ sumHi) & (high ^ sumHi)) < 0) {
+            return setNaN(); // overflow
+        }
+
+        // the remainder must have the sign of the sum
+        if (sumHi < 0 && remainder > 0) {
+            remainder -= d;
+            if (++sumLo == 0) {
+                ++sumHi;
+            }
+        } else if ((sumHi | sumLo) != 0 && sumHi >= 0 && remainder < 0) {
+            remainder += d;
+            if (sumLo-- == 0) {
+                --sumHi;
+            }
+        }
+
+        sign = ((sumHi | sumLo) != 0 ? sumHi : remainder) >> 63;
+        return setRound(sign, negIfHi(sumHi, sumLo, sign), negIf(sumLo, sign), negIf(remainder, sign), d, roundingMode);
+    }
+
+    /**
+     * this = a * b / 10^scale, -18 <= scale <= 36
+     */
+    private T setProduct(long aHi, long aLo, long bHi, long bLo, int scale, RoundingMode roundingMode) {
+        if (isNaN(aHi, aLo) || isNaN(bHi, bLo)) {
+            return setNaN();
+        }
+
+        long signA = aHi >> 63;
+        long signB = bHi >> 63;
+        long x1 = negIfHi(aHi, aLo, signA);
+        long x0 = negIf(aLo, signA);
+        long y1 = negIfHi(bHi, bLo, signB);
+        long y0 = negIf(bLo, signB);
+        long sign = signA ^ signB;
+
+        // long multiplication with 64-bit digits: [p3][p2][p1][p0] = [x1][x0] * [y1][y0], x1 and y1 are 63-bit
+        long p0 = x0 * y0;
+        long p1 = unsignedMulHi(x0, y0);
+        long p2 = x1 * y1;
+        long p3 = Math.multiplyHigh(x1, y1);
+
+        long t = x0 * y1;
+        p1 += t;
+        t = unsignedMulHi(x0, y1) + (Long.compareUnsigned(p1, t) < 0 ? 1 : 0); // < 2^63, no overflow
+        p2 += t;
+        p3 += Long.compareUnsigned(p2, t) < 0 ? 1 : 0;
+
+        t = x1 * y0;
+        p1 += t;
+        t = unsignedMulHi(x1, y0) + (Long.compareUnsigned(p1, t) < 0 ? 1 : 0);
+        p2 += t;
+        p3 += Long.compareUnsigned(p2, t) < 0 ? 1 : 0;
+
+        if (scale <= 0) {
+            return p3 == 0 && p2 == 0 ? setScaled(sign, p1, p0, -scale, roundingMode) : setNaN();
+        }
+
+        // long division by 10^scale, 1 word at a time (twice if 10^scale doesn't fit long)
+        Divisor d = POW10_DIVISORS[Math.min(scale, 18)];
+        long q3 = udiv_128_64(0, p3, d);
+        long q2 = udiv_128_64(p3 - q3 * d.magnitude, p2, d);
+        long q1 = udiv_128_64(p2 - q2 * d.magnitude, p1, d);
+        long q0 = udiv_128_64(p1 - q1 * d.magnitude, p0, d);
+        long numerator = p0 - q0 * d.magnitude;
+        long denominator = d.magnitude;
+
+        if (scale > 18) {
+            Divisor d2 = POW10_DIVISORS[scale - 18];
+            p3 = q3;
+            p2 = q2;
+            p1 = q1;
+            p0 = q0;
+            q3 = udiv_128_64(0, p3, d2);
+            q2 = udiv_128_64(p3 - q3 * d2.magnitude, p2, d2);
+            q1 = udiv_128_64(p2 - q2 * d2.magnitude, p1, d2);
+            q0 = udiv_128_64(p1 - q1 * d2.magnitude, p0, d2);
+            numerator = quarters(p0 - q0 * d2.magnitude, d2.magnitude, numerator, denominator);
+            denominator = 4;
+        }
+
+        return q3 == 0 && q2 == 0 ? setRound(sign, q1, q0, numerator, denominator, roundingMode) : setNaN();
+    }
+
+    /**
+     * this = a * 10^scale / b, 0 <= scale <= 18
+     */
+    private T setQuotient(long aHi, long aLo, int scale, long bHi, long bLo, RoundingMode roundingMode) {
+        if (isNaN(aHi, aLo) || isNaN(bHi, bLo) || (bHi | bLo) == 0) {
+            return setNaN();
+        }
+
+        long signA = aHi >> 63;
+        long signB = bHi >> 63;
+        long x1 = negIfHi(aHi, aLo, signA);
+        long x0 = negIf(aLo, signA);
+        long y1 = negIfHi(bHi, bLo, signB);
+        long y0 = negIf(bLo, signB);
+        long sign = signA ^ signB;
+
+        // [n2][n1][n0] = x * 10^scale, n2 is 59-bit
+        long m = LONG_POW10[scale];
+        long n0 = x0 * m;
+        long n1 = unsignedMulHi(x0, m);
+        long t = x1 * m;
+        n1 += t;
+        long n2 = Math.multiplyHigh(x1, m) + (Long.compareUnsigned(n1, t) < 0 ? 1 : 0);
+
+        if (y1 == 0) {
+            // long division by a single word
+            if (Long.compareUnsigned(n2, y0) >= 0) {
+                return setNaN(); // overflow: quotient >= 2^128
+            }
+            long q1 = udiv_128_64(n2, n1, y0);
+            long q0 = udiv_128_64(n1 - q1 * y0, n0, y0);
+            return setRound(sign, q1, q0, quarters_128(0, n0 - q0 * y0, 0, y0), 4, roundingMode);
+        }
+
+        // Knuth's algorithm D with 64-bit digits: normalize and do 2 steps, the quotient is less than 2^123
+        int shift = Long.numberOfLeadingZeros(y1);
+        long v1 = (y1 << shift) | (y0 >>> 1 >>> (63 - shift));
+        long v0 = y0 << shift;
+        long u3 = n2 >>> 1 >>> (63 - shift);
+        long u2 = (n2 << shift) | (n1 >>> 1 >>> (63 - shift));
+        long u1 = (n1 << shift) | (n0 >>> 1 >>> (63 - shift));
+        long u0 = n0 << shift;
+
+        long q1 = udiv_192_128(u3, u2, u1, v1, v0);
+        // remainder [u2][u1] - q1 * v (modulo 2^128)
+        t = q1 * v0;
+        u2 -= unsignedMulHi(q1, v0) + q1 * v1 + (Long.compareUnsigned(u1, t) < 0 ? 1 : 0);
+        u1 -= t;
+
+        long q0 = udiv_192_128(u2, u1, u0, v1, v0);
+        t = q0 * v0;
+        u1 -= unsignedMulHi(q0, v0) + q0 * v1 + (Long.compareUnsigned(u0, t) < 0 ? 1 : 0);
+        u0 -= t;
+
+        // normalized remainder and divisor have the same ratio
+        return setRound(sign, q1, q0, quarters_128(u1, u0, v1, v0), 4, roundingMode);
+    }
+
+    /**
+     * Same as {@link #quarters}, but for the unsigned 128-bit remainder [rHi][rLo] of the division by [dHi][dLo]
+     */
+    private static long quarters_128(long rHi, long rLo, long dHi, long dLo) {
+        if ((rHi | rLo) == 0) {
+            return 0;
+        }
+
+        // comparing r with d - r (no overflow unlike 2 * r)
+        long hLo = dLo - rLo;
+        long hHi = dHi - rHi - (Long.compareUnsigned(dLo, rLo) < 0 ? 1 : 0);
+        int compare = compareUnsigned_128(rHi, rLo, hHi, hLo);
+        return compare < 0 ? 1 : compare == 0 ? 2 : 3;
+    }
+}
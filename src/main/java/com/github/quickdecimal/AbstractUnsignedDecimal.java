@@ -0,0 +1,173 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+
+/**
+ * Non-negative fixed point decimal, e.g. quantities, notionals or fees: same as {@link AbstractDecimal},
+ * but the value can not be below zero. Any operation producing a negative result (e.g. subtracting a bigger number,
+ * negating a positive one) gives {@link #NaN}, i.e. NaN signals underflow below zero as well as overflow.
+ * <p>
+ * Multiplication, division and addition of non-negative arguments skip the sign handling and go straight
+ * to the unsigned kernels ({@link #mulscale_63_31}, {@link #scalediv_63_63}, {@link #unsignedDownScale_64_31}).
+ * The raw value is from 0 to {@link Long#MAX_VALUE}, but the intermediate values (such as a sum of two raw values
+ * or a product of two ints) use the full unsigned 64-bit range.
+ * Arguments of signed types (possibly negative) are supported, these go the general (signed) way.
+ *
+ * @param <T>
+ */
+public abstract class AbstractUnsignedDecimal<T extends AbstractUnsignedDecimal> extends AbstractDecimal<T> {
+    /**
+     * Raw long value without decimal points, a negative one becomes {@link #NaN}
+     */
+    @Override
+    public T setRaw(long raw) {
+        return super.setRaw(raw < 0 ? NaN : raw);
+    }
+
+    /**
+     * Add 2 numbers of the scale same to this
+     * No rounding required.
+     */
+    @Override
+    public T plus(T a, T b) {
+        if (getScale() != a.getScale() || getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        long raw1 = a.getRaw();
+        long raw2 = b.getRaw();
+        return setRaw((raw1 | raw2) < 0 ? NaN : raw1 + raw2); // overflow (>= 2^63) becomes NaN in setRaw
+    }
+
+    /**
+     * Subtract 2 numbers of the scale same to this, {@link #NaN} if the result is negative.
+     * No rounding required.
+     */
+    @Override
+    public T minus(T a, T b) {
+        if (getScale() != a.getScale() || getScale() != b.getScale()) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+
+        long raw1 = a.getRaw();
+        long raw2 = b.getRaw();
+        return setRaw((raw1 | raw2) < 0 ? NaN : raw1 - raw2); // underflow becomes NaN in setRaw
+    }
+
+    /**
+     * Multiply 2 numbers of the same scale and put the result to this.
+     * Rounding is required if the arguments scale combined is greater than this scale.
+     */
+    @Override
+    public <V extends AbstractDecimal> T product(V a, V b, RoundingMode roundingMode) {
+        int scale = a.getScale() + b.getScale() - getScale();
+        long raw1 = a.getRaw();
+        long raw2 = b.getRaw();
+        if ((raw1 | raw2) < 0 || scale < 0 || a.getScale() != b.getScale()) { // negative, NaN or scaling up
+            return super.product(a, b, roundingMode);
+        }
+
+        return setRaw(unsignedMulScaleRound(raw1, raw2, scale, roundingMode));
+    }
+
+    /**
+     * Multiply this by the argument.
+     * Rounding is required if argument scale is not zero.
+     */
+    @Override
+    public <V extends AbstractDecimal> T mul(V a, RoundingMode roundingMode) {
+        long raw1 = getRaw();
+        long raw2 = a.getRaw();
+        if ((raw1 | raw2) < 0) {
+            return super.mul(a, roundingMode);
+        }
+
+        return setRaw(unsignedMulScaleRound(raw1, raw2, a.getScale(), roundingMode));
+    }
+
+    /**
+     * Divide first argument bye second and the result to this.
+     * Rounding is always required.
+     * Return {@link #NaN} if b is zero.
+     */
+    @Override
+    public <V extends AbstractDecimal> T quotient(V a, V b, RoundingMode roundingMode) {
+        long raw1 = a.getRaw();
+        long raw2 = b.getRaw();
+        if ((raw1 | raw2) < 0 || raw2 == 0 || a.getScale() != b.getScale()) {
+            return super.quotient(a, b, roundingMode);
+        }
+
+        return setRaw(unsignedScaleDivRound(raw1, getScale(), raw2, roundingMode));
+    }
+
+    /**
+     * Divide this by the argument and put result into this.
+     * Rounding is always required.
+     * Return {@link #NaN} if a is zero.
+     */
+    @Override
+    public <V extends AbstractDecimal> T div(V a, RoundingMode roundingMode) {
+        long raw1 = getRaw();
+        long raw2 = a.getRaw();
+        if ((raw1 | raw2) < 0 || raw2 == 0) {
+            return super.div(a, roundingMode);
+        }
+
+        return setRaw(unsignedScaleDivRound(raw1, a.getScale(), raw2, roundingMode));
+    }
+
+    /**
+     * "a * b / 10^scale" for non-negative a and b, 0 <= scale <= 36, see {@link #mulScale}
+     */
+    private long unsignedMulScaleRound(long a, long b, int scale, RoundingMode roundingMode) {
+        long result;
+        if ((a | b) >>> 31 == 0 && scale <= 18) {
+            result = unsignedDownScale_64_31(a * b, scale); // a * b < 2^62
+        } else {
+            result = scale <= 18 ? mulscale_63_31(a, b, scale) :
+                    scaleDiv_127_63(Math.multiplyHigh(a, b), a * b, -18, LONG_POW10[scale - 18]); // up to 36
+            if (result == NaN) {
+                return result;
+            }
+        }
+
+        return round(result, getRaw(), mulScaleDenominator(scale), roundingMode);
+    }
+
+    /**
+     * "v * 10^s / d" for non-negative v and positive d, see {@link #scaleDiv}
+     */
+    private long unsignedScaleDivRound(long v, int s, long d, RoundingMode roundingMode) {
+        if (v <= SCALE_OVERFLOW_LIMITS[s]) {
+            long p = v * LONG_POW10[s];
+            return round(p / d, p % d, d, roundingMode);
+        }
+
+        long result = scalediv_63_63(v, s, d);
+        return result != NaN ? round(result, getRaw(), d, roundingMode) : result;
+    }
+}
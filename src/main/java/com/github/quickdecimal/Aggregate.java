@@ -0,0 +1,95 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+/**
+ * Result of an aggregation of raw values (see {@link DecimalMath#sum(long[], int, int, Aggregate)} and others):
+ * the raw result with the position of the min/max value, and where NaN values and overflows were met, so they can be
+ * reported instead of only poisoning the result. {@link AbstractDecimal#NaN} values are skipped.
+ * <p>
+ * No allocation: reuse the same instance. Not thread-safe.
+ */
+public final class Aggregate {
+    private long raw = AbstractDecimal.NaN;
+    private int index = -1;
+    private int count;
+    private int nanCount;
+    private int firstNaN = -1;
+    private int overflow = -1;
+
+    /**
+     * Raw result of the scale of the values (of the requested scale for the mean), NaN if overflow or there are no
+     * values (other than NaN) for min, max and mean
+     */
+    public long getRaw() {
+        return raw;
+    }
+
+    /**
+     * Index of the first min/max value, -1 if there are no values or it is not min/max
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Number of the aggregated values, NaN values are not counted
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getNaNCount() {
+        return nanCount;
+    }
+
+    /**
+     * Index of the first NaN value, -1 if there are none
+     */
+    public int getFirstNaN() {
+        return firstNaN;
+    }
+
+    /**
+     * Index of the value at which the running sum overflowed (the end index if only the result does not fit),
+     * -1 if there was no overflow
+     */
+    public int getOverflow() {
+        return overflow;
+    }
+
+    public boolean isNaN() {
+        return raw == AbstractDecimal.NaN;
+    }
+
+    Aggregate set(long raw, int index, int count, int nanCount, int firstNaN, int overflow) {
+        this.raw = raw;
+        this.index = index;
+        this.count = count;
+        this.nanCount = nanCount;
+        this.firstNaN = firstNaN;
+        this.overflow = overflow;
+        return this;
+    }
+}
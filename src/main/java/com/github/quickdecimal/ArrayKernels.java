@@ -0,0 +1,126 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+/**
+ * Bulk kernels on raw values of the same scale over [from, to) of the arrays, which can be the same (in place):
+ * addition and subtraction ({@link AbstractDecimal#NaN} if overflow), negation, min/max and comparison.
+ * {@link AbstractDecimal#NaN} arguments give NaN (it is the smallest value for min and comparison, as in
+ * {@link AbstractDecimal#compareTo}).
+ * <p>
+ * This is the scalar implementation, one element at a time. {@link #INSTANCE} is the SIMD one (VectorArrayKernels
+ * on the Vector API in META-INF/versions/21 of the multi-release jar) if the JVM runs with
+ * "--add-modules jdk.incubator.vector", this one otherwise.
+ */
+class ArrayKernels {
+    static final long NaN = AbstractDecimal.NaN;
+
+    static final ArrayKernels INSTANCE = create();
+
+    private static ArrayKernels create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (ArrayKernels) Class.forName("com.github.quickdecimal.VectorArrayKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // no Java 21 classes (e.g. a plain Java 11 jar) or no SIMD on this CPU
+            }
+        }
+        return new ArrayKernels();
+    }
+
+    /**
+     * r = a + b
+     */
+    void add(long[] a, long[] b, long[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            r[i] = DecimalMath.add(a[i], b[i]);
+        }
+    }
+
+    /**
+     * r = a + b
+     */
+    void add(long[] a, long b, long[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            r[i] = DecimalMath.add(a[i], b);
+        }
+    }
+
+    /**
+     * r = a - b
+     */
+    void subtract(long[] a, long[] b, long[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            r[i] = DecimalMath.subtract(a[i], b[i]);
+        }
+    }
+
+    /**
+     * r = a - b
+     */
+    void subtract(long[] a, long b, long[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            r[i] = DecimalMath.subtract(a[i], b);
+        }
+    }
+
+    /**
+     * r = -a, NaN stays NaN as -Long.MIN_VALUE == Long.MIN_VALUE
+     */
+    void negate(long[] a, long[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            r[i] = -a[i];
+        }
+    }
+
+    /**
+     * r = min(a, b), NaN if any of them is NaN as NaN is the smallest
+     */
+    void min(long[] a, long[] b, long[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            r[i] = Math.min(a[i], b[i]);
+        }
+    }
+
+    /**
+     * r = max(a, b), NaN if any of them is NaN
+     */
+    void max(long[] a, long[] b, long[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long x = a[i];
+            long y = b[i];
+            r[i] = x == NaN || y == NaN ? NaN : Math.max(x, y);
+        }
+    }
+
+    /**
+     * r = -1, 0 or 1 as a is less than, equal to or greater than b, NaN is less than any other value
+     */
+    void compare(long[] a, long[] b, int[] r, int from, int to) {
+        for (int i = from; i < to; i++) {
+            r[i] = Long.compare(a[i], b[i]);
+        }
+    }
+}
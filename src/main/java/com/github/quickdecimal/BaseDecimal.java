@@ -23,15 +23,18 @@
  */
 package com.github.quickdecimal;
 
+import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.util.Arrays;
 
 /**
  * This class contains a lot of "magic" code and can be incomprehensible.
  * If you have to understand it, the following information can help you.
  * <p>
  * The class is doing long multiplication and division for 96-bit and 128-bit (mostly) positive numbers.
- * It is required to do operations with numbers with up to 9 implied com.github.decimal points.
- * "9" is the highest power of 10 still fitting signed 32-bit int, which simplifies (and speeds up) calculations a lot.
+ * It is required to do operations with numbers with up to 18 implied com.github.decimal points.
+ * "18" is the highest power of 10 still fitting signed 64-bit long, so any scale fits a single 64-bit word,
+ * and a product of 2 numbers scaled by 10^18 fits 128 bits.
  * <p>
  * Main 2 methods of the class are "mulscale_63_31" and "scalediv_63_63".
  * First multiplies 2 long numbers and scales down the result (i.e. divides by a power of 10)
@@ -105,6 +108,23 @@ abstract class BaseDecimal extends Number {
             Long.MAX_VALUE / 100000000000000000L,
             Long.MAX_VALUE / 1000000000000000000L
     };
+    /**
+     * Reciprocals for {@link #unsignedDiv10_64}: [2^(64 + shift) / 10^scale], where shift is chosen to be the maximum
+     * still fitting the reciprocal into 63 bits.
+     */
+    static final long[] DOWNSCALE_RECIPROCALS = new long[LONG_POW10.length];
+    static final int[] DOWNSCALE_SHIFTS = new int[LONG_POW10.length];
+
+    static {
+        for (int scale = 1; scale < LONG_POW10.length; scale++) {
+            // 2^(64 + shift) / 10^scale < 2^(64 + shift) / 2^(shift + 1) = 2^63
+            int shift = 62 - Long.numberOfLeadingZeros(LONG_POW10[scale]);
+            DOWNSCALE_SHIFTS[scale] = shift;
+            DOWNSCALE_RECIPROCALS[scale] = BigInteger.ONE.shiftLeft(64 + shift)
+                    .divide(BigInteger.valueOf(LONG_POW10[scale]))
+                    .longValueExact();
+        }
+    }
     static final char[][] ZEROES = {
             "".toCharArray(),
             "0".toCharArray(),
@@ -154,10 +174,35 @@ abstract class BaseDecimal extends Number {
      * Also does rounding.
      */
     long scaleDivRound(long v, int s, long d, RoundingMode roundingMode) {
+        long result = scaleDiv(v, s, d);
+        return result != AbstractDecimal.NaN ? round(result, a, Math.abs(d), roundingMode) : result;
+    }
+
+    /**
+     * Same as {@link #scaleDivRound(long, int, long, RoundingMode)}, rounding with the rounder
+     */
+    long scaleDivRound(long v, int s, long d, Rounder rounder) {
+        long result = scaleDiv(v, s, d);
+        return result != AbstractDecimal.NaN ? rounder.round(result, a, Math.abs(d)) : result;
+    }
+
+    /**
+     * Same as {@link #scaleDivRound(long, int, long, RoundingMode)}, but without rounding: returns the whole part
+     * (rounded DOWN), the remainder (with the sign of the result) of |d| goes to {@link #a}.
+     * Fast path: if v * 10^s fits long (typical for small values), it's a single signed division.
+     */
+    long scaleDiv(long v, int s, long d) {
         if (v == AbstractDecimal.NaN || d == AbstractDecimal.NaN || d == 0) {
             return AbstractDecimal.NaN;
         }
 
+        if (Math.abs(v) <= SCALE_OVERFLOW_LIMITS[s]) {
+            long p = v * LONG_POW10[s];
+            long r = p % d; // the sign of p
+            a = d < 0 ? -r : r;
+            return p / d;
+        }
+
         long sign1 = v >> 63;
         long sign2 = d >> 63;
 
@@ -171,135 +216,430 @@ abstract class BaseDecimal extends Number {
 
         sign1 ^= sign2;
 
-        return round(negIf(result, sign1), negIf(a, sign1), d, roundingMode);
+        a = negIf(a, sign1);
+        return negIf(result, sign1);
+    }
+
+    /**
+     * Same as {@link #scaleDivRound(long, int, long, RoundingMode)}, but uses precomputed divisor: the sign handling
+     * and normalization of the divisor is already done, division is done by the reciprocal.
+     */
+    long scaleDivRound(long v, int s, Divisor d, RoundingMode roundingMode) {
+        long result = scaleDiv(v, s, d);
+        return result != AbstractDecimal.NaN ? round(result, a, d.magnitude, roundingMode) : result;
+    }
+
+    /**
+     * Same as {@link #scaleDivRound(long, int, Divisor, RoundingMode)}, rounding with the rounder
+     */
+    long scaleDivRound(long v, int s, Divisor d, Rounder rounder) {
+        long result = scaleDiv(v, s, d);
+        return result != AbstractDecimal.NaN ? rounder.round(result, a, d.magnitude) : result;
+    }
+
+    /**
+     * Same as {@link #scaleDivRound(long, int, Divisor, RoundingMode)}, but without rounding: returns the whole part
+     * (rounded DOWN), the remainder (with the sign of the result) of the divisor magnitude goes to {@link #a}.
+     */
+    long scaleDiv(long v, int s, Divisor d) {
+        if (v == AbstractDecimal.NaN || d.magnitude == 0) {
+            return AbstractDecimal.NaN;
+        }
+
+        long sign = v >> 63;
+        v = negIf(v, sign);
+
+        long result = scaleDivQuotient_63_63(v, s, d);
+        if (result == AbstractDecimal.NaN) {
+            return result;
+        }
+
+        sign ^= d.sign;
+        a = negIf(v * LONG_POW10[s] - result * d.magnitude, sign);
+        return negIf(result, sign);
+    }
+
+    /**
+     * Unsigned v_63 * 10^s divided by the precomputed divisor (rounded DOWN), NaN if the quotient does not fit
+     * 63 bits. Static, so it does not need an instance: the remainder is "v_63 * 10^s - q * d.magnitude".
+     */
+    static long scaleDivQuotient_63_63(long v_63, int s, Divisor d) {
+        // p = v * 10^s, 128-bit
+        long m_60 = LONG_POW10[s];
+        long p_64 = v_63 * m_60;
+        long p_63 = Math.multiplyHigh(v_63, m_60);
+        if (p_63 >= d.magnitude) {
+            return AbstractDecimal.NaN; // overflow: quotient >= 2^64
+        }
+
+        long result = udiv_128_64(p_63, p_64, d);
+        return result >= 0 ? result : AbstractDecimal.NaN; // overflow if negative
+    }
+
+    /**
+     * Multiply a and b with 128-bit result, multiply it by 10^scale (scale can be negative), then divide by d.
+     * Supports negative numbers and does rounding.
+     * Overflow (NaN) is only possible if the final result does not fit long.
+     */
+    long mulDivRound(long a, long b, int scale, long d, RoundingMode roundingMode) {
+        long result = mulDiv(a, b, scale, d);
+        return result != AbstractDecimal.NaN ? round(result, this.a, mulDivDenominator(scale, d), roundingMode) : result;
+    }
+
+    /**
+     * Same as {@link #mulDivRound(long, long, int, long, RoundingMode)}, rounding with the rounder
+     */
+    long mulDivRound(long a, long b, int scale, long d, Rounder rounder) {
+        long result = mulDiv(a, b, scale, d);
+        return result != AbstractDecimal.NaN ? rounder.round(result, this.a, mulDivDenominator(scale, d)) : result;
+    }
+
+    /**
+     * Same as {@link #mulDivRound(long, long, int, long, RoundingMode)}, but without rounding: returns the whole part
+     * (rounded DOWN), the remainder (with the sign of the result) goes to {@link #a},
+     * its denominator is {@link #mulDivDenominator}
+     */
+    long mulDiv(long a, long b, int scale, long d) {
+        if (a == AbstractDecimal.NaN || b == AbstractDecimal.NaN || d == AbstractDecimal.NaN || d == 0) {
+            return AbstractDecimal.NaN;
+        }
+
+        long sign1 = a >> 63;
+        long sign2 = b >> 63;
+        long sign3 = d >> 63;
+
+        a = negIf(a, sign1);
+        b = negIf(b, sign2);
+        d = negIf(d, sign3);
+
+        long result = scaleDiv_127_63(Math.multiplyHigh(a, b), a * b, scale, d);
+        if (result == AbstractDecimal.NaN) {
+            return result;
+        }
+
+        sign1 ^= sign2 ^ sign3;
+
+        this.a = negIf(this.a, sign1);
+        return negIf(result, sign1);
+    }
+
+    /**
+     * Denominator of the remainder of {@link #mulDiv}: |d|, or 4 (quarters) if scale is negative
+     */
+    static long mulDivDenominator(int scale, long d) {
+        return scale >= 0 ? Math.abs(d) : 4;
+    }
+
+    /**
+     * Multiply unsigned 127-bit number [hi_63][lo_64] by 10^scale (scale can be negative), then divide by d_63
+     * and round the result with the given sign (0 or -1), see {@link #scaleDiv_127_63}.
+     * Static, so it does not need an instance: the remainder is recomputed by {@link #scaleDivRemainder_127_63}.
+     */
+    static long scaleDivRound_127_63(long hi_63, long lo_64, int scale, long d_63, long sign, RoundingMode roundingMode) {
+        long result = scaleDivQuotient_127_63(hi_63, lo_64, scale, d_63);
+        if (result == AbstractDecimal.NaN) {
+            return result;
+        }
+        long remainder = scaleDivRemainder_127_63(hi_63, lo_64, scale, d_63, result);
+        return round(negIf(result, sign), negIf(remainder, sign), scale >= 0 ? d_63 : 4, roundingMode);
+    }
+
+    /**
+     * Same as {@link #scaleDivRound_127_63} for unsigned 191-bit number [u2_63][u1_64][u0_64], e.g. an exact sum
+     * of 128-bit products. If it's 2^127 or more, the quotient only fits 63 bits if scale < 0:
+     * "u / d / 10^-scale" is 3 words divided by 1 word (u2 < d, otherwise "u / d" is 2^128 or more), then 2 words
+     * by 1 word, the remainder is converted to quarters as in {@link #scaleDivQuotient_127_63}.
+     */
+    static long scaleDivRound_191_63(long u2_63, long u1_64, long u0_64, int scale, long d_63, long sign,
+                                     RoundingMode roundingMode) {
+        if (u2_63 == 0 && u1_64 >= 0) {
+            return scaleDivRound_127_63(u1_64, u0_64, scale, d_63, sign, roundingMode);
+        }
+        if (scale >= 0 || u2_63 >= d_63) {
+            return AbstractDecimal.NaN; // overflow: quotient >= 2^64
+        }
+
+        long m_60 = LONG_POW10[-scale];
+
+        // q = u / d, the highest word of the quotient is 0
+        long qh_64 = udiv_128_64(u2_63, u1_64, d_63);
+        long ql_64 = udiv_128_64(u1_64 - qh_64 * d_63, u0_64, d_63);
+        long r1_63 = u0_64 - ql_64 * d_63;
+
+        // q / 10^-scale
+        if (Long.compareUnsigned(qh_64, m_60) >= 0) {
+            return AbstractDecimal.NaN; // overflow: quotient >= 2^64
+        }
+        long result = udiv_128_64(qh_64, ql_64, m_60);
+        if (result < 0) {
+            return AbstractDecimal.NaN; // overflow
+        }
+        long r2_60 = ql_64 - result * m_60;
+        return round(negIf(result, sign), negIf(quarters(r2_60, m_60, r1_63, d_63), sign), 4, roundingMode);
+    }
+
+    /**
+     * Multiply unsigned 127-bit number [hi_63][lo_64] by 10^scale (-18 <= scale <= 18), then divide by d_63.
+     * Returns the quotient rounded DOWN, the remainder goes to {@link #a}: exact one (of d) if scale >= 0,
+     * otherwise in quarters (see {@link #quarters}).
+     */
+    long scaleDiv_127_63(long hi_63, long lo_64, int scale, long d_63) {
+        long result = scaleDivQuotient_127_63(hi_63, lo_64, scale, d_63);
+        if (result != AbstractDecimal.NaN) {
+            a = scaleDivRemainder_127_63(hi_63, lo_64, scale, d_63, result);
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #scaleDiv_127_63}, but returns only the quotient (or NaN if it does not fit 63 bits).
+     * Idea of implementation:
+     * - if scale >= 0, it is a long division of 3 words "p * 10^scale" by 1 word (see {@link #udiv_128_64}),
+     *   which is an overflow if the highest 2 words are not less than d
+     * - if scale < 0, it is "p / d / 10^-scale" (2 long divisions of 2 words by 1 word each)
+     */
+    static long scaleDivQuotient_127_63(long hi_63, long lo_64, int scale, long d_63) {
+        if (scale >= 0) {
+            long m_60 = LONG_POW10[scale];
+            long t_64 = unsignedMulHi(lo_64, m_60);
+            long p_64 = lo_64 * m_60;
+            long p1_64 = hi_63 * m_60 + t_64;
+            long p2_63 = Math.multiplyHigh(hi_63, m_60);
+            if (Long.compareUnsigned(p1_64, t_64) < 0) {
+                ++p2_63; // carry
+            }
+            if (p2_63 != 0 || Long.compareUnsigned(p1_64, d_63) >= 0) {
+                return AbstractDecimal.NaN; // overflow: quotient >= 2^64
+            }
+
+            long result = udiv_128_64(p1_64, p_64, d_63);
+            return result >= 0 ? result : AbstractDecimal.NaN; // overflow if negative
+        }
+
+        long m_60 = LONG_POW10[-scale];
+
+        // q = p / d
+        long qh_63 = hi_63 / d_63;
+        long ql_64 = udiv_128_64(hi_63 % d_63, lo_64, d_63);
+
+        // q / 10^-scale
+        if (qh_63 >= m_60) {
+            return AbstractDecimal.NaN; // overflow: quotient >= 2^64
+        }
+        long result = udiv_128_64(qh_63, ql_64, m_60);
+        return result >= 0 ? result : AbstractDecimal.NaN; // overflow if negative
+    }
+
+    /**
+     * The remainder of {@link #scaleDivQuotient_127_63} restored from its quotient q_63: exact one (of d) if
+     * scale >= 0, otherwise in quarters (see {@link #quarters}) of "d * 10^-scale", which may not fit long,
+     * but is less than 2^123, so the remainder "p - q * d * 10^-scale" is exact modulo 2^128.
+     */
+    static long scaleDivRemainder_127_63(long hi_63, long lo_64, int scale, long d_63, long q_63) {
+        if (scale >= 0) {
+            return lo_64 * LONG_POW10[scale] - q_63 * d_63; // exact, as it is less than d
+        }
+
+        long m_60 = LONG_POW10[-scale];
+        long dHi_59 = Math.multiplyHigh(d_63, m_60);
+        long dLo_64 = d_63 * m_60;
+        long tLo_64 = q_63 * dLo_64;
+        long tHi_64 = unsignedMulHi(q_63, dLo_64) + q_63 * dHi_59;
+        long rLo_64 = lo_64 - tLo_64;
+        long rHi_59 = hi_63 - tHi_64 - (Long.compareUnsigned(lo_64, tLo_64) < 0 ? 1 : 0); // borrow
+        if ((rHi_59 | rLo_64) == 0) {
+            return 0;
+        }
+        // 2 * r compared to d * 10^-scale
+        int c = compareUnsigned_128((rHi_59 << 1) | (rLo_64 >>> 63), rLo_64 << 1, dHi_59, dLo_64);
+        return c < 0 ? 1 : c == 0 ? 2 : 3;
     }
 
     /**
      * Multiply v by 10^scale, then divide by d, avoiding overflows.
-     * Idea of implementation of "v / d * 10^scale"
-     * - first, make v < d, doing simple "[v / d] * 10^scale" part
-     * - if d is int (31-bit), then it's simple Java division
-     * - otherwise, long-multiply "p = v * 10^scale", resulting in 3-word p
-     * - normalize p and d (shift both left until highest bit of d is set)
-     * - do approximate division (p >> 32) / (d >> 32)
-     * - correct (decrement) the quotient, no more than 2 corrections required due to normalization above
+     * Idea of implementation of "v * 10^scale / d"
+     * - multiply "p = v * 10^scale" with 128-bit result using Math.multiplyHigh
+     * - if p fits long, it's a single Java division (the common case, the rest is in {@link #div_127_63})
+     * - if the high word of p is not less than d, the quotient does not fit 64 bits (overflow)
+     * - if d is int (31-bit), then it's 2 simple Java divisions by 32-bit digits
+     * - otherwise, it's a long division of 2 64-bit words by 64-bit divisor, see {@link #udiv_128_64}
      */
     long scalediv_63_63(long v_63, int scale, long d_63) {
-        long offset_63 = 0;
-        if (v_63 >= d_63) {
-            // v * m / d = (v / d * d + v % d) * m / d = v / d * m + v % d * m / d
-            offset_63 = v_63 / d_63;
-            v_63 = v_63 % d_63;
-
-            if (offset_63 > SCALE_OVERFLOW_LIMITS[scale]) {
-                return AbstractDecimal.NaN; // overflow
-            }
-            offset_63 *= POW10[scale]; // overflow possible here
+        long m_60 = LONG_POW10[scale];
+        long p_64 = v_63 * m_60;
+        long p_63 = Math.multiplyHigh(v_63, m_60);
+        if (p_63 == 0 && p_64 >= 0) {
+            // simple division
+            a = p_64 % d_63; // remainder
+            return p_64 / d_63;
         }
-        assert v_63 < d_63 : "and therefore quotient < m_31 <= Integer.MAX_VALUE";
 
-        long p_63 = mulhi_63_32(v_63, POW10[scale]);
-        long p_32 = a;
+        return div_127_63(p_63, p_64, d_63); // kept out of line to make this one inlineable
+    }
+
+    /**
+     * Divide unsigned 127-bit number [p_63][p_64] by d_63, see {@link #scalediv_63_63}.
+     * Returns the quotient or NaN if it does not fit 63 bits, the remainder goes to {@link #a}.
+     */
+    private long div_127_63(long p_63, long p_64, long d_63) {
+        if (p_63 >= d_63) {
+            return AbstractDecimal.NaN; // overflow: quotient >= 2^64
+        }
 
+        long q_64;
         if (d_63 <= Integer.MAX_VALUE) {
-            assert v_63 <= Integer.MAX_VALUE;
-            v_63 *= POW10[scale]; // no overflow
+            // long division by 32-bit digits, no overflows as p_63 < d_63 < 2^31
+            long u_63 = (p_63 << WORD_BITS) | hi_32(p_64);
+            long q_32 = u_63 / d_63;
+            u_63 = ((u_63 - q_32 * d_63) << WORD_BITS) | lo_32(p_64);
+            q_64 = (q_32 << WORD_BITS) | (u_63 / d_63);
+        } else {
+            q_64 = udiv_128_64(p_63, p_64, d_63);
+        }
 
-            // simple division
-            offset_63 += v_63 / d_63; // quotient (considering the offset)
-            if (offset_63 < 0) {
-                return AbstractDecimal.NaN; // overflow
-            }
-            a = v_63 % d_63; // remainder
-            return offset_63;
+        if (q_64 < 0) {
+            return AbstractDecimal.NaN; // overflow
         }
+        a = p_64 - q_64 * d_63; // remainder, exact as it is less than d
+        return q_64;
+    }
+
+    /**
+     * Divide unsigned 128-bit number [hi_64][lo_64] by unsigned d_64, hi_64 must be less than d_64 (unsigned),
+     * so the quotient fits 64 bits. Returns unsigned quotient, the remainder can be restored as "lo_64 - q * d_64".
+     * <p>
+     * Long division (Knuth's algorithm D) of 4 32-bit words by 2 32-bit words, which produces 2 words of the quotient:
+     * - normalize d and the dividend (shift both left until highest bit of d is set)
+     * - estimate each word of quotient by dividing 2 highest words of the (partial) dividend by the highest word of d
+     * - correct the estimate using the lower word of d, normalization guarantees no more than 2 corrections
+     */
+    static long udiv_128_64(long hi_64, long lo_64, long d_64) {
+        assert Long.compareUnsigned(hi_64, d_64) < 0 : "quotient must fit 64 bits";
 
         // normalizing:
-        int shift = Long.numberOfLeadingZeros(d_63) - 1; // don't touch the sign bit
-        assert shift < 32;
-        d_63 <<= shift;
-        assert Long.numberOfLeadingZeros(p_63) >= shift + 1 : "otherwise quotient would be > Integer.MAX_VALUE";
-        p_63 <<= shift;
-        p_32 <<= shift;
-        p_63 |= hi_32(p_32);
-        p_32 = lo_32(p_32);
-
-        // approximate division
-        long d_31 = hi_32(d_63);
-        long d_32 = lo_32(d_63);
-        long qhat_32 = p_63 / d_31; // approximate division (high parts)
-        qhat_32 = lo_32(qhat_32); // exact quotient can not be bigger than Integer.MAX_VALUE
-
-        /*
-         We can prove that a) we need max 1 correction down (decreasing quotient) and b) we don't need corrections up.
-         We are essentially approximating division
-         (p_63 * W + p_32) / (d_31 * W + d_32), with division
-         p_63 / d_31, where
-         p_63, p_32, d_31, d_32 - natural numbers, W = 2^32 and
-         0 <= p_32 < W, 0 <= d_32 < W - lower words of the values
-         p_63 < d_31 - due to the very first "if"
-         d_31 >= 2^32 - due to normalization
-         p_63 / d_31 <= 10^9 - this is why we need 1 correction, not 2, unlike the standard algorithm (from Google)
-
-         Proof a):
-         Let's estimate difference between approximated and exact division:
-         p_63 / d_31 - (p_63 * W + p_32) / (d_31 * W + d_32) < p_63 / d_31 - (p_63 * W) / (d_31 * W + d_32) =
-         = p_63 / d_31 - p_63 / (d_31 + d_32 / W) = p_63 / d_31 - p_63 / d_31 * 1 / (1 + d_32 / (W * d_31))) <
-         < p_63 / d_31 * (1 - 1 / (1 + 2^32 / (2^32 * 2^30))) <= 10^9 * (1 - 1 / (1 + 2^-30)) < 1
-
-         Do the difference is < 1, therefore difference of whole parts is <= 1, because if A - B < 1 then:
-         [A] - [B] = A - {A} - B + {B} < 1 - {A} + {B} <= 1 + {B} < 2, therefore
-         [A] - [B] <= 1 (it's a whole number)
-
-         Proof b):
-         Now we need to proof that [estimated quotient] is not bigger than [exact quotient]:
-         [(p_63 * W + p_32) / (d_31 * W + d_32)] <=
-         (p_63 * W + p_32) / (d_31 * W + d_32) <= (p_63 * W + p_32) / (d_31 * W) =
-          p_63 / d_31 + p_32 / (d_31 * W) =
-          [p_63 / d_31] + {p_63 / d_31} + {p_32 / (d_31 * W)} =
-          [p_63 / d_31] + {p_63 / d_31 + p_32 / (d_31 * W)}
-
-          The last "=" is true, because
-          p_63 / d_31 + p_32 / (d_31 * W) = (p_63 + p_32 / W) / d_31 < (p_63 + 1) / W <= 1  (whole numbers p_63 < W)
-
-          Therefore:
-          [(p_63 * W + p_32) / (d_31 * W + d_32)] <= [p_63 / d_31]  (fractional component can be ignored)
-
-          Finally we have got:
-          0 <= [p_63 / d_31] - [(p_63 * W + p_32) / (d_31 * W + d_32)] <= 1
-          or
-          0 <= qhat - q <= 1
-         */
-
-        // multiply back
-        long phat_63 = mulhi_63_32(d_63, qhat_32);
-        long phat_32 = a;
-
-        // phat must be <= p, if not, applying correction down (no more than 1)
-        if (greaterThan(phat_63, phat_32, p_63, p_32)) {
-            --qhat_32;
-
-            // delta -= d
-            phat_63 -= d_31;
-            phat_32 -= d_32;
-            if (phat_32 < 0) {
-                --phat_63;
-                phat_32 += WORD_CARRY;
-            }
+        int shift = Long.numberOfLeadingZeros(d_64);
+        d_64 <<= shift;
+        hi_64 = (hi_64 << shift) | (lo_64 >>> 1 >>> (63 - shift)); // nothing is lost as hi < d
+        lo_64 <<= shift;
+
+        long d_32h = hi_32(d_64);
+        long d_32l = lo_32(d_64);
+
+        long q_32h = udiv_96_64(hi_64, hi_32(lo_64), d_32h, d_32l);
+        long r_64 = ((hi_64 << WORD_BITS) | hi_32(lo_64)) - q_32h * d_64; // exact, remainder < d
+        long q_32l = udiv_96_64(r_64, lo_32(lo_64), d_32h, d_32l);
+
+        return (q_32h << WORD_BITS) | q_32l;
+    }
+
+    /**
+     * Same as {@link #udiv_128_64}, but uses the reciprocal of the divisor instead of long division
+     * (N. Moller, T. Granlund, "Improved division by invariant integers", algorithm 4):
+     * the estimation "v * u1 + u / 2^64" where v = [(2^128 - 1) / d] - 2^64 is off by max 2 and corrected afterwards.
+     */
+    static long udiv_128_64(long hi_64, long lo_64, Divisor divisor) {
+        assert Long.compareUnsigned(hi_64, divisor.magnitude) < 0 : "quotient must fit 64 bits";
+        return udiv_128_64(hi_64, lo_64, divisor.shift, divisor.normalized, divisor.reciprocal);
+    }
+
+    /**
+     * Same as {@link #udiv_128_64(long, long, Divisor)} with the fields of the divisor kept in locals by the caller:
+     * d_64 is the normalized divisor and v_64 its reciprocal, see {@link #reciprocal}
+     */
+    static long udiv_128_64(long hi_64, long lo_64, int shift, long d_64, long v_64) {
+        long u1_64 = (hi_64 << shift) | (lo_64 >>> 1 >>> (63 - shift));
+        long u0_64 = lo_64 << shift;
+
+        // [q1][q0] = v * u1 + [u1 + 1][u0]
+        long q0_64 = v_64 * u1_64;
+        long q1_64 = unsignedMulHi(v_64, u1_64) + u1_64 + 1;
+        q0_64 += u0_64;
+        if (Long.compareUnsigned(q0_64, u0_64) < 0) {
+            ++q1_64; // carry
+        }
+
+        long r_64 = u0_64 - q1_64 * d_64;
+        if (Long.compareUnsigned(r_64, q0_64) > 0) {
+            --q1_64;
+            r_64 += d_64;
         }
-        assert !greaterThan(phat_63, phat_32, p_63, p_32) : "one down correction must be enough";
+        if (Long.compareUnsigned(r_64, d_64) >= 0) { // unlikely
+            ++q1_64;
+        }
+        return q1_64;
+    }
 
-        long remainder = ((p_63 - phat_63) << WORD_BITS) + p_32 - phat_32; // remainder
-        assert remainder >= 0 && remainder < d_63 : "no up corrections necessary";
+    /**
+     * [(2^128 - 1) / d_64] - 2^64 for normalized (highest bit set) d_64, see {@link #udiv_128_64(long, long, Divisor)}
+     */
+    static long reciprocal(long d_64) {
+        // (2^128 - 1) - 2^64 * d = [~d][2^64 - 1], where ~d < d
+        return udiv_128_64(~d_64, -1, d_64);
+    }
+
+    /**
+     * Divide unsigned 192-bit number [u2_64][u1_64][u0_64] by normalized (highest bit set) 128-bit [v1_64][v0_64],
+     * [u2_64][u1_64] must be less than v (unsigned), so the quotient fits 64 bits.
+     * Returns unsigned quotient, the remainder can be restored as "[u1_64][u0_64] - q * v" (modulo 2^128).
+     * <p>
+     * A single step of Knuth's algorithm D with 64-bit digits: the estimate "[u2_64][u1_64] / v1_64" is at most 2
+     * higher than the exact quotient and is corrected using v0_64. With 2-word divisor the correction test compares
+     * q * v with the whole dividend, so no "add back" is needed.
+     */
+    static long udiv_192_128(long u2_64, long u1_64, long u0_64, long v1_64, long v0_64) {
+        assert v1_64 < 0 : "divisor must be normalized";
+
+        long q_64;
+        long r_64;
+        boolean big; // remainder of the estimate >= 2^64, so q * v0 can't exceed [r][u0]
+        if (u2_64 == v1_64) {
+            q_64 = -1; // 2^64 - 1
+            r_64 = u1_64 + v1_64;
+            big = Long.compareUnsigned(r_64, v1_64) < 0;
+        } else {
+            q_64 = udiv_128_64(u2_64, u1_64, v1_64);
+            r_64 = u1_64 - q_64 * v1_64;
+            big = false;
+        }
+
+        while (!big && compareUnsigned_128(unsignedMulHi(q_64, v0_64), q_64 * v0_64, r_64, u0_64) > 0) {
+            --q_64;
+            r_64 += v1_64;
+            big = Long.compareUnsigned(r_64, v1_64) < 0;
+        }
+        return q_64;
+    }
 
-        // original quantity and remainder
-        a = remainder >> shift;
-        offset_63 += qhat_32;
+    /**
+     * Compare 2 unsigned 128-bit numbers [aHi_64][aLo_64] and [bHi_64][bLo_64]
+     */
+    static int compareUnsigned_128(long aHi_64, long aLo_64, long bHi_64, long bLo_64) {
+        return aHi_64 != bHi_64 ? Long.compareUnsigned(aHi_64, bHi_64) : Long.compareUnsigned(aLo_64, bLo_64);
+    }
 
-        assert d_63 > POW10[scale] : "Because d_63 > Integer.MAX_VALUE";
-        assert offset_63 >= 0 : "No overflow: final quantity = v * 10^scale / d < v <= Long.MAX_VALUE";
+    /**
+     * A single step of {@link #udiv_128_64}: divide unsigned [u_64][u_32] by normalized [d_32h][d_32l],
+     * expecting u_64 < d, i.e. 32-bit quotient.
+     */
+    private static long udiv_96_64(long u_64, long u_32, long d_32h, long d_32l) {
+        if (Long.compareUnsigned(u_64, d_32h) < 0) {
+            return 0; // u_64 * W + u_32 < d_32h * W <= d
+        }
 
-        return offset_63;
+        // approximate division (high parts), at most 2 higher than the exact one, because d_32h >= 2^31
+        long qhat_33 = UnsignedMath.divide_64_32(u_64, d_32h);
+        long rhat_32 = u_64 - qhat_33 * d_32h;
+
+        // correcting the approximation with the low word of d
+        while (qhat_33 >= WORD_CARRY ||
+                Long.compareUnsigned(qhat_33 * d_32l, (rhat_32 << WORD_BITS) | u_32) > 0) {
+            --qhat_33;
+            rhat_32 += d_32h;
+            if (rhat_32 >= WORD_CARRY) {
+                break; // the comparison above is true then
+            }
+        }
+        return qhat_33;
     }
 
     /**
@@ -308,35 +648,75 @@ abstract class BaseDecimal extends Number {
      * Also does rounding.
      */
     long mulScaleRound(long a, long b, int scale, RoundingMode roundingMode) {
+        long result = mulScale(a, b, scale);
+        if (result == AbstractDecimal.NaN) {
+            return result;
+        }
+
+        return round(result, this.a, mulScaleDenominator(scale), roundingMode);
+    }
+
+    /**
+     * Same as {@link #mulScaleRound(long, long, int, RoundingMode)}, rounding with the rounder
+     */
+    long mulScaleRound(long a, long b, int scale, Rounder rounder) {
+        long result = mulScale(a, b, scale);
+        return result != AbstractDecimal.NaN ? rounder.round(result, this.a, mulScaleDenominator(scale)) : result;
+    }
+
+    /**
+     * Same as {@link #mulScaleRound}, but without rounding: returns the whole part (rounded DOWN),
+     * the remainder (with the sign of the result) goes to {@link #a}, its denominator is {@link #mulScaleDenominator}
+     * Fast path: if both arguments fit int (typical for quantities and prices), the product fits long,
+     * so it's a single multiplication and a single scaling down, see {@link #downScale_63_31}.
+     */
+    long mulScale(long a, long b, int scale) {
         if (a == AbstractDecimal.NaN || b == AbstractDecimal.NaN) {
             return AbstractDecimal.NaN;
         }
 
+        if (a == (int) a && b == (int) b && scale <= 18) {
+            return downScale_63_31(a * b, scale); // |a * b| <= 2^62
+        }
+
         long sign1 = a >> 63;
         long sign2 = b >> 63;
 
         a = negIf(a, sign1);
         b = negIf(b, sign2);
 
-        long result = mulscale_63_31(a, b, scale);
+        long result = scale <= 18 ? mulscale_63_31(a, b, scale) :
+                scaleDiv_127_63(Math.multiplyHigh(a, b), a * b, -18, LONG_POW10[scale - 18]); // up to 36
         if (result == AbstractDecimal.NaN) {
             return result;
         }
 
         sign1 ^= sign2;
 
-        return round(negIf(result, sign1), negIf(this.a, sign1), LONG_POW10[scale], roundingMode);
+        this.a = negIf(this.a, sign1);
+        return negIf(result, sign1);
+    }
+
+    /**
+     * Denominator of the remainder of {@link #mulScale}: 10^scale, or 4 (quarters) if it does not fit long
+     */
+    static long mulScaleDenominator(int scale) {
+        return scale <= 18 ? LONG_POW10[scale] : 4;
     }
 
     /**
      * Multiply a and b and divide the result by 10^scale, avoiding overflows.
      * Idea of implementation of "a * b / 10^scale"
      * - first, long-multiply a and b (with 128-bit result)
-     * - if scale > 9 (can be up to 18), then divide by 10^10 first (slower, but not often needed)
+     * - if scale > 9 (can be up to 18), then divide by 10^10 first (slower, but not often needed, see {@link #mulscaleLarge_63_31})
      * - 10^10 does not fit "int", but it can be shifted by 3 zero bits right to fit
      * - as soon as scale is 9 or less, its simple long division by "int"
      */
     long mulscale_63_31(long a_63, long b_63, int scale) {
+        if (scale > 9) {
+            return mulscaleLarge_63_31(a_63, b_63, scale); // rare, kept out of line to make this one inlineable
+        }
+
         // long multiplication
         long a_31 = hi_32(a_63);
         long a_32 = lo_32(a_63);
@@ -350,151 +730,142 @@ abstract class BaseDecimal extends Number {
         long p_64 = a_32 * b_31 + a_31 * b_32 + hi_32(lo_64);
         long p_63 = a_31 * b_31;
 
-        long p_32;
-        long r_33 = -1; // remainder from division by 10^10 (if necessary)
-        if (scale > 9) {
-            // move everything to 4 words p[63][64]
-            p_63 += hi_32(p_64);
-            p_64 = (p_64 << WORD_BITS) | lo_32(lo_64);
+        if (p_63 < 0 || p_63 > Integer.MAX_VALUE) {
+            return AbstractDecimal.NaN; // overflow
+        }
+
+        // move everything to 3 words: p[63][32]
+        p_63 <<= WORD_BITS; // no high word in p_63
+        p_63 += p_64;
+        return downScale_95_31(p_63, lo_32(lo_64), scale);
+    }
+
+    /**
+     * Same as {@link #mulscale_63_31} for 9 < scale <= 18: the product is divided by 10^10 first
+     */
+    private long mulscaleLarge_63_31(long a_63, long b_63, int scale) {
+        // long multiplication, see mulscale_63_31
+        long a_31 = hi_32(a_63);
+        long a_32 = lo_32(a_63);
+        long b_31 = hi_32(b_63);
+        long b_32 = lo_32(b_63);
 
-            // now we need to long-divide by 10^10 first (and then - by 10^scale as usual)
-            // the formula for final remainder derived from:
-            // v / d1 / d2 = (q1 + r1 / d1) / d2 = q1 / d2 + r1 / d1d2 = q2 + r2 / d2 + r1 / d1d2 = q2 + (r2d1 + r1) / d1d2
+        long lo_64 = a_32 * b_32;
+        long p_64 = a_32 * b_31 + a_31 * b_32 + hi_32(lo_64);
+        long p_63 = a_31 * b_31;
 
-            // p >>>= 3 [note: lowest 3 bits are still saved in lo_64]
-            p_64 = (p_64 >>> 3) | (p_63 << 61);
-            p_63 >>>= 3;
+        // move everything to 4 words p[63][64]
+        p_63 += hi_32(p_64);
+        p_64 = (p_64 << WORD_BITS) | lo_32(lo_64);
 
-            // (p >>> 3) / (10^10 >>> 3) [note: this is NOT approximate, we just thrown away 3 zeros in denominator]
-            long q1_63 = p_63 / 1250000000;
-            r_33 = p_63 % 1250000000;
+        // now we need to long-divide by 10^10 first (and then - by 10^scale as usual)
+        // the formula for final remainder derived from:
+        // v / d1 / d2 = (q1 + r1 / d1) / d2 = q1 / d2 + r1 / d1d2 = q2 + r2 / d2 + r1 / d1d2 = q2 + (r2d1 + r1) / d1d2
 
-            p_63 = (r_33 << WORD_BITS) | hi_32(p_64);
-            long q2_32 = p_63 / 1250000000;
-            r_33 = p_63 % 1250000000;
+        // p >>>= 3 [note: lowest 3 bits are still saved in lo_64]
+        p_64 = (p_64 >>> 3) | (p_63 << 61);
+        p_63 >>>= 3;
 
-            p_63 = (r_33 << WORD_BITS) | lo_32(p_64);
-            long q3_32 = p_63 / 1250000000;
-            r_33 = p_63 % 1250000000;
-            // restoring 3 lowest bits of the remainder:
-            r_33 = (r_33 << 3) + (lo_64 & 0x7);
+        // (p >>> 3) / (10^10 >>> 3) [note: this is NOT approximate, we just thrown away 3 zeros in denominator]
+        long q1_63 = p_63 / 1250000000;
+        long r_33 = p_63 % 1250000000;
 
-            assert q1_63 >= 0 && q1_63 <= Integer.MAX_VALUE : "we have just divided it by 10^10 > 2^32";
-            p_63 = (q1_63 << WORD_BITS) | q2_32;
-            p_32 = q3_32;
+        p_63 = (r_33 << WORD_BITS) | hi_32(p_64);
+        long q2_32 = p_63 / 1250000000;
+        r_33 = p_63 % 1250000000;
 
-            scale -= 10;
-        } else {
-            if (p_63 < 0 || p_63 > Integer.MAX_VALUE) {
-                return AbstractDecimal.NaN; // overflow
-            }
+        p_63 = (r_33 << WORD_BITS) | lo_32(p_64);
+        long q3_32 = p_63 / 1250000000;
+        r_33 = p_63 % 1250000000;
+        // restoring 3 lowest bits of the remainder:
+        r_33 = (r_33 << 3) + (lo_64 & 0x7);
 
-            // move everything to 3 words: p[63][32]
-            p_63 <<= WORD_BITS; // no high word in p_63
-            p_63 += p_64;
-            p_32 = lo_32(lo_64);
+        assert q1_63 >= 0 && q1_63 <= Integer.MAX_VALUE : "we have just divided it by 10^10 > 2^32";
+        long result = downScale_95_31((q1_63 << WORD_BITS) | q2_32, q3_32, scale - 10);
+        if (result == AbstractDecimal.NaN) {
+            return result;
         }
 
-        // long division: words 2,1,0 by int POW10[scale]
+        a = a * 10000000000L + r_33; // need to consider remainder of first division by 10^10
+        return result;
+    }
+
+    /**
+     * Long division of 3 words [p_63][p_32] by 10^scale (scale <= 9, so the remainder shifted by a word fits long),
+     * the result must fit 63 bits, otherwise it's an overflow (NaN). The remainder goes to {@link #a}.
+     */
+    private long downScale_95_31(long p_63, long p_32, int scale) {
         long result_63o = downScale_63_31(p_63, scale);
         long ql_32 = downScale_63_31((a << WORD_BITS) | p_32, scale);
 
         if (result_63o < 0 || result_63o > Integer.MAX_VALUE) {
             return AbstractDecimal.NaN; // overflow
         }
-
-        if (r_33 != -1) {
-            a = a * 10000000000L + r_33; // need to consider remainder of first division by 10^10
-        }
         return (result_63o << WORD_BITS) | ql_32;
     }
 
     /**
-     * switch + division by constant is faster than "v_63 / PO10[scale]"
-     * also good for signed numbers (remainder is negative for negative result)
+     * Division by 10^scale (0 <= scale <= 18) with a precomputed reciprocal, see {@link #unsignedDiv10_64}.
+     * Also good for signed numbers (remainder is negative for negative result)
      */
     long downScale_63_31(long v_63, int scale) {
-        switch (scale) {
-            case 0:
-                a = 0;
-                return v_63;
-            case 1:
-                a = v_63 % 10;
-                return v_63 / 10;
-            case 2:
-                a = v_63 % 100;
-                return v_63 / 100;
-            case 3:
-                a = v_63 % 1000;
-                return v_63 / 1000;
-            case 4:
-                a = v_63 % 10000;
-                return v_63 / 10000;
-            case 5:
-                a = v_63 % 100000;
-                return v_63 / 100000;
-            case 6:
-                a = v_63 % 1000000;
-                return v_63 / 1000000;
-            case 7:
-                a = v_63 % 10000000;
-                return v_63 / 10000000;
-            case 8:
-                a = v_63 % 100000000;
-                return v_63 / 100000000;
-            case 9:
-                a = v_63 % 1000000000;
-                return v_63 / 1000000000;
-            default:
-                throw new IllegalArgumentException("Incorrect scale: " + scale);
+        if (scale == 0) {
+            a = 0;
+            return v_63;
         }
+
+        long sign = v_63 >> 63;
+        long result = unsignedDiv10_64(negIf(v_63, sign), scale); // Long.MIN_VALUE stays 2^63 unsigned, which is fine
+        a = negIf(a, sign);
+        return negIf(result, sign);
     }
 
     /**
-     * same as {@link #downScale_63_31}, but support unsigned longs (by shifting numerator and denominator by 1)
+     * same as {@link #downScale_63_31}, but support unsigned longs
      */
     long unsignedDownScale_64_31(long v_64, int scale) {
-        // supports unsigned values
-        a = v_64 & 0x1;
-        v_64 >>>= 1;
-        switch (scale) {
-            case 0:
-                v_64 <<= 1; // revert what we just did
-                v_64 += a;
-                a = 0;
-                return v_64;
-            case 1:
-                a |= (v_64 % 5);
-                return v_64 / 5;
-            case 2:
-                a |= (v_64 % 50) << 1;
-                return v_64 / 50;
-            case 3:
-                a |= (v_64 % 500) << 1;
-                return v_64 / 500;
-            case 4:
-                a |= (v_64 % 5000) << 1;
-                return v_64 / 5000;
-            case 5:
-                a |= (v_64 % 50000) << 1;
-                return v_64 / 50000;
-            case 6:
-                a |= (v_64 % 500000) << 1;
-                return v_64 / 500000;
-            case 7:
-                a |= (v_64 % 5000000) << 1;
-                return v_64 / 5000000;
-            case 8:
-                a |= (v_64 % 50000000) << 1;
-                return v_64 / 50000000;
-            case 9:
-                a |= (v_64 % 500000000) << 1;
-                return v_64 / 500000000;
-            default:
-                throw new IllegalArgumentException("Incorrect scale: " + scale);
+        if (scale == 0) {
+            a = 0;
+            return v_64;
         }
+        return unsignedDiv10_64(v_64, scale);
     }
 
+    /**
+     * Divide unsigned 64-bit number by 10^scale (1 <= scale <= 18), remainder goes to {@link #a}.
+     * Instead of hardware division, multiplies by the reciprocal m = [2^(64 + shift) / 10^scale] and takes the high word:
+     * q = [v * m / 2^(64 + shift)]
+     * <p>
+     * The estimation q is never bigger than exact quotient (as m is rounded down) and is smaller by max 1, because:
+     * v * m / 2^(64 + shift) > v * (2^(64 + shift) / 10^scale - 1) / 2^(64 + shift) = v / 10^scale - v / 2^(64 + shift) >
+     * > v / 10^scale - 2^-shift >= v / 10^scale - 1/4  (shift >= 2 for 10^scale >= 10)
+     * so a single correction up is enough.
+     */
+    long unsignedDiv10_64(long v_64, int scale) {
+        long d_60 = LONG_POW10[scale];
+        long m_63 = DOWNSCALE_RECIPROCALS[scale];
+
+        // unsigned high word of v * m
+        long q_64 = UnsignedMath.multiplyHigh_64_63(v_64, m_63) >>> DOWNSCALE_SHIFTS[scale];
+        long r_61 = v_64 - q_64 * d_60; // < 2 * 10^18, no overflow
+
+        long correction = (d_60 - 1 - r_61) >> 63; // -1 if r >= d
+        a = r_61 - (d_60 & correction);
+        return q_64 - correction;
+    }
+
+    /**
+     * Same as {@link #unsignedDiv10_64}, but returns only the quotient (the remainder is v - q * 10^scale),
+     * so it does not need an instance
+     */
+    static long unsignedDivPow10_64(long v_64, int scale) {
+        long d_60 = LONG_POW10[scale];
+        long m_63 = DOWNSCALE_RECIPROCALS[scale];
+
+        long q_64 = UnsignedMath.multiplyHigh_64_63(v_64, m_63) >>> DOWNSCALE_SHIFTS[scale];
+        long r_61 = v_64 - q_64 * d_60;
+        return q_64 - ((d_60 - 1 - r_61) >> 63); // +1 if r >= d
+    }
 
     /**
      * Round common (and mixed) fractions, represented as "whole + numerator / denominator".
@@ -504,6 +875,7 @@ abstract class BaseDecimal extends Number {
      * @param denominator must be positive.
      * @param numerator (unless it's 0) must have the sign of the whole
      * @param roundingMode all modes supported, NaN if UNNECESSARY check fails
+     * @see Rounder
      */
     protected static long round(long whole, long numerator, long denominator, RoundingMode roundingMode) {
         switch (roundingMode) {
@@ -513,12 +885,11 @@ abstract class BaseDecimal extends Number {
                 denominator -= whole & 0x1; // HALF_UP for odd, making denominator < numerator * 2, else HALF_DOWN
                 // fall through
             case HALF_DOWN: // 5
-                denominator /= 2;
-                return numerator <= denominator && numerator >= -denominator ? whole :
+                // |numerator| * 2 <= denominator without overflow and truncation of odd denominators
+                return Math.abs(numerator) <= denominator - Math.abs(numerator) ? whole :
                     whole + Long.signum(numerator);
             case HALF_UP: // 4
-                denominator /= 2;
-                return numerator < denominator && numerator > -denominator ? whole :
+                return Math.abs(numerator) < denominator - Math.abs(numerator) ? whole :
                     whole + Long.signum(numerator);
             case FLOOR: // 3
                 return whole + (numerator >> 63); // decrement if negative
@@ -534,10 +905,642 @@ abstract class BaseDecimal extends Number {
     }
 
     /**
-     * Compare 2 96-bit numbers
+     * Converts a remainder, which may not fit long, into "quarters", which can be passed to {@link #round} as a numerator
+     * with the denominator 4 giving the same result as the exact remainder.
+     * The remainder is "rOuter * inner + rInner" of the division by "outer * inner",
+     * where 0 <= rOuter < outer and 0 <= rInner < inner.
+     *
+     * @return 0 if the remainder is 0, 1 if it is less than half, 2 if it is exactly half, 3 if more than half
      */
-    private static boolean greaterThan(long ah_63, long al_32, long bh_63, long bl_32) {
-        return ah_63 > bh_63 || ah_63 == bh_63 && al_32 > bl_32;
+    static long quarters(long rOuter, long outer, long rInner, long inner) {
+        if (rOuter == 0 && rInner == 0) {
+            return 0;
+        }
+
+        // 2 * (rOuter * inner + rInner) - outer * inner = 2 * rInner - (outer - 2 * rOuter) * inner
+        long t = outer - rOuter - rOuter;
+        if (t <= 0) {
+            return t == 0 && rInner == 0 ? 2 : 3;
+        } else if (t > 1) {
+            return 1; // 2 * rInner - t * inner < 2 * inner - 2 * inner = 0
+        }
+
+        // 2 * rInner - inner
+        long diff = rInner - (inner - rInner);
+        return diff < 0 ? 1 : diff == 0 ? 2 : 3;
+    }
+
+    /**
+     * value / 10^19 rounded: the whole part is 0 and the remainder is converted to quarters, as 10^19 does not fit long
+     */
+    static long roundScaled_19(long value, RoundingMode roundingMode) {
+        long sign = value >> 63;
+        long v = negIf(value, sign);
+        long m = LONG_POW10[18];
+        return round(0, negIf(quarters(v / m, 10, v % m, m), sign), 4, roundingMode);
+    }
+
+    /**
+     * raw rounded to a multiple of the increment (of the same scale), NaN if raw is NaN, the increment is not positive
+     * or the result does not fit long
+     */
+    static long roundToIncrement(long raw, long increment, RoundingMode roundingMode) {
+        if (raw == AbstractDecimal.NaN || increment <= 0) {
+            return AbstractDecimal.NaN;
+        }
+        // the remainder has the sign of raw as required by round
+        long whole = round(raw / increment, raw % increment, increment, roundingMode);
+        return whole == AbstractDecimal.NaN || Math.abs(whole) > Long.MAX_VALUE / increment ?
+                AbstractDecimal.NaN : whole * increment;
+    }
+
+    /**
+     * Same as {@link #roundToIncrement(long, long, RoundingMode)}, but the quotient is calculated using the reciprocal
+     * of the increment, see {@link #udiv_128_64(long, long, Divisor)}
+     */
+    static long roundToIncrement(long raw, Increment increment, RoundingMode roundingMode) {
+        if (raw == AbstractDecimal.NaN || increment.isInvalid()) {
+            return AbstractDecimal.NaN;
+        }
+        long sign = raw >> 63;
+        long magnitude = negIf(raw, sign);
+        long q = udiv_128_64(0, magnitude, increment.divisor);
+        long whole = round(negIf(q, sign), negIf(magnitude - q * increment.raw, sign), increment.raw, roundingMode);
+        return whole == AbstractDecimal.NaN || Math.abs(whole) > increment.overflowLimit ?
+                AbstractDecimal.NaN : whole * increment.raw;
+    }
+
+    /**
+     * Splits total into parts[from, to) proportional to the weights (raws of any common scale) with the largest
+     * remainder method: each part is first rounded DOWN (by magnitude), then the residual units of the last digit
+     * go one by one to the parts with the largest remainders, the earlier parts win the ties. So the parts sum up
+     * to the total exactly, none of them is off by a unit or more from its exact share and zero weights get zeros.
+     * The weights are read from weights if not null, from decimals otherwise.
+     * <p>
+     * No allocation: the remainders are kept in parts to select the threshold (Hoare's selection of the residual-th
+     * largest remainder), the quotients are recalculated afterwards, all divisions by the sum of the weights use
+     * its reciprocal.
+     *
+     * @return false (parts filled with NaN) if total is NaN, a weight is negative or NaN, or the sum of the weights
+     * is zero or overflows
+     */
+    static boolean proRata(long total, long[] weights, AbstractDecimal<?>[] decimals, int from, int to, long[] parts) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            long w = weight(weights, decimals, i);
+            sum += w;
+            if (w < 0 || sum < 0) {
+                sum = 0; // negative or NaN weight, overflow
+                break;
+            }
+        }
+        if (total == AbstractDecimal.NaN || sum == 0) {
+            Arrays.fill(parts, from, to, AbstractDecimal.NaN);
+            return false;
+        }
+
+        long sign = total >> 63;
+        long t = negIf(total, sign);
+        int shift = Long.numberOfLeadingZeros(sum);
+        long d = sum << shift;
+        long v = reciprocal(d);
+
+        long residual = t;
+        for (int i = from; i < to; i++) {
+            long q = proRataQuotient(t, weight(weights, decimals, i), sum, shift, d, v);
+            parts[i] = q;
+            residual -= q;
+        }
+
+        if (residual != 0) {
+            // residual < number of parts, as each remainder is less than the sum
+            for (int i = from; i < to; i++) {
+                parts[i] = t * weight(weights, decimals, i) - parts[i] * sum; // remainder, exact modulo 2^64
+            }
+            long threshold = selectLargest(parts, from, to, (int) residual);
+            // the threshold is positive, as the remainders sum up to residual * sum with each less than sum
+            long ties = residual;
+            for (int i = from; i < to; i++) {
+                if (parts[i] > threshold) {
+                    --ties;
+                }
+            }
+            for (int i = from; i < to; i++) {
+                long w = weight(weights, decimals, i);
+                long q = proRataQuotient(t, w, sum, shift, d, v);
+                long r = t * w - q * sum;
+                if (r > threshold || (r == threshold && ties-- > 0)) {
+                    ++q;
+                }
+                parts[i] = negIf(q, sign);
+            }
+        } else if (sign != 0) {
+            for (int i = from; i < to; i++) {
+                parts[i] = -parts[i];
+            }
+        }
+        return true;
+    }
+
+    private static long weight(long[] weights, AbstractDecimal<?>[] decimals, int i) {
+        return weights != null ? weights[i] : decimals[i].getRaw();
+    }
+
+    /**
+     * t * w / sum rounded DOWN for 0 <= w <= sum, the normalized sum d and its reciprocal v are precomputed
+     */
+    private static long proRataQuotient(long t, long w, long sum, int shift, long d, long v) {
+        if (((t | w) >>> 31) == 0) {
+            return t * w / sum; // the product fits long
+        }
+        // the quotient fits long as w <= sum
+        return udiv_128_64(Math.multiplyHigh(t, w), t * w, shift, d, v);
+    }
+
+    /**
+     * k-th largest (1 <= k <= to - from) of values[from, to), reorders the values (Hoare's selection)
+     */
+    static long selectLargest(long[] values, int from, int to, int k) {
+        int target = from + k - 1; // index in the descending order
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            long pivot = values[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[i] > pivot) {
+                    i++;
+                }
+                while (values[j] < pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long tmp = values[i];
+                    values[i++] = values[j];
+                    values[j--] = tmp;
+                }
+            }
+            // [lo, j] >= pivot, (j, i) == pivot, [i, hi] <= pivot
+            if (target <= j) {
+                hi = j;
+            } else if (target >= i) {
+                lo = i;
+            } else {
+                return pivot;
+            }
+        }
+        return values[target];
+    }
+
+    /**
+     * e^(2^i) for i = 0..5 as M * 2^X with M in [2^62, 2^63) (rounded to nearest), mantissas M and exponents X,
+     * see {@link #exp_63}
+     */
+    private static final long[] EXP_POW2_MANTISSAS = {
+            0x56fc2a2c515da54dL,
+            0x763992e35376b731L,
+            0x6d3240b89ce9619eL,
+            0x5d27a9f51c31b7c3L,
+            0x43cbaf42a0008125L,
+            0x47d0ff312d98b1f6L
+    };
+    private static final int[] EXP_POW2_EXPONENTS = {-61, -60, -57, -51, -39, -16};
+    /**
+     * e^-(2^i) for i = 0..5, same as above
+     */
+    private static final long[] EXP_NEG_POW2_MANTISSAS = {
+            0x5e2d58d8b3bcdf1bL,
+            0x454aaa8efe072e7fL,
+            0x4b0556e084f3d1e0L,
+            0x57f08410409eb2f0L,
+            0x78d56eebba172b6aL,
+            0x721193dd8591a079L
+    };
+    private static final int[] EXP_NEG_POW2_EXPONENTS = {-64, -65, -68, -74, -86, -109};
+    /**
+     * 1/k! for k = 2..20 with 63 fractional bits (rounded down), Taylor series of e^f
+     */
+    private static final long[] EXP_COEFFICIENTS = new long[19];
+    /**
+     * 1/(2k + 1) for k = 1..12 with 63 fractional bits (rounded down), series of atanh(t) / t
+     */
+    private static final long[] ATANH_COEFFICIENTS = new long[12];
+    /**
+     * ln(2) * 2^127 (rounded to nearest) as [LN2_HI][LN2_LO]
+     */
+    private static final long LN2_HI = 0x58b90bfbe8e7bcd5L;
+    private static final long LN2_LO = 0xe4f1d9cc01f97b58L;
+    /**
+     * sqrt(2) * 2^63 (unsigned)
+     */
+    private static final long SQRT2_63 = 0xb504f333f9de6484L;
+
+    static {
+        long factorial = 1;
+        for (int k = 2; k <= 20; k++) {
+            factorial *= k; // 20! < 2^63
+            EXP_COEFFICIENTS[k - 2] = Long.divideUnsigned(Long.MIN_VALUE, factorial);
+        }
+        for (int k = 1; k <= ATANH_COEFFICIENTS.length; k++) {
+            ATANH_COEFFICIENTS[k - 1] = Long.divideUnsigned(Long.MIN_VALUE, 2 * k + 1);
+        }
+    }
+
+    /**
+     * Integer square root of unsigned 128-bit number [hi_62][lo_64] (hi_62 < 2^62, so the root fits 63 bits),
+     * rounded down. The remainder can be restored as "lo_64 - root * root" (it's less than 2^63).
+     * The double precision estimation is off by max 2^10 for 62-bit roots, a single Newton step
+     * "x = (x + v / x) / 2" makes it off by max 1, which is corrected by comparing x^2 with v.
+     */
+    static long isqrt_128(long hi_62, long lo_64) {
+        long x_63 = Math.max(1, (long) Math.sqrt(hi_62 * 0x1p64 + (lo_64 >>> 1) * 2.0));
+        long q_64 = udiv_128_64(hi_62, lo_64, x_63); // x ~ sqrt(hi * 2^64) > hi
+        x_63 += (q_64 - x_63) >> 1; // (x + q) / 2 without overflow, as x and q are close
+
+        while (compareUnsigned_128(unsignedMulHi(x_63, x_63), x_63 * x_63, hi_62, lo_64) > 0) {
+            x_63--;
+        }
+        long next_63 = x_63 + 1;
+        while (compareUnsigned_128(unsignedMulHi(next_63, next_63), next_63 * next_63, hi_62, lo_64) <= 0) {
+            x_63 = next_63++;
+        }
+        return x_63;
+    }
+
+    /**
+     * e^(n + f) * 10^scale, where n is integer and 0 <= f_63 < 2^63 is the fraction (with 63 fractional bits).
+     * Returns the whole part (rounded DOWN, NaN on overflow), the remainder goes to {@link #a} in quarters
+     * (see {@link #quarters}).
+     * Idea of implementation:
+     * - e^f = 1 + f + f^2 * (1/2! + f/3! + ... + f^18/20!), Horner's method with 63-bit coefficients
+     * - e^n is a product of e^(2^i) (or e^-(2^i) if n is negative) for every bit i of |n|, each product is normalized
+     *   to 63 bits, so it's a binary floating point number m * 2^e
+     * - the result is "m * 10^scale / 2^-e", see {@link #scaleShift_127}
+     * The relative error is about 10 * 2^-62 < 3 * 10^-18.
+     */
+    long exp_63(long n, long f_63, int scale) {
+        if (n >= 44) {
+            return AbstractDecimal.NaN; // e^44 > 2^63
+        }
+        if (n < -4 - scale * 23026L / 10000) {
+            a = 1; // e^(n + 1) * 10^scale < 1/4, so the result is positive, but less than a half
+            return 0;
+        }
+
+        long p_63 = EXP_COEFFICIENTS[EXP_COEFFICIENTS.length - 1];
+        for (int i = EXP_COEFFICIENTS.length - 2; i >= 0; i--) {
+            p_63 = EXP_COEFFICIENTS[i] + mulQ63(p_63, f_63);
+        }
+        long m_63 = (1L << 61) + (f_63 >>> 2) + (mulQ63(mulQ63(f_63, f_63), p_63) >>> 2); // e^f < 4 with 61 bits
+        int e = -61;
+
+        long[] mantissas = n >= 0 ? EXP_POW2_MANTISSAS : EXP_NEG_POW2_MANTISSAS;
+        int[] exponents = n >= 0 ? EXP_POW2_EXPONENTS : EXP_NEG_POW2_EXPONENTS;
+        long bits = Math.abs(n); // < 64
+        for (int i = 0; bits != 0; i++, bits >>>= 1) {
+            if ((bits & 1) != 0) {
+                e += exponents[i] + mulShift_63(m_63, mantissas[i]);
+                m_63 = mulNormalized_63(m_63, mantissas[i]);
+            }
+        }
+
+        return scaleShift_127(0, m_63, scale, -e);
+    }
+
+    /**
+     * Natural logarithm of v_63 / 10^scale (v_63 > 0) as a signed 128-bit fixed point number with 63 fractional bits,
+     * returns the high word, the low word goes to {@link #a}.
+     * Idea of implementation:
+     * - x = v / 10^scale = m * 2^k, where 1/sqrt(2) <= m < sqrt(2), see {@link #mantissa_64}
+     * - ln(m) = 2 * atanh(t) = 2 * t * (1 + t^2/3 + t^4/5 + ... + t^24/25), where t = (m - 1) / (m + 1), |t| < 0.172
+     * - ln(x) = k * ln(2) + ln(m), where ln(2) is a 127-bit constant, so k * ln(2) is exact to 2^-63
+     * The absolute error is below 7 * 2^-63 < 10^-18.
+     */
+    long ln_127(long v_63, int scale) {
+        long q_64 = mantissa_64(v_63, scale);
+        long k = 63 - mantissaShift(v_63, scale); // x = q / 2^63 * 2^k, 1/2 < q / 2^63 < 2
+
+        long m_62; // 1/sqrt(2) <= m < sqrt(2)
+        if (Long.compareUnsigned(q_64, SQRT2_63) >= 0) {
+            m_62 = q_64 >>> 2;
+            k++;
+        } else if (q_64 >= 0 && q_64 < SQRT2_63 >>> 1) {
+            m_62 = q_64;
+            k--;
+        } else {
+            m_62 = q_64 >>> 1;
+        }
+
+        long sign = (m_62 - (1L << 62)) >> 63; // -1 if m < 1
+        long n_62 = negIf(m_62 - (1L << 62), sign);
+        long t_63 = udiv_128_64(n_62 >>> 1, n_62 << 63, m_62 + (1L << 62)); // |m - 1| / (m + 1) < 1/4
+        long u_63 = mulQ63(t_63, t_63);
+
+        long p_63 = ATANH_COEFFICIENTS[ATANH_COEFFICIENTS.length - 1];
+        for (int i = ATANH_COEFFICIENTS.length - 2; i >= 0; i--) {
+            p_63 = ATANH_COEFFICIENTS[i] + mulQ63(p_63, u_63);
+        }
+        long ln_63 = negIf((t_63 + mulQ63(t_63, mulQ63(u_63, p_63))) << 1, sign); // |ln(m)| < 0.35
+
+        // k * ln(2), the low word of ln(2) contributes to the 63 fractional bits with its high word of the product
+        long lo_64 = k * LN2_HI;
+        long hi_64 = Math.multiplyHigh(k, LN2_HI);
+        long t_64 = Math.multiplyHigh(k, LN2_LO) + (k & (LN2_LO >> 63)); // LN2_LO is unsigned
+
+        long sum_64 = lo_64 + t_64;
+        hi_64 += (t_64 >> 63) + (Long.compareUnsigned(sum_64, lo_64) < 0 ? 1 : 0);
+        lo_64 = sum_64 + ln_63;
+        hi_64 += (ln_63 >> 63) + (Long.compareUnsigned(lo_64, sum_64) < 0 ? 1 : 0);
+
+        a = lo_64;
+        return hi_64;
+    }
+
+    /**
+     * (v_63 / 10^vScale)^(y / 10^yScale) * 10^scale for positive v_63, calculated as e^(y * ln(v)), see {@link #ln_127}
+     * and {@link #exp_63}. Returns the whole part (rounded DOWN, NaN on overflow), the remainder goes to {@link #a}
+     * in quarters. The absolute error of y * ln(v) is about |y| * 10^-18, so is the relative error of the result.
+     */
+    long pow_63(long v_63, int vScale, long y, int yScale, int scale) {
+        long hi_64 = ln_127(v_63, vScale);
+        long lnSign = hi_64 >> 63;
+        long lo_64 = negIf(a, lnSign);
+        hi_64 = negIfHi(hi_64, a, lnSign);
+
+        // |y * ln(v)| * 10^yScale, 192 bits
+        long y_63 = Math.abs(y);
+        long w0_64 = lo_64 * y_63;
+        long t_64 = unsignedMulHi(lo_64, y_63);
+        long w1_64 = t_64 + hi_64 * y_63;
+        long w2_64 = Math.multiplyHigh(hi_64, y_63) + (Long.compareUnsigned(w1_64, t_64) < 0 ? 1 : 0);
+
+        long d_60 = LONG_POW10[yScale];
+        long q1_64 = w2_64 < d_60 ? udiv_128_64(w2_64, w1_64, d_60) : Long.MAX_VALUE;
+        if (q1_64 >= 64) { // |y * ln(v)| >= 128
+            if ((lnSign ^ y) >= 0) {
+                return AbstractDecimal.NaN;
+            }
+            a = 1; // positive, but less than a half
+            return 0;
+        }
+        long q0_64 = udiv_128_64(w1_64 - q1_64 * d_60, w0_64, d_60);
+
+        long n = (q1_64 << 1) | (q0_64 >>> 63);
+        long f_63 = q0_64 & Long.MAX_VALUE;
+        if ((lnSign ^ y) < 0) { // -(n + f) = -(n + 1) + (1 - f)
+            n = f_63 != 0 ? -n - 1 : -n;
+            f_63 = -f_63 & Long.MAX_VALUE;
+        }
+        return exp_63(n, f_63, scale);
+    }
+
+    /**
+     * (v / 10^scale)^n * 10^scale rounded, for non-zero v and n (signed).
+     * The result is exact before rounding (see {@link #scaleDivRound_127_63}) if the power r^|n| of v without
+     * trailing zeros fits 63 bits for negative n, or it fits 127 bits and is divided by at most 10^36 for positive n
+     * (otherwise the result is below 2^127 / 10^37 < 17 units of the last digit).
+     * Otherwise it's a binary floating point calculation:
+     * v / 10^scale = m * 2^e with 63-bit m raised to the power by squaring, each product is normalized to 63 bits.
+     * The relative error of the latter is up to |n| * 2^-60, as the error of m is raised to the power too.
+     */
+    long powRound(long v, int scale, long n, RoundingMode roundingMode) {
+        long sign = (v >> 63) & -(n & 1); // negative base, odd power
+        long v_63 = Math.abs(v);
+        long nAbs = Math.abs(n); // negative if n == Long.MIN_VALUE
+
+        if (nAbs > 0 && nAbs <= 128) {
+            long r_63 = v_63; // x = r / 10^rScale
+            int rScale = scale;
+            while (r_63 % 10 == 0) {
+                r_63 /= 10;
+                rScale--;
+            }
+
+            long hi_63 = pow_127(r_63, nAbs);
+            long lo_64 = a;
+            if (n > 0 && hi_63 >= 0) {
+                long k = rScale * nAbs - scale; // raw = r^n / 10^k
+                if (k <= 0) {
+                    return hi_63 == 0 && -k <= 18 && lo_64 >= 0 && lo_64 <= SCALE_OVERFLOW_LIMITS[(int) -k] ?
+                            negIf(lo_64 * LONG_POW10[(int) -k], sign) : AbstractDecimal.NaN;
+                } else if (k <= 36) {
+                    long d_60 = k > 18 ? LONG_POW10[(int) k - 18] : 1;
+                    return scaleDivRound_127_63(hi_63, lo_64, (int) -Math.min(k, 18), d_60, sign, roundingMode);
+                }
+            } else if (n < 0 && hi_63 == 0 && lo_64 > 0) {
+                long k = scale + rScale * nAbs; // raw = 10^k / r^|n|
+                if (k < 0) {
+                    return round(0, negIf(1, sign), 4, roundingMode); // less than 1/10
+                } else if (k <= 37) {
+                    long p_64 = k > 18 ? LONG_POW10[(int) k - 19] * 10 : 1; // up to 10^19, unsigned
+                    return scaleDivRound_127_63(0, p_64, (int) Math.min(k, 18), lo_64, sign, roundingMode);
+                }
+                return AbstractDecimal.NaN; // 10^k / r^|n| > 10^38 / 2^63 > 2^63
+            }
+        }
+
+        double log = n * Math.log(v_63 / (double) LONG_POW10[scale]);
+        if (log > 44.5) {
+            return AbstractDecimal.NaN; // e^44.5 > 2^64
+        } else if (log < -4 - scale * 2.3026) {
+            return round(0, negIf(1, sign), 4, roundingMode); // less than 1/4
+        }
+
+        long m_63 = mantissa_64(v_63, scale) >>> 1; // x = m * 2^e
+        int e = 1 - mantissaShift(v_63, scale);
+        long result_63 = 1L << 62;
+        int resultExp = -62;
+        for (long bits = nAbs; bits != 0; bits >>>= 1) { // |n| is unsigned
+            if ((bits & 1) != 0) {
+                resultExp += e + mulShift_63(result_63, m_63);
+                result_63 = mulNormalized_63(result_63, m_63);
+            }
+            if (bits >>> 1 != 0) {
+                e += e + mulShift_63(m_63, m_63);
+                m_63 = mulNormalized_63(m_63, m_63);
+            }
+        }
+        if (n < 0) { // 1 / (m * 2^e) = 2^124 / m * 2^(-124 - e)
+            result_63 = udiv_128_64(1L << 60, 0, result_63);
+            resultExp = -124 - resultExp;
+        }
+
+        long whole = scaleShift_127(0, result_63, scale, -resultExp);
+        return whole == AbstractDecimal.NaN ? whole : round(negIf(whole, sign), negIf(a, sign), 4, roundingMode);
+    }
+
+    /**
+     * r_63^n (r_63 > 0, n >= 0) as unsigned 127-bit number, returns the high word (-1 if the power does not fit),
+     * the low word goes to {@link #a}
+     */
+    long pow_127(long r_63, long n) {
+        return mulPow_127(0, 1, r_63, n);
+    }
+
+    /**
+     * [hi_63][lo_64] * r_63^n (r_63 > 0, n >= 0), returns the high word (-1 if the product does not fit 127 bits),
+     * the low word goes to {@link #a}
+     */
+    long mulPow_127(long hi_63, long lo_64, long r_63, long n) {
+        for (long i = r_63 != 1 ? n : 0; i > 0; i--) { // up to 127 iterations if r > 1
+            long t_64 = unsignedMulHi(lo_64, r_63);
+            long h_63 = hi_63 * r_63;
+            if (Math.multiplyHigh(hi_63, r_63) != 0 || h_63 < 0 || (h_63 += t_64) < 0) {
+                return -1;
+            }
+            hi_63 = h_63;
+            lo_64 *= r_63;
+        }
+        a = lo_64;
+        return hi_63;
+    }
+
+    /**
+     * q-th root (q >= 2) of positive v_63 / 10^scale multiplied by 10^scale if it's rational, 0 otherwise.
+     * With v = v' * 10^vExp (v' without trailing zeros) the root is rational only if v' is a perfect q-th power and
+     * q divides vExp, as v' has no factor 2 or no factor 5, so 10^vExp can't complete its exponents to multiples of q.
+     * Then the root is v'^(1/q) * 10^(vExp / q), which has no more decimal places than v, so it fits the scale.
+     */
+    long rationalRoot_63(long v_63, int scale, long q) {
+        int vExp = -scale;
+        for (; v_63 % 10 == 0; v_63 /= 10) {
+            vExp++;
+        }
+        if (vExp % q != 0) {
+            return 0;
+        }
+        long r_32 = q < 63 ? Math.round(Math.pow(v_63, 1.0 / q)) : 1; // exact if v' is a power, as the root < 2^32
+        if (pow_127(r_32, q) != 0 || a != v_63) {
+            return 0;
+        }
+        return r_32 * LONG_POW10[(int) (vExp / q) + scale];
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * v_63 / 10^scale with a binary exponent: 2^62 < q < 2^64 (unsigned), so that
+     * v / 10^scale = q * 2^-{@link #mantissaShift}
+     */
+    static long mantissa_64(long v_63, int scale) {
+        int shift = mantissaShift(v_63, scale); // 1..122
+        long hi_64 = shift < 64 ? v_63 >>> (64 - shift) : v_63 << (shift - 64);
+        long lo_64 = shift < 64 ? v_63 << shift : 0;
+        return udiv_128_64(hi_64, lo_64, LONG_POW10[scale]); // v * 2^shift < 10^scale * 2^64, so hi < 10^scale
+    }
+
+    /**
+     * Binary exponent of {@link #mantissa_64}: v * 2^shift / 10^scale is between 2^62 and 2^64 as the bit lengths of
+     * v * 2^shift and 10^scale differ by 63
+     */
+    static int mantissaShift(long v_63, int scale) {
+        return 63 + Long.numberOfLeadingZeros(v_63) - Long.numberOfLeadingZeros(LONG_POW10[scale]);
+    }
+
+    /**
+     * Multiply unsigned 127-bit number [hi_63][lo_64] by 10^scale (0 <= scale <= 18), then divide by 2^shift
+     * (-63 <= shift). Returns the whole part (rounded DOWN, NaN if it does not fit 63 bits), the remainder goes to
+     * {@link #a} in quarters (see {@link #quarters}).
+     * The product must be less than 2^127 if shift >= 128.
+     */
+    long scaleShift_127(long hi_63, long lo_64, int scale, int shift) {
+        long m_60 = LONG_POW10[scale];
+        long w0_64 = lo_64 * m_60;
+        long t_64 = unsignedMulHi(lo_64, m_60);
+        long w1_64 = t_64 + hi_63 * m_60;
+        if (Math.multiplyHigh(hi_63, m_60) != 0 || Long.compareUnsigned(w1_64, t_64) < 0) {
+            return AbstractDecimal.NaN; // product >= 2^128
+        }
+
+        long half; // the highest bit of the remainder
+        long sticky; // whether the rest of the remainder is not zero
+        long result;
+        if (shift <= 0) {
+            if (w1_64 != 0 || w0_64 >>> (63 + shift) != 0) {
+                return AbstractDecimal.NaN;
+            }
+            a = 0;
+            return w0_64 << -shift;
+        } else if (shift < 64) {
+            if (w1_64 >>> (shift - 1) != 0) {
+                return AbstractDecimal.NaN;
+            }
+            result = (w1_64 << (64 - shift)) | (w0_64 >>> shift);
+            half = (w0_64 >>> (shift - 1)) & 1;
+            sticky = shift > 1 && w0_64 << (65 - shift) != 0 ? 1 : 0;
+        } else if (shift == 64) {
+            if (w1_64 < 0) {
+                return AbstractDecimal.NaN;
+            }
+            result = w1_64;
+            half = w0_64 >>> 63;
+            sticky = w0_64 << 1 != 0 ? 1 : 0;
+        } else if (shift < 128) {
+            result = w1_64 >>> (shift - 64);
+            half = (w1_64 >>> (shift - 65)) & 1;
+            sticky = w0_64 != 0 || shift > 65 && w1_64 << (129 - shift) != 0 ? 1 : 0;
+        } else { // the product < 2^127, so it's less than a half
+            result = 0;
+            half = 0;
+            sticky = (w1_64 | w0_64) != 0 ? 1 : 0;
+        }
+
+        a = (half << 1) | sticky;
+        return result;
+    }
+
+    /**
+     * Multiply 63-bit unsigned numbers with 63 fractional bits, rounding down
+     */
+    private static long mulQ63(long a_63, long b_63) {
+        return (Math.multiplyHigh(a_63, b_63) << 1) | ((a_63 * b_63) >>> 63);
+    }
+
+    /**
+     * Product of 63-bit numbers (not less than 2^61 each) normalized to [2^62, 2^63), i.e. divided by
+     * 2^{@link #mulShift_63}, rounding down
+     */
+    static long mulNormalized_63(long a_63, long b_63) {
+        long hi_62 = Math.multiplyHigh(a_63, b_63);
+        int zeros = Long.numberOfLeadingZeros(hi_62);
+        return (hi_62 << (zeros - 1)) | ((a_63 * b_63) >>> (65 - zeros));
+    }
+
+    /**
+     * Binary exponent of {@link #mulNormalized_63}
+     */
+    static int mulShift_63(long a_63, long b_63) {
+        return 65 - Long.numberOfLeadingZeros(Math.multiplyHigh(a_63, b_63));
+    }
+
+    private static final int MAX_LONG_SIZE = Long.toString(Long.MAX_VALUE).length();
+
+    /**
+     * Number of decimal digits in a non-negative long
+     */
+    static int stringSize(long value) {
+        long product = 10;
+        for (int size = 1; size < MAX_LONG_SIZE; size++) {
+            if (value < product)
+                return size;
+            product *= 10;
+        }
+        return 19;
+    }
+
+    /**
+     * High 64 bits of unsigned 128-bit product
+     */
+    static long unsignedMulHi(long a_64, long b_64) {
+        return UnsignedMath.multiplyHigh(a_64, b_64);
     }
 
     /**
@@ -561,6 +1564,20 @@ abstract class BaseDecimal extends Number {
         return (v ^ sign) - sign;
     }
 
+    /**
+     * High word of the 128-bit number [hi][lo] negated if sign is -1, see {@link #negIf} for the low word
+     */
+    static long negIfHi(long hi, long lo, long sign) {
+        return (hi ^ sign) + (sign & (lo == 0 ? 1 : 0)); // "~hi + carry" if negative
+    }
+
+    /**
+     * Carry out of the unsigned sum = a + b: the highest bit is set in both or in one of them and not in the sum
+     */
+    static long carry(long a, long b, long sum) {
+        return ((a & b) | ((a | b) & ~sum)) >>> 63;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,299 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encoder/decoder of IEEE 754-2008 decimal64 and decimal128 in the binary integer decimal (BID) encoding,
+ * converting straight to/from the raw value of {@link AbstractDecimal} without BigDecimal.
+ * <p>
+ * decimal64 is a single long: sign bit, 10-bit exponent (bias 398) and a coefficient of up to 16 digits.
+ * decimal128 is 2 longs (high and low words): sign bit, 14-bit exponent (bias 6176) and a coefficient of up to 34 digits.
+ * The value is (-1)^sign * coefficient * 10^(exponent - bias).
+ * <p>
+ * Decoding rounds with the given rounding mode if the exponent is finer than the scale of the target.
+ * Infinities, NaNs and values not fitting the target become {@link AbstractDecimal#NaN},
+ * non-canonical coefficients (above the maximum) are zeros, as the standard requires.
+ * Encoding of {@link AbstractDecimal#NaN} gives a quiet NaN. Bulk variants read/write ByteBuffers
+ * in the buffer's byte order (decimal128 as a single 16-byte integer).
+ */
+public final class BidCodec {
+    public static final int EXPONENT_BIAS_64 = 398;
+    public static final int EXPONENT_BIAS_128 = 6176;
+    public static final long NaN_64 = 0x7C00_0000_0000_0000L;
+    public static final long NaN_128_HIGH = 0x7C00_0000_0000_0000L;
+
+    private static final long STEERING_MASK = 0x6000_0000_0000_0000L; // 11 after the sign: large coefficient form
+    private static final long SPECIAL_MASK = 0x7800_0000_0000_0000L; // 1111 after the sign: infinity or NaN
+    private static final long MAX_COEFFICIENT_64 = 9_999_999_999_999_999L;
+    private static final int MAX_DIGITS_64 = 16;
+    // 10^34 - 1 = [0x1ED09BEAD87C0][0x378D8E63FFFFFFFF]
+    private static final long MAX_COEFFICIENT_128_HIGH = 0x1_ED09_BEAD_87C0L;
+    private static final long MAX_COEFFICIENT_128_LOW = 0x378D_8E63_FFFF_FFFFL;
+
+    private BidCodec() {
+    }
+
+    public static <T extends AbstractDecimal<?>> T decode64RD(long bits, T target) {
+        return decode64(bits, target, RoundingMode.DOWN);
+    }
+
+    /**
+     * target = decimal64 value, rounded to the scale of the target
+     *
+     * @return target
+     */
+    public static <T extends AbstractDecimal<?>> T decode64(long bits, T target, RoundingMode roundingMode) {
+        long sign = bits >> 63;
+        long coefficient;
+        int exponent;
+        if ((bits & STEERING_MASK) != STEERING_MASK) {
+            exponent = (int) (bits >>> 53) & 0x3FF;
+            coefficient = bits & 0x1F_FFFF_FFFF_FFFFL; // 53 bits
+        } else {
+            if ((bits & SPECIAL_MASK) == SPECIAL_MASK) {
+                target.setRaw(AbstractDecimal.NaN);
+                return target;
+            }
+            exponent = (int) (bits >>> 51) & 0x3FF;
+            coefficient = bits & 0x7_FFFF_FFFF_FFFFL | 0x20_0000_0000_0000L; // 100 + 51 bits
+            if (coefficient > MAX_COEFFICIENT_64) {
+                coefficient = 0;
+            }
+        }
+        target.fromLong(BaseDecimal.negIf(coefficient, sign), EXPONENT_BIAS_64 - exponent, roundingMode);
+        return target;
+    }
+
+    public static long encode64RD(AbstractDecimal<?> value) {
+        return encode64(value, RoundingMode.DOWN);
+    }
+
+    /**
+     * Encodes the value as decimal64, rounding if it has more than 16 significant digits
+     */
+    public static long encode64(AbstractDecimal<?> value, RoundingMode roundingMode) {
+        return encode64(value.getRaw(), value.getScale(), roundingMode);
+    }
+
+    /**
+     * Encodes raw * 10^-scale as decimal64, rounding if raw has more than 16 significant digits.
+     * Quiet NaN if raw is {@link AbstractDecimal#NaN} or rounding is UNNECESSARY, but required.
+     */
+    public static long encode64(long raw, int scale, RoundingMode roundingMode) {
+        if (raw == AbstractDecimal.NaN) {
+            return NaN_64;
+        }
+
+        long sign = raw >> 63;
+        long coefficient = BaseDecimal.negIf(raw, sign);
+        int exponent = EXPONENT_BIAS_64 - scale;
+        if (coefficient > MAX_COEFFICIENT_64) {
+            int drop = BaseDecimal.stringSize(coefficient) - MAX_DIGITS_64; // 1..3
+            long d = BaseDecimal.LONG_POW10[drop];
+            // round the signed value, so FLOOR and CEILING round negative values the right way
+            long rounded = BaseDecimal.round(BaseDecimal.negIf(coefficient / d, sign),
+                    BaseDecimal.negIf(coefficient % d, sign), d, roundingMode);
+            if (rounded == AbstractDecimal.NaN) {
+                return NaN_64;
+            }
+            coefficient = BaseDecimal.negIf(rounded, sign);
+            exponent += drop;
+            if (coefficient > MAX_COEFFICIENT_64) {
+                coefficient /= 10; // rounded up to 10^16
+                exponent++;
+            }
+        }
+
+        if (coefficient < 0x20_0000_0000_0000L) {
+            return sign << 63 | (long) exponent << 53 | coefficient;
+        }
+        return sign << 63 | STEERING_MASK | (long) exponent << 51 | coefficient & 0x7_FFFF_FFFF_FFFFL;
+    }
+
+    public static <T extends AbstractDecimal<?>> T decode128RD(long high, long low, T target) {
+        return decode128(high, low, target, RoundingMode.DOWN);
+    }
+
+    /**
+     * target = decimal128 value [high][low], rounded to the scale of the target
+     *
+     * @return target
+     */
+    public static <T extends AbstractDecimal<?>> T decode128(long high, long low, T target, RoundingMode roundingMode) {
+        if ((high & STEERING_MASK) == STEERING_MASK) {
+            // infinity, NaN or non-canonical: the coefficient of the large form is always above 10^34 - 1
+            target.setRaw((high & SPECIAL_MASK) == SPECIAL_MASK ? AbstractDecimal.NaN : 0);
+            return target;
+        }
+
+        long sign = high >> 63;
+        int exponent = (int) (high >>> 49) & 0x3FFF;
+        long hi = high & 0x1_FFFF_FFFF_FFFFL; // 49 bits
+        if (BaseDecimal.compareUnsigned_128(hi, low, MAX_COEFFICIENT_128_HIGH, MAX_COEFFICIENT_128_LOW) > 0) {
+            hi = low = 0;
+        }
+
+        if (hi == 0 && low >= 0) {
+            target.fromLong(BaseDecimal.negIf(low, sign), EXPONENT_BIAS_128 - exponent, roundingMode);
+            return target;
+        }
+
+        // the raw value is coefficient * 10^scale
+        int scale = target.getScale() + exponent - EXPONENT_BIAS_128;
+        long result;
+        if (scale >= 0) {
+            result = AbstractDecimal.NaN; // more than 63 bits
+        } else if (scale >= -18) {
+            result = BaseDecimal.scaleDivRound_127_63(hi, low, scale, 1, sign, roundingMode);
+        } else if (scale >= -36) {
+            result = BaseDecimal.scaleDivRound_127_63(hi, low, -18, BaseDecimal.LONG_POW10[-scale - 18], sign, roundingMode);
+        } else {
+            result = BaseDecimal.round(0, sign | 1, Long.MAX_VALUE, roundingMode); // rounded zero, coefficient < 10^34
+        }
+        target.setRaw(result);
+        return target;
+    }
+
+    /**
+     * High word of the value encoded as decimal128 (always exact), see {@link #encode128Low}
+     */
+    public static long encode128High(AbstractDecimal<?> value) {
+        return encode128High(value.getRaw(), value.getScale());
+    }
+
+    public static long encode128High(long raw, int scale) {
+        if (raw == AbstractDecimal.NaN) {
+            return NaN_128_HIGH;
+        }
+        return raw & Long.MIN_VALUE | (long) (EXPONENT_BIAS_128 - scale) << 49;
+    }
+
+    /**
+     * Low word of the value encoded as decimal128, see {@link #encode128High}
+     */
+    public static long encode128Low(AbstractDecimal<?> value) {
+        return encode128Low(value.getRaw());
+    }
+
+    public static long encode128Low(long raw) {
+        return raw != AbstractDecimal.NaN ? Math.abs(raw) : 0;
+    }
+
+    /**
+     * dst[dstOffset + i] = raw value of decimal64 src[srcOffset + i] at the scale of the target, i < length.
+     * The target is used as a scratch value.
+     */
+    public static void decode64(long[] src, int srcOffset, long[] dst, int dstOffset, int length,
+                                AbstractDecimal<?> target, RoundingMode roundingMode) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = decode64(src[srcOffset + i], target, roundingMode).getRaw();
+        }
+    }
+
+    /**
+     * Same as {@link #decode64(long[], int, long[], int, int, AbstractDecimal, RoundingMode)},
+     * reading length values from the buffer (from its position)
+     */
+    public static void decode64(ByteBuffer src, long[] dst, int dstOffset, int length,
+                                AbstractDecimal<?> target, RoundingMode roundingMode) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = decode64(src.getLong(), target, roundingMode).getRaw();
+        }
+    }
+
+    /**
+     * dst[dstOffset + i] = decimal64 of src[srcOffset + i] * 10^-scale, i < length
+     */
+    public static void encode64(long[] src, int srcOffset, int scale, long[] dst, int dstOffset, int length,
+                                RoundingMode roundingMode) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = encode64(src[srcOffset + i], scale, roundingMode);
+        }
+    }
+
+    /**
+     * Same as {@link #encode64(long[], int, int, long[], int, int, RoundingMode)}, writing to the buffer (from its position)
+     */
+    public static void encode64(long[] src, int srcOffset, int scale, ByteBuffer dst, int length,
+                                RoundingMode roundingMode) {
+        for (int i = 0; i < length; i++) {
+            dst.putLong(encode64(src[srcOffset + i], scale, roundingMode));
+        }
+    }
+
+    /**
+     * dst[dstOffset + i] = raw value of decimal128 [src[srcOffset + 2i]][src[srcOffset + 2i + 1]]
+     * (high and low words) at the scale of the target, i < length. The target is used as a scratch value.
+     */
+    public static void decode128(long[] src, int srcOffset, long[] dst, int dstOffset, int length,
+                                 AbstractDecimal<?> target, RoundingMode roundingMode) {
+        for (int i = 0; i < length; i++) {
+            int j = srcOffset + 2 * i;
+            dst[dstOffset + i] = decode128(src[j], src[j + 1], target, roundingMode).getRaw();
+        }
+    }
+
+    /**
+     * Same as {@link #decode128(long[], int, long[], int, int, AbstractDecimal, RoundingMode)},
+     * reading length 16-byte values from the buffer (from its position)
+     */
+    public static void decode128(ByteBuffer src, long[] dst, int dstOffset, int length,
+                                 AbstractDecimal<?> target, RoundingMode roundingMode) {
+        boolean bigEndian = src.order() == ByteOrder.BIG_ENDIAN;
+        for (int i = 0; i < length; i++) {
+            long first = src.getLong();
+            long second = src.getLong();
+            dst[dstOffset + i] = (bigEndian ? decode128(first, second, target, roundingMode) :
+                    decode128(second, first, target, roundingMode)).getRaw();
+        }
+    }
+
+    /**
+     * [dst[dstOffset + 2i]][dst[dstOffset + 2i + 1]] = decimal128 of src[srcOffset + i] * 10^-scale, i < length
+     */
+    public static void encode128(long[] src, int srcOffset, int scale, long[] dst, int dstOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            long raw = src[srcOffset + i];
+            dst[dstOffset + 2 * i] = encode128High(raw, scale);
+            dst[dstOffset + 2 * i + 1] = encode128Low(raw);
+        }
+    }
+
+    /**
+     * Same as {@link #encode128(long[], int, int, long[], int, int)}, writing 16-byte values to the buffer (from its position)
+     */
+    public static void encode128(long[] src, int srcOffset, int scale, ByteBuffer dst, int length) {
+        boolean bigEndian = dst.order() == ByteOrder.BIG_ENDIAN;
+        for (int i = 0; i < length; i++) {
+            long raw = src[srcOffset + i];
+            long high = encode128High(raw, scale);
+            long low = encode128Low(raw);
+            dst.putLong(bigEndian ? high : low).putLong(bigEndian ? low : high);
+        }
+    }
+}
@@ -26,7 +26,7 @@ package com.github.quickdecimal;
 import java.text.ParseException;
 
 /**
- * Reference implementation of {@link AbstractDecimal} for maximum supported precision (9 dp).
+ * Reference implementation of {@link AbstractDecimal} for 9 dp by default (any scale from 0 to 18 can be requested).
  * Values from -9223372036.854775807 to 9223372036.854775807 (inclusive), which should be good enough for small numbers.
  */
 public class Decimal extends AbstractDecimal<Decimal> {
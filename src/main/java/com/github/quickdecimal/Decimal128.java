@@ -0,0 +1,62 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.text.ParseException;
+
+/**
+ * Reference implementation of {@link AbstractDecimal128} for 18 dp by default (any scale from 0 to 18 can be requested).
+ * Values from -170141183460469231731.687303715884105727 to 170141183460469231731.687303715884105727 (inclusive).
+ */
+public class Decimal128 extends AbstractDecimal128<Decimal128> {
+
+    private int scale = 18;
+
+    private Decimal128() {}
+
+    private Decimal128(int scale) {
+        this.scale = scale;
+    }
+
+    @Override
+    protected int getScale() {
+        return scale; // must be constant
+    }
+
+    public static Decimal128 of(String value) throws ParseException {
+        return new Decimal128().parse(value);
+    }
+
+    public static Decimal128 of(long value) {
+        return new Decimal128().fromLong(value);
+    }
+
+    public static Decimal128 of(String value, int scale) throws ParseException {
+        return new Decimal128(scale).parse(value);
+    }
+
+    public static Decimal128 of(long value, int scale) {
+        return new Decimal128(scale).fromLong(value);
+    }
+}
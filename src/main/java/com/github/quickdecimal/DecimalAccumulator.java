@@ -0,0 +1,206 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+
+import static com.github.quickdecimal.BaseDecimal.LONG_POW10;
+import static com.github.quickdecimal.BaseDecimal.carry;
+import static com.github.quickdecimal.BaseDecimal.negIf;
+import static com.github.quickdecimal.BaseDecimal.negIfHi;
+import static com.github.quickdecimal.BaseDecimal.round;
+import static com.github.quickdecimal.BaseDecimal.udiv_128_64;
+
+/**
+ * Running sum of raw values of one scale in 128 bits, so it does not overflow (until 2^64 values are added) even if
+ * the intermediate sums do not fit long, only the final result must fit the target. {@link AbstractDecimal#NaN}
+ * values are not added but counted, see {@link #getNaNCount()}.
+ * <p>
+ * No allocation. Not thread-safe: accumulate per thread and {@link #merge} the results.
+ */
+public final class DecimalAccumulator {
+    private final int scale;
+    private long high; // signed
+    private long low; // unsigned
+    private long nanCount;
+
+    private DecimalAccumulator(int scale) {
+        if (scale < 0 || scale >= LONG_POW10.length) {
+            throw new IllegalArgumentException("Incorrect scale: " + scale);
+        }
+        this.scale = scale;
+    }
+
+    /**
+     * Empty accumulator of raw values of the scale
+     */
+    public static DecimalAccumulator of(int scale) {
+        return new DecimalAccumulator(scale);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * High (signed) word of the 128-bit sum of the raw values, e.g. for {@link AbstractDecimal128#setRaw(long, long)}
+     * of the same scale
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Low (unsigned) word of the 128-bit sum of the raw values
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Number of NaN values, which were not added
+     */
+    public long getNaNCount() {
+        return nanCount;
+    }
+
+    public DecimalAccumulator reset() {
+        high = 0;
+        low = 0;
+        nanCount = 0;
+        return this;
+    }
+
+    /**
+     * Add the raw value of the scale of this
+     */
+    public DecimalAccumulator addRaw(long raw) {
+        if (raw == AbstractDecimal.NaN) {
+            ++nanCount;
+        } else {
+            long sum = low + raw;
+            high += (raw >> 63) + carry(low, raw, sum);
+            low = sum;
+        }
+        return this;
+    }
+
+    /**
+     * Add the value of the scale same to this
+     */
+    public DecimalAccumulator add(AbstractDecimal<?> value) {
+        if (value.getScale() != scale) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return addRaw(value.getRaw());
+    }
+
+    public DecimalAccumulator addAll(long[] raws) {
+        return addAll(raws, 0, raws.length);
+    }
+
+    /**
+     * Add the raw values [from, to) of the scale of this.
+     * Each value is split into the signed high and the unsigned low 32 bits, which are summed in 2 longs without
+     * overflows (up to 2^31 values) and without carries between the words, and joined into 128 bits once.
+     */
+    public DecimalAccumulator addAll(long[] raws, int from, int to) {
+        long sumHigh = 0; // sum of raw >> 32
+        long sumLow = 0; // sum of raw & 0xFFFFFFFF
+        long nans = 0;
+        for (int i = from; i < to; i++) {
+            long raw = raws[i];
+            long nan = raw == AbstractDecimal.NaN ? 1 : 0;
+            nans += nan;
+            raw &= nan - 1; // 0 if NaN
+            sumHigh += raw >> 32;
+            sumLow += raw & 0xFFFFFFFFL;
+        }
+        nanCount += nans;
+        // sumHigh * 2^32 as 128 bits, then + sumLow
+        addRaw128(sumHigh >> 32, sumHigh << 32);
+        addRaw128(0, sumLow);
+        return this;
+    }
+
+    /**
+     * Add the values of the column of the scale same to this
+     */
+    public DecimalAccumulator addAll(DecimalColumn column) {
+        if (column.getScale() != scale) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        return addAll(column.getRaws());
+    }
+
+    /**
+     * Add the sum and the NaN count of another accumulator of the same scale
+     */
+    public DecimalAccumulator merge(DecimalAccumulator other) {
+        if (other.scale != scale) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+        nanCount += other.nanCount;
+        return addRaw128(other.high, other.low);
+    }
+
+    public <T extends AbstractDecimal<T>> T roundToRD(T target) {
+        return roundTo(target, RoundingMode.DOWN);
+    }
+
+    /**
+     * Put the sum (without NaN values) into the target, rounding is required if its scale is less than the scale of
+     * this. {@link AbstractDecimal#NaN} if the sum does not fit the target.
+     */
+    public <T extends AbstractDecimal<T>> T roundTo(T target, RoundingMode roundingMode) {
+        int shift = target.getScale() - scale;
+        if (high == low >> 63 && low != AbstractDecimal.NaN) {
+            // fits long (-2^63 is not NaN here, it may fit after scaling down)
+            return target.setRaw(DecimalMath.rescale(low, scale, target.getScale(), roundingMode));
+        }
+        if (shift >= 0) {
+            return target.setRaw(AbstractDecimal.NaN); // the magnitude is at least 2^63 before scaling up
+        }
+
+        long sign = high >> 63;
+        long hi = negIfHi(high, low, sign);
+        long lo = negIf(low, sign);
+        long d = LONG_POW10[-shift];
+        if (Long.compareUnsigned(hi, d) >= 0) {
+            return target.setRaw(AbstractDecimal.NaN); // overflow: quotient >= 2^64
+        }
+        long q = udiv_128_64(hi, lo, d);
+        if (q < 0) {
+            return target.setRaw(AbstractDecimal.NaN); // overflow
+        }
+        return target.setRaw(round(negIf(q, sign), negIf(lo - q * d, sign), d, roundingMode));
+    }
+
+    private DecimalAccumulator addRaw128(long hi, long lo) {
+        long sum = low + lo;
+        high += hi + carry(low, lo, sum);
+        low = sum;
+        return this;
+    }
+}
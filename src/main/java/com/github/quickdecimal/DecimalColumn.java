@@ -0,0 +1,390 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+
+/**
+ * Column of decimals of one scale stored as raw values in a long[] (8 bytes per value instead of an object per value)
+ * with bulk elementwise arithmetic. Same semantics as {@link DecimalMath} (and so {@link AbstractDecimal}) per
+ * element: {@link #NaN} for invalid operations and NaN arguments, rounding must be explicitly provided if required
+ * with the exception of "RD" methods that round DOWN.
+ * <p>
+ * The kernels read this column (and the second argument) and write into the result column, which can be this or
+ * the argument (in place), no allocation. All the columns must have the same size. Addition, subtraction, negation
+ * and min/max use SIMD if available, see {@link ArrayKernels}.
+ * Not thread-safe if modified, like decimals.
+ */
+public final class DecimalColumn {
+    public static final long NaN = AbstractDecimal.NaN;
+
+    private final long[] raws;
+    private final int scale;
+
+    private DecimalColumn(long[] raws, int scale) {
+        if (scale < 0 || scale >= BaseDecimal.LONG_POW10.length) {
+            throw new IllegalArgumentException("Incorrect scale: " + scale);
+        }
+        this.raws = raws;
+        this.scale = scale;
+    }
+
+    /**
+     * Column of zeros
+     */
+    public static DecimalColumn of(int size, int scale) {
+        return new DecimalColumn(new long[size], scale);
+    }
+
+    /**
+     * Column backed by the raw values (not copied)
+     */
+    public static DecimalColumn wrap(long[] raws, int scale) {
+        return new DecimalColumn(raws, scale);
+    }
+
+    /**
+     * The raw values backing the column
+     */
+    public long[] getRaws() {
+        return raws;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int size() {
+        return raws.length;
+    }
+
+    public long getRaw(int index) {
+        return raws[index];
+    }
+
+    public DecimalColumn setRaw(int index, long raw) {
+        raws[index] = raw;
+        return this;
+    }
+
+    /**
+     * Copy the value of the index into the decimal of the scale same to this
+     */
+    public <V extends AbstractDecimal<V>> V get(int index, V to) {
+        checkScale(to.getScale());
+        return to.setRaw(raws[index]);
+    }
+
+    /**
+     * Set the value of the index to the decimal of the scale same to this
+     */
+    public DecimalColumn set(int index, AbstractDecimal<?> a) {
+        checkScale(a.getScale());
+        raws[index] = a.getRaw();
+        return this;
+    }
+
+    /**
+     * result = this + b, all of the same scale
+     */
+    public DecimalColumn add(DecimalColumn b, DecimalColumn result) {
+        checkScale(b.scale, result.scale);
+        long[] x = raws;
+        long[] y = b.check(this);
+        long[] r = result.check(this);
+        ArrayKernels.INSTANCE.add(x, y, r, 0, r.length);
+        return result;
+    }
+
+    /**
+     * result = this + b, all of the same scale
+     */
+    public DecimalColumn add(AbstractDecimal<?> b, DecimalColumn result) {
+        checkScale(b.getScale(), result.scale);
+        long[] x = raws;
+        long[] r = result.check(this);
+        ArrayKernels.INSTANCE.add(x, b.getRaw(), r, 0, r.length);
+        return result;
+    }
+
+    /**
+     * result = this - b, all of the same scale
+     */
+    public DecimalColumn subtract(DecimalColumn b, DecimalColumn result) {
+        checkScale(b.scale, result.scale);
+        long[] x = raws;
+        long[] y = b.check(this);
+        long[] r = result.check(this);
+        ArrayKernels.INSTANCE.subtract(x, y, r, 0, r.length);
+        return result;
+    }
+
+    /**
+     * result = this - b, all of the same scale
+     */
+    public DecimalColumn subtract(AbstractDecimal<?> b, DecimalColumn result) {
+        checkScale(b.getScale(), result.scale);
+        long[] x = raws;
+        long[] r = result.check(this);
+        ArrayKernels.INSTANCE.subtract(x, b.getRaw(), r, 0, r.length);
+        return result;
+    }
+
+    public DecimalColumn mulRD(DecimalColumn b, DecimalColumn result) {
+        return mul(b, result, RoundingMode.DOWN);
+    }
+
+    /**
+     * result = this * b, any scales as long as the scales of the arguments combined exceed the scale of the result
+     * by no more than 36 (rounding is required then) and fall short of it by no more than 18
+     */
+    public DecimalColumn mul(DecimalColumn b, DecimalColumn result, RoundingMode roundingMode) {
+        int scale = mulScale(b.scale, result.scale);
+        long[] x = raws;
+        long[] y = b.check(this);
+        long[] r = result.check(this);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = mul(x[i], y[i], scale, roundingMode);
+        }
+        return result;
+    }
+
+    public DecimalColumn mulRD(AbstractDecimal<?> b, DecimalColumn result) {
+        return mul(b, result, RoundingMode.DOWN);
+    }
+
+    /**
+     * result = this * b, see {@link #mul(DecimalColumn, DecimalColumn, RoundingMode)} for the scales
+     */
+    public DecimalColumn mul(AbstractDecimal<?> b, DecimalColumn result, RoundingMode roundingMode) {
+        int scale = mulScale(b.getScale(), result.scale);
+        long[] x = raws;
+        long y = b.getRaw();
+        long[] r = result.check(this);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = mul(x[i], y, scale, roundingMode);
+        }
+        return result;
+    }
+
+    public DecimalColumn divRD(DecimalColumn b, DecimalColumn result) {
+        return div(b, result, RoundingMode.DOWN);
+    }
+
+    /**
+     * result = this / b, NaN where b is 0. The scale of the result plus the scale of b must exceed the scale of this by
+     * 0 to 18, e.g. all of the same scale.
+     */
+    public DecimalColumn div(DecimalColumn b, DecimalColumn result, RoundingMode roundingMode) {
+        int scale = divScale(b.scale, result.scale);
+        long[] x = raws;
+        long[] y = b.check(this);
+        long[] r = result.check(this);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = DecimalMath.div(x[i], y[i], scale, roundingMode);
+        }
+        return result;
+    }
+
+    public DecimalColumn divRD(AbstractDecimal<?> b, DecimalColumn result) {
+        return div(b, result, RoundingMode.DOWN);
+    }
+
+    /**
+     * result = this / b, all NaN if b is 0, see {@link #div(DecimalColumn, DecimalColumn, RoundingMode)} for the scales
+     */
+    public DecimalColumn div(AbstractDecimal<?> b, DecimalColumn result, RoundingMode roundingMode) {
+        return div(Divisor.of(b), result, roundingMode);
+    }
+
+    public DecimalColumn divRD(Divisor b, DecimalColumn result) {
+        return div(b, result, RoundingMode.DOWN);
+    }
+
+    /**
+     * result = this / b by the precomputed divisor (multiplications by the reciprocal instead of divisions), all NaN
+     * if b is 0 or NaN, see {@link #div(DecimalColumn, DecimalColumn, RoundingMode)} for the scales
+     */
+    public DecimalColumn div(Divisor b, DecimalColumn result, RoundingMode roundingMode) {
+        int scale = divScale(b.getScale(), result.scale);
+        long[] x = raws;
+        long[] r = result.check(this);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = DecimalMath.div(x[i], b, scale, roundingMode);
+        }
+        return result;
+    }
+
+    public DecimalColumn rescaleRD(DecimalColumn result) {
+        return rescale(result, RoundingMode.DOWN);
+    }
+
+    /**
+     * result = this converted to the scale of the result, rounding is required if it is less than the scale of this
+     */
+    public DecimalColumn rescale(DecimalColumn result, RoundingMode roundingMode) {
+        long[] x = raws;
+        long[] r = result.check(this);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = DecimalMath.rescale(x[i], scale, result.scale, roundingMode);
+        }
+        return result;
+    }
+
+    /**
+     * result = -this of the same scale
+     */
+    public DecimalColumn negate(DecimalColumn result) {
+        checkScale(result.scale);
+        long[] x = raws;
+        long[] r = result.check(this);
+        ArrayKernels.INSTANCE.negate(x, r, 0, r.length);
+        return result;
+    }
+
+    /**
+     * result = min(this, b), all of the same scale, NaN if any of them is NaN
+     */
+    public DecimalColumn min(DecimalColumn b, DecimalColumn result) {
+        checkScale(b.scale, result.scale);
+        long[] x = raws;
+        long[] y = b.check(this);
+        long[] r = result.check(this);
+        ArrayKernels.INSTANCE.min(x, y, r, 0, r.length);
+        return result;
+    }
+
+    /**
+     * result = max(this, b), all of the same scale, NaN if any of them is NaN
+     */
+    public DecimalColumn max(DecimalColumn b, DecimalColumn result) {
+        checkScale(b.scale, result.scale);
+        long[] x = raws;
+        long[] y = b.check(this);
+        long[] r = result.check(this);
+        ArrayKernels.INSTANCE.max(x, y, r, 0, r.length);
+        return result;
+    }
+
+    /**
+     * result = -1, 0 or 1 as this is less than, equal to or greater than b of the same scale, NaN is less than any
+     * other value (as in {@link AbstractDecimal#compareTo})
+     */
+    public int[] compare(DecimalColumn b, int[] result) {
+        checkScale(b.scale);
+        long[] x = raws;
+        long[] y = b.check(this);
+        if (result.length != x.length) {
+            throw new IllegalArgumentException("Sizes must be the same");
+        }
+        ArrayKernels.INSTANCE.compare(x, y, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Sum of the values without NaN values into the result, see {@link DecimalMath#sum(long[], int, int, Aggregate)}
+     */
+    public Aggregate sum(Aggregate result) {
+        return DecimalMath.sum(raws, 0, raws.length, result);
+    }
+
+    /**
+     * The first min value with its index into the result, NaN values are skipped
+     */
+    public Aggregate min(Aggregate result) {
+        return DecimalMath.min(raws, 0, raws.length, result);
+    }
+
+    /**
+     * The first max value with its index into the result, NaN values are skipped
+     */
+    public Aggregate max(Aggregate result) {
+        return DecimalMath.max(raws, 0, raws.length, result);
+    }
+
+    public Aggregate meanRD(Aggregate result) {
+        return mean(result, RoundingMode.DOWN);
+    }
+
+    /**
+     * Mean of the values without NaN values (of the scale of this) into the result, rounded once
+     */
+    public Aggregate mean(Aggregate result, RoundingMode roundingMode) {
+        return DecimalMath.mean(raws, 0, raws.length, 0, roundingMode, result);
+    }
+
+    /**
+     * Replaces the values in place by the running sums, the total goes to the result, see
+     * {@link DecimalMath#prefixSum}
+     */
+    public Aggregate prefixSum(Aggregate result) {
+        return DecimalMath.prefixSum(raws, 0, raws.length, result);
+    }
+
+    /**
+     * a * b / 10^scale, where -18 <= scale <= 36
+     */
+    private static long mul(long a, long b, int scale, RoundingMode roundingMode) {
+        return scale >= 0 ? DecimalMath.mul(a, b, scale, roundingMode) :
+                DecimalMath.rescale(DecimalMath.mul(a, b, 0, roundingMode), 0, -scale, roundingMode);
+    }
+
+    private int mulScale(int bScale, int resultScale) {
+        int s = scale + bScale - resultScale;
+        if (s < -18 || s > 36) {
+            throw new IllegalArgumentException("Unsupported scales: " + scale + " * " + bScale + " -> " + resultScale);
+        }
+        return s;
+    }
+
+    private int divScale(int bScale, int resultScale) {
+        int s = resultScale + bScale - scale;
+        if (s < 0 || s > 18) {
+            throw new IllegalArgumentException("Unsupported scales: " + scale + " / " + bScale + " -> " + resultScale);
+        }
+        return s;
+    }
+
+    private void checkScale(int scale) {
+        if (this.scale != scale) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+    }
+
+    private void checkScale(int scale1, int scale2) {
+        if (scale != scale1 || scale != scale2) {
+            throw new IllegalArgumentException("Scales must be the same");
+        }
+    }
+
+    /**
+     * The raws of this checking the size is the same as of the column
+     */
+    private long[] check(DecimalColumn column) {
+        if (raws.length != column.raws.length) {
+            throw new IllegalArgumentException("Sizes must be the same");
+        }
+        return raws;
+    }
+}
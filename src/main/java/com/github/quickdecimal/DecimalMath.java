@@ -0,0 +1,576 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.quickdecimal.BaseDecimal.LONG_POW10;
+import static com.github.quickdecimal.BaseDecimal.SCALE_OVERFLOW_LIMITS;
+import static com.github.quickdecimal.BaseDecimal.carry;
+import static com.github.quickdecimal.BaseDecimal.negIf;
+import static com.github.quickdecimal.BaseDecimal.negIfHi;
+import static com.github.quickdecimal.BaseDecimal.round;
+import static com.github.quickdecimal.BaseDecimal.roundScaled_19;
+import static com.github.quickdecimal.BaseDecimal.scaleDivQuotient_63_63;
+import static com.github.quickdecimal.BaseDecimal.scaleDivRound_127_63;
+import static com.github.quickdecimal.BaseDecimal.scaleDivRound_191_63;
+import static com.github.quickdecimal.BaseDecimal.unsignedDivPow10_64;
+
+/**
+ * Static arithmetic on raw values (e.g. stored in flyweights or message buffers) without any decimal instance.
+ * Same semantics as the methods of {@link AbstractDecimal}: {@link #NaN} for invalid operations (overflow, division
+ * by zero, unexpected rounding), rounding must be explicitly provided if required with the exception of "RD" methods
+ * that round DOWN. The scales of the values are passed as parameters.
+ * <p>
+ * Unlike the instance kernels of {@link BaseDecimal}, the remainders are recomputed from the quotients (v - q * d)
+ * instead of being passed through a field, so all the intermediate values are local.
+ */
+public final class DecimalMath {
+    public static final long NaN = AbstractDecimal.NaN;
+
+    private DecimalMath() {
+    }
+
+    /**
+     * a + b, NaN if overflow
+     */
+    public static long add(long a, long b) {
+        long result = a + b;
+        return a == NaN || b == NaN || ((a ^ result) & (b ^ result)) < 0 ? NaN : result;
+    }
+
+    /**
+     * a - b, NaN if overflow
+     */
+    public static long subtract(long a, long b) {
+        long result = a - b;
+        return a == NaN || b == NaN || ((a ^ b) & (a ^ result)) < 0 ? NaN : result;
+    }
+
+    /**
+     * result[from, to) = a + b elementwise, NaN if overflow. SIMD if available, see {@link ArrayKernels}.
+     */
+    public static void add(long[] a, long[] b, long[] result, int from, int to) {
+        ArrayKernels.INSTANCE.add(a, b, result, from, to);
+    }
+
+    /**
+     * result[from, to) = a + b elementwise, NaN if overflow
+     */
+    public static void add(long[] a, long b, long[] result, int from, int to) {
+        ArrayKernels.INSTANCE.add(a, b, result, from, to);
+    }
+
+    /**
+     * result[from, to) = a - b elementwise, NaN if overflow
+     */
+    public static void subtract(long[] a, long[] b, long[] result, int from, int to) {
+        ArrayKernels.INSTANCE.subtract(a, b, result, from, to);
+    }
+
+    /**
+     * result[from, to) = a - b elementwise, NaN if overflow
+     */
+    public static void subtract(long[] a, long b, long[] result, int from, int to) {
+        ArrayKernels.INSTANCE.subtract(a, b, result, from, to);
+    }
+
+    /**
+     * result[from, to) = -a elementwise
+     */
+    public static void negate(long[] a, long[] result, int from, int to) {
+        ArrayKernels.INSTANCE.negate(a, result, from, to);
+    }
+
+    /**
+     * result[from, to) = min(a, b) elementwise, NaN if any of them is NaN
+     */
+    public static void min(long[] a, long[] b, long[] result, int from, int to) {
+        ArrayKernels.INSTANCE.min(a, b, result, from, to);
+    }
+
+    /**
+     * result[from, to) = max(a, b) elementwise, NaN if any of them is NaN
+     */
+    public static void max(long[] a, long[] b, long[] result, int from, int to) {
+        ArrayKernels.INSTANCE.max(a, b, result, from, to);
+    }
+
+    /**
+     * result[from, to) = -1, 0 or 1 as a is less than, equal to or greater than b elementwise, NaN is less than any
+     * other value
+     */
+    public static void compare(long[] a, long[] b, int[] result, int from, int to) {
+        ArrayKernels.INSTANCE.compare(a, b, result, from, to);
+    }
+
+    public static long mulRD(long a, long b, int scale) {
+        return mul(a, b, scale, RoundingMode.DOWN);
+    }
+
+    /**
+     * a * b / 10^scale (0 <= scale <= 36), e.g. scale = scale(a) + scale(b) - scale(result)
+     */
+    public static long mul(long a, long b, int scale, RoundingMode roundingMode) {
+        if (a == NaN || b == NaN) {
+            return NaN;
+        }
+
+        long sign = (a ^ b) >> 63;
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+
+        if (((x | y) >>> 31) == 0 && scale <= 18) {
+            // the product fits long
+            long p = x * y;
+            long q = scale != 0 ? unsignedDivPow10_64(p, scale) : p;
+            return round(negIf(q, sign), negIf(p - q * LONG_POW10[scale], sign), LONG_POW10[scale], roundingMode);
+        }
+
+        long hi = Math.multiplyHigh(x, y);
+        long lo = x * y;
+        return scale <= 18 ? scaleDivRound_127_63(hi, lo, 0, LONG_POW10[scale], sign, roundingMode) :
+                scaleDivRound_127_63(hi, lo, -18, LONG_POW10[scale - 18], sign, roundingMode); // up to 36
+    }
+
+    public static long divRD(long a, long b, int scale) {
+        return div(a, b, scale, RoundingMode.DOWN);
+    }
+
+    /**
+     * a * 10^scale / b (0 <= scale <= 18), e.g. scale = scale(result) + scale(b) - scale(a). NaN if b is 0.
+     */
+    public static long div(long a, long b, int scale, RoundingMode roundingMode) {
+        if (a == NaN || b == NaN || b == 0) {
+            return NaN;
+        }
+
+        if (Math.abs(a) <= SCALE_OVERFLOW_LIMITS[scale]) {
+            // the scaled numerator fits long
+            long p = a * LONG_POW10[scale];
+            long q = p / b;
+            long r = p - q * b; // the sign of p
+            return round(q, b < 0 ? -r : r, Math.abs(b), roundingMode);
+        }
+
+        long sign = (a ^ b) >> 63;
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+
+        return scaleDivRound_127_63(0, x, scale, y, sign, roundingMode);
+    }
+
+    public static long divRD(long a, Divisor b, int scale) {
+        return div(a, b, scale, RoundingMode.DOWN);
+    }
+
+    /**
+     * Same as {@link #div(long, long, int, RoundingMode)} by the precomputed divisor, NaN if b is 0 or NaN
+     */
+    public static long div(long a, Divisor b, int scale, RoundingMode roundingMode) {
+        if (a == NaN || b.isInvalid()) {
+            return NaN;
+        }
+
+        long sign = (a >> 63) ^ b.sign;
+        long x = Math.abs(a);
+        long q = scaleDivQuotient_63_63(x, scale, b);
+        if (q == NaN) {
+            return NaN;
+        }
+        return round(negIf(q, sign), negIf(x * LONG_POW10[scale] - q * b.magnitude, sign), b.magnitude, roundingMode);
+    }
+
+    public static long dotRD(long[] a, long[] b, int from, int to, int scale) {
+        return dot(a, b, from, to, scale, RoundingMode.DOWN);
+    }
+
+    /**
+     * Sum of a[i] * b[i] over [from, to) divided by 10^scale (0 <= scale <= 36), e.g. scale = scale(a) + scale(b) -
+     * scale(result). The products are summed exactly, so the result is rounded only once and does not depend on the
+     * order of the values (see {@link #parallelDot}). NaN if any of the values is NaN or the result does not fit.
+     */
+    public static long dot(long[] a, long[] b, int from, int to, int scale, RoundingMode roundingMode) {
+        long top = 0;
+        long hi = 0;
+        long lo = 0;
+        for (int i = from; i < to; i++) {
+            long x = a[i];
+            long y = b[i];
+            if (x == NaN || y == NaN) {
+                return NaN;
+            }
+            // [top][hi][lo] += x * y, the high word of the product is less than 2^62 by magnitude, so adding the carry
+            // to it does not overflow, the overflows of hi (+-2^128) are counted in top
+            long pLo = x * y;
+            long loSum = lo + pLo;
+            long pHi = Math.multiplyHigh(x, y) + carry(lo, pLo, loSum);
+            long sum = hi + pHi;
+            top += ((hi ^ sum) & (pHi ^ sum)) >> 63 & ((pHi >> 63) | 1);
+            hi = sum;
+            lo = loSum;
+        }
+        return roundDot(top, hi, lo, scale, roundingMode);
+    }
+
+    /**
+     * 192-bit [top][hi][lo] divided by 10^scale (0 <= scale <= 36) and rounded, NaN if it does not fit.
+     * [hi][lo] is a signed 128-bit value, top counts its overflows (+-2^128).
+     */
+    static long roundDot(long top, long hi, long lo, int scale, RoundingMode roundingMode) {
+        long sign = (top + (hi >> 63)) >> 63;
+        long u2 = magnitudeTop(top, hi, lo, sign);
+        long u1 = negIfHi(hi, lo, sign);
+        long u0 = negIf(lo, sign);
+        return scale <= 18 ? scaleDivRound_191_63(u2, u1, u0, 0, LONG_POW10[scale], sign, roundingMode) :
+                scaleDivRound_191_63(u2, u1, u0, 18 - scale, LONG_POW10[18], sign, roundingMode);
+    }
+
+    /**
+     * The highest word of the magnitude of [top][hi][lo] (see {@link #roundDot}) with the sign (0 or -1),
+     * the lower words are {@link BaseDecimal#negIfHi} and {@link BaseDecimal#negIf}
+     */
+    private static long magnitudeTop(long top, long hi, long lo, long sign) {
+        return negIfHi(top + (hi >> 63), hi | lo, sign); // sign-extended hi, carry if both lower words are 0
+    }
+
+    public static long vwapRD(long[] quantities, long[] prices, int from, int to, int scale) {
+        return vwap(quantities, prices, from, to, scale, RoundingMode.DOWN);
+    }
+
+    /**
+     * Volume-weighted average price: sum of quantities[i] * prices[i] over [from, to) divided by the sum of
+     * the quantities and multiplied by 10^scale (-18 <= scale <= 18), e.g. scale = scale(result) - scale(prices).
+     * The products and the quantities are summed exactly, so the result is rounded only once.
+     * NaN if any of the values is NaN, the sum of the quantities is 0 or does not fit long, or the result does not fit.
+     */
+    public static long vwap(long[] quantities, long[] prices, int from, int to, int scale, RoundingMode roundingMode) {
+        long top = 0;
+        long hi = 0;
+        long lo = 0;
+        long quantityHi = 0;
+        long quantity = 0;
+        for (int i = from; i < to; i++) {
+            long q = quantities[i];
+            long p = prices[i];
+            if (q == NaN || p == NaN) {
+                return NaN;
+            }
+            long pLo = q * p;
+            long loSum = lo + pLo;
+            long pHi = Math.multiplyHigh(q, p) + carry(lo, pLo, loSum); // see dot
+            long sum = hi + pHi;
+            long qSum = quantity + q;
+            top += ((hi ^ sum) & (pHi ^ sum)) >> 63 & ((pHi >> 63) | 1);
+            quantityHi += ((quantity ^ qSum) & (q ^ qSum)) >> 63 & ((q >> 63) | 1);
+            hi = sum;
+            lo = loSum;
+            quantity = qSum;
+        }
+        if (quantityHi != 0 || quantity == 0 || quantity == NaN) {
+            return NaN;
+        }
+
+        long sign = (top + (hi >> 63)) >> 63; // see roundDot
+        long signQuantity = quantity >> 63;
+        return scaleDivRound_191_63(magnitudeTop(top, hi, lo, sign), negIfHi(hi, lo, sign), negIf(lo, sign), scale,
+                negIf(quantity, signQuantity), sign ^ signQuantity, roundingMode);
+    }
+
+    /**
+     * Sum of raws[from, to) without NaN values into the result. NaN (with the index of the value) if the running sum
+     * overflows or is NaN (as in {@link #add(long, long)}), see {@link DecimalAccumulator} to sum without intermediate overflows.
+     */
+    public static Aggregate sum(long[] raws, int from, int to, Aggregate result) {
+        long sum = 0;
+        long overflow = 0;
+        int nans = 0;
+        for (int i = from; i < to; i++) {
+            long raw = raws[i];
+            int nan = raw == NaN ? 1 : 0;
+            nans += nan;
+            raw &= nan - 1L; // 0 if NaN
+            long s = sum + raw;
+            overflow |= (sum ^ s) & (raw ^ s) | (s == NaN ? -1L : 0); // as in add(long, long)
+            sum = s;
+        }
+        int overflowIndex = overflow < 0 ? overflowIndex(raws, from, to) : -1;
+        return result.set(overflowIndex < 0 ? sum : NaN, -1, to - from - nans, nans,
+                firstNaN(raws, from, to, nans), overflowIndex);
+    }
+
+    /**
+     * The first min value of raws[from, to) (NaN values are skipped) with its index into the result
+     */
+    public static Aggregate min(long[] raws, int from, int to, Aggregate result) {
+        long min = Long.MAX_VALUE;
+        int nans = 0;
+        for (int i = from; i < to; i++) {
+            long raw = raws[i];
+            int nan = raw == NaN ? 1 : 0;
+            nans += nan;
+            min = Math.min(min, nan == 0 ? raw : Long.MAX_VALUE);
+        }
+        return extremum(raws, from, to, min, nans, result);
+    }
+
+    /**
+     * The first max value of raws[from, to) (NaN values are skipped) with its index into the result
+     */
+    public static Aggregate max(long[] raws, int from, int to, Aggregate result) {
+        long max = NaN; // less than any other value
+        int nans = 0;
+        for (int i = from; i < to; i++) {
+            long raw = raws[i];
+            nans += raw == NaN ? 1 : 0;
+            max = Math.max(max, raw);
+        }
+        return extremum(raws, from, to, max, nans, result);
+    }
+
+    public static Aggregate meanRD(long[] raws, int from, int to, int scale, Aggregate result) {
+        return mean(raws, from, to, scale, RoundingMode.DOWN, result);
+    }
+
+    /**
+     * Mean of raws[from, to) without NaN values multiplied by 10^scale (-18 <= scale <= 18), e.g. scale =
+     * scale(result) - scale(raws), into the result. The sum is exact (as in {@link DecimalAccumulator#addAll}) and
+     * rounded once. NaN if there are no values or the result does not fit long (the overflow index is then the end
+     * index).
+     */
+    public static Aggregate mean(long[] raws, int from, int to, int scale, RoundingMode roundingMode,
+                                 Aggregate result) {
+        long sumHigh = 0; // sum of raw >> 32
+        long sumLow = 0; // sum of raw & 0xFFFFFFFF
+        int nans = 0;
+        for (int i = from; i < to; i++) {
+            long raw = raws[i];
+            int nan = raw == NaN ? 1 : 0;
+            nans += nan;
+            raw &= nan - 1L; // 0 if NaN
+            sumHigh += raw >> 32;
+            sumLow += raw & 0xFFFFFFFFL;
+        }
+        int count = to - from - nans;
+        int firstNaN = firstNaN(raws, from, to, nans);
+        if (count == 0) {
+            return result.set(NaN, -1, 0, nans, firstNaN, -1);
+        }
+
+        // sumHigh * 2^32 + sumLow as 128 bits
+        long lo = (sumHigh << 32) + sumLow;
+        long hi = (sumHigh >> 32) + carry(sumHigh << 32, sumLow, lo);
+        long sign = hi >> 63;
+        long mean = scaleDivRound_127_63(negIfHi(hi, lo, sign), negIf(lo, sign), scale, count, sign, roundingMode);
+        return result.set(mean, -1, count, nans, firstNaN, mean == NaN ? to : -1);
+    }
+
+    /**
+     * Replaces raws[from, to) in place by the running sums (NaN values are skipped and left NaN), the total goes to
+     * the result. If the running sum overflows, the rest of the values from the index of the overflow are NaN.
+     */
+    public static Aggregate prefixSum(long[] raws, int from, int to, Aggregate result) {
+        long sum = 0;
+        int nans = 0;
+        int firstNaN = -1;
+        for (int i = from; i < to; i++) {
+            long raw = raws[i];
+            if (raw == NaN) {
+                if (nans++ == 0) {
+                    firstNaN = i;
+                }
+                continue;
+            }
+            long s = sum + raw;
+            if (((sum ^ s) & (raw ^ s)) < 0 || s == NaN) {
+                // overflow, the values after it are not counted
+                int overflowIndex = i;
+                for (; i < to; i++) {
+                    raws[i] = NaN;
+                }
+                return result.set(NaN, -1, overflowIndex - from - nans, nans, firstNaN, overflowIndex);
+            }
+            sum = s;
+            raws[i] = s;
+        }
+        return result.set(sum, -1, to - from - nans, nans, firstNaN, -1);
+    }
+
+    public static long parallelSum(long[] raws, int from, int to) {
+        return parallelSum(ForkJoinPool.commonPool(), raws, from, to);
+    }
+
+    /**
+     * Sum of raws[from, to) in parallel in the pool, the same as adding the values one by one with
+     * {@link #add(long, long)}: NaN if any of the values is NaN or a running sum overflows, see {@link ParallelKernels}
+     */
+    public static long parallelSum(ForkJoinPool pool, long[] raws, int from, int to) {
+        return ParallelKernels.sum(pool, raws, from, to, ParallelKernels.THRESHOLD);
+    }
+
+    public static long parallelDotRD(long[] a, long[] b, int from, int to, int scale) {
+        return parallelDot(ForkJoinPool.commonPool(), a, b, from, to, scale, RoundingMode.DOWN);
+    }
+
+    public static long parallelDot(long[] a, long[] b, int from, int to, int scale, RoundingMode roundingMode) {
+        return parallelDot(ForkJoinPool.commonPool(), a, b, from, to, scale, roundingMode);
+    }
+
+    /**
+     * {@link #dot} in parallel in the pool, the result is the same
+     */
+    public static long parallelDot(ForkJoinPool pool, long[] a, long[] b, int from, int to, int scale,
+                                   RoundingMode roundingMode) {
+        return ParallelKernels.dot(pool, a, b, from, to, scale, roundingMode, ParallelKernels.THRESHOLD);
+    }
+
+    public static void parallelMinMax(long[] raws, int from, int to, long[] minMax) {
+        parallelMinMax(ForkJoinPool.commonPool(), raws, from, to, minMax);
+    }
+
+    /**
+     * Min and max of raws[from, to) in parallel in the pool into minMax[0] and minMax[1], both NaN if any of
+     * the values is NaN or there are none
+     */
+    public static void parallelMinMax(ForkJoinPool pool, long[] raws, int from, int to, long[] minMax) {
+        ParallelKernels.minMax(pool, raws, from, to, minMax, ParallelKernels.THRESHOLD);
+    }
+
+    private static Aggregate extremum(long[] raws, int from, int to, long value, int nans, Aggregate result) {
+        int count = to - from - nans;
+        int index = -1;
+        if (count > 0) {
+            index = from;
+            while (raws[index] != value) {
+                ++index;
+            }
+        } else {
+            value = NaN;
+        }
+        return result.set(value, index, count, nans, firstNaN(raws, from, to, nans), -1);
+    }
+
+    private static int firstNaN(long[] raws, int from, int to, int nans) {
+        if (nans > 0) {
+            for (int i = from; i < to; i++) {
+                if (raws[i] == NaN) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the value at which the running sum of raws[from, to) without NaN values overflows, -1 if none
+     */
+    private static int overflowIndex(long[] raws, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            long raw = raws[i];
+            if (raw != NaN) {
+                long s = sum + raw;
+                if (((sum ^ s) & (raw ^ s)) < 0 || s == NaN) {
+                    return i;
+                }
+                sum = s;
+            }
+        }
+        return -1;
+    }
+
+    public static long rescaleRD(long raw, int fromScale, int toScale) {
+        return rescale(raw, fromScale, toScale, RoundingMode.DOWN);
+    }
+
+    /**
+     * Converts the raw value of the scale fromScale to the raw value of the scale toScale.
+     * Rounding is required if toScale < fromScale.
+     */
+    public static long rescale(long raw, int fromScale, int toScale, RoundingMode roundingMode) {
+        if (raw == NaN) {
+            return NaN;
+        }
+
+        long scale = (long) toScale - fromScale;
+        if (scale >= 0) {
+            if (raw == 0) {
+                return 0;
+            }
+            return scale <= 18 && Math.abs(raw) <= SCALE_OVERFLOW_LIMITS[(int) scale] ? raw * LONG_POW10[(int) scale] : NaN;
+        }
+        if (scale >= -18) {
+            int s = (int) -scale;
+            long sign = raw >> 63;
+            long x = Math.abs(raw);
+            long q = unsignedDivPow10_64(x, s);
+            return round(negIf(q, sign), negIf(x - q * LONG_POW10[s], sign), LONG_POW10[s], roundingMode);
+        }
+        if (scale == -19) {
+            return roundScaled_19(raw, roundingMode);
+        }
+        return round(0, Long.signum(raw), Long.MAX_VALUE, roundingMode); // rounded zero
+    }
+
+    public static long roundToIncrementRD(long raw, long increment) {
+        return roundToIncrement(raw, increment, RoundingMode.DOWN);
+    }
+
+    /**
+     * raw rounded to a multiple of the increment of the same scale (e.g. tick or lot size), NaN if the increment is not
+     * positive or overflow
+     */
+    public static long roundToIncrement(long raw, long increment, RoundingMode roundingMode) {
+        return BaseDecimal.roundToIncrement(raw, increment, roundingMode);
+    }
+
+    /**
+     * Same as {@link #roundToIncrement(long, long, RoundingMode)} with the precomputed increment
+     */
+    public static long roundToIncrement(long raw, Increment increment, RoundingMode roundingMode) {
+        return BaseDecimal.roundToIncrement(raw, increment, roundingMode);
+    }
+
+    /**
+     * Rounds raws[from, to) in place to multiples of the increment of the same scale, NaN if overflow
+     */
+    public static void roundToIncrement(long[] raws, int from, int to, Increment increment, RoundingMode roundingMode) {
+        for (int i = from; i < to; i++) {
+            raws[i] = BaseDecimal.roundToIncrement(raws[i], increment, roundingMode);
+        }
+    }
+
+    /**
+     * Splits total into parts[from, to) (raws of the scale of total) proportional to weights[from, to) (raws of any
+     * common scale), so the parts sum up to total exactly: the largest remainders get the residual units of the last
+     * digit, the earlier parts win the ties.
+     *
+     * @return false (parts filled with NaN) if total is NaN, a weight is negative or NaN, or the sum of the weights
+     * is zero or overflows
+     */
+    public static boolean proRata(long total, long[] weights, int from, int to, long[] parts) {
+        return BaseDecimal.proRata(total, weights, null, from, to, parts);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+/**
+ * Divisor precomputed for repeated division by the same value, see {@link AbstractDecimal#div(Divisor, java.math.RoundingMode)}
+ * and {@link AbstractDecimal#quotient(AbstractDecimal, Divisor, java.math.RoundingMode)}.
+ * Keeps the absolute value normalized (shifted left until the highest bit is set) together with its reciprocal,
+ * so each division is a multiplication and a correction instead of a long division.
+ * Immutable and thread-safe.
+ */
+public final class Divisor {
+    final long raw;
+    final int scale;
+    final long sign; // 0 or -1
+    final long magnitude; // absolute value, 0 for zero and NaN
+    final int shift;
+    final long normalized; // magnitude << shift
+    final long reciprocal; // [(2^128 - 1) / normalized] - 2^64
+
+    private Divisor(long raw, int scale) {
+        if (scale < 0 || scale >= BaseDecimal.LONG_POW10.length) {
+            throw new IllegalArgumentException("Incorrect scale: " + scale);
+        }
+        this.raw = raw;
+        this.scale = scale;
+        this.sign = raw >> 63;
+        this.magnitude = raw != AbstractDecimal.NaN ? BaseDecimal.negIf(raw, sign) : 0;
+        this.shift = Long.numberOfLeadingZeros(magnitude);
+        this.normalized = magnitude << shift;
+        this.reciprocal = magnitude != 0 ? BaseDecimal.reciprocal(normalized) : 0;
+    }
+
+    /**
+     * Divisor equal to the value
+     */
+    public static Divisor of(AbstractDecimal<?> value) {
+        return new Divisor(value.getRaw(), value.getScale());
+    }
+
+    /**
+     * Divisor equal to raw * 10^-scale
+     */
+    public static Divisor of(long raw, int scale) {
+        return new Divisor(raw, scale);
+    }
+
+    public long getRaw() {
+        return raw;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * true if the value is NaN or zero, division by such divisor always returns NaN.
+     */
+    public boolean isInvalid() {
+        return magnitude == 0;
+    }
+}
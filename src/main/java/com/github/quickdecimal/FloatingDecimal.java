@@ -0,0 +1,730 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+import java.text.ParseException;
+
+/**
+ * Floating decimal, represented as a signed 64-bit mantissa and an integer scale: mantissa * 10^-scale.
+ * Unlike {@link AbstractDecimal}, the scale is not fixed, so values of very different magnitudes (e.g. FX rates,
+ * crypto amounts or risk figures) can be mixed without choosing the dp upfront.
+ * Same conventions: mutable, non-allocating (unless explicitly specified), rounding must be explicitly provided
+ * if required with the exception of "RD" methods that round DOWN.
+ * <p>
+ * Results of arithmetic operations are exact if they fit {@link #PRECISION} significant digits, otherwise they are
+ * rounded (once) to {@link #PRECISION} digits. Exact results keep their natural scale (e.g. 1.50 + 1.5 = 3.00),
+ * quotients are stripped of trailing zeros down to the scale difference of the arguments (e.g. 6 / 2 = 3).
+ * <p>
+ * Special value NaN is used to represent an invalid operation (unexpected rounding, division by zero) or a scale
+ * outside of +-{@link #MAX_SCALE}, its mantissa is {@link AbstractDecimal#NaN}.
+ * <p>
+ * Note: this class has a natural ordering that is inconsistent with equals, see {@link #compareTo}
+ */
+public class FloatingDecimal extends BaseDecimal implements Comparable<FloatingDecimal>, Cloneable {
+    /**
+     * Maximum significant digits of a rounded result
+     */
+    public static final int PRECISION = 18;
+    public static final int MAX_SCALE = 999_999_999;
+
+    private static final long TEN_POW_19 = -8446744073709551616L; // unsigned 10^19
+
+    private long mantissa;
+    private int scale;
+
+    public static FloatingDecimal of(long mantissa, int scale) {
+        return new FloatingDecimal().set(mantissa, scale);
+    }
+
+    public static FloatingDecimal of(AbstractDecimal<?> value) {
+        return new FloatingDecimal().set(value);
+    }
+
+    public static FloatingDecimal of(String value) throws ParseException {
+        return new FloatingDecimal().parse(value);
+    }
+
+    /**
+     * Signed mantissa (unscaled value)
+     */
+    public long getMantissa() {
+        return mantissa;
+    }
+
+    /**
+     * Number of digits after the decimal point, negative for multiples of powers of 10
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * this = mantissa * 10^-scale (NaN if the scale is out of range)
+     */
+    public FloatingDecimal set(long mantissa, int scale) {
+        return setValue(mantissa, scale);
+    }
+
+    public FloatingDecimal set(FloatingDecimal a) {
+        mantissa = a.mantissa;
+        scale = a.scale;
+        return this;
+    }
+
+    /**
+     * Exact conversion from a fixed point value
+     */
+    public FloatingDecimal set(AbstractDecimal<?> a) {
+        return set(a.getRaw(), a.getScale());
+    }
+
+    public FloatingDecimal fromLong(long value) {
+        return set(value, 0);
+    }
+
+    public FloatingDecimal setNaN() {
+        mantissa = AbstractDecimal.NaN;
+        scale = 0;
+        return this;
+    }
+
+    public boolean isNaN() {
+        return mantissa == AbstractDecimal.NaN;
+    }
+
+    /**
+     * Throws {@link ArithmeticException} if NaN
+     */
+    public FloatingDecimal checkNotNaN() {
+        if (isNaN()) {
+            throw new ArithmeticException("NaN");
+        }
+        return this;
+    }
+
+    public FloatingDecimal negate() {
+        mantissa = -mantissa; // NaN stays NaN
+        return this;
+    }
+
+    /**
+     * Removes trailing zeros of the mantissa (increasing the scale), e.g. 1.500 becomes 1.5, 0 has scale 0
+     */
+    public FloatingDecimal stripTrailingZeros() {
+        if (mantissa == 0) {
+            scale = 0;
+        } else if (!isNaN()) {
+            return setStripped(mantissa, scale, Long.MIN_VALUE);
+        }
+        return this;
+    }
+
+    public FloatingDecimal plusRD(FloatingDecimal a, FloatingDecimal b) {
+        return plus(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * this = a + b
+     */
+    public FloatingDecimal plus(FloatingDecimal a, FloatingDecimal b, RoundingMode roundingMode) {
+        return setSum(a.mantissa, a.scale, b.mantissa, b.scale, roundingMode);
+    }
+
+    public FloatingDecimal minusRD(FloatingDecimal a, FloatingDecimal b) {
+        return minus(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * this = a - b
+     */
+    public FloatingDecimal minus(FloatingDecimal a, FloatingDecimal b, RoundingMode roundingMode) {
+        return setSum(a.mantissa, a.scale, -b.mantissa, b.scale, roundingMode); // NaN stays NaN
+    }
+
+    public FloatingDecimal addRD(FloatingDecimal a) {
+        return add(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * this += a
+     */
+    public FloatingDecimal add(FloatingDecimal a, RoundingMode roundingMode) {
+        return plus(this, a, roundingMode);
+    }
+
+    public FloatingDecimal subtractRD(FloatingDecimal a) {
+        return subtract(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * this -= a
+     */
+    public FloatingDecimal subtract(FloatingDecimal a, RoundingMode roundingMode) {
+        return minus(this, a, roundingMode);
+    }
+
+    public FloatingDecimal productRD(FloatingDecimal a, FloatingDecimal b) {
+        return product(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * this = a * b
+     */
+    public FloatingDecimal product(FloatingDecimal a, FloatingDecimal b, RoundingMode roundingMode) {
+        long x = a.mantissa;
+        long y = b.mantissa;
+        if (x == AbstractDecimal.NaN || y == AbstractDecimal.NaN) {
+            return setNaN();
+        }
+        return setRounded(Math.multiplyHigh(x, y), x * y, (long) a.scale + b.scale, roundingMode);
+    }
+
+    public FloatingDecimal mulRD(FloatingDecimal a) {
+        return mul(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * this *= a
+     */
+    public FloatingDecimal mul(FloatingDecimal a, RoundingMode roundingMode) {
+        return product(this, a, roundingMode);
+    }
+
+    public FloatingDecimal quotientRD(FloatingDecimal a, FloatingDecimal b) {
+        return quotient(a, b, RoundingMode.DOWN);
+    }
+
+    /**
+     * this = a / b, NaN if b is 0
+     * Idea of implementation:
+     * - choose k, so that q = |a| * 10^k / |b| has exactly {@link #PRECISION} digits, comparing the mantissas
+     *   aligned to the same number of digits
+     * - k is from -1 to 36, so the numerator is pre-multiplied by 10^(k - 18) if k > 18 (it still fits 127 bits)
+     * - divide with a single rounding by {@link #scaleDivRound_127_63}
+     */
+    public FloatingDecimal quotient(FloatingDecimal a, FloatingDecimal b, RoundingMode roundingMode) {
+        long x = a.mantissa;
+        long y = b.mantissa;
+        if (x == AbstractDecimal.NaN || y == AbstractDecimal.NaN || y == 0) {
+            return setNaN();
+        }
+        long preferredScale = (long) a.scale - b.scale;
+        if (x == 0) {
+            return setValue(0, preferredScale);
+        }
+
+        long sign = (x ^ y) >> 63;
+        x = Math.abs(x);
+        y = Math.abs(y);
+
+        int digits = stringSize(x) - stringSize(y);
+        boolean xAboveY = digits >= 0 ?
+                compareUnsigned_128(0, x, Math.multiplyHigh(y, LONG_POW10[digits]), y * LONG_POW10[digits]) >= 0 :
+                compareUnsigned_128(Math.multiplyHigh(x, LONG_POW10[-digits]), x * LONG_POW10[-digits], 0, y) >= 0;
+        int k = (xAboveY ? PRECISION - 1 : PRECISION) - digits;
+
+        long hi = 0;
+        long lo = x;
+        if (k > 18) {
+            long m = LONG_POW10[k - 18];
+            hi = Math.multiplyHigh(x, m);
+            lo = x * m;
+        }
+
+        long result = scaleDivRound_127_63(hi, lo, Math.min(k, 18), y, sign, roundingMode);
+        if (result == AbstractDecimal.NaN) {
+            return setNaN();
+        }
+        return setStripped(result, preferredScale + k, preferredScale);
+    }
+
+    public FloatingDecimal divRD(FloatingDecimal a) {
+        return div(a, RoundingMode.DOWN);
+    }
+
+    /**
+     * this /= a
+     */
+    public FloatingDecimal div(FloatingDecimal a, RoundingMode roundingMode) {
+        return quotient(this, a, roundingMode);
+    }
+
+    public <T extends AbstractDecimal<T>> T roundToRD(T target) {
+        return roundTo(target, RoundingMode.DOWN);
+    }
+
+    /**
+     * target = this, rounded to the scale of the target. NaN if the value does not fit the target.
+     *
+     * @return target
+     */
+    public <T extends AbstractDecimal<T>> T roundTo(T target, RoundingMode roundingMode) {
+        return isNaN() ? target.setRaw(AbstractDecimal.NaN) : target.fromLong(mantissa, scale, roundingMode);
+    }
+
+    @Override
+    public FloatingDecimal clone() {
+        try {
+            return (FloatingDecimal) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Compares the values (not the representations, so 1.0 and 1.00 are equal), NaN is the smallest
+     */
+    @Override
+    public int compareTo(FloatingDecimal o) {
+        long x = mantissa;
+        long y = o.mantissa;
+        if (x == AbstractDecimal.NaN || y == AbstractDecimal.NaN) {
+            return Long.compare(x, y);
+        }
+
+        int signX = Long.signum(x);
+        int signY = Long.signum(y);
+        if (signX != signY || signX == 0) {
+            return Integer.compare(signX, signY);
+        }
+
+        x = Math.abs(x);
+        y = Math.abs(y);
+
+        // magnitudes first: the position of the highest digit
+        long exponentX = stringSize(x) - (long) scale;
+        long exponentY = stringSize(y) - (long) o.scale;
+        if (exponentX != exponentY) {
+            return exponentX > exponentY ? signX : -signX;
+        }
+
+        // same magnitudes, so |scale difference| <= 18
+        int k = scale - o.scale;
+        int result = k >= 0 ?
+                compareUnsigned_128(0, x, Math.multiplyHigh(y, LONG_POW10[k]), y * LONG_POW10[k]) :
+                compareUnsigned_128(Math.multiplyHigh(x, LONG_POW10[-k]), x * LONG_POW10[-k], 0, y);
+        return result * signX;
+    }
+
+    /**
+     * Same mantissa and scale (like {@link java.math.BigDecimal#equals}, so 1.0 and 1.00 are not equal)
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        FloatingDecimal that = (FloatingDecimal) o;
+
+        return mantissa == that.mantissa && scale == that.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = mantissa * 31 + scale;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte byteValue() {
+        return (byte) toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short shortValue() {
+        return (short) toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int intValue() {
+        return (int) toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long longValue() {
+        return toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float floatValue() {
+        return (float) toDouble();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double doubleValue() {
+        return toDouble();
+    }
+
+    /**
+     * Returns the whole part of the value rounding DOWN, throws exception if NaN
+     */
+    public long toLongRD() {
+        return toLong(RoundingMode.DOWN);
+    }
+
+    /**
+     * Returns the whole part of the value, throws exception if NaN.
+     * Returns {@link AbstractDecimal#NaN} if the whole part doesn't fit long (or failed UNNECESSARY rounding).
+     */
+    public long toLong(RoundingMode roundingMode) {
+        checkNotNaN();
+        if (scale <= 0) {
+            if (mantissa == 0) {
+                return 0;
+            }
+            return scale >= -18 && Math.abs(mantissa) <= SCALE_OVERFLOW_LIMITS[-scale] ?
+                    mantissa * LONG_POW10[-scale] : AbstractDecimal.NaN;
+        }
+        if (scale > 19) {
+            // rounded zero
+            return round(0, Long.signum(mantissa), Long.MAX_VALUE, roundingMode);
+        }
+        if (scale == 19) {
+            return roundScaled_19(mantissa, roundingMode);
+        }
+        long whole = downScale_63_31(mantissa, scale);
+        return round(whole, a, LONG_POW10[scale], roundingMode);
+    }
+
+    /**
+     * Converts to floating-point number (approximately), returns {@link Double#NaN} if NaN
+     */
+    public double toDouble() {
+        if (isNaN()) {
+            return Double.NaN;
+        }
+        if (scale >= 0 && scale <= 18) {
+            return (double) mantissa / LONG_POW10[scale];
+        }
+        if (scale < 0 && scale >= -18) {
+            return (double) mantissa * LONG_POW10[-scale];
+        }
+        return mantissa / Math.pow(10, scale);
+    }
+
+    /**
+     * Converts to ASCII string. Allocating.
+     * @see #toStringBuilder
+     */
+    public String toString() {
+        return toStringBuilder(new StringBuilder(21)).toString();
+    }
+
+    /**
+     * Converts to ASCII string. Plain notation (showing all dps, e.g. "1.00") if the scale is from 0 to 18,
+     * otherwise the mantissa with an exponent, e.g. "15E-20" or "-1E+3".
+     * NaN values are displayed as "NaN"
+     */
+    public StringBuilder toStringBuilder(StringBuilder sb) {
+        long m = mantissa;
+        if (m == AbstractDecimal.NaN) {
+            sb.append("NaN");
+            return sb;
+        }
+
+        if (scale < 0 || scale > 18) {
+            sb.append(m).append('E');
+            if (scale < 0) {
+                sb.append('+');
+            }
+            return sb.append(-scale);
+        }
+
+        if (m < 0) {
+            sb.append('-');
+            m = -m;
+        }
+
+        int length = stringSize(m);
+        if (scale >= length) {
+            sb.append(ZEROES[scale - length + 1]);
+        }
+        sb.append(m);
+
+        if (scale > 0) {
+            sb.insert(sb.length() - scale, '.');
+        }
+
+        return sb;
+    }
+
+    /**
+     * Parse a string (including NaN) and creates a value from it, keeping the scale as written (e.g. "1.50" has scale 2).
+     * Supports exponents, e.g. "1.5E-20". The mantissa must fit long.
+     * Unlike other methods, does NOT use NaN to indicate an error, uses ParseException instead.
+     */
+    public FloatingDecimal parse(CharSequence charSequence) throws ParseException {
+        return parse(charSequence, 0, charSequence.length());
+    }
+
+    public FloatingDecimal parse(CharSequence charSequence, int offset, int length) throws ParseException {
+        if (length == 0) {
+            throw new ParseException("Empty string", 0);
+        }
+
+        int end = offset + length;
+        boolean negative = false;
+        char ch = charSequence.charAt(offset);
+        switch (ch) {
+            case '-':
+                if (length == 1) {
+                    throw new ParseException("Single '-' is not expected", 0);
+                }
+                negative = true;
+                offset++;
+                break;
+            case 'N':
+            case 'n':
+                if (length != 3 ||
+                        charSequence.charAt(offset + 1) != 'a' && charSequence.charAt(offset + 1) != 'A' ||
+                        charSequence.charAt(offset + 2) != 'n' && charSequence.charAt(offset + 2) != 'N') {
+                    throw new ParseException("Unexpected alphanumeric value", 0);
+                }
+                return setNaN();
+            default:
+                // go on
+        }
+
+        long result = 0;
+        int digits = 0;
+        int fractionalDigits = -1; // no dot
+        long exponent = 0;
+        while (offset < end) {
+            ch = charSequence.charAt(offset++);
+            if (ch == '.') {
+                if (fractionalDigits != -1) {
+                    throw new ParseException("Double '.' found", offset);
+                }
+                if (offset == end) {
+                    throw new ParseException("Last '.' found", offset);
+                }
+                fractionalDigits = 0;
+            } else if (ch >= '0' && ch <= '9') {
+                if (result > Long.MAX_VALUE / 10) {
+                    throw new ParseException("Overflow", 0);
+                }
+                result *= 10;
+                result += ch - '0';
+                if (result < 0) {
+                    throw new ParseException("Overflow", 0);
+                }
+                digits++;
+                if (fractionalDigits != -1) {
+                    fractionalDigits++;
+                }
+            } else if ((ch == 'E' || ch == 'e') && digits > 0) {
+                exponent = parseExponent(charSequence, offset, end);
+                break;
+            } else {
+                throw new ParseException("Unexpected " + ch, offset - 1);
+            }
+        }
+        if (digits == 0) {
+            throw new ParseException("No digits found", offset);
+        }
+
+        long scale = Math.max(fractionalDigits, 0) - exponent;
+        if (scale < -MAX_SCALE || scale > MAX_SCALE) {
+            throw new ParseException("Exponent overflow", offset);
+        }
+        return setValue(negative ? -result : result, scale);
+    }
+
+    private static long parseExponent(CharSequence charSequence, int offset, int end) throws ParseException {
+        if (offset == end) {
+            throw new ParseException("Empty exponent", offset);
+        }
+
+        boolean negative = false;
+        char ch = charSequence.charAt(offset);
+        if (ch == '-' || ch == '+') {
+            negative = ch == '-';
+            if (++offset == end) {
+                throw new ParseException("Empty exponent", offset);
+            }
+        }
+
+        long result = 0;
+        while (offset < end) {
+            ch = charSequence.charAt(offset++);
+            if (ch < '0' || ch > '9') {
+                throw new ParseException("Unexpected " + ch, offset - 1);
+            }
+            result = result * 10 + ch - '0';
+            if (result > 2L * MAX_SCALE) {
+                throw new ParseException("Exponent overflow", offset - 1);
+            }
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * this = mantissa * 10^-scale, NaN if the scale is out of range (the mantissa of 0 is always in range)
+     */
+    private FloatingDecimal setValue(long mantissa, long scale) {
+        if (mantissa == AbstractDecimal.NaN || scale < -MAX_SCALE || scale > MAX_SCALE) {
+            if (mantissa != 0) {
+                return setNaN();
+            }
+            scale = 0;
+        }
+        this.mantissa = mantissa;
+        this.scale = (int) scale;
+        return this;
+    }
+
+    /**
+     * {@link #setValue}, dropping trailing zeros of the mantissa while scale > minScale
+     */
+    private FloatingDecimal setStripped(long mantissa, long scale, long minScale) {
+        while (scale > minScale && mantissa % 10 == 0) {
+            mantissa /= 10;
+            scale--;
+        }
+        return setValue(mantissa, scale);
+    }
+
+    /**
+     * this = a * 10^-sa + b * 10^-sb, rounded to {@link #PRECISION} digits
+     * Idea of implementation:
+     * - c is the coarser (smaller scale) argument, f is the finer one, k = sf - sc is their scale difference
+     * - if c * 10^k fits 127 bits (i.e. c has less than 38 - k digits), the sum c * 10^k + f is exact
+     * - otherwise, c is scaled by 10^sh up to 37 digits and f is scaled down by 10^(k - sh) (truncating).
+     *   The truncated part is represented by a "sticky" digit (the sign of the remainder) appended to the sum:
+     *   the sum has 36+ digits, so 18+ digits are rounded off, and the sticky digit (never 0 or 5 if the remainder
+     *   is not 0) gives the same rounding as the exact value
+     */
+    private FloatingDecimal setSum(long a, long sa, long b, long sb, RoundingMode roundingMode) {
+        if (a == AbstractDecimal.NaN || b == AbstractDecimal.NaN) {
+            return setNaN();
+        }
+
+        boolean aCoarse = sa <= sb;
+        long c = aCoarse ? a : b;
+        long f = aCoarse ? b : a;
+        long sc = aCoarse ? sa : sb;
+        long k = (aCoarse ? sb : sa) - sc;
+        if (c == 0) {
+            return setRounded(f >> 63, f, sc + k, roundingMode);
+        }
+
+        long sh = Math.min(k, 37 - stringSize(Math.abs(c)));
+
+        // [hi][lo] = c * 10^sh (signed), up to 37 digits
+        long hi = Math.multiplyHigh(c, LONG_POW10[(int) Math.min(sh, 18)]);
+        long lo = c * LONG_POW10[(int) Math.min(sh, 18)];
+        if (sh > 18) {
+            long m = LONG_POW10[(int) sh - 18];
+            hi = hi * m + unsignedMulHi(lo, m);
+            lo *= m;
+        }
+
+        long sticky = 0;
+        if (sh < k) {
+            long j = k - sh;
+            long q = j <= 18 ? f / LONG_POW10[(int) j] : 0;
+            sticky = Long.signum(f - q * (j <= 18 ? LONG_POW10[(int) j] : 0));
+            f = q;
+        }
+
+        // [hi][lo] += f (signed)
+        long sum = lo + f;
+        hi += (f >> 63) + (Long.compareUnsigned(sum, lo) < 0 ? 1 : 0);
+        lo = sum;
+
+        if (sh == k) {
+            return setRounded(hi, lo, sc + sh, roundingMode);
+        }
+
+        // [hi][lo] = [hi][lo] * 10 + sticky (< 10^38 < 2^127)
+        hi = hi * 10 + unsignedMulHi(lo, 10);
+        lo *= 10;
+        sum = lo + sticky;
+        hi += (sticky >> 63) + (Long.compareUnsigned(sum, lo) < 0 ? 1 : 0);
+        return setRounded(hi, sum, sc + sh + 1, roundingMode);
+    }
+
+    /**
+     * this = [hi][lo] * 10^-scale for a signed 128-bit [hi][lo] (|[hi][lo]| < 2^127), rounded to {@link #PRECISION} digits
+     */
+    private FloatingDecimal setRounded(long hi, long lo, long scale, RoundingMode roundingMode) {
+        long sign = hi >> 63;
+        long mHi = negIfHi(hi, lo, sign);
+        long mLo = negIf(lo, sign);
+
+        int drop = digits_128(mHi, mLo) - PRECISION;
+        if (drop <= 0) {
+            return setValue(lo, scale); // fits long, so lo is the signed value
+        }
+
+        // drop <= 21, 10^drop = 10^18 * 10^(drop - 18) if it does not fit long
+        int s = Math.min(drop, 18);
+        long result = scaleDivRound_127_63(mHi, mLo, -s, LONG_POW10[drop - s], sign, roundingMode);
+        if (result == AbstractDecimal.NaN) {
+            return setNaN();
+        }
+        if (Math.abs(result) == LONG_POW10[PRECISION]) {
+            return setValue(result / 10, scale - drop - 1); // rounded up to 19 digits, e.g. 999...9.5
+        }
+        return setValue(result, scale - drop);
+    }
+
+    /**
+     * Number of decimal digits in an unsigned 128-bit number [hi_63][lo_64]
+     */
+    private static int digits_128(long hi_63, long lo_64) {
+        if (hi_63 == 0) {
+            return unsignedDigits(lo_64);
+        }
+        // hi < 2^63 < 10^19, so the quotient fits 64 bits
+        return 19 + unsignedDigits(udiv_128_64(hi_63, lo_64, TEN_POW_19));
+    }
+
+    private static int unsignedDigits(long v_64) {
+        return v_64 >= 0 ? stringSize(v_64) : Long.compareUnsigned(v_64, TEN_POW_19) < 0 ? 19 : 20;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+/**
+ * Increment (tick size, lot size) precomputed for repeated rounding to its multiples, see
+ * {@link AbstractDecimal#roundToIncrement(Increment, java.math.RoundingMode)} and
+ * {@link DecimalMath#roundToIncrement(long[], int, int, Increment, java.math.RoundingMode)}.
+ * Keeps the {@link Divisor} of the increment, so the quotient is a multiplication by the reciprocal instead of
+ * a long division.
+ * Immutable and thread-safe.
+ */
+public final class Increment {
+    final long raw;
+    final int scale;
+    final Divisor divisor;
+    final long overflowLimit; // max number of increments fitting long, 0 if invalid
+
+    private Increment(long raw, int scale) {
+        this.divisor = Divisor.of(raw, scale);
+        this.raw = raw;
+        this.scale = scale;
+        this.overflowLimit = raw > 0 ? Long.MAX_VALUE / raw : 0;
+    }
+
+    /**
+     * Increment equal to the value
+     */
+    public static Increment of(AbstractDecimal<?> value) {
+        return new Increment(value.getRaw(), value.getScale());
+    }
+
+    /**
+     * Increment equal to raw * 10^-scale
+     */
+    public static Increment of(long raw, int scale) {
+        return new Increment(raw, scale);
+    }
+
+    public long getRaw() {
+        return raw;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * true if the increment is not positive or NaN, rounding to such increment always returns NaN.
+     */
+    public boolean isInvalid() {
+        return raw <= 0;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.github.quickdecimal.BaseDecimal.carry;
+
+/**
+ * Fork-join reductions of raw values over [from, to) of the arrays: the range is split in halves down to
+ * the threshold, the halves are reduced into exact partial results, which are combined in the order of the ranges.
+ * So the results are the same as of the sequential evaluation whatever the pool parallelism or the threshold:
+ * <ul>
+ * <li>the sum is {@link AbstractDecimal#NaN} if a value is NaN or a running sum from the start overflows (as adding
+ * the values one by one with {@link DecimalMath#add(long, long)}), so a partial sum is kept exactly in 128 bits
+ * with its min and max running sums</li>
+ * <li>the dot product is exact in 192 bits, so it does not depend on the order at all</li>
+ * </ul>
+ */
+final class ParallelKernels {
+    static final long NaN = AbstractDecimal.NaN;
+
+    /**
+     * Default number of values reduced sequentially by a task (512 KB per array)
+     */
+    static final int THRESHOLD = 1 << 16;
+
+    private ParallelKernels() {
+    }
+
+    static long sum(ForkJoinPool pool, long[] raws, int from, int to, int threshold) {
+        Sum sum = to - from <= threshold ? Sum.of(raws, from, to) : pool.invoke(new SumTask(raws, from, to, threshold));
+        return sum.result();
+    }
+
+    static long dot(ForkJoinPool pool, long[] a, long[] b, int from, int to, int scale, RoundingMode roundingMode,
+                    int threshold) {
+        Dot dot = to - from <= threshold ? Dot.of(a, b, from, to) : pool.invoke(new DotTask(a, b, from, to, threshold));
+        return dot.nan ? NaN : DecimalMath.roundDot(dot.top, dot.hi, dot.lo, scale, roundingMode);
+    }
+
+    static void minMax(ForkJoinPool pool, long[] raws, int from, int to, long[] minMax, int threshold) {
+        MinMax result = to - from <= threshold ? MinMax.of(raws, from, to) :
+                pool.invoke(new MinMaxTask(raws, from, to, threshold));
+        boolean nan = result.nan || from >= to;
+        minMax[0] = nan ? NaN : result.min;
+        minMax[1] = nan ? NaN : result.max;
+    }
+
+    /**
+     * Sum of a range and its min and max running sums (starting with the empty one, 0) in 128 bits
+     */
+    private static final class Sum {
+        boolean nan;
+        long totalHi;
+        long totalLo;
+        long maxHi;
+        long maxLo;
+        long minHi;
+        long minLo;
+
+        static Sum of(long[] raws, int from, int to) {
+            Sum result = new Sum();
+            long sum = 0;
+            long max = 0;
+            long min = 0;
+            long overflow = 0;
+            long nan = 0;
+            for (int i = from; i < to; i++) {
+                long raw = raws[i];
+                nan |= raw == NaN ? 1 : 0;
+                long s = sum + raw;
+                overflow |= (sum ^ s) & (raw ^ s);
+                sum = s;
+                max = Math.max(max, s);
+                min = Math.min(min, s);
+            }
+            result.nan = nan != 0;
+            if (overflow < 0 && !result.nan) {
+                // the running sum leaves long, but may come back after the sums of the ranges before this one
+                result.sum128(raws, from, to);
+            } else {
+                result.totalHi = sum >> 63;
+                result.totalLo = sum;
+                result.maxHi = max >> 63;
+                result.maxLo = max;
+                result.minHi = min >> 63;
+                result.minLo = min;
+            }
+            return result;
+        }
+
+        private void sum128(long[] raws, int from, int to) {
+            long hi = 0;
+            long lo = 0;
+            for (int i = from; i < to; i++) {
+                long raw = raws[i];
+                long s = lo + raw;
+                hi += (raw >> 63) + carry(lo, raw, s);
+                lo = s;
+                if (compare(hi, lo, maxHi, maxLo) > 0) {
+                    maxHi = hi;
+                    maxLo = lo;
+                } else if (compare(hi, lo, minHi, minLo) < 0) {
+                    minHi = hi;
+                    minLo = lo;
+                }
+            }
+            totalHi = hi;
+            totalLo = lo;
+        }
+
+        /**
+         * The sum of this and the next range, the running sums of which are shifted by the total of this
+         */
+        Sum combine(Sum next) {
+            nan |= next.nan;
+            long lo = totalLo + next.maxLo;
+            long hi = totalHi + next.maxHi + carry(totalLo, next.maxLo, lo);
+            if (compare(hi, lo, maxHi, maxLo) > 0) {
+                maxHi = hi;
+                maxLo = lo;
+            }
+            lo = totalLo + next.minLo;
+            hi = totalHi + next.minHi + carry(totalLo, next.minLo, lo);
+            if (compare(hi, lo, minHi, minLo) < 0) {
+                minHi = hi;
+                minLo = lo;
+            }
+            lo = totalLo + next.totalLo;
+            totalHi += next.totalHi + carry(totalLo, next.totalLo, lo);
+            totalLo = lo;
+            return this;
+        }
+
+        /**
+         * The total, NaN if a value is NaN or any running sum does not fit long or is NaN
+         */
+        long result() {
+            return nan || maxHi != maxLo >> 63 || minHi != minLo >> 63 || minLo == NaN ? NaN : totalLo;
+        }
+    }
+
+    /**
+     * Sum of products of a range in 192 bits, see {@link DecimalMath#dot}
+     */
+    private static final class Dot {
+        boolean nan;
+        long top;
+        long hi;
+        long lo;
+
+        static Dot of(long[] a, long[] b, int from, int to) {
+            Dot result = new Dot();
+            long top = 0;
+            long hi = 0;
+            long lo = 0;
+            for (int i = from; i < to; i++) {
+                long x = a[i];
+                long y = b[i];
+                if (x == NaN || y == NaN) {
+                    result.nan = true;
+                    return result;
+                }
+                long pLo = x * y;
+                long loSum = lo + pLo;
+                long pHi = Math.multiplyHigh(x, y) + carry(lo, pLo, loSum);
+                long sum = hi + pHi;
+                top += ((hi ^ sum) & (pHi ^ sum)) >> 63 & ((pHi >> 63) | 1);
+                hi = sum;
+                lo = loSum;
+            }
+            result.top = top;
+            result.hi = hi;
+            result.lo = lo;
+            return result;
+        }
+
+        Dot combine(Dot next) {
+            nan |= next.nan;
+            long l = lo + next.lo;
+            addHi(carry(lo, next.lo, l));
+            addHi(next.hi);
+            top += next.top;
+            lo = l;
+            return this;
+        }
+
+        private void addHi(long h) {
+            long sum = hi + h;
+            top += ((hi ^ sum) & (h ^ sum)) >> 63 & ((h >> 63) | 1);
+            hi = sum;
+        }
+    }
+
+    private static final class MinMax {
+        boolean nan;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        static MinMax of(long[] raws, int from, int to) {
+            MinMax result = new MinMax();
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                long raw = raws[i];
+                min = Math.min(min, raw);
+                max = Math.max(max, raw);
+            }
+            result.nan = min == NaN; // the smallest value
+            result.min = min;
+            result.max = max;
+            return result;
+        }
+
+        MinMax combine(MinMax next) {
+            nan |= next.nan;
+            min = Math.min(min, next.min);
+            max = Math.max(max, next.max);
+            return this;
+        }
+    }
+
+    private static final class SumTask extends RecursiveTask<Sum> {
+        private final long[] raws;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SumTask(long[] raws, int from, int to, int threshold) {
+            this.raws = raws;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Sum compute() {
+            if (to - from <= threshold) {
+                return Sum.of(raws, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SumTask first = new SumTask(raws, from, mid, threshold);
+            first.fork();
+            Sum second = new SumTask(raws, mid, to, threshold).compute();
+            return first.join().combine(second);
+        }
+    }
+
+    private static final class DotTask extends RecursiveTask<Dot> {
+        private final long[] a;
+        private final long[] b;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        DotTask(long[] a, long[] b, int from, int to, int threshold) {
+            this.a = a;
+            this.b = b;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Dot compute() {
+            if (to - from <= threshold) {
+                return Dot.of(a, b, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            DotTask first = new DotTask(a, b, from, mid, threshold);
+            first.fork();
+            Dot second = new DotTask(a, b, mid, to, threshold).compute();
+            return first.join().combine(second);
+        }
+    }
+
+    private static final class MinMaxTask extends RecursiveTask<MinMax> {
+        private final long[] raws;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        MinMaxTask(long[] raws, int from, int to, int threshold) {
+            this.raws = raws;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected MinMax compute() {
+            if (to - from <= threshold) {
+                return MinMax.of(raws, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            MinMaxTask first = new MinMaxTask(raws, from, mid, threshold);
+            first.fork();
+            MinMax second = new MinMaxTask(raws, mid, to, threshold).compute();
+            return first.join().combine(second);
+        }
+    }
+
+    /**
+     * Signed comparison of 128-bit [hi1][lo1] and [hi2][lo2]
+     */
+    private static int compare(long hi1, long lo1, long hi2, long lo2) {
+        return hi1 != hi2 ? Long.compare(hi1, hi2) : Long.compareUnsigned(lo1, lo2);
+    }
+}
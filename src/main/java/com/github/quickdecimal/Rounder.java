@@ -0,0 +1,187 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import java.math.RoundingMode;
+
+/**
+ * Rounding strategy, an alternative to passing {@link RoundingMode} to the arithmetic methods.
+ * The rounding mode is usually a constant of a call site, so with a constant rounder (e.g. {@link #HALF_EVEN})
+ * the JIT inlines a single final implementation with branch-free code instead of switching on the enum
+ * ({@link BaseDecimal#round}) on every call.
+ * Immutable and thread-safe, only the constants of this class exist.
+ */
+public abstract class Rounder {
+    public static final Rounder UP = new Up();
+    public static final Rounder DOWN = new Down();
+    public static final Rounder CEILING = new Ceiling();
+    public static final Rounder FLOOR = new Floor();
+    public static final Rounder HALF_UP = new HalfUp();
+    public static final Rounder HALF_DOWN = new HalfDown();
+    public static final Rounder HALF_EVEN = new HalfEven();
+    public static final Rounder UNNECESSARY = new Unnecessary();
+
+    private static final Rounder[] ROUNDERS = {UP, DOWN, CEILING, FLOOR, HALF_UP, HALF_DOWN, HALF_EVEN, UNNECESSARY};
+
+    private final RoundingMode roundingMode;
+
+    private Rounder(RoundingMode roundingMode) {
+        this.roundingMode = roundingMode;
+    }
+
+    public static Rounder of(RoundingMode roundingMode) {
+        return ROUNDERS[roundingMode.ordinal()];
+    }
+
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+
+    /**
+     * Same contract as {@link BaseDecimal#round}: rounds "whole + numerator / denominator",
+     * where the numerator (unless it's 0) has the sign of the whole and |numerator| < denominator.
+     * NaN if UNNECESSARY check fails.
+     */
+    public abstract long round(long whole, long numerator, long denominator);
+
+    @Override
+    public String toString() {
+        return roundingMode.toString();
+    }
+
+    /**
+     * -1 if numerator != 0, 0 otherwise
+     */
+    private static long nonZero(long numerator) {
+        return (numerator | -numerator) >> 63;
+    }
+
+    /**
+     * The sign of the numerator (+-1) if mask is -1, 0 if mask is 0
+     */
+    private static long signIf(long numerator, long mask) {
+        return ((numerator >> 63) | 1) & mask;
+    }
+
+    private static final class Up extends Rounder {
+        private Up() {
+            super(RoundingMode.UP);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            return whole + signIf(numerator, nonZero(numerator));
+        }
+    }
+
+    private static final class Down extends Rounder {
+        private Down() {
+            super(RoundingMode.DOWN);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            return whole;
+        }
+    }
+
+    private static final class Ceiling extends Rounder {
+        private Ceiling() {
+            super(RoundingMode.CEILING);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            return whole - (-numerator >> 63); // increment if positive
+        }
+    }
+
+    private static final class Floor extends Rounder {
+        private Floor() {
+            super(RoundingMode.FLOOR);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            return whole + (numerator >> 63); // decrement if negative
+        }
+    }
+
+    /**
+     * |numerator| * 2 >= denominator <=> denominator - |numerator| - |numerator| - 1 < 0, no overflow as
+     * |numerator| < denominator. No division by 2, so odd denominators are exact.
+     */
+    private static final class HalfUp extends Rounder {
+        private HalfUp() {
+            super(RoundingMode.HALF_UP);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            long n = Math.abs(numerator);
+            return whole + signIf(numerator, (denominator - n - n - 1) >> 63);
+        }
+    }
+
+    /**
+     * |numerator| * 2 > denominator <=> denominator - |numerator| - |numerator| < 0
+     */
+    private static final class HalfDown extends Rounder {
+        private HalfDown() {
+            super(RoundingMode.HALF_DOWN);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            long n = Math.abs(numerator);
+            return whole + signIf(numerator, (denominator - n - n) >> 63);
+        }
+    }
+
+    /**
+     * HALF_DOWN for even whole and HALF_UP for odd (comparing with denominator - 1 is the same as HALF_UP)
+     */
+    private static final class HalfEven extends Rounder {
+        private HalfEven() {
+            super(RoundingMode.HALF_EVEN);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            long n = Math.abs(numerator);
+            return whole + signIf(numerator, (denominator - (whole & 1) - n - n) >> 63);
+        }
+    }
+
+    private static final class Unnecessary extends Rounder {
+        private Unnecessary() {
+            super(RoundingMode.UNNECESSARY);
+        }
+
+        @Override
+        public long round(long whole, long numerator, long denominator) {
+            return numerator == 0 ? whole : AbstractDecimal.NaN;
+        }
+    }
+}
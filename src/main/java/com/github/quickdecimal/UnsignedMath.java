@@ -0,0 +1,61 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+/**
+ * Unsigned 64-bit primitives of the arithmetic kernels (see {@link BaseDecimal}).
+ * This is the baseline (Java 11) version, the multi-release jar overrides it for newer Java versions
+ * with the library methods compiled into single instructions (see src/main/java21).
+ */
+final class UnsignedMath {
+    private UnsignedMath() {
+    }
+
+    /**
+     * High 64 bits of unsigned 128-bit product
+     */
+    static long multiplyHigh(long a_64, long b_64) {
+        return Math.multiplyHigh(a_64, b_64) + (a_64 >> 63 & b_64) + (b_64 >> 63 & a_64);
+    }
+
+    /**
+     * High 64 bits of unsigned 128-bit product, the second argument is non-negative (only the first one needs
+     * the unsigned correction)
+     */
+    static long multiplyHigh_64_63(long a_64, long b_63) {
+        return Math.multiplyHigh(a_64, b_63) + (a_64 >> 63 & b_63);
+    }
+
+    /**
+     * Unsigned division of 64-bit number by 32-bit one (d_32 >= 2^31), without using slow Long.divideUnsigned
+     */
+    static long divide_64_32(long u_64, long d_32) {
+        if (u_64 >= 0) {
+            return u_64 / d_32;
+        }
+        long q_64 = ((u_64 >>> 1) / d_32) << 1; // exact quotient or 1 less
+        long r_33 = u_64 - q_64 * d_32;
+        return r_33 >= d_32 ? q_64 + 1 : q_64;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+/**
+ * Java 21 version of the unsigned 64-bit primitives (packed into META-INF/versions/21 of the multi-release jar):
+ * Math.unsignedMultiplyHigh (Java 18) is a single MUL instruction, Long.divideUnsigned is an intrinsic (Java 19).
+ */
+final class UnsignedMath {
+    private UnsignedMath() {
+    }
+
+    /**
+     * High 64 bits of unsigned 128-bit product
+     */
+    static long multiplyHigh(long a_64, long b_64) {
+        return Math.unsignedMultiplyHigh(a_64, b_64);
+    }
+
+    /**
+     * High 64 bits of unsigned 128-bit product, the second argument is non-negative
+     */
+    static long multiplyHigh_64_63(long a_64, long b_63) {
+        return Math.unsignedMultiplyHigh(a_64, b_63);
+    }
+
+    /**
+     * Unsigned division of 64-bit number by 32-bit one (d_32 >= 2^31)
+     */
+    static long divide_64_32(long u_64, long d_32) {
+        return Long.divideUnsigned(u_64, d_32);
+    }
+}
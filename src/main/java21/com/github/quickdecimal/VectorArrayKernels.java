@@ -0,0 +1,167 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.GT;
+import static jdk.incubator.vector.VectorOperators.LT;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+/**
+ * SIMD version of {@link ArrayKernels} on the Vector API (jdk.incubator.vector), only in META-INF/versions/21 of
+ * the multi-release jar. Whole vectors of the preferred species (e.g. 4 longs with AVX2, 8 with AVX-512), the tail
+ * is done by the scalar kernels. Overflow and NaN become lane masks, which blend NaN into the result.
+ */
+final class VectorArrayKernels extends ArrayKernels {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Same number of lanes as LONGS (unless there is no SIMD), for the results of comparison.
+     * Must be a constant, otherwise the operations on it are not intrinsified.
+     */
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(Math.max(LONGS.vectorBitSize() / 2, 64)));
+
+    VectorArrayKernels() {
+        if (LONGS.length() < 2) {
+            throw new UnsupportedOperationException("No SIMD");
+        }
+    }
+
+    @Override
+    void add(long[] a, long[] b, long[] r, int from, int to) {
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector x = LongVector.fromArray(LONGS, a, i);
+            LongVector y = LongVector.fromArray(LONGS, b, i);
+            LongVector sum = x.add(y);
+            sum.blend(NaN, addOverflow(x, y, sum).or(x.eq(NaN)).or(y.eq(NaN))).intoArray(r, i);
+        }
+        super.add(a, b, r, i, to);
+    }
+
+    @Override
+    void add(long[] a, long b, long[] r, int from, int to) {
+        if (b == NaN) {
+            super.add(a, b, r, from, to);
+            return;
+        }
+        LongVector y = LongVector.broadcast(LONGS, b);
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector x = LongVector.fromArray(LONGS, a, i);
+            LongVector sum = x.add(y);
+            sum.blend(NaN, addOverflow(x, y, sum).or(x.eq(NaN))).intoArray(r, i);
+        }
+        super.add(a, b, r, i, to);
+    }
+
+    @Override
+    void subtract(long[] a, long[] b, long[] r, int from, int to) {
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector x = LongVector.fromArray(LONGS, a, i);
+            LongVector y = LongVector.fromArray(LONGS, b, i);
+            LongVector difference = x.sub(y);
+            difference.blend(NaN, subtractOverflow(x, y, difference).or(x.eq(NaN)).or(y.eq(NaN))).intoArray(r, i);
+        }
+        super.subtract(a, b, r, i, to);
+    }
+
+    @Override
+    void subtract(long[] a, long b, long[] r, int from, int to) {
+        if (b == NaN) {
+            super.subtract(a, b, r, from, to);
+            return;
+        }
+        LongVector y = LongVector.broadcast(LONGS, b);
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector x = LongVector.fromArray(LONGS, a, i);
+            LongVector difference = x.sub(y);
+            difference.blend(NaN, subtractOverflow(x, y, difference).or(x.eq(NaN))).intoArray(r, i);
+        }
+        super.subtract(a, b, r, i, to);
+    }
+
+    @Override
+    void negate(long[] a, long[] r, int from, int to) {
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector.fromArray(LONGS, a, i).neg().intoArray(r, i);
+        }
+        super.negate(a, r, i, to);
+    }
+
+    @Override
+    void min(long[] a, long[] b, long[] r, int from, int to) {
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector.fromArray(LONGS, a, i).min(LongVector.fromArray(LONGS, b, i)).intoArray(r, i);
+        }
+        super.min(a, b, r, i, to);
+    }
+
+    @Override
+    void max(long[] a, long[] b, long[] r, int from, int to) {
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector x = LongVector.fromArray(LONGS, a, i);
+            LongVector y = LongVector.fromArray(LONGS, b, i);
+            x.max(y).blend(NaN, x.eq(NaN).or(y.eq(NaN))).intoArray(r, i);
+        }
+        super.max(a, b, r, i, to);
+    }
+
+    @Override
+    void compare(long[] a, long[] b, int[] r, int from, int to) {
+        IntVector zero = IntVector.zero(INTS);
+        int i = from;
+        for (int bound = from + LONGS.loopBound(to - from); i < bound; i += LONGS.length()) {
+            LongVector x = LongVector.fromArray(LONGS, a, i);
+            LongVector y = LongVector.fromArray(LONGS, b, i);
+            zero.blend(1, x.compare(GT, y).cast(INTS)).blend(-1, x.compare(LT, y).cast(INTS)).intoArray(r, i);
+        }
+        super.compare(a, b, r, i, to);
+    }
+
+    /**
+     * The sign of the sum differs from the signs of both arguments
+     */
+    private static VectorMask<Long> addOverflow(LongVector x, LongVector y, LongVector sum) {
+        return x.lanewise(XOR, sum).and(y.lanewise(XOR, sum)).compare(LT, 0);
+    }
+
+    /**
+     * The arguments have different signs and the sign of the difference differs from the sign of the first one
+     */
+    private static VectorMask<Long> subtractOverflow(LongVector x, LongVector y, LongVector difference) {
+        return x.lanewise(XOR, y).and(x.lanewise(XOR, difference)).compare(LT, 0);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.text.ParseException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AbstractDecimal128Test {
+    private static final BigInteger MAX = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+
+    private final TestDecimal128 quantity = new TestDecimal128(2);
+    private final TestDecimal128 price = new TestDecimal128(8);
+
+    @Test
+    public void testNaN() throws Exception {
+        assertTrue(quantity.setNaN().isNaN());
+        assertEquals(AbstractDecimal128.NaN_HIGH, quantity.getHigh());
+        assertEquals(0, quantity.getLow());
+        assertTrue(quantity.setRaw(AbstractDecimal.NaN).isNaN());
+        assertTrue(quantity.negate().isNaN());
+        assertEquals("NaN", quantity.toString());
+        try {
+            quantity.checkNotNaN();
+            fail("Exception expected");
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    @Test
+    public void testToStringAndParse() throws Exception {
+        assertEquals("1.23", quantity.setRaw(123).toString());
+        assertEquals("-0.05", quantity.setRaw(-5).toString());
+        assertEquals("0.00", quantity.setRaw(0).toString());
+        assertEquals("170141183460469231731687303715884105727", new TestDecimal128(0).setRaw(Long.MAX_VALUE, -1).toString());
+        assertEquals("-170141183460469231731.687303715884105727", new TestDecimal128(18).setRaw(Long.MIN_VALUE, 1).toString());
+        assertEquals("0.000000000000000001", new TestDecimal128(18).setRaw(1).toString());
+        assertEquals("1000000000000000000.000000000000000000", new TestDecimal128(18).parse("1000000000000000000").toString());
+
+        assertEquals(new TestDecimal128(18).setRaw(Long.MAX_VALUE, -1),
+                new TestDecimal128(18).parse("170141183460469231731.687303715884105727"));
+        assertEquals(new TestDecimal128(4).setRaw(-1230000), new TestDecimal128(4).parse("-123.000"));
+        assertTrue(new TestDecimal128(4).parse("nan").isNaN());
+
+        assertExceptionWhileParsing(new TestDecimal128(0), "170141183460469231731687303715884105728");
+        assertExceptionWhileParsing(new TestDecimal128(1), "170141183460469231731687303715884105727");
+        assertExceptionWhileParsing(new TestDecimal128(2), "1.234");
+        assertExceptionWhileParsing(new TestDecimal128(2), "1.2.3");
+        assertExceptionWhileParsing(new TestDecimal128(2), "1.");
+        assertExceptionWhileParsing(new TestDecimal128(2), "-");
+        assertExceptionWhileParsing(new TestDecimal128(2), "");
+        assertExceptionWhileParsing(new TestDecimal128(2), "rubbish");
+
+        assertEquals(new TestDecimal128(2).setRaw(150), new TestDecimal128(2).parse("x1.5y", 1, 3));
+    }
+
+    @Test
+    public void testArithmetic() throws Exception {
+        assertEquals("3.00", quantity.plus(quantity("1"), quantity("2")).toString());
+        assertEquals("-1.00", quantity.minus(quantity("1"), quantity("2")).toString());
+        assertEquals("1.00", quantity.add(quantity("2")).toString());
+        assertEquals("0.90", quantity.subtract(quantity("0.1")).toString());
+        assertEquals("0.91", quantity.addRD(price("0.01999999")).toString());
+        assertEquals("0.92", quantity.add(price("0.00000001"), RoundingMode.UP).toString());
+        assertEquals("0.91", quantity.subtract(price("0.00000001"), RoundingMode.FLOOR).toString());
+        assertEquals("0.91", quantity.subtractRD(price("-0.00000001")).toString());
+
+        assertEquals("246.00", quantity.productRD(quantity("12.3"), quantity("20")).toString());
+        assertEquals("0.01", quantity.product(price("0.1"), price("0.05"), RoundingMode.HALF_UP).toString());
+        assertEquals("4.10", quantity.quotientRD(quantity("12.3"), quantity("3")).toString());
+        assertEquals("0.33333333", price.quotient(quantity("1"), quantity("3"), RoundingMode.HALF_EVEN).toString());
+        assertEquals("0.66666667", price.quotient(quantity("2"), quantity("3"), RoundingMode.HALF_EVEN).toString());
+        assertEquals("1.33", quantity("4").div(quantity("3"), RoundingMode.DOWN).toString());
+        assertEquals("8.00", quantity("4").mul(price("2"), RoundingMode.UNNECESSARY).toString());
+
+        // beyond long
+        TestDecimal128 big = new TestDecimal128(18).parse("100000000000000000000");
+        assertEquals("10000000000000000000.000000000000000000", new TestDecimal128(18).quotientRD(big, new TestDecimal128(18).fromLong(10)).toString());
+        assertEquals("170141183460469231731.687303715884105727", new TestDecimal128(18).setRaw(Long.MAX_VALUE, -1)
+                .mul(new TestDecimal128(18).fromLong(1), RoundingMode.UNNECESSARY).toString());
+
+        assertTrue(quantity.quotientRD(quantity("1"), quantity("0")).isNaN());
+        assertTrue(quantity.plus(quantity("1"), quantity.clone().setNaN()).isNaN());
+        assertTrue(quantity.product(quantity("0.01"), quantity("0.5"), RoundingMode.UNNECESSARY).isNaN());
+        assertTrue(big.clone().mul(big, RoundingMode.DOWN).isNaN());
+        assertTrue(new TestDecimal128(0).setRaw(Long.MAX_VALUE, -1).add(new TestDecimal128(0).fromLong(1)).isNaN());
+
+        try {
+            quantity.plus(quantity("1"), price("1"), RoundingMode.DOWN);
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            quantity.quotient(quantity("1"), price("1"), RoundingMode.DOWN);
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testConversions() throws Exception {
+        assertEquals("123.00", quantity.fromLong(123).toString());
+        assertEquals(123, quantity.toLongRD());
+        assertEquals(-124, quantity("-123.45").toLong(RoundingMode.FLOOR));
+        assertEquals(AbstractDecimal.NaN, new TestDecimal128(0).parse("9223372036854775808").toLongRD());
+        assertEquals(Long.MAX_VALUE, new TestDecimal128(0).parse("9223372036854775807").toLongRD());
+        assertEquals(-1.5, quantity("-1.5").toDouble(), 0);
+        assertEquals(1.7014118346046923e20, new TestDecimal128(18).setRaw(Long.MAX_VALUE, -1).toDouble(), 1e5);
+
+        assertEquals("1.23", quantity.set(new TestDecimal(2).setRaw(123), RoundingMode.UNNECESSARY).toString());
+        assertEquals("1.24", quantity.set(new TestDecimal(3).setRaw(1235), RoundingMode.HALF_EVEN).toString());
+        assertEquals("1.23", quantity.setRD(price("1.23999999")).toString());
+        assertTrue(quantity.set(new TestDecimal(2).setRaw(AbstractDecimal.NaN), RoundingMode.DOWN).isNaN());
+
+        assertTrue(quantity("1").compareTo(price("1.00000001")) < 0);
+        assertTrue(quantity("-1").compareTo(price("-1.00000001")) > 0);
+        assertEquals(0, quantity("1").compareTo(price("1")));
+        assertTrue(quantity.clone().setNaN().compareTo(price("-1")) < 0);
+        assertTrue(new TestDecimal128(0).setRaw(Long.MAX_VALUE, -1).compareTo(price("1")) > 0);
+        assertTrue(new TestDecimal128(0).setRaw(Long.MIN_VALUE, 1).compareTo(price("-1")) < 0);
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            TestDecimal128 value1 = random(random, random.nextInt(19));
+            TestDecimal128 value2 = random(random, random.nextInt(19));
+            TestDecimal128 value3 = random(random, value2.getScale());
+            BigDecimal bd1 = bigDecimal(value1);
+            BigDecimal bd2 = bigDecimal(value2);
+            BigDecimal bd3 = bigDecimal(value3);
+            int scale = value1.getScale();
+
+            String message = value1 + " and " + value2 + ", " + value3;
+            assertEquals(message, value1, value1.clone().parse(value1.toString()));
+            assertEquals(message, Integer.signum(bd1.compareTo(bd2)), Integer.signum(value1.compareTo(value2)));
+            for (RoundingMode mode : RoundingMode.values()) {
+                message = value1 + " and " + value2 + ", " + value3 + " " + mode;
+                assertEquals(message, round(bd2, scale, mode), bigInteger(value1.clone().set(value2, mode)));
+                assertEquals(message, round(bd1.add(bd2), scale, mode), bigInteger(value1.clone().add(value2, mode)));
+                assertEquals(message, round(bd1.subtract(bd2), scale, mode), bigInteger(value1.clone().subtract(value2, mode)));
+                assertEquals(message, round(bd2.add(bd3), scale, mode), bigInteger(value1.clone().plus(value2, value3, mode)));
+                assertEquals(message, round(bd2.subtract(bd3), scale, mode), bigInteger(value1.clone().minus(value2, value3, mode)));
+                assertEquals(message, round(bd1.multiply(bd2), scale, mode), bigInteger(value1.clone().mul(value2, mode)));
+                assertEquals(message, round(bd2.multiply(bd3), scale, mode), bigInteger(value1.clone().product(value2, value3, mode)));
+                if (bd2.signum() != 0) {
+                    assertEquals(message, round(bd1.divide(bd2, 80, RoundingMode.DOWN), scale, mode), bigInteger(value1.clone().div(value2, mode)));
+                }
+                if (bd3.signum() != 0) {
+                    assertEquals(message, round(bd2.divide(bd3, 80, RoundingMode.DOWN), scale, mode), bigInteger(value1.clone().quotient(value2, value3, mode)));
+                }
+            }
+        }
+    }
+
+    private static TestDecimal128 random(Random random, int scale) {
+        int bits = random.nextInt(128);
+        long high = bits > 64 ? random.nextLong() >> (128 - bits) : random.nextLong() >> 63;
+        long low = bits >= 64 ? random.nextLong() : random.nextLong() >> (63 - bits) ^ high;
+        TestDecimal128 value = new TestDecimal128(scale).setRaw(high, low);
+        return value.isNaN() ? value.setRaw(0) : value;
+    }
+
+    private static BigDecimal bigDecimal(AbstractDecimal128<?> value) {
+        return new BigDecimal(bigInteger(value), value.getScale());
+    }
+
+    /**
+     * Raw value as BigInteger, null if NaN
+     */
+    private static BigInteger bigInteger(AbstractDecimal128<?> value) {
+        if (value.isNaN()) {
+            return null;
+        }
+        return BigInteger.valueOf(value.getHigh()).shiftLeft(64).add(new BigInteger(Long.toUnsignedString(value.getLow())));
+    }
+
+    /**
+     * Expected raw value, null for NaN (overflow or failed UNNECESSARY)
+     */
+    private static BigInteger round(BigDecimal value, int scale, RoundingMode roundingMode) {
+        try {
+            BigInteger raw = value.setScale(scale, roundingMode).unscaledValue();
+            return raw.abs().compareTo(MAX) <= 0 ? raw : null;
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static void assertExceptionWhileParsing(TestDecimal128 decimal, String value) {
+        try {
+            decimal.parse(value);
+            fail("Exception expected for " + value);
+        } catch (ParseException e) {
+        }
+    }
+
+    private TestDecimal128 quantity(String value) throws ParseException {
+        return new TestDecimal128(quantity.getScale()).parse(value);
+    }
+
+    private TestDecimal128 price(String value) throws ParseException {
+        return new TestDecimal128(price.getScale()).parse(value);
+    }
+}
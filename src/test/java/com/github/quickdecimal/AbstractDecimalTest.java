@@ -26,10 +26,14 @@ package com.github.quickdecimal;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.text.ParseException;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static com.github.quickdecimal.AbstractDecimal.NaN;
@@ -129,6 +133,9 @@ public class AbstractDecimalTest {
         assertEquals(-Long.MAX_VALUE, new TestDecimal(0).parse("-0000009223372036854775807.0").getRaw());
         assertEquals(NaN, new TestDecimal(0).parse("NaN").getRaw());
         assertEquals(NaN, new TestDecimal(0).parse("nAn").getRaw());
+        assertEquals(1, new TestDecimal(18).parse("0.000000000000000001").getRaw());
+        assertEquals(Long.MAX_VALUE, new TestDecimal(18).parse("9.223372036854775807").getRaw());
+        assertEquals(1230, new TestDecimal(2).parse("12.30000000000000000000").getRaw());
 
         assertExceptionWhileParsing("9223372036854775808");
         assertExceptionWhileParsing("9223372036854775809");
@@ -149,6 +156,11 @@ public class AbstractDecimalTest {
             fail("Exception expected");
         } catch (ParseException e) {
         }
+        try {
+            new TestDecimal(2).parse("1.234");
+            fail("Exception expected");
+        } catch (ParseException e) {
+        }
         try {
             new TestDecimal(1).parse("1", 1, 0);
             fail("Exception expected");
@@ -187,6 +199,11 @@ public class AbstractDecimalTest {
         assertEquals("1.0", new TestDecimal(1).fromLong(Long.MAX_VALUE, 19, RoundingMode.UP).toString());
         assertEquals("0.1", new TestDecimal(1).fromLong(Long.MAX_VALUE, 20, RoundingMode.UP).toString());
         assertEquals("0.1", new TestDecimal(1).fromLong(Long.MAX_VALUE, 21, RoundingMode.UP).toString());
+        assertEquals("0.1", new TestDecimal(1).fromLong(Long.MAX_VALUE, 20, RoundingMode.HALF_UP).toString());
+        assertEquals("0.0", new TestDecimal(1).fromLong(Long.MAX_VALUE, 21, RoundingMode.HALF_UP).toString());
+        assertEquals("-0.1", new TestDecimal(1).fromLong(-5000000000000000000L, 20, RoundingMode.HALF_UP).toString());
+        assertEquals("0.0", new TestDecimal(1).fromLong(5000000000000000000L, 20, RoundingMode.HALF_DOWN).toString());
+        assertEquals("0.0", new TestDecimal(1).fromLong(0, -30, RoundingMode.UNNECESSARY).toString());
 
         // huge negative scales
         assertEquals("1000000000.0", new TestDecimal(1).fromLongRD(1, -9).toString());
@@ -597,6 +614,105 @@ public class AbstractDecimalTest {
         assertEquals("0.10", quantity("0.33").mul(quantity("0.33"), RoundingMode.DOWN).toString());
     }
 
+    @Test
+    public void testProductPlus() throws Exception {
+        assertEquals("1231.00", quantity.productPlus(quantity("123"), quantity("10"), quantity("1"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("-1229.00", quantity.productPlus(quantity("123"), quantity("-10"), quantity("1"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("1230.01", quantity.productPlus(price("123"), price("10.00000001"), quantity("0"), RoundingMode.UP).toString());
+        assertEquals("1230.00", quantity.productPlusRD(price("123"), price("10.00000001"), quantity("0")).toString());
+        // rounded once: 0.004 + 0.004 + 0.002
+        assertEquals("0.01", quantity.productPlus(price("0.002"), price("1"), quantity("0.01"), RoundingMode.HALF_UP).toString());
+        assertEquals("0.00", quantity.productPlus(price("-0.006"), price("1"), quantity("0.01"), RoundingMode.DOWN).toString());
+        assertEquals("-0.01", quantity.productPlus(price("-0.016"), price("1"), quantity("0.01"), RoundingMode.HALF_EVEN).toString());
+        assertEquals("1230.00000001", price.productPlus(quantity("123"), quantity("10"), price("0.00000001"), RoundingMode.UNNECESSARY).toString());
+
+        assertEquals("NaN", quantity.productPlus(price("NaN"), price("1"), quantity("1"), RoundingMode.DOWN).toString());
+        assertEquals("NaN", quantity.productPlus(price("1"), price("1"), quantity("NaN"), RoundingMode.DOWN).toString());
+        assertEquals("NaN", quantity.productPlus(price("1000000000"), price("1000000000"), quantity("1"), RoundingMode.DOWN).toString());
+        assertEquals("NaN", quantity.productPlus(price("1"), price("1"), quantity("92233720368547758.07"), RoundingMode.DOWN).toString());
+        assertEquals("NaN", quantity.productPlus(price("0.00000001"), price("0.00000001"), quantity("0"), RoundingMode.UNNECESSARY).toString());
+        // the product doesn't fit long, but the result does
+        assertEquals("89000000000000000.00", quantity.productPlus(price("90000000000"), price("1100000"), quantity("-10000000000000000"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("-89000000000000000.02", quantity.productPlus(price("90000000000.00000001"), price("-1100000"), quantity("10000000000000000"), RoundingMode.FLOOR).toString());
+        assertEquals("-89000000000000000.01", quantity.productPlus(price("90000000000.00000001"), price("-1100000"), quantity("10000000000000000"), RoundingMode.CEILING).toString());
+        assertEquals("50000000000.00000000", price.productPlus(quantity("1000000"), quantity("100000"), price("-50000000000"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("NaN", price.productPlus(quantity("1000000"), quantity("100000"), price("-5000000000"), RoundingMode.UNNECESSARY).toString());
+
+        try {
+            quantity.productPlus(price("1"), price("1"), price("1"), RoundingMode.DOWN);
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testMulDiv() throws Exception {
+        assertEquals("24.60", quantity.mulDiv(quantity("123"), quantity("2"), quantity("10"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("-24.60", quantity.mulDiv(quantity("123"), quantity("-2"), quantity("10"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.33333333", price.mulDivRD(quantity("1"), quantity("1"), quantity("3")).toString());
+        assertEquals("0.66666667", price.mulDiv(quantity("2"), quantity("1"), quantity("3"), RoundingMode.HALF_UP).toString());
+        // the product doesn't fit long, but the result does
+        assertEquals("92233720368.54775807", price.mulDiv(price("92233720368.54775807"), price("1000000000"), price("1000000000"),
+                RoundingMode.UNNECESSARY).toString());
+        // rounded once: 0.005 * 0.5 / 0.5 = 0.005
+        assertEquals("0.01", quantity.mulDiv(price("0.005"), price("0.5"), price("0.5"), RoundingMode.HALF_UP).toString());
+        assertEquals("6.15", quantity.mulDiv(123, 5, 100, RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.33", quantity.mulDivRD(1, 1, 3).toString());
+
+        assertEquals("NaN", quantity.mulDiv(quantity("1"), quantity("1"), quantity("0"), RoundingMode.DOWN).toString());
+        assertEquals("NaN", quantity.mulDiv(quantity("NaN"), quantity("1"), quantity("1"), RoundingMode.DOWN).toString());
+        assertEquals("NaN", quantity.mulDiv(quantity("1000000"), quantity("1000000000"), quantity("0.01"), RoundingMode.DOWN).toString());
+        assertEquals("NaN", quantity.mulDiv(quantity("1"), quantity("1"), quantity("3"), RoundingMode.UNNECESSARY).toString());
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            TestDecimal a = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal b = a.clone().setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal c = a.clone().setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal r = new TestDecimal(random.nextInt(19));
+            if (c.getRaw() == 0 || a.isNaN() || b.isNaN() || c.isNaN()) {
+                continue;
+            }
+            BigDecimal exact = bigDecimal(a).multiply(bigDecimal(b)).divide(bigDecimal(c), 60, RoundingMode.DOWN);
+            for (RoundingMode mode : RoundingMode.values()) {
+                assertEquals(a + " * " + b + " / " + c + " " + mode, round(exact, r.getScale(), mode),
+                        r.mulDiv(a, b, c, mode).getRaw());
+            }
+        }
+
+        try {
+            quantity.mulDiv(quantity("1"), quantity("1"), price("1"), RoundingMode.DOWN);
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testMulAdd() throws Exception {
+        assertEquals("1231.00", quantity("1").mulAdd(quantity("123"), price("10"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("-1229.00", quantity("1").mulAdd(quantity("123"), price("-10"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("1.01", quantity("1").mulAdd(quantity("0.01"), price("0.5"), RoundingMode.UP).toString());
+        assertEquals("1.00", quantity("1").mulAddRD(quantity("0.01"), price("0.5")).toString());
+        assertEquals("0.99", quantity("1").mulAddRD(quantity("0.01"), price("-0.5")).toString()); // 0.995, not 1 - 0.00
+        assertEquals("NaN", quantity("NaN").mulAddRD(quantity("0.01"), price("0.5")).toString());
+        assertEquals("NaN", quantity("1").mulAddRD(quantity("NaN"), price("0.5")).toString());
+        // the sum of the whole parts is exactly NaN (Long.MIN_VALUE)
+        assertEquals(NaN, new TestDecimal(9).setRaw(-9223372036854775802L)
+                .mulAdd(new TestDecimal(9).setRaw(-806), new TestDecimal(5).setRaw(776), RoundingMode.FLOOR).getRaw());
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            TestDecimal c = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal a = c.clone().setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal b = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            BigDecimal exact = bigDecimal(a).multiply(bigDecimal(b)).add(bigDecimal(c));
+            for (RoundingMode mode : RoundingMode.values()) {
+                long expected = round(exact, c.getScale(), mode);
+                assertEquals(a + " * " + b + " + " + c + " " + mode, expected, c.clone().mulAdd(a, b, mode).getRaw());
+            }
+        }
+    }
+
     @Test
     public void testQuotient() throws Exception {
         assertEquals("123.00", quantity.quotient(quantity("1230"), quantity("10"), RoundingMode.UNNECESSARY).toString());
@@ -646,6 +762,390 @@ public class AbstractDecimalTest {
         assertEquals("NaN", quantity("1230").div(quantity("NaN"), RoundingMode.UNNECESSARY).toString());
     }
 
+    @Test
+    public void testDivisor() throws Exception {
+        Divisor ten = Divisor.of(quantity("10"));
+        Divisor minusEleven = Divisor.of(-11, 0);
+        assertEquals(1000, ten.getRaw());
+        assertEquals(2, ten.getScale());
+
+        assertEquals("123.00", quantity("1230").div(ten, RoundingMode.UNNECESSARY).toString());
+        assertEquals("-123.00", quantity("-1230").div(ten, RoundingMode.UNNECESSARY).toString());
+        assertEquals("-111.81", quantity("1230").divRD(minusEleven).toString());
+        assertEquals("111.82", quantity("-1230").div(minusEleven, RoundingMode.UP).toString());
+
+        assertEquals("123.00000000", price.quotient(quantity("1230"), ten, RoundingMode.UNNECESSARY).toString());
+        assertEquals("-111.81", quantity.quotientRD(new TestDecimal(0).parse("1230"), minusEleven).toString());
+
+        assertEquals("NaN", quantity("10000000000000000.00").div(Divisor.of(quantity("0.01")), RoundingMode.UNNECESSARY).toString());
+        assertEquals("NaN", quantity("NaN").div(ten, RoundingMode.UNNECESSARY).toString());
+        assertEquals("NaN", quantity("1230").div(Divisor.of(quantity("NaN")), RoundingMode.UNNECESSARY).toString());
+        assertEquals("NaN", quantity("1230").div(Divisor.of(quantity("0")), RoundingMode.UNNECESSARY).toString());
+        assertTrue(Divisor.of(quantity("0")).isInvalid());
+
+        try {
+            quantity.quotient(price("1"), ten, RoundingMode.DOWN);
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            TestDecimal value = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal divisor = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            for (RoundingMode mode : RoundingMode.values()) {
+                assertEquals(value + " / " + divisor + " " + mode,
+                        value.clone().div(divisor, mode).getRaw(),
+                        value.clone().div(Divisor.of(divisor), mode).getRaw());
+            }
+        }
+    }
+
+    @Test
+    public void testRounder() throws Exception {
+        assertEquals("0.33", quantity.quotient(quantity("1"), quantity("3"), Rounder.HALF_EVEN).toString());
+        assertEquals("0.67", quantity.quotient(quantity("2"), quantity("3"), Rounder.HALF_EVEN).toString());
+        assertEquals("0.02", quantity.product(quantity("0.15"), quantity("0.1"), Rounder.HALF_EVEN).toString());
+        assertEquals("0.03", quantity.product(quantity("0.25"), quantity("0.1"), Rounder.HALF_UP).toString());
+        assertTrue(quantity.mul(price("0.001"), Rounder.UNNECESSARY).isNaN());
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            TestDecimal value1 = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal value2 = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal value3 = value2.clone().setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal value4 = value2.clone().setRaw(random.nextLong() >> random.nextInt(64));
+            for (RoundingMode mode : RoundingMode.values()) {
+                Rounder rounder = Rounder.of(mode);
+                String message = value1 + " and " + value2 + ", " + value3 + ", " + value4 + " " + mode;
+                assertEquals(message, value1.clone().mul(value2, mode), value1.clone().mul(value2, rounder));
+                assertEquals(message, value1.clone().product(value2, value3, mode), value1.clone().product(value2, value3, rounder));
+                assertEquals(message, value1.clone().mulDiv(value2, value3, value4, mode), value1.clone().mulDiv(value2, value3, value4, rounder));
+                assertEquals(message, value1.clone().div(value2, mode), value1.clone().div(value2, rounder));
+                assertEquals(message, value1.clone().quotient(value2, value3, mode), value1.clone().quotient(value2, value3, rounder));
+                assertEquals(message, value1.clone().quotient(value2.getRaw(), value3.getRaw(), mode),
+                        value1.clone().quotient(value2.getRaw(), value3.getRaw(), rounder));
+                assertEquals(message, value1.clone().div(Divisor.of(value2), mode), value1.clone().div(Divisor.of(value2), rounder));
+                assertEquals(message, value1.clone().quotient(value2, Divisor.of(value3), mode),
+                        value1.clone().quotient(value2, Divisor.of(value3), rounder));
+            }
+        }
+    }
+
+    @Test
+    public void testUnchecked() throws Exception {
+        assertEquals("3.50", quantity.plusUnchecked(quantity("1.25"), quantity("2.25")).toString());
+        assertEquals("-1.00", quantity.minusUnchecked(quantity("1.25"), quantity("2.25")).toString());
+        assertEquals("0.02", quantity.productUnchecked(quantity("0.15"), quantity("0.1"), RoundingMode.HALF_EVEN).toString());
+        assertEquals("0.67", quantity.quotientUnchecked(quantity("2"), quantity("3"), RoundingMode.HALF_UP).toString());
+        assertEquals("-0.66", quantity.quotientUncheckedRD(quantity("2"), quantity("-3")).toString());
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // operands up to 31 bits, so the products fit long
+            TestDecimal value1 = new TestDecimal(random.nextInt(10)).setRaw(random.nextLong() >> (33 + random.nextInt(31)));
+            TestDecimal value2 = new TestDecimal(random.nextInt(10)).setRaw(random.nextLong() >> (33 + random.nextInt(31)));
+            TestDecimal value3 = value2.clone().setRaw(random.nextLong() >> (33 + random.nextInt(31)));
+            TestDecimal value4 = value1.clone().setRaw(random.nextLong() >> (33 + random.nextInt(31)));
+            for (RoundingMode mode : RoundingMode.values()) {
+                String message = value1 + " and " + value2 + ", " + value3 + " " + mode;
+                assertEquals(message, value1.clone().add(value4), value1.clone().addUnchecked(value4));
+                assertEquals(message, value1.clone().subtract(value4), value1.clone().subtractUnchecked(value4));
+                assertEquals(message, value1.clone().mul(value2, mode), value1.clone().mulUnchecked(value2, mode));
+                TestDecimal product = value1.clone().product(value2, value3, mode);
+                if (!product.isNaN()) { // can overflow when scaled up
+                    assertEquals(message, product, value1.clone().productUnchecked(value2, value3, mode));
+                }
+                if (value2.getRaw() != 0 && value3.getRaw() != 0) {
+                    assertEquals(message, value1.clone().div(value2, mode), value1.clone().divUnchecked(value2, mode));
+                    assertEquals(message, value1.clone().quotient(value2, value3, mode), value1.clone().quotientUnchecked(value2, value3, mode));
+                }
+            }
+        }
+
+        boolean assertionsEnabled = false;
+        assert assertionsEnabled = true;
+        if (assertionsEnabled) {
+            TestDecimal one = quantity("1");
+            TestDecimal zero = quantity("0");
+            TestDecimal three = quantity("3");
+            assertAssertionError(() -> quantity.clone().setRaw(Long.MAX_VALUE).addUnchecked(one));
+            assertAssertionError(() -> quantity.clone().setRaw(NaN).mulUnchecked(one, RoundingMode.DOWN));
+            assertAssertionError(() -> quantity.clone().setRaw(Long.MAX_VALUE / 2).mulUnchecked(three, RoundingMode.DOWN));
+            assertAssertionError(() -> quantity.quotientUnchecked(one, zero, RoundingMode.DOWN));
+            assertAssertionError(() -> price.quotientUnchecked(quantity.clone().setRaw(Long.MAX_VALUE / 10), one, RoundingMode.DOWN));
+        }
+    }
+
+    @Test
+    public void testRoundToIncrement() throws Exception {
+        assertEquals("1.25", quantity("1.27").roundToIncrementRD(quantity("0.05")).toString());
+        assertEquals("1.30", quantity("1.27").roundToIncrement(quantity("0.05"), RoundingMode.UP).toString());
+        assertEquals("1.30000000", price("1.275").roundToIncrement(price("0.05"), RoundingMode.HALF_EVEN).toString());
+        assertEquals("1.20000000", price("1.225").roundToIncrement(price("0.05"), RoundingMode.HALF_EVEN).toString());
+        assertEquals("1.25000000", price("1.275").roundToIncrement(price("0.05"), RoundingMode.HALF_DOWN).toString());
+        assertEquals("-1.25", quantity("-1.27").roundToIncrementRD(quantity("0.05")).toString());
+        assertEquals("-1.30", quantity("-1.27").roundToIncrement(quantity("0.05"), RoundingMode.FLOOR).toString());
+        assertEquals("-1.25", quantity("-1.27").roundToIncrement(quantity("0.05"), RoundingMode.CEILING).toString());
+        assertEquals("1.25", quantity("1.25").roundToIncrement(quantity("0.05"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("NaN", quantity("1.27").roundToIncrement(quantity("0.05"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("1.25000000", price("1.27512345").roundToIncrementRD(quantity("0.05")).toString());
+        assertEquals("1.27500000", price("1.27512345").roundToIncrementRD(price("0.025")).toString());
+        assertEquals("1200.00", quantity("1234.56").roundToIncrementRD(new TestDecimal(0).setRaw(100)).toString());
+        assertEquals("NaN", quantity("1.27").roundToIncrementRD(price("0.005")).toString());
+        assertEquals("NaN", quantity("1.27").roundToIncrementRD(quantity("0")).toString());
+        assertEquals("NaN", quantity("1.27").roundToIncrementRD(quantity("-0.05")).toString());
+        assertEquals("NaN", quantity("1.27").roundToIncrementRD(quantity("NaN")).toString());
+        assertEquals("NaN", quantity("NaN").roundToIncrementRD(quantity("0.05")).toString());
+        assertEquals("NaN", quantity().setRaw(Long.MAX_VALUE).roundToIncrement(quantity("0.05"), RoundingMode.UP).toString());
+
+        Increment tick = Increment.of(quantity("0.05"));
+        assertEquals("1.25", quantity("1.27").roundToIncrementRD(tick).toString());
+        assertEquals("-1.30", quantity("-1.28").roundToIncrement(tick, RoundingMode.HALF_UP).toString());
+        assertEquals("NaN", quantity("1.27").roundToIncrementRD(Increment.of(0, 2)).toString());
+        try {
+            price("1.27").roundToIncrementRD(tick);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testProRata() throws Exception {
+        // a fill of 100.00 split between sub-accounts by their quantities
+        long[] parts = new long[3];
+        assertTrue(quantity("100").proRata(new TestDecimal[]{price("1"), price("1"), price("1")}, parts));
+        assertArrayEquals(new long[]{3334, 3333, 3333}, parts);
+        assertTrue(quantity("-0.05").proRata(new TestDecimal[]{price("0.3"), price("0.5"), price("0.2")}, parts));
+        assertArrayEquals(new long[]{-2, -2, -1}, parts); // -1.5, -2.5, -1
+        assertTrue(quantity("0.07").proRata(new TestDecimal[]{quantity("2"), quantity("0")}, parts));
+        assertArrayEquals(new long[]{7, 0, -1}, parts);
+        assertFalse(quantity("NaN").proRata(new TestDecimal[]{quantity("2"), quantity("1")}, parts));
+        assertArrayEquals(new long[]{NaN, NaN, -1}, parts);
+        assertFalse(quantity("1").proRata(new TestDecimal[]{quantity("2"), quantity("-1")}, parts));
+        try {
+            quantity("1").proRata(new TestDecimal[]{quantity("2"), price("1")}, parts);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testSqrt() throws Exception {
+        assertEquals("1.41", quantity("2").sqrtRD().toString());
+        assertEquals("1.42", quantity("2").sqrt(RoundingMode.UP).toString());
+        assertEquals("NaN", quantity("2").sqrt(RoundingMode.UNNECESSARY).toString());
+        assertEquals("1.50", quantity("2.25").sqrt(RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.10", quantity("0.01").sqrt(RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.00", quantity("0").sqrt(RoundingMode.UNNECESSARY).toString());
+        assertEquals("303700.04999760", new TestDecimal(8).setRaw(Long.MAX_VALUE).sqrtRD().toString());
+        assertEquals("303700.04999761", new TestDecimal(8).setRaw(Long.MAX_VALUE).sqrt(RoundingMode.UP).toString());
+        assertEquals("NaN", quantity("-1").sqrtRD().toString());
+        assertEquals("NaN", quantity("NaN").sqrtRD().toString());
+    }
+
+    @Test
+    public void testPow() throws Exception {
+        assertEquals("1.00", quantity("0").pow(0, RoundingMode.UNNECESSARY).toString());
+        assertEquals("-1.23", quantity("-1.23").pow(1, RoundingMode.UNNECESSARY).toString());
+        assertEquals("1.51290000", price("-1.23").pow(2, RoundingMode.UNNECESSARY).toString());
+        assertEquals("-1.86086700", price("-1.23").pow(3, RoundingMode.UNNECESSARY).toString());
+        assertEquals("-1.86", quantity("-1.23").powRD(3).toString());
+        assertEquals("-1.87", quantity("-1.23").pow(3, RoundingMode.FLOOR).toString());
+        assertEquals("0.06250000", price("2").pow(-4, RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.33333333", price("3").powRD(-1).toString());
+        assertEquals("1.00000000", price("1").pow(Long.MIN_VALUE, RoundingMode.UNNECESSARY).toString());
+        assertEquals("3200000.00", quantity("20").pow(5, RoundingMode.UNNECESSARY).toString());
+        assertEquals("NaN", quantity("1000").pow(7, RoundingMode.UNNECESSARY).toString());
+        assertEquals("NaN", quantity("1.01").pow(100, RoundingMode.UNNECESSARY).toString());
+        assertEquals("2.70", quantity("1.01").powRD(100).toString());
+        assertEquals("2.70481382", price("1.01").powRD(100).toString());
+        assertEquals("0.00", quantity("0.1").powRD(3).toString());
+        assertEquals("0.01", quantity("0.1").pow(3, RoundingMode.UP).toString());
+        assertEquals("0.00", quantity("0.5").powRD(1000).toString());
+        assertEquals("NaN", quantity("2").powRD(1000).toString());
+        assertEquals("NaN", quantity("0").powRD(-1).toString());
+        assertEquals("NaN", quantity("NaN").powRD(2).toString());
+        // 10^37 / 2080585^3 with the power fitting 63 bits
+        assertEquals(1110308362151997568L, new TestDecimal(10).setRaw(20805850).pow(-3, RoundingMode.DOWN).getRaw());
+
+        assertEquals("1.50", quantity("2.25").pow(quantity("0.5"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("3.37500000", price("2.25").pow(price("1.5"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.40000000", price("6.25").pow(price("-0.5"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("2.00000000", price("1024").pow(price("0.1"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("1.41421356", price("2").powRD(price("0.5")).toString());
+        assertEquals("NaN", price("2").pow(price("0.5"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("8.00000000", price("4").pow(price("1.5"), RoundingMode.DOWN).toString());
+        // exact at scale 18, where e^(a * ln(this)) is a few units off
+        TestDecimal half = new TestDecimal(1).setRaw(5);
+        TestDecimal minusHalf = new TestDecimal(1).setRaw(-5);
+        TestDecimal oneAndHalf = new TestDecimal(1).setRaw(15);
+        TestDecimal four = new TestDecimal(18).fromLong(4);
+        assertEquals("2.000000000000000000", four.clone().pow(half, RoundingMode.DOWN).toString());
+        assertEquals("2.000000000000000000", four.clone().pow(half, RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.500000000000000000", four.clone().pow(minusHalf, RoundingMode.UNNECESSARY).toString());
+        assertEquals("3.000000000000000000",
+                new TestDecimal(18).fromLong(9).pow(half, RoundingMode.UNNECESSARY).toString());
+        assertEquals("1.100000000000000000",
+                new TestDecimal(18).setRaw(1_210_000_000_000_000_000L).pow(half, RoundingMode.DOWN).toString());
+        assertEquals("3.375000000000000000",
+                new TestDecimal(18).setRaw(2_250_000_000_000_000_000L).pow(oneAndHalf, RoundingMode.DOWN).toString());
+        assertEquals("0.00", quantity("0").powRD(quantity("0.5")).toString());
+        assertEquals("NaN", quantity("-4").powRD(quantity("0.5")).toString());
+        assertEquals("NaN", quantity("0").powRD(quantity("-0.5")).toString());
+        assertEquals("NaN", quantity("100").powRD(quantity("100.5")).toString());
+        assertEquals("0.00", quantity("100").powRD(quantity("-100.5")).toString());
+        assertEquals("0.01", quantity("100").pow(quantity("-100.5"), RoundingMode.CEILING).toString());
+    }
+
+    @Test
+    public void testExpLn() throws Exception {
+        assertEquals("1.00", quantity("0").exp(RoundingMode.UNNECESSARY).toString());
+        assertEquals("2.71828182", price("1").expRD().toString());
+        assertEquals("2.71828183", price("1").exp(RoundingMode.HALF_UP).toString());
+        assertEquals("0.36787944", price("-1").expRD().toString());
+        assertEquals("NaN", price("1").exp(RoundingMode.UNNECESSARY).toString());
+        assertEquals("485165195.40979027", price("20").expRD().toString());
+        assertTrue(Math.abs(new TestDecimal(0).setRaw(43).expRD().getRaw() - 4727839468229346561L) <= 2);
+        assertEquals("NaN", new TestDecimal(0).setRaw(44).expRD().toString());
+        assertEquals("0.00000000", price("-100").expRD().toString());
+        assertEquals("0.00000001", price("-100").exp(RoundingMode.UP).toString());
+        assertEquals("NaN", price("NaN").expRD().toString());
+
+        assertEquals("0.00", quantity("1").ln(RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.69314718", price("2").lnRD().toString());
+        assertEquals("-0.69314718", price("0.5").lnRD().toString());
+        assertEquals("-0.69314719", price("0.5").ln(RoundingMode.FLOOR).toString());
+        assertEquals("2.30258509299404568", new TestDecimal(17).setRaw(1_000_000_000_000_000_000L).lnRD().toString());
+        assertEquals("NaN", new TestDecimal(18).setRaw(1).lnRD().toString());
+        assertEquals("-18.42068074", price("0.00000001").lnRD().toString());
+        assertEquals("25.24759163", new TestDecimal(8).setRaw(Long.MAX_VALUE).lnRD().toString());
+        assertEquals("NaN", quantity("0").lnRD().toString());
+        assertEquals("NaN", quantity("-1").lnRD().toString());
+        assertEquals("NaN", quantity("NaN").lnRD().toString());
+    }
+
+    @Test
+    public void randomFunctions() throws Exception {
+        MathContext mc = new MathContext(60);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int scale = random.nextInt(19);
+            TestDecimal value = new TestDecimal(scale).setRaw(random.nextLong() >>> random.nextInt(64));
+            TestDecimal small = new TestDecimal(random.nextInt(7)).setRaw(random.nextInt(2_000_000) - 1_000_000);
+            int n = random.nextInt(10) - 3;
+            BigDecimal bd = bigDecimal(value);
+            BigDecimal bdSmall = bigDecimal(small);
+            BigDecimal power = n >= 0 ? bdSmall.pow(n) :
+                    bdSmall.signum() == 0 ? null : BigDecimal.ONE.divide(bdSmall.pow(-n), mc);
+            for (RoundingMode mode : RoundingMode.values()) {
+                String message = value + " " + mode;
+                assertEquals(message, bd.signum() < 0 ? NaN : round(bd.sqrt(mc), scale, mode), value.clone().sqrt(mode).getRaw());
+                message = small + "^" + n + " " + mode;
+                assertEquals(message, power == null ? NaN : round(power, small.getScale(), mode),
+                        small.clone().pow(n, mode).getRaw());
+            }
+
+            long raw = value.clone().ln(RoundingMode.HALF_EVEN).getRaw();
+            if (value.getRaw() <= 0) {
+                assertEquals(value.toString(), NaN, raw);
+            } else {
+                BigDecimal ln = bigLn(bd).movePointRight(scale);
+                if (ln.abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) < 0) {
+                    assertTrue(value.toString(), ln.subtract(BigDecimal.valueOf(raw)).abs().doubleValue() < 1.01);
+                } else {
+                    assertEquals(value.toString(), NaN, raw);
+                }
+            }
+            TestDecimal exponent = value.clone().fromDouble(random.nextDouble() * 90 - 46, RoundingMode.DOWN);
+            if (exponent.isNaN()) {
+                continue;
+            }
+            BigDecimal exp = bigExp(bigDecimal(exponent)).movePointRight(scale);
+            raw = exponent.clone().exp(RoundingMode.HALF_EVEN).getRaw();
+            if (exp.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) < 0) {
+                assertTrue(exponent.toString(),
+                        exp.subtract(BigDecimal.valueOf(raw)).abs().doubleValue() < 1.01 + exp.doubleValue() * 3e-18);
+            } else {
+                assertEquals(exponent.toString(), NaN, raw);
+            }
+        }
+    }
+
+    private static BigDecimal bigExp(BigDecimal x) {
+        MathContext mc = new MathContext(60);
+        int halvings = 4 * Math.max(0, x.precision() - x.scale()) + 4; // |x| < 10^digits, so |x| / 2^halvings < 1/16
+        x = x.divide(BigDecimal.valueOf(2).pow(halvings), mc);
+        BigDecimal sum = BigDecimal.ONE;
+        BigDecimal term = BigDecimal.ONE;
+        for (int k = 1; k < 40; k++) {
+            term = term.multiply(x, mc).divide(BigDecimal.valueOf(k), mc);
+            sum = sum.add(term, mc);
+        }
+        for (int i = 0; i < halvings; i++) {
+            sum = sum.multiply(sum, mc);
+        }
+        return sum;
+    }
+
+    private static BigDecimal bigLn(BigDecimal x) {
+        MathContext mc = new MathContext(60);
+        BigDecimal y = new BigDecimal(Math.log(x.doubleValue()));
+        for (int i = 0; i < 4; i++) { // Halley's method: y = y + 2 * (x - e^y) / (x + e^y)
+            BigDecimal exp = bigExp(y);
+            y = y.add(x.subtract(exp).multiply(BigDecimal.valueOf(2)).divide(x.add(exp), mc), mc);
+        }
+        return y;
+    }
+
+    private static void assertAssertionError(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (AssertionError e) {
+            return;
+        }
+        fail("AssertionError expected");
+    }
+
+    @Test
+    public void randomAllScales() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            TestDecimal value1 = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal value2 = new TestDecimal(random.nextInt(19)).setRaw(random.nextLong() >> random.nextInt(64));
+            TestDecimal value3 = value2.clone().setRaw(random.nextLong() >> random.nextInt(64));
+            if (value1.isNaN() || value2.isNaN() || value3.isNaN()) {
+                continue;
+            }
+            BigDecimal bd1 = bigDecimal(value1);
+            BigDecimal bd2 = bigDecimal(value2);
+            BigDecimal bd3 = bigDecimal(value3);
+            int scale = value1.getScale();
+            String message = value1 + " and " + value2 + ", " + value3;
+
+            assertEquals(message, value1, value1.clone().parse(value1.toString()));
+            assertEquals(message, Integer.signum(bd1.compareTo(bd2)), Integer.signum(value1.compareTo(value2)));
+            assertEquals(message, bd1.doubleValue(), value1.toDouble(), Math.ulp(bd1.doubleValue()));
+            for (RoundingMode mode : RoundingMode.values()) {
+                message = value1 + " and " + value2 + ", " + value3 + " " + mode;
+                assertEquals(message, round(bd2, scale, mode), value1.clone().set(value2, mode).getRaw());
+                assertEquals(message, round(bd1.add(bd2), scale, mode), value1.clone().add(value2, mode).getRaw());
+                assertEquals(message, round(bd1.multiply(bd2), scale, mode), value1.clone().mul(value2, mode).getRaw());
+                assertEquals(message, round(bd2.add(bd3), scale, mode), value1.clone().plus(value2, value3, mode).getRaw());
+                assertEquals(message, round(bd2.multiply(bd3), scale, mode), value1.clone().product(value2, value3, mode).getRaw());
+                assertEquals(message, round(bd1, 0, mode), value1.toLong(mode));
+                assertEquals(message, round(bd1.movePointRight(value2.getScale() - 9), scale, mode),
+                        value1.clone().fromLong(value1.getRaw(), scale + 9 - value2.getScale(), mode).getRaw());
+                if (bd2.signum() != 0) {
+                    assertEquals(message, round(bd1.divide(bd2, 60, RoundingMode.DOWN), scale, mode), value1.clone().div(value2, mode).getRaw());
+                }
+                if (bd3.signum() != 0) {
+                    assertEquals(message, round(bd2.divide(bd3, 60, RoundingMode.DOWN), scale, mode), value1.clone().quotient(value2, value3, mode).getRaw());
+                }
+            }
+        }
+    }
+
     @Test
     public void powersOf2() throws Exception {
         for (int scale1 = 0; scale1 <= 9; ++scale1) {
@@ -665,9 +1165,9 @@ public class AbstractDecimalTest {
 
     @Test
     public void powersOf10() throws Exception {
-        for (int scale1 = 0; scale1 <= 9; ++scale1) {
+        for (int scale1 = 0; scale1 <= 18; ++scale1) {
             System.out.println(scale1);
-            for (int scale2 = 0; scale2 <= 9; ++scale2) {
+            for (int scale2 = 0; scale2 <= 18; ++scale2) {
                 for (int power1 = 0; power1 < 19; ++power1) {
                     for (int power2 = 0; power2 < 19; ++power2) {
                         long value1 = (long) Math.pow(10, power1);
@@ -703,6 +1203,18 @@ public class AbstractDecimalTest {
         }
     }
 
+    private long round(BigDecimal value, int scale, RoundingMode roundingMode) {
+        try {
+            return round(value.setScale(scale, roundingMode), scale);
+        } catch (ArithmeticException e) {
+            return AbstractDecimal.NaN; // failed UNNECESSARY
+        }
+    }
+
+    private static BigDecimal bigDecimal(AbstractDecimal<?> value) {
+        return BigDecimal.valueOf(value.getRaw(), value.getScale());
+    }
+
     private long round(BigDecimal value, int scale) {
         value = value.multiply(BigDecimal.TEN.pow(scale));
         if (value.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0 ||
@@ -0,0 +1,113 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.junit.Test;
+
+import java.math.RoundingMode;
+import java.text.ParseException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static com.github.quickdecimal.AbstractDecimal.NaN;
+
+public class AbstractUnsignedDecimalTest {
+    private final TestUnsignedDecimal quantity = new TestUnsignedDecimal(2);
+
+    @Test
+    public void testUnderflow() throws Exception {
+        assertEquals("1.00", quantity.minus(quantity("3.25"), quantity("2.25")).toString());
+        assertEquals("0.00", quantity.minus(quantity("2.25"), quantity("2.25")).toString());
+        assertTrue(quantity.minus(quantity("2.25"), quantity("3.25")).isNaN());
+        assertTrue(quantity("1").subtract(quantity("1.01")).isNaN());
+        assertTrue(quantity("1").negate().isNaN());
+        assertEquals("0.00", quantity("0").negate().toString());
+        assertTrue(quantity("-1").isNaN());
+        assertTrue(quantity.clone().setRaw(-1).isNaN());
+        assertTrue(quantity("1").mul(new TestDecimal(2).setRaw(-100), RoundingMode.DOWN).isNaN());
+        assertTrue(quantity("1").div(new TestDecimal(2).setRaw(-100), RoundingMode.DOWN).isNaN());
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        TestUnsignedDecimal max = quantity.clone().setRaw(Long.MAX_VALUE);
+        assertTrue(quantity.plus(max, quantity("0.01")).isNaN());
+        assertTrue(quantity.plus(max.clone().setRaw(NaN), quantity.clone().setRaw(NaN)).isNaN());
+        assertTrue(quantity.minus(max.clone().setRaw(NaN), quantity("0.01")).isNaN());
+        assertEquals(Long.MAX_VALUE, quantity.plus(max.clone().setRaw(Long.MAX_VALUE - 1), quantity("0.01")).getRaw());
+        assertTrue(max.clone().mul(quantity("1.01"), RoundingMode.DOWN).isNaN());
+        assertTrue(max.clone().div(quantity("0.99"), RoundingMode.DOWN).isNaN());
+        assertTrue(max.clone().mul(quantity("1"), RoundingMode.UNNECESSARY).getRaw() == Long.MAX_VALUE);
+        assertTrue(quantity("1").div(quantity("0"), RoundingMode.DOWN).isNaN());
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            int scale1 = random.nextInt(19);
+            int scale2 = random.nextInt(19);
+            long raw1 = random.nextLong() >>> (1 + random.nextInt(63));
+            long raw2 = random.nextLong() >>> (1 + random.nextInt(63));
+            long raw3 = random.nextLong() >>> (1 + random.nextInt(63));
+            long raw4 = random.nextLong() >>> (1 + random.nextInt(63));
+
+            TestUnsignedDecimal unsigned1 = new TestUnsignedDecimal(scale1).setRaw(raw1);
+            TestUnsignedDecimal unsigned2 = new TestUnsignedDecimal(scale2).setRaw(raw2);
+            TestUnsignedDecimal unsigned3 = new TestUnsignedDecimal(scale2).setRaw(raw3);
+            TestUnsignedDecimal unsigned4 = new TestUnsignedDecimal(scale1).setRaw(raw4);
+            TestDecimal signed1 = new TestDecimal(scale1).setRaw(raw1);
+            TestDecimal signed2 = new TestDecimal(scale2).setRaw(raw2);
+            TestDecimal signed3 = new TestDecimal(scale2).setRaw(raw3);
+            TestDecimal signed4 = new TestDecimal(scale1).setRaw(raw4);
+
+            String message = signed1 + ", " + signed2 + ", " + signed3 + ", " + signed4;
+            assertEquals(message, expected(signed1.clone().add(signed4)), unsigned1.clone().add(unsigned4).getRaw());
+            assertEquals(message, expected(signed1.clone().subtract(signed4)), unsigned1.clone().subtract(unsigned4).getRaw());
+            for (RoundingMode mode : RoundingMode.values()) {
+                String modeMessage = message + " " + mode;
+                assertEquals(modeMessage, expected(signed1.clone().mul(signed2, mode)),
+                        unsigned1.clone().mul(unsigned2, mode).getRaw());
+                assertEquals(modeMessage, expected(signed1.clone().product(signed2, signed3, mode)),
+                        unsigned1.clone().product(unsigned2, unsigned3, mode).getRaw());
+                assertEquals(modeMessage, expected(signed1.clone().div(signed2, mode)),
+                        unsigned1.clone().div(unsigned2, mode).getRaw());
+                assertEquals(modeMessage, expected(signed1.clone().quotient(signed2, signed3, mode)),
+                        unsigned1.clone().quotient(unsigned2, unsigned3, mode).getRaw());
+                // mixed signed and unsigned arguments
+                assertEquals(modeMessage, expected(signed1.clone().mul(signed2, mode)),
+                        unsigned1.clone().mul(signed2, mode).getRaw());
+            }
+        }
+    }
+
+    private static long expected(TestDecimal signed) {
+        return signed.getRaw() < 0 ? NaN : signed.getRaw();
+    }
+
+    private TestUnsignedDecimal quantity(String value) throws ParseException {
+        return quantity.clone().parse(value);
+    }
+}
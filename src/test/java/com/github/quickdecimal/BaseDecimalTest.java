@@ -28,6 +28,7 @@ import org.junit.Test;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.util.Random;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
@@ -110,6 +111,204 @@ public class BaseDecimalTest {
         testScaleDiv(4611686022722355198L, 9, 4611686022722355199L); // (probably) worst case for down-correction
     }
 
+    @Test
+    public void testScaleDivRandom() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000000; i++) {
+            long v = random.nextLong() >>> 1 >>> random.nextInt(63);
+            long d = random.nextLong() >>> 1 >>> random.nextInt(63);
+            if (d != 0) {
+                testScaleDiv1(v, random.nextInt(19), d);
+            }
+        }
+    }
+
+    @Test
+    public void testUdiv() throws Exception {
+        testUdiv(0, 0, 1);
+        testUdiv(0, -1, 1);
+        testUdiv(0, -1, -1);
+        testUdiv(-2, -1, -1);
+        testUdiv(Long.MAX_VALUE, -1, Long.MIN_VALUE);
+        testUdiv(0x7fffffffL, 0, 0x80000000L);
+        testUdiv(0xffffffffL, -1, 0x100000000L);
+        testUdiv(0x80000000L, 0, 0x800000000001L);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1000000; i++) {
+            long d = random.nextLong() >>> random.nextInt(64);
+            if (d != 0) {
+                testUdiv(Long.remainderUnsigned(random.nextLong(), d), random.nextLong(), d);
+            }
+        }
+    }
+
+    @Test
+    public void testUdiv192() throws Exception {
+        testUdiv192(0, 0, 0, Long.MIN_VALUE, 0);
+        testUdiv192(Long.MIN_VALUE, 0, -1, Long.MIN_VALUE, 1); // u2 == v1
+        testUdiv192(Long.MIN_VALUE, 5, 0, Long.MIN_VALUE, -1);
+        testUdiv192(-1, -2, -1, -1, -1);
+        testUdiv192(0x7fffffffffffffffL, -1, 0, Long.MIN_VALUE, 0);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1000000; i++) {
+            long v1 = random.nextLong() | Long.MIN_VALUE;
+            long v0 = random.nextLong() >> random.nextInt(64);
+            BigInteger v = unsigned(v1).shiftLeft(64).add(unsigned(v0));
+            BigInteger u21 = new BigInteger(128, random).mod(v);
+            long u0 = random.nextLong();
+            testUdiv192(u21.shiftRight(64).longValue(), u21.longValue(), u0, v1, v0);
+        }
+    }
+
+    @Test
+    public void testIsqrt() throws Exception {
+        testIsqrt(0, 0);
+        testIsqrt(0, 1);
+        testIsqrt(0, 3);
+        testIsqrt(0, 4);
+        testIsqrt(0, -1);
+        testIsqrt(1, 0);
+        testIsqrt(0x3fffffffffffffffL, -1);
+        testIsqrt(0x3fffffffffffffffL, 0); // (2^63 - 1)^2 = 2^126 - 2^64 + 1
+        testIsqrt(0x3ffffffffffffffeL, 1);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long root = (random.nextLong() >>> 1 >>> random.nextInt(63)) | 1;
+            long hi = BaseDecimal.unsignedMulHi(root, root);
+            long lo = root * root; // odd
+            testIsqrt(hi, lo);
+            testIsqrt(hi, lo - 1);
+            testIsqrt(random.nextLong() >>> 2 >>> random.nextInt(62), random.nextLong());
+        }
+    }
+
+    @Test
+    public void testScaleShift() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long hi = random.nextLong() >>> 1 >>> random.nextInt(63);
+            long lo = random.nextLong();
+            int scale = random.nextInt(19);
+            int shift = random.nextInt(192) - 63;
+            BigInteger product = unsigned(hi).shiftLeft(64).add(unsigned(lo)).multiply(BigInteger.TEN.pow(scale));
+            if (shift >= 128 && product.bitLength() > 127) {
+                continue;
+            }
+
+            long whole = decimal.scaleShift_127(hi, lo, scale, shift);
+            String message = hi + " " + lo + " " + scale + " " + shift;
+            BigInteger[] wholeAndRemainder = shift <= 0 ? new BigInteger[] {product.shiftLeft(-shift), BigInteger.ZERO} :
+                    product.divideAndRemainder(BigInteger.ONE.shiftLeft(shift));
+            if (wholeAndRemainder[0].bitLength() > 63 || product.bitLength() > 128) {
+                assertEquals(message, NaN, whole);
+            } else {
+                assertEquals(message, wholeAndRemainder[0].longValue(), whole);
+                BigInteger doubled = wholeAndRemainder[1].shiftLeft(1);
+                int half = shift <= 0 ? -1 : doubled.compareTo(BigInteger.ONE.shiftLeft(shift));
+                long quarters = wholeAndRemainder[1].signum() == 0 ? 0 : half < 0 ? 1 : half == 0 ? 2 : 3;
+                assertEquals(message, quarters, decimal.a);
+            }
+        }
+    }
+
+    @Test
+    public void testUdivDivisor() throws Exception {
+        testUdivDivisor(0, 0, 1);
+        testUdivDivisor(0, -1, 1);
+        testUdivDivisor(0, -1, Long.MAX_VALUE);
+        testUdivDivisor(Long.MAX_VALUE - 1, -1, Long.MAX_VALUE);
+        testUdivDivisor(0x7fffffffL, 0, 0x80000000L);
+        testUdivDivisor(0x80000000L, 0, 0x800000000001L);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 1000000; i++) {
+            long d = random.nextLong() >>> 1 >>> random.nextInt(63);
+            if (d != 0) {
+                testUdivDivisor(Long.remainderUnsigned(random.nextLong(), d), random.nextLong(), d);
+            }
+        }
+    }
+
+    @Test
+    public void testScaleDivRoundDivisor() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long v = random.nextLong() >> random.nextInt(64);
+            long d = random.nextLong() >> random.nextInt(64);
+            int s = random.nextInt(19);
+            Divisor divisor = Divisor.of(d, 0);
+            for (RoundingMode mode : RoundingMode.values()) {
+                long expected = decimal.scaleDivRound(v, s, d, mode);
+                assertEquals(v + " " + s + " " + d + " " + mode, expected, decimal.scaleDivRound(v, s, divisor, mode));
+            }
+        }
+
+        assertEquals(NaN, decimal.scaleDivRound(1, 0, Divisor.of(0, 0), RoundingMode.UP));
+        assertEquals(NaN, decimal.scaleDivRound(1, 0, Divisor.of(NaN, 0), RoundingMode.UP));
+        assertEquals(NaN, decimal.scaleDivRound(NaN, 0, Divisor.of(1, 0), RoundingMode.UP));
+        assertEquals(NaN, decimal.scaleDivRound(Long.MAX_VALUE, 9, Divisor.of(1, 0), RoundingMode.UP)); // overflow
+    }
+
+    @Test
+    public void testMulDivRound() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long a = random.nextLong() >> random.nextInt(64);
+            long b = random.nextLong() >> random.nextInt(64);
+            long d = random.nextLong() >> random.nextInt(64);
+            int s = random.nextInt(37) - 18;
+            if (a == NaN || b == NaN || d == NaN || d == 0) {
+                continue;
+            }
+            for (RoundingMode mode : RoundingMode.values()) {
+                long expected = mulDivExpected(a, b, s, d, mode);
+                assertEquals(a + " * " + b + " e" + s + " / " + d + " " + mode,
+                        expected, decimal.mulDivRound(a, b, s, d, mode));
+            }
+        }
+
+        assertEquals(NaN, decimal.mulDivRound(1, 1, 0, 0, RoundingMode.UP));
+        assertEquals(NaN, decimal.mulDivRound(NaN, 1, 0, 1, RoundingMode.UP));
+        assertEquals(NaN, decimal.mulDivRound(1, 1, 0, NaN, RoundingMode.UP));
+        assertEquals(NaN, decimal.mulDivRound(Long.MAX_VALUE, 2, 0, 1, RoundingMode.DOWN));
+        assertEquals(Long.MAX_VALUE, decimal.mulDivRound(Long.MAX_VALUE, Long.MAX_VALUE, 0, Long.MAX_VALUE, RoundingMode.UNNECESSARY));
+        assertEquals(-Long.MAX_VALUE, decimal.mulDivRound(Long.MAX_VALUE, -Long.MAX_VALUE, 0, Long.MAX_VALUE, RoundingMode.UNNECESSARY));
+        assertEquals(Long.MAX_VALUE / 10, decimal.mulDivRound(Long.MAX_VALUE, Long.MAX_VALUE, -1, Long.MAX_VALUE, RoundingMode.DOWN));
+        assertEquals(NaN, decimal.mulDivRound(Long.MAX_VALUE, Long.MAX_VALUE, -1, Long.MAX_VALUE, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    public void testQuarters() throws Exception {
+        for (int outer = 1; outer < 7; outer++) {
+            for (int inner = 1; inner < 7; inner++) {
+                for (int rOuter = 0; rOuter < outer; rOuter++) {
+                    for (int rInner = 0; rInner < inner; rInner++) {
+                        int r = rOuter * inner + rInner;
+                        int d = outer * inner;
+                        long expected = r == 0 ? 0 : 2 * r < d ? 1 : 2 * r == d ? 2 : 3;
+                        assertEquals(r + "/" + d, expected, BaseDecimal.quarters(rOuter, outer, rInner, inner));
+                    }
+                }
+            }
+        }
+    }
+
+    private static long mulDivExpected(long a, long b, int s, long d, RoundingMode mode) {
+        BigDecimal exact = new BigDecimal(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)), -s)
+                .divide(BigDecimal.valueOf(d), 60, RoundingMode.DOWN);
+        BigInteger result;
+        try {
+            // 60 fractional digits are exact enough: a non-zero tail of a / d is at least 1 / d > 10^-19
+            result = exact.setScale(0, mode).toBigInteger();
+        } catch (ArithmeticException e) {
+            return NaN;
+        }
+        return result.bitLength() < 64 && result.longValue() != NaN ? result.longValue() : NaN;
+    }
+
     @Test
     public void testNegIf() throws Exception {
         assertEquals(10, BaseDecimal.negIf(10, 0));
@@ -250,6 +449,41 @@ public class BaseDecimalTest {
         testDownScale(922337203685L, 7);
         testDownScale(92233720368L, 8);
         testDownScale(9223372036L, 9);
+        testDownScale(922337203L, 10);
+        testDownScale(92233720L, 11);
+        testDownScale(9223372L, 12);
+        testDownScale(922337L, 13);
+        testDownScale(92233L, 14);
+        testDownScale(9223L, 15);
+        testDownScale(922L, 16);
+        testDownScale(92L, 17);
+        testDownScale(9L, 18);
+    }
+
+    @Test
+    public void testDownScaleRandom() throws Exception {
+        Random random = new Random(42);
+        for (int scale = 0; scale <= 18; scale++) {
+            BigInteger divisor = BigInteger.TEN.pow(scale);
+            for (int i = 0; i < 100000; i++) {
+                long value = random.nextLong() >>> random.nextInt(64);
+                if (i % 3 == 0) {
+                    // around multiples of the divisor, where the reciprocal estimation needs a correction
+                    value = value / divisor.longValue() * divisor.longValue() - random.nextInt(3);
+                }
+
+                if (value != NaN) {
+                    long q = decimal.downScale_63_31(value, scale);
+                    BigInteger[] dAndR = BigInteger.valueOf(value).divideAndRemainder(divisor);
+                    assertEquals(value + " " + scale, dAndR[0].longValue(), q);
+                    assertEquals(value + " " + scale, dAndR[1].longValue(), decimal.a);
+                }
+
+                long q = decimal.unsignedDownScale_64_31(value, scale);
+                assertEquals(value + " " + scale, Long.divideUnsigned(value, divisor.longValue()), q);
+                assertEquals(value + " " + scale, Long.remainderUnsigned(value, divisor.longValue()), decimal.a);
+            }
+        }
     }
 
     private void testDownScale(long value, int scale) {
@@ -311,6 +545,42 @@ public class BaseDecimalTest {
         assertThat(BaseDecimal.round(-1, -Long.MAX_VALUE / 2, Long.MAX_VALUE - 1, RoundingMode.HALF_EVEN), is(-2L));
     }
 
+    @Test
+    public void testRounder() throws Exception {
+        for (RoundingMode rm : RoundingMode.values()) {
+            Rounder rounder = Rounder.of(rm);
+            assertEquals(rm, rounder.getRoundingMode());
+            for (long whole : new long[]{0, 1, 2, -1, -2, Long.MAX_VALUE - 1, -Long.MAX_VALUE + 1}) {
+                long sign = whole < 0 ? -1 : 1;
+                for (long denominator : new long[]{1, 2, 3, 4, 10, 11, 1000, Long.MAX_VALUE}) {
+                    for (long numerator : new long[]{0, 1, denominator / 2, denominator - denominator / 2, denominator - 1}) {
+                        if (numerator < denominator) {
+                            assertRounder(rounder, whole, whole == 0 ? numerator : sign * numerator, denominator);
+                            assertRounder(rounder, whole, whole == 0 ? -numerator : sign * numerator, denominator);
+                        }
+                    }
+                }
+            }
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long whole = random.nextLong() >> random.nextInt(64);
+            long denominator = Math.max(1, random.nextLong() >>> random.nextInt(64));
+            long numerator = Math.floorMod(random.nextLong(), denominator);
+            numerator = whole < 0 || whole == 0 && random.nextBoolean() ? -numerator : numerator;
+            for (RoundingMode rm : RoundingMode.values()) {
+                assertRounder(Rounder.of(rm), whole, numerator, denominator);
+            }
+        }
+    }
+
+    private static void assertRounder(Rounder rounder, long whole, long numerator, long denominator) {
+        assertEquals(rounder + ": " + whole + " + " + numerator + " / " + denominator,
+                BaseDecimal.round(whole, numerator, denominator, rounder.getRoundingMode()),
+                rounder.round(whole, numerator, denominator));
+    }
+
     private void testMulScale(long a, long b, int scale) {
         BigInteger[] dAndR = BigInteger.valueOf(a)
                 .multiply(BigInteger.valueOf(b))
@@ -368,6 +638,38 @@ public class BaseDecimalTest {
         }
     }
 
+    private void testUdiv(long hi, long lo, long d) {
+        BigInteger[] dAndR = unsigned(hi).shiftLeft(64).add(unsigned(lo)).divideAndRemainder(unsigned(d));
+
+        long q = BaseDecimal.udiv_128_64(hi, lo, d);
+        assertEquals(hi + " " + lo + " " + d, dAndR[0], unsigned(q));
+        assertEquals(hi + " " + lo + " " + d, dAndR[1], unsigned(lo - q * d));
+    }
+
+    private void testIsqrt(long hi, long lo) {
+        BigInteger value = unsigned(hi).shiftLeft(64).add(unsigned(lo));
+        assertEquals(value.toString(), value.sqrt().longValue(), BaseDecimal.isqrt_128(hi, lo));
+    }
+
+    private void testUdivDivisor(long hi, long lo, long d) {
+        BigInteger[] dAndR = unsigned(hi).shiftLeft(64).add(unsigned(lo)).divideAndRemainder(unsigned(d));
+
+        long q = BaseDecimal.udiv_128_64(hi, lo, Divisor.of(d, 0));
+        assertEquals(hi + " " + lo + " " + d, dAndR[0], unsigned(q));
+        assertEquals(hi + " " + lo + " " + d, dAndR[1], unsigned(lo - q * d));
+    }
+
+    private void testUdiv192(long u2, long u1, long u0, long v1, long v0) {
+        BigInteger u = unsigned(u2).shiftLeft(128).add(unsigned(u1).shiftLeft(64)).add(unsigned(u0));
+        BigInteger v = unsigned(v1).shiftLeft(64).add(unsigned(v0));
+        assertEquals(u + " / " + v, u.divide(v).longValue(), BaseDecimal.udiv_192_128(u2, u1, u0, v1, v0));
+    }
+
+    private static BigInteger unsigned(long v) {
+        BigInteger result = BigInteger.valueOf(v);
+        return v >= 0 ? result : result.add(BigInteger.ONE.shiftLeft(64));
+    }
+
     private void testMulHi(long a, long b) {
         long hi = decimal.mulhi_63_32(a, b);
         long lo = decimal.a;
@@ -0,0 +1,238 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidCodecTest {
+    private static final BigInteger MAX_COEFFICIENT_128 = BigInteger.TEN.pow(34).subtract(BigInteger.ONE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private final TestDecimal price = new TestDecimal(4);
+
+    @Test
+    public void testDecimal64() throws Exception {
+        assertEquals(0x31C0000000000001L, BidCodec.encode64RD(new TestDecimal(0).setRaw(1)));
+        assertEquals(0xB140000000003A98L, BidCodec.encode64RD(price.setRaw(-15000)));
+        assertEquals(0x6C7386F26FC0FFFFL, BidCodec.encode64RD(new TestDecimal(0).setRaw(9999999999999999L)));
+        assertEquals(BidCodec.NaN_64, BidCodec.encode64RD(price.setRaw(AbstractDecimal.NaN)));
+
+        // 17+ digits are rounded
+        assertEquals(0x3200000000000000L | 1000000000000000L, BidCodec.encode64(new TestDecimal(0).setRaw(9999999999999999_5L), RoundingMode.HALF_UP));
+        assertEquals(BidCodec.NaN_64, BidCodec.encode64(new TestDecimal(0).setRaw(12345678901234567L), RoundingMode.UNNECESSARY));
+        // negative values are rounded as signed ones
+        assertEquals(0, new BigDecimal("-134260942594151.0").compareTo(decode64(BidCodec.encode64(-134260942594150902L, 3, RoundingMode.FLOOR))));
+        assertEquals(0, new BigDecimal("-134260942594150.9").compareTo(decode64(BidCodec.encode64(-134260942594150902L, 3, RoundingMode.CEILING))));
+        assertEquals(0, new BigDecimal("-1234567890123457").compareTo(decode64(BidCodec.encode64(-12345678901234561L, 1, RoundingMode.FLOOR))));
+        assertEquals(0, new BigDecimal("-1234567890123456").compareTo(decode64(BidCodec.encode64(-12345678901234561L, 1, RoundingMode.CEILING))));
+
+        assertEquals("1.0000", BidCodec.decode64RD(0x31C0000000000001L, price).toString());
+        assertEquals("9999999999999999", BidCodec.decode64RD(0x6C7386F26FC0FFFFL, new TestDecimal(0)).toString());
+        assertEquals("0.1235", BidCodec.decode64(BidCodec.encode64RD(new TestDecimal(5).setRaw(12345)), price, RoundingMode.HALF_UP).toString());
+        assertEquals("0.0000", BidCodec.decode64RD(0x31C0000000000000L - (300L << 53) + 1, price).toString()); // 1E-300
+        assertEquals("0.0001", BidCodec.decode64(0x31C0000000000000L - (300L << 53) + 1, price, RoundingMode.UP).toString());
+        assertEquals("0.0000", BidCodec.decode64RD(0x31C0000000000000L + (300L << 53), price).toString()); // 0E+300
+        assertTrue(BidCodec.decode64RD(0x31C0000000000000L + (20L << 53) + 1, price).isNaN()); // 1E+20
+        assertTrue(BidCodec.decode64RD(0x7800000000000000L, price).isNaN()); // infinity
+        assertTrue(BidCodec.decode64RD(BidCodec.NaN_64, price).isNaN());
+        assertEquals("0.0000", BidCodec.decode64RD(0x6FFFFFFFFFFFFFFFL, price).toString()); // non-canonical
+    }
+
+    @Test
+    public void testDecimal128() throws Exception {
+        TestDecimal one = new TestDecimal(0).setRaw(1);
+        assertEquals(0x3040000000000000L, BidCodec.encode128High(one));
+        assertEquals(1, BidCodec.encode128Low(one));
+        assertEquals(0xB038000000000000L, BidCodec.encode128High(price.setRaw(-15000)));
+        assertEquals(15000, BidCodec.encode128Low(price));
+        assertEquals(BidCodec.NaN_128_HIGH, BidCodec.encode128High(price.setRaw(AbstractDecimal.NaN)));
+
+        assertEquals("1.0000", BidCodec.decode128RD(0x3040000000000000L, 1, price).toString());
+        assertEquals("-1.5000", BidCodec.decode128RD(0xB038000000000000L, 15000, price).toString());
+        // 10^33 * 10^-30 = 1000
+        BigInteger c = BigInteger.TEN.pow(33);
+        long high = 0x3040000000000000L - (30L << 49) | c.shiftRight(64).longValue();
+        assertEquals("1000.0000", BidCodec.decode128RD(high, c.longValue(), price).toString());
+        assertEquals("1000.0001", BidCodec.decode128(high, c.longValue() + 1, price, RoundingMode.CEILING).toString());
+        assertTrue(BidCodec.decode128(high, c.longValue() + 1, price, RoundingMode.UNNECESSARY).isNaN());
+        assertTrue(BidCodec.decode128RD(0x3040000000000000L | 1, 0, price).isNaN()); // 2^64
+        assertTrue(BidCodec.decode128RD(0x7C00000000000000L, 0, price).isNaN());
+        assertEquals("0.0000", BidCodec.decode128RD(0x3041FFFFFFFFFFFFL, -1, price).toString()); // non-canonical
+    }
+
+    @Test
+    public void testBulk() throws Exception {
+        long[] raws = {0, 1, -15000, 123456789, AbstractDecimal.NaN, Long.MAX_VALUE};
+        long[] bits = new long[raws.length];
+        long[] decoded = new long[raws.length];
+        BidCodec.encode64(raws, 0, 4, bits, 0, raws.length, RoundingMode.HALF_EVEN);
+        BidCodec.decode64(bits, 0, decoded, 0, raws.length, price, RoundingMode.UNNECESSARY);
+        assertArrayEquals(new long[]{0, 1, -15000, 123456789, AbstractDecimal.NaN, AbstractDecimal.NaN}, decoded); // rounded up
+
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteBuffer buffer = ByteBuffer.allocate(16 * raws.length).order(order);
+            BidCodec.encode64(raws, 0, 4, buffer, raws.length, RoundingMode.DOWN);
+            buffer.flip();
+            BidCodec.decode64(buffer, decoded, 0, raws.length, price, RoundingMode.UNNECESSARY);
+            assertArrayEquals(new long[]{0, 1, -15000, 123456789, AbstractDecimal.NaN, 9223372036854775000L}, decoded);
+
+            buffer.clear();
+            BidCodec.encode128(raws, 0, 4, buffer, raws.length);
+            buffer.flip();
+            BidCodec.decode128(buffer, decoded, 0, raws.length, price, RoundingMode.UNNECESSARY);
+            assertArrayEquals(raws, decoded);
+        }
+
+        long[] words = new long[2 * raws.length];
+        BidCodec.encode128(raws, 0, 4, words, 0, raws.length);
+        BidCodec.decode128(words, 0, decoded, 0, raws.length, price, RoundingMode.UNNECESSARY);
+        assertArrayEquals(raws, decoded);
+        assertEquals(0xB038000000000000L, words[4]);
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random random = new Random(1);
+        RoundingMode[] modes = RoundingMode.values();
+        for (int i = 0; i < 100000; i++) {
+            TestDecimal target = new TestDecimal(random.nextInt(19));
+            RoundingMode rm = modes[random.nextInt(modes.length)];
+
+            long bits = random64(random);
+            BigDecimal value = decode64(bits);
+            assertEquals(Long.toHexString(bits) + " " + rm, expected(value, target.getScale(), rm),
+                    BidCodec.decode64(bits, target, rm).getRaw());
+            if (!target.isNaN()) {
+                long encoded = BidCodec.encode64(target, rm);
+                BigDecimal expected = expected64(bigDecimal(target), rm);
+                assertTrue(Long.toHexString(encoded) + " " + target + " " + rm,
+                        expected == null ? encoded == BidCodec.NaN_64 : expected.compareTo(decode64(encoded)) == 0);
+            }
+
+            // 17-19 digits, which the decoded values above never have
+            long raw = random.nextLong() >> random.nextInt(7);
+            if (raw != AbstractDecimal.NaN) {
+                int scale = random.nextInt(19);
+                BigDecimal expected = expected64(BigDecimal.valueOf(raw, scale), rm);
+                long encoded = BidCodec.encode64(raw, scale, rm);
+                assertTrue(raw + " " + scale + " " + rm,
+                        expected == null ? encoded == BidCodec.NaN_64 : expected.compareTo(decode64(encoded)) == 0);
+            }
+
+            long high = random128High(random);
+            long low = random.nextLong();
+            value = decode128(high, low);
+            assertEquals(Long.toHexString(high) + " " + Long.toHexString(low) + " " + rm,
+                    expected(value, target.getScale(), rm), BidCodec.decode128(high, low, target, rm).getRaw());
+            if (!target.isNaN()) {
+                assertEquals(0, bigDecimal(target).compareTo(decode128(BidCodec.encode128High(target), BidCodec.encode128Low(target))));
+            }
+        }
+    }
+
+    private static BigDecimal bigDecimal(TestDecimal value) {
+        return BigDecimal.valueOf(value.getRaw(), value.getScale());
+    }
+
+    private static long random64(Random random) {
+        long exponent = BidCodec.EXPONENT_BIAS_64 + random.nextInt(60) - 40;
+        long sign = random.nextBoolean() ? Long.MIN_VALUE : 0;
+        if (random.nextInt(4) == 0) {
+            return sign | 0x6000000000000000L | exponent << 51 | random.nextLong() >>> 13; // large form
+        }
+        return sign | exponent << 53 | random.nextLong() >>> (11 + random.nextInt(50));
+    }
+
+    private static long random128High(Random random) {
+        long exponent = BidCodec.EXPONENT_BIAS_128 + random.nextInt(80) - 60;
+        long sign = random.nextBoolean() ? Long.MIN_VALUE : 0;
+        return sign | exponent << 49 | (random.nextBoolean() ? 0 : random.nextLong() >>> (15 + random.nextInt(49)));
+    }
+
+    /**
+     * Reference decoder, null for infinities and NaNs
+     */
+    private static BigDecimal decode64(long bits) {
+        long coefficient;
+        long exponent;
+        if ((bits >>> 61 & 3) != 3) {
+            exponent = bits >>> 53 & 0x3FF;
+            coefficient = bits & ((1L << 53) - 1);
+        } else if ((bits >>> 59 & 3) == 3) {
+            return null;
+        } else {
+            exponent = bits >>> 51 & 0x3FF;
+            coefficient = bits & ((1L << 51) - 1) | 1L << 53;
+            if (coefficient > 9999999999999999L) {
+                coefficient = 0;
+            }
+        }
+        return BigDecimal.valueOf(bits < 0 ? -coefficient : coefficient, (int) (BidCodec.EXPONENT_BIAS_64 - exponent));
+    }
+
+    private static BigDecimal decode128(long high, long low) {
+        if ((high >>> 61 & 3) == 3) {
+            return (high >>> 59 & 3) == 3 ? null : BigDecimal.ZERO;
+        }
+        long exponent = high >>> 49 & 0x3FFF;
+        BigInteger coefficient = BigInteger.valueOf(high & ((1L << 49) - 1)).shiftLeft(64)
+                .or(BigInteger.valueOf(low).and(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE)));
+        if (coefficient.compareTo(MAX_COEFFICIENT_128) > 0) {
+            coefficient = BigInteger.ZERO;
+        }
+        return new BigDecimal(high < 0 ? coefficient.negate() : coefficient, (int) (BidCodec.EXPONENT_BIAS_128 - exponent));
+    }
+
+    private static long expected(BigDecimal value, int scale, RoundingMode rm) {
+        if (value == null) {
+            return AbstractDecimal.NaN;
+        }
+        BigInteger raw;
+        try {
+            raw = value.setScale(scale, rm).unscaledValue();
+        } catch (ArithmeticException e) {
+            return AbstractDecimal.NaN; // failed UNNECESSARY
+        }
+        return raw.abs().compareTo(LONG_MAX) <= 0 ? raw.longValue() : AbstractDecimal.NaN;
+    }
+
+    private static BigDecimal expected64(BigDecimal value, RoundingMode rm) {
+        try {
+            return value.precision() <= 16 ? value : value.setScale(value.scale() - (value.precision() - 16), rm);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import com.github.quickdecimal.sample.Money;
+import com.github.quickdecimal.sample.Quantity;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static com.github.quickdecimal.AbstractDecimal.NaN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DecimalAccumulatorTest {
+    private static final BigInteger MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    @Test
+    public void testSum() throws Exception {
+        Money money = new Money();
+        DecimalAccumulator accumulator = DecimalAccumulator.of(8);
+        for (int i = 0; i < 10; i++) {
+            accumulator.add(Money.create("50000000000")); // the sum passes 9.2e10 on the 2nd one
+        }
+        for (int i = 0; i < 9; i++) {
+            accumulator.add(Money.create("-50000000000"));
+        }
+        accumulator.addRaw(NaN).add(Money.create("-49999999999.99999999"));
+        assertEquals("0.00000001", accumulator.roundTo(money, RoundingMode.UNNECESSARY).toString());
+        assertEquals(1, accumulator.getNaNCount());
+        assertEquals(0, accumulator.getHigh());
+        assertEquals(1, accumulator.getLow());
+
+        accumulator.reset().addAll(new long[]{Long.MAX_VALUE, Long.MAX_VALUE, NaN, NaN});
+        assertEquals(2, accumulator.getNaNCount());
+        assertEquals(0, accumulator.getHigh());
+        assertEquals(-2, accumulator.getLow()); // 2^64 - 2
+        assertEquals("NaN", accumulator.roundToRD(money).toString());
+        assertEquals("184467440737.10", accumulator.roundTo(new Quantity(), RoundingMode.HALF_UP).toString());
+        assertEquals("-184467440737.10", DecimalAccumulator.of(8).addAll(new long[]{-Long.MAX_VALUE, -Long.MAX_VALUE})
+                .roundTo(new Quantity(), RoundingMode.HALF_UP).toString());
+        assertEquals("-184467440737.09", DecimalAccumulator.of(8).addAll(new long[]{-Long.MAX_VALUE, -Long.MAX_VALUE})
+                .roundTo(new Quantity(), RoundingMode.CEILING).toString());
+
+        // -2^63 fits only after scaling down
+        DecimalAccumulator min = DecimalAccumulator.of(2).addRaw(-Long.MAX_VALUE).addRaw(-1);
+        assertEquals("-92233720368547758", min.roundTo(new TestDecimal(0), RoundingMode.DOWN).toString());
+        assertEquals("-92233720368547759", min.roundTo(new TestDecimal(0), RoundingMode.FLOOR).toString());
+        assertEquals("NaN", min.roundTo(new TestDecimal(2), RoundingMode.DOWN).toString());
+
+        DecimalAccumulator other = DecimalAccumulator.of(8).addRaw(2).addRaw(NaN);
+        accumulator.merge(other);
+        assertEquals(3, accumulator.getNaNCount());
+        assertEquals(1, accumulator.getHigh());
+        assertEquals(0, accumulator.getLow());
+        assertEquals("184467440737", accumulator.roundTo(new TestDecimal(0), RoundingMode.DOWN).toString()); // 2^64
+        assertEquals("NaN", accumulator.roundTo(new TestDecimal(18), RoundingMode.DOWN).toString());
+
+        try {
+            accumulator.add(Quantity.create("1"));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            accumulator.merge(DecimalAccumulator.of(2));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            int scale = random.nextInt(19);
+            int targetScale = random.nextInt(19);
+            long[] raws = new long[random.nextInt(20)];
+            BigInteger expected = BigInteger.ZERO;
+            DecimalAccumulator one = DecimalAccumulator.of(scale);
+            for (int j = 0; j < raws.length; j++) {
+                raws[j] = random.nextInt(10) == 0 ? NaN : random.nextLong() >> random.nextInt(64);
+                one.addRaw(raws[j]);
+                if (raws[j] != NaN) {
+                    expected = expected.add(BigInteger.valueOf(raws[j]));
+                }
+            }
+            int split = raws.length > 0 ? random.nextInt(raws.length) : 0;
+            DecimalAccumulator all = DecimalAccumulator.of(scale).addAll(raws, 0, split)
+                    .merge(DecimalAccumulator.of(scale).addAll(raws, split, raws.length));
+            assertEquals(one.getNaNCount(), all.getNaNCount());
+            assertEquals(expected.shiftRight(64).longValue(), one.getHigh());
+            assertEquals(expected.longValue(), one.getLow());
+            assertEquals(one.getHigh(), all.getHigh());
+            assertEquals(one.getLow(), all.getLow());
+
+            BigDecimal sum = new BigDecimal(expected, scale);
+            for (RoundingMode rm : RoundingMode.values()) {
+                assertEquals(sum + " " + targetScale + " " + rm, expected(sum, targetScale, rm),
+                        one.roundTo(new TestDecimal(targetScale), rm).getRaw());
+            }
+        }
+    }
+
+    private static long expected(BigDecimal value, int scale, RoundingMode rm) {
+        BigInteger result;
+        try {
+            result = value.setScale(scale, rm).unscaledValue();
+        } catch (ArithmeticException e) {
+            return NaN; // failed UNNECESSARY
+        }
+        return result.abs().compareTo(MAX) <= 0 ? result.longValue() : NaN;
+    }
+}
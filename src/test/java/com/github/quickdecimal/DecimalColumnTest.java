@@ -0,0 +1,208 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.junit.Test;
+
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static com.github.quickdecimal.DecimalColumn.NaN;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DecimalColumnTest {
+    @Test
+    public void testKernels() throws Exception {
+        DecimalColumn a = DecimalColumn.wrap(new long[]{150, -150, NaN, Long.MAX_VALUE, 0}, 2);
+        DecimalColumn b = DecimalColumn.wrap(new long[]{225, 225, 100, 1, 0}, 2);
+        DecimalColumn result = DecimalColumn.of(5, 2);
+
+        assertSame(result, a.add(b, result));
+        assertArrayEquals(new long[]{375, 75, NaN, NaN, 0}, result.getRaws());
+        a.subtract(b, result);
+        assertArrayEquals(new long[]{-75, -375, NaN, Long.MAX_VALUE - 1, 0}, result.getRaws());
+        a.mul(b, result, RoundingMode.HALF_UP); // 1.50 * 2.25 = 3.375
+        assertArrayEquals(new long[]{338, -338, NaN, 92233720368547758L, 0}, result.getRaws());
+        a.mulRD(b, result);
+        assertArrayEquals(new long[]{337, -337, NaN, 92233720368547758L, 0}, result.getRaws());
+        a.div(b, result, RoundingMode.HALF_EVEN);
+        assertArrayEquals(new long[]{67, -67, NaN, NaN, NaN}, result.getRaws());
+        a.negate(result);
+        assertArrayEquals(new long[]{-150, 150, NaN, -Long.MAX_VALUE, 0}, result.getRaws());
+
+        TestDecimal two = new TestDecimal(2).setRaw(200);
+        a.add(two, result);
+        assertArrayEquals(new long[]{350, 50, NaN, NaN, 200}, result.getRaws());
+        a.subtract(two, result);
+        assertArrayEquals(new long[]{-50, -350, NaN, Long.MAX_VALUE - 200, -200}, result.getRaws());
+        a.mul(new TestDecimal(0).setRaw(-3), result, RoundingMode.UNNECESSARY);
+        assertArrayEquals(new long[]{-450, 450, NaN, NaN, 0}, result.getRaws());
+        a.divRD(new TestDecimal(0).setRaw(7), result);
+        assertArrayEquals(new long[]{21, -21, NaN, 1317624576693539401L, 0}, result.getRaws());
+        a.div(Divisor.of(0, 2), result, RoundingMode.DOWN);
+        assertArrayEquals(new long[]{NaN, NaN, NaN, NaN, NaN}, result.getRaws());
+
+        DecimalColumn d = DecimalColumn.wrap(new long[]{100, -150, 3, NaN, 0}, 2);
+        a.min(d, result);
+        assertArrayEquals(new long[]{100, -150, NaN, NaN, 0}, result.getRaws());
+        a.max(d, result);
+        assertArrayEquals(new long[]{150, -150, NaN, NaN, 0}, result.getRaws());
+        assertArrayEquals(new int[]{1, 0, -1, 1, 0}, a.compare(d, new int[5]));
+
+        // in place
+        DecimalColumn c = DecimalColumn.wrap(new long[]{150, -150, NaN, Long.MAX_VALUE, 0}, 2);
+        c.add(c, c);
+        assertArrayEquals(new long[]{300, -300, NaN, NaN, 0}, c.getRaws());
+    }
+
+    @Test
+    public void testAggregates() throws Exception {
+        DecimalColumn a = DecimalColumn.wrap(new long[]{150, NaN, -125, 300, -125}, 2);
+        Aggregate result = new Aggregate();
+        assertEquals(200, a.sum(result).getRaw());
+        assertEquals(4, result.getCount());
+        assertEquals(1, result.getNaNCount());
+        assertEquals(1, result.getFirstNaN());
+        assertEquals(-125, a.min(result).getRaw());
+        assertEquals(2, result.getIndex());
+        assertEquals(300, a.max(result).getRaw());
+        assertEquals(3, result.getIndex());
+        assertEquals(50, a.mean(result, RoundingMode.HALF_UP).getRaw());
+        assertEquals(-1, result.getOverflow());
+
+        assertEquals(200, a.prefixSum(result).getRaw());
+        assertArrayEquals(new long[]{150, NaN, 25, 325, 200}, a.getRaws());
+
+        DecimalColumn b = DecimalColumn.wrap(new long[]{Long.MAX_VALUE, 1, -1}, 0);
+        assertTrue(b.sum(result).isNaN());
+        assertEquals(1, result.getOverflow());
+        assertEquals(Long.MAX_VALUE / 3, b.meanRD(result).getRaw());
+    }
+
+    @Test
+    public void testScales() throws Exception {
+        DecimalColumn quantities = DecimalColumn.wrap(new long[]{150, -150, NaN}, 2);
+        DecimalColumn prices = DecimalColumn.wrap(new long[]{12345678, 100000000, 100000000}, 8);
+        DecimalColumn money = DecimalColumn.of(3, 4);
+        DecimalColumn shares = DecimalColumn.of(3, 0);
+
+        quantities.mul(prices, money, RoundingMode.HALF_UP); // 1.50 * 0.12345678 = 0.185185170
+        assertArrayEquals(new long[]{1852, -15000, NaN}, money.getRaws());
+        money.div(prices, quantities, RoundingMode.HALF_UP); // 0.1852 / 0.12345678 = 1.500120...
+        assertArrayEquals(new long[]{150, -150, NaN}, quantities.getRaws());
+        quantities.rescale(shares, RoundingMode.HALF_EVEN);
+        assertArrayEquals(new long[]{2, -2, NaN}, shares.getRaws());
+        shares.rescaleRD(money);
+        assertArrayEquals(new long[]{20000, -20000, NaN}, money.getRaws());
+        shares.mul(shares, money, RoundingMode.UNNECESSARY); // scale -4
+        assertArrayEquals(new long[]{40000, 40000, NaN}, money.getRaws());
+
+        assertEquals("1.5000", money.set(0, new TestDecimal(4).setRaw(15000)).get(0, new TestDecimal(4)).toString());
+        try {
+            money.get(0, new TestDecimal(2));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            quantities.add(prices, quantities);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            quantities.add(quantities, DecimalColumn.of(4, 2));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            prices.div(shares, shares, RoundingMode.DOWN); // scale -8
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            shares.div(prices, DecimalColumn.of(3, 18), RoundingMode.DOWN); // scale 26
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random random = new Random(42);
+        int size = 1000;
+        for (int i = 0; i < 100; i++) {
+            int aScale = random.nextInt(19);
+            int bScale = random.nextInt(19);
+            int resultScale = random.nextInt(19);
+            DecimalColumn a = randomColumn(random, size, aScale);
+            DecimalColumn b = randomColumn(random, size, bScale);
+            DecimalColumn result = DecimalColumn.of(size, resultScale);
+            TestDecimal scalar = new TestDecimal(bScale).setRaw(b.getRaw(0));
+            for (RoundingMode rm : RoundingMode.values()) {
+                int mulScale = aScale + bScale - resultScale;
+                a.mul(b, result, rm);
+                for (int j = 0; j < size; j++) {
+                    assertEquals(expectedMul(a.getRaw(j), b.getRaw(j), mulScale, rm), result.getRaw(j));
+                }
+                a.mul(scalar, result, rm);
+                for (int j = 0; j < size; j++) {
+                    assertEquals(expectedMul(a.getRaw(j), scalar.getRaw(), mulScale, rm), result.getRaw(j));
+                }
+
+                int divScale = resultScale + bScale - aScale;
+                if (divScale >= 0 && divScale <= 18) {
+                    a.div(b, result, rm);
+                    for (int j = 0; j < size; j++) {
+                        assertEquals(DecimalMath.div(a.getRaw(j), b.getRaw(j), divScale, rm), result.getRaw(j));
+                    }
+                    a.div(scalar, result, rm);
+                    for (int j = 0; j < size; j++) {
+                        assertEquals(DecimalMath.div(a.getRaw(j), scalar.getRaw(), divScale, rm), result.getRaw(j));
+                    }
+                }
+
+                a.rescale(result, rm);
+                for (int j = 0; j < size; j++) {
+                    assertEquals(DecimalMath.rescale(a.getRaw(j), aScale, resultScale, rm), result.getRaw(j));
+                }
+            }
+        }
+    }
+
+    private static long expectedMul(long a, long b, int scale, RoundingMode rm) {
+        return scale >= 0 ? DecimalMath.mul(a, b, scale, rm) :
+                DecimalMath.rescale(DecimalMath.mul(a, b, 0, rm), 0, -scale, rm);
+    }
+
+    private static DecimalColumn randomColumn(Random random, int size, int scale) {
+        DecimalColumn column = DecimalColumn.of(size, scale);
+        for (int i = 0; i < size; i++) {
+            column.setRaw(i, random.nextInt(50) == 0 ? NaN : random.nextLong() >> random.nextInt(64));
+        }
+        return column;
+    }
+}
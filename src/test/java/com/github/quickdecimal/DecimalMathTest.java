@@ -0,0 +1,569 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.quickdecimal.DecimalMath.NaN;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DecimalMathTest {
+    private static final BigInteger MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    @Test
+    public void testAddSubtract() throws Exception {
+        assertEquals(3, DecimalMath.add(1, 2));
+        assertEquals(NaN, DecimalMath.add(Long.MAX_VALUE, 1));
+        assertEquals(NaN, DecimalMath.add(-Long.MAX_VALUE, -1));
+        assertEquals(NaN, DecimalMath.add(NaN, 0));
+        assertEquals(-1, DecimalMath.subtract(1, 2));
+        assertEquals(NaN, DecimalMath.subtract(-Long.MAX_VALUE, 1));
+        assertEquals(NaN, DecimalMath.subtract(Long.MAX_VALUE, -1));
+        assertEquals(0, DecimalMath.subtract(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testMulDivRescale() throws Exception {
+        // 1.50 * 2.25 = 3.375 -> 3.38 (2 dp)
+        assertEquals(338, DecimalMath.mul(150, 225, 2, RoundingMode.HALF_UP));
+        assertEquals(337, DecimalMath.mulRD(150, 225, 2));
+        assertEquals(-338, DecimalMath.mul(-150, 225, 2, RoundingMode.HALF_UP));
+        assertEquals(NaN, DecimalMath.mul(150, 225, 2, RoundingMode.UNNECESSARY));
+        assertEquals(NaN, DecimalMath.mul(Long.MAX_VALUE, 2, 0, RoundingMode.DOWN));
+        assertEquals(85, DecimalMath.mul(Long.MAX_VALUE, Long.MAX_VALUE, 36, RoundingMode.DOWN)); // 8.5 * 10^37
+
+        // 1 / 3 = 0.33 (2 dp)
+        assertEquals(33, DecimalMath.div(100, 300, 2, RoundingMode.HALF_EVEN));
+        assertEquals(67, DecimalMath.div(200, 300, 2, RoundingMode.HALF_EVEN));
+        assertEquals(-67, DecimalMath.div(200, -300, 2, RoundingMode.HALF_EVEN));
+        assertEquals(-66, DecimalMath.divRD(-200, 300, 2));
+        assertEquals(NaN, DecimalMath.div(1, 0, 2, RoundingMode.DOWN));
+        assertEquals(-67, DecimalMath.div(200, Divisor.of(-300, 2), 2, RoundingMode.HALF_EVEN));
+        assertEquals(-66, DecimalMath.divRD(-200, Divisor.of(300, 2), 2));
+        assertEquals(NaN, DecimalMath.div(1, Divisor.of(0, 2), 2, RoundingMode.DOWN));
+        assertEquals(NaN, DecimalMath.div(1, Divisor.of(NaN, 2), 2, RoundingMode.DOWN));
+
+        assertEquals(12300, DecimalMath.rescaleRD(123, 2, 4));
+        assertEquals(2, DecimalMath.rescale(123, 2, 0, RoundingMode.CEILING));
+        assertEquals(1, DecimalMath.rescale(Long.MAX_VALUE, 19, 0, RoundingMode.HALF_UP));
+        assertEquals(NaN, DecimalMath.rescale(123, 2, 1, RoundingMode.UNNECESSARY));
+        assertEquals(NaN, DecimalMath.rescaleRD(Long.MAX_VALUE, 0, 1));
+        assertEquals(0, DecimalMath.rescaleRD(0, 0, 100));
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long a = random.nextLong() >> random.nextInt(64);
+            long b = random.nextLong() >> random.nextInt(64);
+            int scale = random.nextInt(19);
+            int mulScale = random.nextInt(37);
+            int toScale = random.nextInt(19);
+            BigDecimal x = BigDecimal.valueOf(a);
+            BigDecimal y = BigDecimal.valueOf(b);
+            Divisor divisor = Divisor.of(b, 0);
+            for (RoundingMode rm : RoundingMode.values()) {
+                String message = a + ", " + b + ", " + scale + ", " + mulScale + " " + rm;
+                assertEquals(message, expected(x.multiply(y).movePointLeft(mulScale), rm), DecimalMath.mul(a, b, mulScale, rm));
+                if (b != 0) {
+                    long expected = expectedQuotient(x.movePointRight(scale), y, rm);
+                    assertEquals(message, expected, DecimalMath.div(a, b, scale, rm));
+                    assertEquals(message, expected, DecimalMath.div(a, divisor, scale, rm));
+                }
+                assertEquals(message, expected(BigDecimal.valueOf(a, scale).movePointRight(toScale), rm),
+                        DecimalMath.rescale(a, scale, toScale, rm));
+            }
+        }
+    }
+
+    @Test
+    public void testArrays() throws Exception {
+        long[] a = {1, Long.MAX_VALUE, -Long.MAX_VALUE, NaN, 5, -7, Long.MAX_VALUE, 0, 3};
+        long[] b = {2, 1, 1, 4, NaN, -7, -Long.MAX_VALUE, 0, 4};
+        long[] result = new long[a.length];
+        int[] comparison = new int[a.length];
+        DecimalMath.add(a, b, result, 0, a.length);
+        assertArrayEquals(new long[]{3, NaN, -Long.MAX_VALUE + 1, NaN, NaN, -14, 0, 0, 7}, result);
+        DecimalMath.subtract(a, b, result, 0, a.length);
+        assertArrayEquals(new long[]{-1, Long.MAX_VALUE - 1, NaN, NaN, NaN, 0, NaN, 0, -1}, result);
+        DecimalMath.add(a, -1, result, 1, a.length);
+        assertArrayEquals(new long[]{-1, Long.MAX_VALUE - 1, NaN, NaN, 4, -8, Long.MAX_VALUE - 1, -1, 2}, result);
+        DecimalMath.subtract(a, NaN, result, 0, a.length);
+        assertArrayEquals(new long[]{NaN, NaN, NaN, NaN, NaN, NaN, NaN, NaN, NaN}, result);
+        DecimalMath.negate(a, result, 0, a.length);
+        assertArrayEquals(new long[]{-1, -Long.MAX_VALUE, Long.MAX_VALUE, NaN, -5, 7, -Long.MAX_VALUE, 0, -3}, result);
+        DecimalMath.min(a, b, result, 0, a.length);
+        assertArrayEquals(new long[]{1, 1, -Long.MAX_VALUE, NaN, NaN, -7, -Long.MAX_VALUE, 0, 3}, result);
+        DecimalMath.max(a, b, result, 0, a.length);
+        assertArrayEquals(new long[]{2, Long.MAX_VALUE, 1, NaN, NaN, -7, Long.MAX_VALUE, 0, 4}, result);
+        DecimalMath.compare(a, b, comparison, 0, a.length);
+        assertArrayEquals(new int[]{-1, 1, -1, -1, 1, 0, 1, 0, -1}, comparison);
+
+        // the kernels in use (SIMD if available) against the scalar ones, with the tails of different lengths
+        ArrayKernels scalar = new ArrayKernels();
+        Random random = new Random(42);
+        long[] edges = {NaN, Long.MAX_VALUE, -Long.MAX_VALUE, 0, 1, -1};
+        for (int i = 0; i < 1000; i++) {
+            int size = random.nextInt(100);
+            a = new long[size];
+            b = new long[size];
+            for (int j = 0; j < size; j++) {
+                a[j] = random.nextInt(8) == 0 ? edges[random.nextInt(edges.length)] : random.nextLong() >> random.nextInt(64);
+                b[j] = random.nextInt(8) == 0 ? edges[random.nextInt(edges.length)] : random.nextLong() >> random.nextInt(64);
+            }
+            int from = size > 0 ? random.nextInt(size) : 0;
+            long c = random.nextInt(8) == 0 ? edges[random.nextInt(edges.length)] : random.nextLong();
+            long[] expected = new long[size];
+            result = new long[size];
+
+            scalar.add(a, b, expected, from, size);
+            DecimalMath.add(a, b, result, from, size);
+            assertArrayEquals(expected, result);
+            scalar.add(a, c, expected, from, size);
+            DecimalMath.add(a, c, result, from, size);
+            assertArrayEquals(expected, result);
+            scalar.subtract(a, b, expected, from, size);
+            DecimalMath.subtract(a, b, result, from, size);
+            assertArrayEquals(expected, result);
+            scalar.subtract(a, c, expected, from, size);
+            DecimalMath.subtract(a, c, result, from, size);
+            assertArrayEquals(expected, result);
+            scalar.negate(a, expected, from, size);
+            DecimalMath.negate(a, result, from, size);
+            assertArrayEquals(expected, result);
+            scalar.min(a, b, expected, from, size);
+            DecimalMath.min(a, b, result, from, size);
+            assertArrayEquals(expected, result);
+            scalar.max(a, b, expected, from, size);
+            DecimalMath.max(a, b, result, from, size);
+            assertArrayEquals(expected, result);
+            int[] expectedComparison = new int[size];
+            comparison = new int[size];
+            scalar.compare(a, b, expectedComparison, from, size);
+            DecimalMath.compare(a, b, comparison, from, size);
+            assertArrayEquals(expectedComparison, comparison);
+        }
+    }
+
+    @Test
+    public void testRoundToIncrement() throws Exception {
+        assertEquals(125, DecimalMath.roundToIncrementRD(127, 5));
+        assertEquals(-130, DecimalMath.roundToIncrement(-127, 5, RoundingMode.FLOOR));
+        assertEquals(NaN, DecimalMath.roundToIncrement(Long.MAX_VALUE, 10, RoundingMode.UP));
+        assertEquals(Long.MAX_VALUE, DecimalMath.roundToIncrement(Long.MAX_VALUE, Long.MAX_VALUE, RoundingMode.UP));
+        assertEquals(NaN, DecimalMath.roundToIncrement(NaN, 5, RoundingMode.DOWN));
+        assertEquals(NaN, DecimalMath.roundToIncrement(127, 0, RoundingMode.DOWN));
+
+        long[] raws = {127, -127, 125, NaN, Long.MAX_VALUE};
+        DecimalMath.roundToIncrement(raws, 1, raws.length, Increment.of(10, 2), RoundingMode.HALF_UP);
+        assertEquals(127, raws[0]);
+        assertEquals(-130, raws[1]);
+        assertEquals(130, raws[2]);
+        assertEquals(NaN, raws[3]);
+        assertEquals(NaN, raws[4]); // 9223372036854775810
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long raw = random.nextLong() >> random.nextInt(64);
+            long increment = (random.nextLong() >>> 1 >>> random.nextInt(63)) | 1;
+            if (raw == NaN) {
+                continue;
+            }
+            Increment precomputed = Increment.of(increment, random.nextInt(19));
+            BigDecimal x = BigDecimal.valueOf(raw);
+            BigDecimal y = BigDecimal.valueOf(increment);
+            for (RoundingMode rm : RoundingMode.values()) {
+                String message = raw + " " + increment + " " + rm;
+                long quotient = expectedQuotient(x, y, rm);
+                long expected = quotient == NaN ? NaN : expected(BigDecimal.valueOf(quotient).multiply(y), rm);
+                assertEquals(message, expected, DecimalMath.roundToIncrement(raw, increment, rm));
+                assertEquals(message, expected, DecimalMath.roundToIncrement(raw, precomputed, rm));
+            }
+        }
+    }
+
+    @Test
+    public void testProRata() throws Exception {
+        long[] parts = new long[4];
+        assertTrue(DecimalMath.proRata(100, new long[]{1, 1, 1}, 0, 3, parts));
+        assertArrayEquals(new long[]{34, 33, 33, 0}, parts);
+        assertTrue(DecimalMath.proRata(-100, new long[]{1, 1, 1}, 0, 3, parts));
+        assertArrayEquals(new long[]{-34, -33, -33, 0}, parts);
+        assertTrue(DecimalMath.proRata(10, new long[]{0, 15, 30, 55}, 0, 4, parts)); // 1.5, 3, 5.5
+        assertArrayEquals(new long[]{0, 2, 3, 5}, parts);
+        assertTrue(DecimalMath.proRata(Long.MAX_VALUE, new long[]{5, Long.MAX_VALUE - 10, 5, 0}, 1, 4, parts));
+        assertArrayEquals(new long[]{0, Long.MAX_VALUE - 5, 5, 0}, parts);
+
+        assertFalse(DecimalMath.proRata(NaN, new long[]{1, 1}, 0, 2, parts));
+        assertArrayEquals(new long[]{NaN, NaN, 5, 0}, parts);
+        assertFalse(DecimalMath.proRata(100, new long[]{0, 0}, 0, 2, parts));
+        assertFalse(DecimalMath.proRata(100, new long[]{1, -1}, 0, 2, parts));
+        assertFalse(DecimalMath.proRata(100, new long[]{1, NaN}, 0, 2, parts));
+        assertFalse(DecimalMath.proRata(100, new long[]{Long.MAX_VALUE, 1}, 0, 2, parts));
+        assertFalse(DecimalMath.proRata(100, new long[0], 0, 0, parts));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long total = random.nextLong() >> random.nextInt(64);
+            if (total == NaN) {
+                continue;
+            }
+            int n = 1 + random.nextInt(random.nextBoolean() ? 4 : 100);
+            long[] weights = new long[n];
+            for (int j = 0; j < n; j++) {
+                // small weights give ties
+                weights[j] = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextLong() >>> random.nextInt(64) >>> 7;
+            }
+            long[] actual = new long[n];
+            long[] expected = expectedProRata(total, weights);
+            assertEquals(total + " " + Arrays.toString(weights), expected != null,
+                    DecimalMath.proRata(total, weights, 0, n, actual));
+            if (expected != null) {
+                assertArrayEquals(total + " " + Arrays.toString(weights), expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Largest remainder method with BigInteger, null if the weights are invalid
+     */
+    private static long[] expectedProRata(long total, long[] weights) {
+        BigInteger sum = BigInteger.ZERO;
+        for (long weight : weights) {
+            sum = sum.add(BigInteger.valueOf(weight));
+        }
+        if (sum.signum() == 0 || sum.compareTo(MAX) > 0) {
+            return null;
+        }
+        BigInteger t = BigInteger.valueOf(total).abs();
+        long[] parts = new long[weights.length];
+        BigInteger[] remainders = new BigInteger[weights.length];
+        Integer[] order = new Integer[weights.length];
+        long residual = t.longValue();
+        for (int i = 0; i < weights.length; i++) {
+            BigInteger[] qr = t.multiply(BigInteger.valueOf(weights[i])).divideAndRemainder(sum);
+            parts[i] = qr[0].longValue();
+            remainders[i] = qr[1];
+            order[i] = i;
+            residual -= parts[i];
+        }
+        Arrays.sort(order, (a, b) -> remainders[b].compareTo(remainders[a])); // stable, earlier first for ties
+        for (int i = 0; i < residual; i++) {
+            parts[order[i]]++;
+        }
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] *= Long.signum(total) | 1;
+        }
+        return parts;
+    }
+
+    @Test
+    public void testDotVwap() throws Exception {
+        long[] a = {2, 3, Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] b = {5, 7, 2, -2};
+        assertEquals(31, DecimalMath.dot(a, b, 0, 2, 0, RoundingMode.UNNECESSARY));
+        assertEquals(3, DecimalMath.dot(a, b, 0, 2, 1, RoundingMode.HALF_UP));
+        assertEquals(4, DecimalMath.dot(a, b, 0, 2, 1, RoundingMode.CEILING));
+        assertEquals(0, DecimalMath.dot(a, b, 2, 4, 0, RoundingMode.UNNECESSARY)); // exact despite the products
+        assertEquals(NaN, DecimalMath.dot(a, b, 2, 3, 0, RoundingMode.UNNECESSARY));
+        assertEquals(Long.MAX_VALUE / 5, DecimalMath.dotRD(a, b, 2, 3, 1));
+        assertEquals(0, DecimalMath.dot(a, b, 0, 0, 0, RoundingMode.UNNECESSARY));
+        assertEquals(NaN, DecimalMath.dot(new long[]{1, NaN}, b, 0, 2, 0, RoundingMode.UNNECESSARY));
+        long[] max = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] signs = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, -Long.MAX_VALUE, -Long.MAX_VALUE};
+        assertEquals(255, DecimalMath.dot(max, signs, 0, 3, 36, RoundingMode.HALF_UP)); // 3 * (2^63 - 1)^2 > 2^127
+        assertEquals(NaN, DecimalMath.dot(max, signs, 0, 3, 18, RoundingMode.HALF_UP));
+        assertEquals(85, DecimalMath.dot(max, signs, 0, 5, 36, RoundingMode.HALF_UP)); // exact despite the middle
+        long[] negative = {-Long.MAX_VALUE, Long.MAX_VALUE - 2, Long.MAX_VALUE - 2};
+        long[] mixed = {Long.MAX_VALUE - 2, -1320703689, -(Long.MAX_VALUE - 2)};
+        assertEquals(-170141183, DecimalMath.dotRD(negative, mixed, 0, 3, 30)); // less than -2^127
+
+        long[] quantities = {100, 300, -400, Long.MAX_VALUE};
+        long[] prices = {10, 20, 25, Long.MAX_VALUE};
+        assertEquals(18, DecimalMath.vwap(quantities, prices, 0, 2, 0, RoundingMode.HALF_EVEN)); // 17.5
+        assertEquals(17, DecimalMath.vwapRD(quantities, prices, 0, 2, 0));
+        assertEquals(175, DecimalMath.vwap(quantities, prices, 0, 2, 1, RoundingMode.UNNECESSARY));
+        assertEquals(2, DecimalMath.vwap(quantities, prices, 0, 2, -1, RoundingMode.HALF_UP));
+        assertEquals(NaN, DecimalMath.vwap(quantities, prices, 0, 3, 0, RoundingMode.UNNECESSARY)); // zero quantity
+        assertEquals(NaN, DecimalMath.vwap(quantities, prices, 0, 0, 0, RoundingMode.UNNECESSARY));
+        assertEquals(40, DecimalMath.vwap(quantities, prices, 1, 3, 0, RoundingMode.UNNECESSARY)); // -4000 / -100
+        assertEquals(Long.MAX_VALUE, DecimalMath.vwap(quantities, prices, 3, 4, 0, RoundingMode.UNNECESSARY));
+        assertEquals(NaN, DecimalMath.vwap(quantities, prices, 3, 4, 1, RoundingMode.UNNECESSARY));
+        long[] maxQuantities = {Long.MAX_VALUE, Long.MAX_VALUE, -Long.MAX_VALUE};
+        long[] maxPrices = {Long.MAX_VALUE, Long.MAX_VALUE, -Long.MAX_VALUE};
+        // 3 * (2^63 - 1)^2 > 2^127 divided by 2^63 - 1
+        assertEquals(2767011611056432742L, DecimalMath.vwap(maxQuantities, maxPrices, 0, 3, -1, RoundingMode.HALF_UP));
+        assertEquals(NaN, DecimalMath.vwap(maxQuantities, maxPrices, 0, 3, 0, RoundingMode.HALF_UP));
+
+        Random random = new Random(42);
+        RoundingMode[] modes = RoundingMode.values();
+        for (int i = 0; i < 100000; i++) {
+            int n = random.nextInt(8);
+            long[] x = new long[n];
+            long[] y = new long[n];
+            BigInteger sum = BigInteger.ZERO;
+            BigInteger quantity = BigInteger.ZERO;
+            for (int j = 0; j < n; j++) {
+                x[j] = random.nextLong() >> random.nextInt(64);
+                y[j] = random.nextLong() >> random.nextInt(64);
+                if (x[j] == NaN || y[j] == NaN) {
+                    x[j] = y[j] = 0;
+                }
+                sum = sum.add(BigInteger.valueOf(x[j]).multiply(BigInteger.valueOf(y[j])));
+                quantity = quantity.add(BigInteger.valueOf(x[j]));
+            }
+            RoundingMode rm = modes[random.nextInt(modes.length)];
+
+            int dotScale = random.nextInt(37);
+            long expectedDot = expected(new BigDecimal(sum, dotScale), rm);
+            assertEquals(sum + " " + dotScale + " " + rm, expectedDot, DecimalMath.dot(x, y, 0, n, dotScale, rm));
+
+            int vwapScale = random.nextInt(37) - 18;
+            long expectedVwap = quantity.bitLength() < 64 && quantity.signum() != 0 ?
+                    expectedQuotient(new BigDecimal(sum, -vwapScale), new BigDecimal(quantity), rm) : NaN;
+            assertEquals(sum + " " + quantity + " " + vwapScale + " " + rm, expectedVwap,
+                    DecimalMath.vwap(x, y, 0, n, vwapScale, rm));
+        }
+    }
+
+    @Test
+    public void testAggregates() throws Exception {
+        Aggregate result = new Aggregate();
+        long[] raws = {5, NaN, -3, 7, -3, NaN, 7};
+        assertAggregate(DecimalMath.sum(raws, 0, 7, result), 13, -1, 5, 2, 1, -1);
+        assertAggregate(DecimalMath.min(raws, 0, 7, result), -3, 2, 5, 2, 1, -1);
+        assertAggregate(DecimalMath.max(raws, 0, 7, result), 7, 3, 5, 2, 1, -1);
+        assertAggregate(DecimalMath.mean(raws, 0, 7, 1, RoundingMode.HALF_UP, result), 26, -1, 5, 2, 1, -1); // 2.6
+        assertAggregate(DecimalMath.meanRD(raws, 0, 7, 0, result), 2, -1, 5, 2, 1, -1);
+        assertAggregate(DecimalMath.max(raws, 4, 6, result), -3, 4, 1, 1, 5, -1);
+        assertAggregate(DecimalMath.sum(raws, 1, 2, result), 0, -1, 0, 1, 1, -1);
+        assertAggregate(DecimalMath.min(raws, 1, 2, result), NaN, -1, 0, 1, 1, -1);
+        assertAggregate(DecimalMath.max(raws, 0, 0, result), NaN, -1, 0, 0, -1, -1);
+        assertAggregate(DecimalMath.mean(raws, 5, 6, 0, RoundingMode.HALF_UP, result), NaN, -1, 0, 1, 5, -1);
+        assertAggregate(DecimalMath.min(new long[]{NaN, Long.MAX_VALUE}, 0, 2, result), Long.MAX_VALUE, 1, 1, 1, 0, -1);
+
+        assertAggregate(DecimalMath.prefixSum(raws, 0, 7, result), 13, -1, 5, 2, 1, -1);
+        assertArrayEquals(new long[]{5, NaN, 2, 9, 6, NaN, 13}, raws);
+
+        long[] big = {Long.MAX_VALUE, NaN, Long.MAX_VALUE, -Long.MAX_VALUE, 1, 1};
+        assertAggregate(DecimalMath.sum(big, 0, 6, result), NaN, -1, 5, 1, 1, 2);
+        assertAggregate(DecimalMath.mean(big, 0, 6, 0, RoundingMode.HALF_UP, result),
+                Long.MAX_VALUE / 5 + 1, -1, 5, 1, 1, -1); // (2^63 + 1) / 5 without intermediate overflow
+        assertAggregate(DecimalMath.mean(big, 0, 3, 1, RoundingMode.UNNECESSARY, result), NaN, -1, 2, 1, 1, 3);
+        assertAggregate(DecimalMath.prefixSum(big, 0, 6, result), NaN, -1, 1, 1, 1, 2);
+        assertArrayEquals(new long[]{Long.MAX_VALUE, NaN, NaN, NaN, NaN, NaN}, big);
+
+        // a running sum of exactly NaN (Long.MIN_VALUE) is an overflow
+        long[] min = {-Long.MAX_VALUE, -1, 2};
+        assertAggregate(DecimalMath.sum(min, 0, 3, result), NaN, -1, 3, 0, -1, 1);
+        assertAggregate(DecimalMath.prefixSum(min, 0, 3, result), NaN, -1, 1, 0, -1, 1);
+        assertArrayEquals(new long[]{-Long.MAX_VALUE, NaN, NaN}, min);
+
+        Random random = new Random(42);
+        RoundingMode[] modes = RoundingMode.values();
+        for (int i = 0; i < 100000; i++) {
+            int n = random.nextInt(40);
+            int shift = random.nextInt(64);
+            long[] values = new long[n];
+            for (int j = 0; j < n; j++) {
+                values[j] = random.nextInt(8) == 0 ? NaN : random.nextLong() >> shift;
+            }
+            int from = n == 0 ? 0 : random.nextInt(n);
+            String message = Arrays.toString(values) + " " + from;
+
+            BigInteger sum = BigInteger.ZERO;
+            int overflow = -1;
+            int count = 0;
+            int firstNaN = -1;
+            int minIndex = -1;
+            int maxIndex = -1;
+            for (int j = from; j < n; j++) {
+                long v = values[j];
+                if (v == NaN) {
+                    firstNaN = firstNaN < 0 ? j : firstNaN;
+                    continue;
+                }
+                count++;
+                sum = sum.add(BigInteger.valueOf(v));
+                if (overflow < 0 && sum.abs().compareTo(MAX) > 0) { // as DecimalMath.add, -2^63 is NaN
+                    overflow = j;
+                }
+                minIndex = minIndex < 0 || v < values[minIndex] ? j : minIndex;
+                maxIndex = maxIndex < 0 || v > values[maxIndex] ? j : maxIndex;
+            }
+            int nans = n - from - count;
+
+            assertAggregate(message, DecimalMath.sum(values, from, n, result), overflow < 0 ? sum.longValue() : NaN,
+                    -1, count, nans, firstNaN, overflow);
+            assertAggregate(message, DecimalMath.min(values, from, n, result), minIndex < 0 ? NaN : values[minIndex],
+                    minIndex, count, nans, firstNaN, -1);
+            assertAggregate(message, DecimalMath.max(values, from, n, result), maxIndex < 0 ? NaN : values[maxIndex],
+                    maxIndex, count, nans, firstNaN, -1);
+
+            int scale = random.nextInt(37) - 18;
+            RoundingMode rm = modes[random.nextInt(modes.length)];
+            long mean = count == 0 ? NaN :
+                    expectedQuotient(new BigDecimal(sum, -scale), BigDecimal.valueOf(count), rm);
+            assertAggregate(message + " " + scale + " " + rm, DecimalMath.mean(values, from, n, scale, rm, result),
+                    mean, -1, count, nans, firstNaN, count > 0 && mean == NaN ? n : -1);
+
+            long[] expected = values.clone();
+            long running = 0;
+            for (int j = from; j < n; j++) {
+                if (overflow >= 0 && j >= overflow) {
+                    expected[j] = NaN;
+                } else if (values[j] != NaN) {
+                    running += values[j];
+                    expected[j] = running;
+                }
+            }
+            int prefixCount = count;
+            int prefixNaNs = nans;
+            int prefixFirstNaN = firstNaN;
+            if (overflow >= 0) {
+                prefixCount = 0;
+                prefixNaNs = 0;
+                prefixFirstNaN = -1;
+                for (int j = from; j < overflow; j++) {
+                    if (values[j] == NaN) {
+                        prefixNaNs++;
+                        prefixFirstNaN = prefixFirstNaN < 0 ? j : prefixFirstNaN;
+                    } else {
+                        prefixCount++;
+                    }
+                }
+            }
+            assertAggregate(message, DecimalMath.prefixSum(values, from, n, result), overflow < 0 ? running : NaN,
+                    -1, prefixCount, prefixNaNs, prefixFirstNaN, overflow);
+            assertArrayEquals(message, expected, values);
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        long[] minMax = new long[2];
+        long[] raws = {Long.MAX_VALUE, -Long.MAX_VALUE, Long.MAX_VALUE, -6, 5};
+        assertEquals(Long.MAX_VALUE - 1, DecimalMath.parallelSum(raws, 0, 5));
+        assertEquals(NaN, DecimalMath.parallelSum(new long[]{Long.MAX_VALUE, 1, -1}, 0, 3)); // as one by one
+        long[] parts = {-Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        assertEquals(Long.MAX_VALUE, ParallelKernels.sum(ForkJoinPool.commonPool(), parts, 0, 3, 2)); // [1, 3) overflows
+        assertEquals(Long.MAX_VALUE, ParallelKernels.sum(ForkJoinPool.commonPool(), parts, 0, 3, 1));
+        assertEquals(0, DecimalMath.parallelSum(raws, 0, 0));
+        DecimalMath.parallelMinMax(raws, 0, 5, minMax);
+        assertArrayEquals(new long[]{-Long.MAX_VALUE, Long.MAX_VALUE}, minMax);
+        DecimalMath.parallelMinMax(raws, 0, 0, minMax);
+        assertArrayEquals(new long[]{NaN, NaN}, minMax);
+        assertEquals(6, DecimalMath.parallelDot(raws, raws, 3, 5, 1, RoundingMode.HALF_UP)); // 6.1
+        assertEquals(NaN, DecimalMath.parallelDotRD(raws, raws, 0, 5, 0));
+        long[] maxRaws = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        assertEquals(255, DecimalMath.parallelDot(maxRaws, maxRaws, 0, 3, 36, RoundingMode.HALF_UP)); // more than 2^127
+
+        Random random = new Random(42);
+        ForkJoinPool[] pools = {new ForkJoinPool(1), new ForkJoinPool(2), new ForkJoinPool(7)};
+        try {
+            for (int i = 0; i < 2000; i++) {
+                int n = random.nextInt(300);
+                long[] a = new long[n];
+                long[] b = new long[n];
+                int shift = random.nextInt(64);
+                for (int j = 0; j < n; j++) {
+                    a[j] = random.nextInt(1000) == 0 ? NaN : random.nextLong() >> shift;
+                    // long runs of one sign overflow a part, but the whole may fit
+                    b[j] = random.nextInt(4) == 0 ? -a[j] : a[j] >> random.nextInt(64);
+                }
+                int from = n == 0 ? 0 : random.nextInt(n);
+                int scale = random.nextInt(37);
+                RoundingMode rm = RoundingMode.values()[random.nextInt(RoundingMode.values().length)];
+
+                long sum = 0;
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int j = from; j < n; j++) {
+                    sum = DecimalMath.add(sum, a[j]);
+                    min = Math.min(min, a[j]);
+                    max = Math.max(max, a[j]);
+                }
+                long[] expectedMinMax = min == NaN || from == n ? new long[]{NaN, NaN} : new long[]{min, max};
+                long dot = DecimalMath.dot(a, b, from, n, scale, rm);
+
+                String message = Arrays.toString(a) + " " + from;
+                for (ForkJoinPool pool : pools) {
+                    int threshold = 1 + random.nextInt(20);
+                    assertEquals(message, sum, ParallelKernels.sum(pool, a, from, n, threshold));
+                    assertEquals(message, dot, ParallelKernels.dot(pool, a, b, from, n, scale, rm, threshold));
+                    ParallelKernels.minMax(pool, a, from, n, minMax, threshold);
+                    assertArrayEquals(message, expectedMinMax, minMax);
+                }
+            }
+        } finally {
+            for (ForkJoinPool pool : pools) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void assertAggregate(Aggregate actual, long raw, int index, int count, int nanCount, int firstNaN,
+                                        int overflow) {
+        assertAggregate("", actual, raw, index, count, nanCount, firstNaN, overflow);
+    }
+
+    private static void assertAggregate(String message, Aggregate actual, long raw, int index, int count, int nanCount,
+                                        int firstNaN, int overflow) {
+        assertEquals(message, raw, actual.getRaw());
+        assertEquals(message, index, actual.getIndex());
+        assertEquals(message, count, actual.getCount());
+        assertEquals(message, nanCount, actual.getNaNCount());
+        assertEquals(message, firstNaN, actual.getFirstNaN());
+        assertEquals(message, overflow, actual.getOverflow());
+    }
+
+    private static long expectedQuotient(BigDecimal x, BigDecimal y, RoundingMode rm) {
+        try {
+            return expected(x.divide(y, 0, rm), RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            return NaN; // failed UNNECESSARY
+        }
+    }
+
+    private static long expected(BigDecimal value, RoundingMode rm) {
+        BigInteger result;
+        try {
+            result = value.setScale(0, rm).toBigIntegerExact();
+        } catch (ArithmeticException e) {
+            return NaN; // failed UNNECESSARY
+        }
+        return result.abs().compareTo(MAX) <= 0 ? result.longValue() : NaN;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ MIT License
+
+ Copyright (c) 2016 Maxim Tomin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ SOFTWARE.
+ */
+package com.github.quickdecimal;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.text.ParseException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FloatingDecimalTest {
+    private final FloatingDecimal result = new FloatingDecimal();
+
+    @Test
+    public void testNaN() throws Exception {
+        assertTrue(result.setNaN().isNaN());
+        assertTrue(result.negate().isNaN());
+        assertEquals("NaN", result.toString());
+        assertTrue(FloatingDecimal.of(1, FloatingDecimal.MAX_SCALE + 1).isNaN());
+        assertEquals(0, FloatingDecimal.of(0, FloatingDecimal.MAX_SCALE + 1).getScale());
+        try {
+            result.checkNotNaN();
+            fail("Exception expected");
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    @Test
+    public void testToStringAndParse() throws Exception {
+        assertEquals("1.23", FloatingDecimal.of(123, 2).toString());
+        assertEquals("-0.05", FloatingDecimal.of(-5, 2).toString());
+        assertEquals("0", FloatingDecimal.of(0, 0).toString());
+        assertEquals("15E-20", FloatingDecimal.of(15, 20).toString());
+        assertEquals("-1E+3", FloatingDecimal.of(-1, -3).toString());
+
+        assertEquals(FloatingDecimal.of(150, 2), FloatingDecimal.of("1.50"));
+        assertEquals(FloatingDecimal.of(-15, 21), FloatingDecimal.of("-1.5E-20"));
+        assertEquals(FloatingDecimal.of(15, -2), FloatingDecimal.of("15e+2"));
+        assertEquals(FloatingDecimal.of(Long.MAX_VALUE, 0), FloatingDecimal.of("9223372036854775807"));
+        assertTrue(FloatingDecimal.of("nan").isNaN());
+        assertEquals(FloatingDecimal.of(15, 1), new FloatingDecimal().parse("x1.5y", 1, 3));
+
+        assertExceptionWhileParsing("9223372036854775808");
+        assertExceptionWhileParsing("1E");
+        assertExceptionWhileParsing("1E+");
+        assertExceptionWhileParsing("E5");
+        assertExceptionWhileParsing("1E9999999999");
+        assertExceptionWhileParsing("1.2.3");
+        assertExceptionWhileParsing("1.");
+        assertExceptionWhileParsing("-");
+        assertExceptionWhileParsing("");
+        assertExceptionWhileParsing("rubbish");
+    }
+
+    @Test
+    public void testArithmetic() throws Exception {
+        assertEquals("3.00", result.plusRD(of("1.50"), of("1.5")).toString());
+        assertEquals("1.00", result.subtractRD(of("2")).toString());
+        assertEquals("100000000000000000E+13", result.plus(of("1E30"), of("1E-30"), RoundingMode.DOWN).toString());
+        assertEquals("100000000000000001E+13", result.plus(of("1E30"), of("1E-30"), RoundingMode.UP).toString());
+        assertEquals("999999999999999999E+12", result.minus(of("1E30"), of("1E-30"), RoundingMode.DOWN).toString());
+        assertEquals("0.1", result.minus(of("1"), of("0.9"), RoundingMode.UNNECESSARY).toString());
+
+        assertEquals("0.0025", result.product(of("0.05"), of("0.05"), RoundingMode.UNNECESSARY).toString());
+        assertEquals("850705917302346158E+20", result.productRD(of("9223372036854775807"), of("9223372036854775807")).toString());
+
+        assertEquals("3", result.quotientRD(of("6"), of("2")).toString());
+        assertEquals("0.5", result.quotientRD(of("1"), of("2")).toString());
+        assertEquals("0.333333333333333333", result.quotientRD(of("1"), of("3")).toString());
+        assertEquals("666666666666666667E-46", result.quotient(of("2E-10"), of("3E18"), RoundingMode.HALF_UP).toString());
+
+        assertTrue(result.quotientRD(of("1"), of("0")).isNaN());
+        assertTrue(result.quotient(of("1"), of("3"), RoundingMode.UNNECESSARY).isNaN());
+        assertTrue(result.plusRD(of("1"), new FloatingDecimal().setNaN()).isNaN());
+        assertTrue(result.productRD(of("1E999999999"), of("1E999999999")).isNaN());
+    }
+
+    @Test
+    public void testConversions() throws Exception {
+        assertEquals(123, of("123.99").toLongRD());
+        assertEquals(-124, of("-123.45").toLong(RoundingMode.FLOOR));
+        assertEquals(1200, of("12E2").toLongRD());
+        assertEquals(1, of("1E-30").toLong(RoundingMode.UP));
+        assertEquals(1, FloatingDecimal.of(Long.MAX_VALUE, 19).toLong(RoundingMode.HALF_UP));
+        assertEquals(AbstractDecimal.NaN, of("1E19").toLongRD());
+        assertEquals(-1.5e-30, of("-1.5E-30").toDouble(), 1e-45);
+
+        assertEquals("1.24", of("1.235").roundTo(new TestDecimal(2), RoundingMode.HALF_EVEN).toString());
+        assertEquals("1.23", of("1.235").roundToRD(new TestDecimal(2)).toString());
+        assertTrue(of("1E20").roundToRD(new TestDecimal(2)).isNaN());
+        assertEquals(of("1.23"), result.set(new TestDecimal(2).setRaw(123)));
+    }
+
+    @Test
+    public void testCompare() throws Exception {
+        assertEquals(0, of("1.0").compareTo(of("1.00")));
+        assertTrue(of("1.0").equals(of("1.0")));
+        assertTrue(!of("1.0").equals(of("1.00")));
+        assertTrue(of("1E-30").compareTo(of("0")) > 0);
+        assertTrue(of("-1E30").compareTo(of("-1E29")) < 0);
+        assertTrue(of("123456789").compareTo(of("1.23456788E8")) > 0);
+        assertTrue(new FloatingDecimal().setNaN().compareTo(of("-1E30")) < 0);
+        assertEquals(of("1.5"), of("1.500").stripTrailingZeros());
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random random = new Random(1);
+        RoundingMode[] modes = RoundingMode.values();
+        for (int i = 0; i < 100000; i++) {
+            FloatingDecimal a = random(random);
+            FloatingDecimal b = random(random);
+            RoundingMode rm = modes[random.nextInt(modes.length)];
+            MathContext mc = new MathContext(FloatingDecimal.PRECISION, rm);
+
+            BigDecimal x = bigDecimal(a);
+            BigDecimal y = bigDecimal(b);
+            check(a + " + " + b + " " + rm, result.plus(a, b, rm), () -> x.add(y, mc));
+            check(a + " - " + b + " " + rm, result.minus(a, b, rm), () -> x.subtract(y, mc));
+            check(a + " * " + b + " " + rm, result.product(a, b, rm), () -> x.multiply(y, mc));
+            check(a + " / " + b + " " + rm, result.quotient(a, b, rm), () -> y.signum() != 0 ? x.divide(y, mc) : null);
+
+            assertEquals(a + " <> " + b, x.compareTo(y), a.compareTo(b));
+        }
+    }
+
+    private interface Expected {
+        BigDecimal get();
+    }
+
+    private static void check(String message, FloatingDecimal actual, Expected expected) {
+        BigDecimal value;
+        try {
+            value = expected.get();
+        } catch (ArithmeticException e) {
+            value = null; // failed UNNECESSARY
+        }
+        if (value == null) {
+            assertTrue(message + " = " + actual, actual.isNaN());
+            return;
+        }
+        assertEquals(message, value.stripTrailingZeros(), bigDecimal(actual).stripTrailingZeros());
+        assertTrue(message, BigInteger.valueOf(actual.getMantissa()).abs().compareTo(BigInteger.TEN.pow(18)) < 0 ||
+                value.precision() > FloatingDecimal.PRECISION);
+    }
+
+    private static FloatingDecimal random(Random random) {
+        int digits = 1 + random.nextInt(19);
+        long mantissa = random.nextLong() % (digits < 19 ? BaseDecimal.LONG_POW10[digits] : Long.MAX_VALUE);
+        int scale = random.nextInt(10) == 0 ? random.nextInt(200) - 100 : random.nextInt(40) - 20;
+        return FloatingDecimal.of(mantissa, scale);
+    }
+
+    private static BigDecimal bigDecimal(FloatingDecimal value) {
+        return BigDecimal.valueOf(value.getMantissa(), value.getScale());
+    }
+
+    private static FloatingDecimal of(String value) throws ParseException {
+        return FloatingDecimal.of(value);
+    }
+
+    private static void assertExceptionWhileParsing(String value) {
+        try {
+            new FloatingDecimal().parse(value);
+            fail("Exception expected for " + value);
+        } catch (ParseException e) {
+        }
+    }
+}
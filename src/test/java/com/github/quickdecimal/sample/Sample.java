@@ -30,7 +30,6 @@ import java.text.ParseException;
 public class Sample {
     private final Decimal margin;
     private final Quantity cumQuantity = new Quantity();
-    private final Quantity contraQuantity = new Quantity();
     private final Quantity cumContraQuantity = new Quantity();
     private final Money priceWithMargin = new Money();
     private final Money avgPrice = new Money();
@@ -41,13 +40,12 @@ public class Sample {
 
     private Money calculateAvgPrice(Quantity[] quantities, Money[] prices) {
         cumQuantity.set(0);
-        contraQuantity.set(0);
+        cumContraQuantity.set(0);
 
         for (int i = 0; i < quantities.length; i++) {
             cumQuantity.add(quantities[i]);
             priceWithMargin.set(prices[i]).mulRD(margin);
-            contraQuantity.set(quantities[i]).mulRD(priceWithMargin);
-            cumContraQuantity.add(contraQuantity);
+            cumContraQuantity.mulAddRD(quantities[i], priceWithMargin);
         }
 
         return avgPrice.quotientRD(cumContraQuantity, cumQuantity);